@@ -186,6 +186,53 @@ public class AsyncConfig {
         return executor;
     }
 
+    /**
+     * 密码哈希执行器
+     * BCrypt计算密集，使用固定大小的线程池和有界队列，队列满时直接拒绝而不是占用请求线程
+     */
+    @Bean("passwordHashExecutor")
+    public Executor passwordHashExecutor(
+            @Value("${security.password-hash.pool-size:4}") int poolSize,
+            @Value("${security.password-hash.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("myeden-password-");
+        // 拒绝策略：直接抛出异常，由调用方返回429
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        
+        executor.initialize();
+        logger.info("密码哈希执行器配置完成，线程数: {}, 队列容量: {}", poolSize, queueCapacity);
+        return executor;
+    }
+
+    /**
+     * 图片衍生图执行器
+     * 解码和重编码耗CPU和内存，使用固定大小的线程池和有界队列，队列满时拒绝，由首次请求时再生成
+     */
+    @Bean("imageDerivativeExecutor")
+    public Executor imageDerivativeExecutor(
+            @Value("${file.derivatives.pool-size:2}") int poolSize,
+            @Value("${file.derivatives.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("myeden-derivative-");
+        // 拒绝策略：直接抛出异常，由调用方放弃预生成，不占用上传请求线程
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        
+        executor.initialize();
+        logger.info("图片衍生图执行器配置完成，线程数: {}, 队列容量: {}", poolSize, queueCapacity);
+        return executor;
+    }
+
     /**
      * 获取线程池统计信息
      * 用于监控线程池使用情况
@@ -1,7 +1,9 @@
 package com.myeden.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.github.benmanes.caffeine.cache.Ticker;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +14,7 @@ import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.security.core.userdetails.UserDetails;
 
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
@@ -39,6 +42,12 @@ public class CacheConfig {
     @Value("${spring.redis.cache.key-prefix:myeden}")
     private String keyPrefix;
 
+    @Value("${jwt.cache.max-size:10000}")
+    private long verifiedTokenCacheSize;
+
+    @Value("${jwt.cache.principal-ttl:60000}")
+    private long principalCacheTtl;
+
     /**
      * Caffeine本地缓存管理器配置
      * 用于高频访问数据的本地缓存，减少Redis访问
@@ -142,6 +151,64 @@ public class CacheConfig {
                 .build();
     }
 
+    /**
+     * 动态流总数缓存配置
+     * 游标分页按需返回总数时使用，避免每页执行count
+     */
+    @Bean("feedTotalCache")
+    public com.github.benmanes.caffeine.cache.Cache<String, Long> feedTotalCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(1000) // 全部、按作者类型、按作者
+                .expireAfterWrite(60, TimeUnit.SECONDS) // 总数允许1分钟内的误差
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 已验证token缓存配置
+     * 键为token的SHA-256摘要，条目在token过期时刻失效，命中时跳过签名校验
+     */
+    @Bean("verifiedTokenCache")
+    public com.github.benmanes.caffeine.cache.Cache<String, Claims> verifiedTokenCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(verifiedTokenCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        if (claims.getExpiration() == null) {
+                            return TimeUnit.MILLISECONDS.toNanos(cacheTimeToLive);
+                        }
+                        long remaining = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, claims, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 认证主体缓存配置
+     * 短时间缓存UserDetails，用户资料变更时失效
+     */
+    @Bean("principalCache")
+    public com.github.benmanes.caffeine.cache.Cache<String, UserDetails> principalCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(verifiedTokenCacheSize)
+                .expireAfterWrite(principalCacheTtl, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
     /**
      * 用户会话缓存配置
      * 针对用户会话的快速访问优化
@@ -3,6 +3,9 @@ package com.myeden.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Dify API配置类
  * 管理Dify API的连接参数和配置信息
@@ -54,6 +57,101 @@ public class DifyConfig {
      */
     private int hourlyLimit = 100;
     
+    /**
+     * 是否按机器人和讨论线索复用Dify对话，复用时人设背景每个对话只发送一次
+     */
+    private boolean conversationEnabled = false;
+    
+    /**
+     * 单个对话的最大轮数，超过后开启新对话并重新发送人设背景
+     */
+    private int conversationMaxTurns = 20;
+    
+    /**
+     * 多个Dify端点（应用/密钥），未配置时使用url和key作为唯一端点
+     */
+    private List<Endpoint> endpoints = new ArrayList<>();
+    
+    /**
+     * 所有端点并发已满时等待空闲的最长时间（毫秒）
+     */
+    private long acquireTimeout = 5000;
+    
+    /**
+     * 端点连续失败多少次后暂时摘除
+     */
+    private int ejectFailureThreshold = 3;
+    
+    /**
+     * 端点摘除时长（毫秒）
+     */
+    private long ejectDuration = 30000;
+    
+    /**
+     * Dify端点配置
+     */
+    public static class Endpoint {
+        
+        /**
+         * 端点名称，用于指标标签，默认取URL的主机名
+         */
+        private String name;
+        
+        private String url;
+        
+        private String key;
+        
+        /**
+         * 权重，越大分到的请求越多
+         */
+        private int weight = 1;
+        
+        /**
+         * 最大并发请求数，0表示不限
+         */
+        private int maxConcurrency = 8;
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public String getUrl() {
+            return url;
+        }
+        
+        public void setUrl(String url) {
+            this.url = url;
+        }
+        
+        public String getKey() {
+            return key;
+        }
+        
+        public void setKey(String key) {
+            this.key = key;
+        }
+        
+        public int getWeight() {
+            return weight;
+        }
+        
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
+        
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+        
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+    }
+    
     // Getters and Setters
     public String getUrl() {
         return url;
@@ -118,4 +216,52 @@ public class DifyConfig {
     public void setHourlyLimit(int hourlyLimit) {
         this.hourlyLimit = hourlyLimit;
     }
-} 
\ No newline at end of file
+    
+    public boolean isConversationEnabled() {
+        return conversationEnabled;
+    }
+    
+    public void setConversationEnabled(boolean conversationEnabled) {
+        this.conversationEnabled = conversationEnabled;
+    }
+    
+    public int getConversationMaxTurns() {
+        return conversationMaxTurns;
+    }
+    
+    public void setConversationMaxTurns(int conversationMaxTurns) {
+        this.conversationMaxTurns = conversationMaxTurns;
+    }
+    
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+    
+    public void setEndpoints(List<Endpoint> endpoints) {
+        this.endpoints = endpoints;
+    }
+    
+    public long getAcquireTimeout() {
+        return acquireTimeout;
+    }
+    
+    public void setAcquireTimeout(long acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+    
+    public int getEjectFailureThreshold() {
+        return ejectFailureThreshold;
+    }
+    
+    public void setEjectFailureThreshold(int ejectFailureThreshold) {
+        this.ejectFailureThreshold = ejectFailureThreshold;
+    }
+    
+    public long getEjectDuration() {
+        return ejectDuration;
+    }
+    
+    public void setEjectDuration(long ejectDuration) {
+        this.ejectDuration = ejectDuration;
+    }
+} 
@@ -90,6 +90,25 @@ public class IndexConfig {
         }
     }
 
+    /**
+     * 安全删除索引
+     * 索引不存在时跳过
+     */
+    private void dropIndexSafely(MongoDatabase database, String collectionName, String indexName) {
+        try {
+            var collection = database.getCollection(collectionName);
+            for (var index : collection.listIndexes()) {
+                if (indexName.equals(index.getString("name"))) {
+                    collection.dropIndex(indexName);
+                    logger.info("索引删除成功: {} - {}", collectionName, indexName);
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("删除索引失败: {} - {}, 错误: {}", collectionName, indexName, e.getMessage());
+        }
+    }
+
     /**
      * 创建用户集合索引
      * 优化用户查询、登录、注册等操作
@@ -155,10 +174,12 @@ public class IndexConfig {
             new IndexOptions().name("idx_author_created_compound")
         );
         
-        // 内容文本索引（用于搜索）
+        // 搜索词元文本索引（用于搜索）
+        // 一个集合只能有一个文本索引，先移除旧的通配符文本索引
+        dropIndexSafely(database, "posts", "idx_content_text");
         createIndexSafely(database, "posts", 
-            new org.bson.Document("$**", "text"),
-            new IndexOptions().name("idx_content_text")
+            new org.bson.Document("searchTokens", "text"),
+            new IndexOptions().name("idx_post_search_text").defaultLanguage("none")
         );
         
         // 软删除索引
@@ -21,9 +21,10 @@ import java.util.List;
 @ConfigurationProperties(prefix = "robots")
 public class RobotConfig {
     
-    private BaseConfig baseConfig;
-    private List<RobotInfo> list;
-    private BehaviorAlgorithm behaviorAlgorithm;
+    // 配置文件热更新时整体替换引用，volatile保证调度线程立即看到新值
+    private volatile BaseConfig baseConfig;
+    private volatile List<RobotInfo> list;
+    private volatile BehaviorAlgorithm behaviorAlgorithm;
     
     // Getter和Setter方法
     public BaseConfig getBaseConfig() { return baseConfig; }
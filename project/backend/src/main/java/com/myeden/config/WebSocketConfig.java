@@ -1,10 +1,15 @@
 package com.myeden.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
  * WebSocket配置类
@@ -14,6 +19,7 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
  * - 启用STOMP协议支持
  * - 配置消息路由和订阅前缀
  * - 设置跨域访问策略
+ * - 配置代理级STOMP心跳和慢消费者的发送缓冲/超时限制
  * 
  * @author MyEden Team
  * @version 1.0.0
@@ -23,6 +29,24 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private WebSocketSessionManager webSocketSessionManager;
+
+    @Value("${websocket.heartbeat.interval:30000}")
+    private long heartbeatInterval;
+
+    @Value("${websocket.heartbeat.timeout:60000}")
+    private long heartbeatTimeout;
+
+    @Value("${websocket.transport.send-time-limit:15000}")
+    private int sendTimeLimit;
+
+    @Value("${websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
     /**
      * 配置消息代理
      * 
@@ -32,7 +56,11 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         // 启用简单的内存消息代理，用于向客户端发送消息
         // 客户端订阅前缀为 /topic
-        registry.enableSimpleBroker("/topic", "/queue");
+        // 心跳值为 [服务端发送间隔, 期望客户端发送间隔]，
+        // 简单代理在3倍接收间隔内未收到任何帧时关闭会话，因此接收间隔取超时时间的1/3
+        registry.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[]{heartbeatInterval, heartbeatTimeout / 3})
+                .setTaskScheduler(websocketHeartbeatScheduler());
         
         // 设置应用程序前缀，客户端发送消息到服务器时使用
         registry.setApplicationDestinationPrefixes("/app");
@@ -41,6 +69,22 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.setUserDestinationPrefix("/user");
     }
 
+    /**
+     * 配置WebSocket传输参数
+     * 
+     * 慢消费者的发送缓冲超过上限或单次发送超时后会话将被关闭，
+     * 避免消息在内存中无限堆积
+     * 
+     * @param registration 传输配置注册器
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(webSocketSessionManager::decorate);
+    }
+
     /**
      * 注册STOMP端点
      * 
@@ -57,4 +101,18 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*");
     }
-} 
\ No newline at end of file
+
+    /**
+     * STOMP心跳调度器
+     * 独立于业务定时任务调度器，避免心跳被耗时任务阻塞
+     */
+    @Bean("websocketHeartbeatScheduler")
+    public ThreadPoolTaskScheduler websocketHeartbeatScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("myeden-ws-heartbeat-");
+        scheduler.setDaemon(true);
+        scheduler.initialize();
+        return scheduler;
+    }
+}
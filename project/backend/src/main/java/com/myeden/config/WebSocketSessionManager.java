@@ -0,0 +1,284 @@
+package com.myeden.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebSocket会话生命周期管理器
+ *
+ * 功能说明：
+ * - 跟踪所有底层WebSocket会话及其最近活跃时间
+ * - 执行每个用户的最大会话数限制（超出时关闭最早的会话）
+ * - 定期回收空闲会话和未完成STOMP握手的泄漏会话
+ * - 记录每个会话协商的负载编码（JSON或紧凑二进制）
+ *
+ * 会话的活跃时间由客户端入站帧（包括STOMP心跳）刷新，
+ * 因此正常发送心跳的客户端不会被回收。
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class WebSocketSessionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketSessionManager.class);
+
+    /**
+     * 超出会话上限时的关闭状态
+     */
+    private static final CloseStatus SESSION_LIMIT_EXCEEDED =
+            CloseStatus.POLICY_VIOLATION.withReason("超出每个用户的最大会话数");
+
+    /**
+     * 空闲回收时的关闭状态
+     */
+    private static final CloseStatus SESSION_IDLE_TIMEOUT =
+            CloseStatus.SESSION_NOT_RELIABLE.withReason("会话空闲超时");
+
+    @Value("${websocket.connection.max-sessions-per-user:3}")
+    private int maxSessionsPerUser;
+
+    @Value("${websocket.connection.session-timeout:3600000}")
+    private long sessionTimeout;
+
+    @Value("${websocket.heartbeat.timeout:60000}")
+    private long heartbeatTimeout;
+
+    /**
+     * 会话映射：会话ID -> 会话信息
+     */
+    private final Map<String, ManagedSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 使用紧凑编码的会话数量
+     */
+    private final AtomicInteger compactSessionCount = new AtomicInteger();
+
+    /**
+     * 包装STOMP处理器，以便跟踪底层会话的建立、活跃和关闭
+     *
+     * @param handler 原始WebSocket处理器
+     * @return 装饰后的处理器
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), new ManagedSession(session));
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                ManagedSession managed = sessions.get(session.getId());
+                if (managed != null) {
+                    managed.touch();
+                }
+                super.handleMessage(session, message);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                unregister(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * 将会话绑定到用户，并执行每个用户的最大会话数限制
+     *
+     * @param sessionId 会话ID
+     * @param userId 用户ID
+     * @param compact 是否协商使用紧凑编码（SockJS会话不支持二进制帧，始终使用JSON）
+     */
+    public void bindUser(String sessionId, String userId, boolean compact) {
+        ManagedSession managed = sessions.get(sessionId);
+        if (managed == null) {
+            return;
+        }
+        managed.userId = userId;
+        managed.bound = true;
+        managed.touch();
+        if (compact && !managed.compact && !(managed.session instanceof SockJsSession)) {
+            managed.compact = true;
+            compactSessionCount.incrementAndGet();
+        }
+
+        if (userId == null || maxSessionsPerUser <= 0) {
+            return;
+        }
+
+        List<ManagedSession> userSessions = getUserSessions(userId);
+        int excess = userSessions.size() - maxSessionsPerUser;
+        if (excess <= 0) {
+            return;
+        }
+
+        // 关闭最早建立的会话
+        userSessions.sort(Comparator.comparingLong(s -> s.connectedAt));
+        for (int i = 0; i < excess; i++) {
+            ManagedSession oldest = userSessions.get(i);
+            logger.info("用户会话数超出上限，关闭最早的会话: userId={}, sessionId={}, limit={}",
+                    userId, oldest.session.getId(), maxSessionsPerUser);
+            close(oldest, SESSION_LIMIT_EXCEEDED);
+        }
+    }
+
+    /**
+     * 关闭指定用户的所有会话
+     *
+     * @param userId 用户ID
+     * @return 关闭的会话数量
+     */
+    public int closeUserSessions(String userId) {
+        List<ManagedSession> userSessions = getUserSessions(userId);
+        for (ManagedSession managed : userSessions) {
+            close(managed, CloseStatus.NORMAL);
+        }
+        return userSessions.size();
+    }
+
+    /**
+     * 是否存在使用紧凑编码的会话
+     *
+     * @return 是否存在
+     */
+    public boolean hasCompactSessions() {
+        return compactSessionCount.get() > 0;
+    }
+
+    /**
+     * 检查用户的会话使用的编码
+     *
+     * @param userId 用户ID
+     * @param compact true检查紧凑编码会话，false检查JSON会话
+     * @return 是否存在该编码的会话
+     */
+    public boolean hasUserSessions(String userId, boolean compact) {
+        for (ManagedSession managed : getUserSessions(userId)) {
+            if (managed.compact == compact) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取当前打开的底层会话数量
+     *
+     * @return 会话数量
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 定期回收空闲会话
+     *
+     * 回收规则：
+     * - 已绑定STOMP连接的会话：超过会话超时时间没有任何入站帧
+     * - 未完成STOMP握手的会话：超过心跳超时时间仍未绑定
+     */
+    @Scheduled(fixedDelayString = "${websocket.connection.reap-interval:60000}")
+    public void reapIdleSessions() {
+        long now = System.currentTimeMillis();
+        int reaped = 0;
+
+        for (ManagedSession managed : sessions.values()) {
+            long idle = now - managed.lastActiveAt;
+            boolean expired = managed.bound ? idle > sessionTimeout : idle > heartbeatTimeout;
+            if (expired) {
+                close(managed, SESSION_IDLE_TIMEOUT);
+                reaped++;
+            }
+        }
+
+        if (reaped > 0) {
+            logger.info("回收空闲WebSocket会话完成: reaped={}, remaining={}", reaped, sessions.size());
+        }
+    }
+
+    /**
+     * 获取用户的所有会话
+     */
+    private List<ManagedSession> getUserSessions(String userId) {
+        List<ManagedSession> result = new ArrayList<>();
+        for (ManagedSession managed : sessions.values()) {
+            if (userId.equals(managed.userId)) {
+                result.add(managed);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 关闭会话并移除跟踪记录
+     */
+    private void close(ManagedSession managed, CloseStatus status) {
+        unregister(managed.session.getId());
+        try {
+            if (managed.session.isOpen()) {
+                managed.session.close(status);
+            }
+        } catch (IOException e) {
+            logger.warn("关闭WebSocket会话失败: sessionId={}", managed.session.getId(), e);
+        }
+    }
+
+    /**
+     * 移除会话跟踪记录
+     */
+    private void unregister(String sessionId) {
+        ManagedSession removed = sessions.remove(sessionId);
+        if (removed != null && removed.compact) {
+            compactSessionCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * 被跟踪的会话信息
+     */
+    private static class ManagedSession {
+
+        private final WebSocketSession session;
+
+        private final long connectedAt;
+
+        private volatile long lastActiveAt;
+
+        private volatile String userId;
+
+        private volatile boolean bound;
+
+        private volatile boolean compact;
+
+        ManagedSession(WebSocketSession session) {
+            this.session = session;
+            this.connectedAt = System.currentTimeMillis();
+            this.lastActiveAt = this.connectedAt;
+        }
+
+        void touch() {
+            this.lastActiveAt = System.currentTimeMillis();
+        }
+    }
+}
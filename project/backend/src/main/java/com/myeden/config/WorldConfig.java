@@ -22,14 +22,15 @@ import java.util.Map;
 @ConfigurationProperties(prefix = "world")
 public class WorldConfig {
     
-    private String name;
-    private String version;
-    private String description;
-    private Background background;
-    private Environment environment;
-    private Activities activities;
-    private Statistics statistics;
-    private Settings settings;
+    // 配置文件热更新时逐个字段替换引用，volatile保证其他线程立即看到新值
+    private volatile String name;
+    private volatile String version;
+    private volatile String description;
+    private volatile Background background;
+    private volatile Environment environment;
+    private volatile Activities activities;
+    private volatile Statistics statistics;
+    private volatile Settings settings;
     
     // Getter和Setter方法
     public String getName() { return name; }
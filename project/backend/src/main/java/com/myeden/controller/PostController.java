@@ -118,6 +118,47 @@ public class PostController {
         }
     }
     
+    /**
+     * 游标分页获取动态流
+     * @param cursor 上一页返回的游标（第一页不传）
+     * @param size 每页大小
+     * @param authorType 作者类型过滤（可选）
+     * @param withTotal 是否返回总数
+     * @return 动态列表和下一页游标
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<EventResponse> getPostFeed(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "authorType", required = false) String authorType,
+            @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal) {
+        
+        try {
+            logger.info("游标获取动态流，大小: {}, 作者类型: {}", size, authorType);
+            
+            // 参数验证
+            if (size < 1 || size > 50) {
+                size = 10;
+            }
+            
+            PostService.PostFeedResult result = postService.getPostFeed(cursor, size, authorType, withTotal);
+            
+            return ResponseEntity.ok(new EventResponse(
+                200,
+                "获取动态流成功",
+                result
+            ));
+            
+        } catch (Exception e) {
+            logger.error("获取动态流失败", e);
+            return ResponseEntity.badRequest().body(new EventResponse(
+                400,
+                "获取动态流失败: " + e.getMessage(),
+                null
+            ));
+        }
+    }
+    
     /**
      * 获取动态详情
      * @param postId 动态ID
@@ -328,6 +369,47 @@ public class PostController {
         }
     }
     
+    /**
+     * 游标分页获取用户的动态流
+     * @param authorId 作者ID
+     * @param cursor 上一页返回的游标（第一页不传）
+     * @param size 每页大小
+     * @param withTotal 是否返回总数
+     * @return 用户动态列表和下一页游标
+     */
+    @GetMapping("/user/{authorId}/feed")
+    public ResponseEntity<EventResponse> getUserPostFeed(
+            @PathVariable String authorId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal) {
+        
+        try {
+            logger.info("游标获取用户动态流，用户ID: {}, 大小: {}", authorId, size);
+            
+            // 参数验证
+            if (size < 1 || size > 50) {
+                size = 10;
+            }
+            
+            PostService.PostFeedResult result = postService.getUserPostFeed(authorId, cursor, size, withTotal);
+            
+            return ResponseEntity.ok(new EventResponse(
+                200,
+                "获取用户动态流成功",
+                result
+            ));
+            
+        } catch (Exception e) {
+            logger.error("获取用户动态流失败", e);
+            return ResponseEntity.badRequest().body(new EventResponse(
+                400,
+                "获取用户动态流失败: " + e.getMessage(),
+                null
+            ));
+        }
+    }
+    
     /**
      * 根据关键字搜索动态
      * @param keyword 搜索关键字
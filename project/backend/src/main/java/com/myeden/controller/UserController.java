@@ -2,6 +2,8 @@ package com.myeden.controller;
 
 import com.myeden.entity.User;
 import com.myeden.service.JwtService;
+import com.myeden.service.LoginThrottle;
+import com.myeden.service.ThrottledException;
 import com.myeden.service.UserService;
 import com.myeden.controller.EventResponse;
 import com.myeden.config.RequireAuthentication;
@@ -36,12 +38,15 @@ public class UserController {
     @Autowired
     private JwtService jwtService;
     
+    @Autowired
+    private LoginThrottle loginThrottle;
+    
     /**
      * 用户注册
      * POST /api/v1/users/register
      */
     @PostMapping("/register")
-    public ResponseEntity<EventResponse> register(@RequestBody Map<String, String> request) {
+    public ResponseEntity<EventResponse> register(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
         try {
             String phone = request.get("phone");
             String password = request.get("password");
@@ -54,11 +59,16 @@ public class UserController {
                 return ResponseEntity.badRequest().body(EventResponse.error(400, "密码不能为空"));
             }
             
+            // 限流检查，在密码哈希之前拒绝超额请求
+            loginThrottle.acquire(phone, httpRequest.getRemoteAddr());
+            
             // 执行注册
             UserService.UserRegisterResult result = userService.register(phone, password);
             
             return ResponseEntity.ok(EventResponse.success(result, "注册成功"));
             
+        } catch (ThrottledException e) {
+            return ResponseEntity.status(429).body(EventResponse.error(429, e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(EventResponse.error(e.getMessage()));
         }
@@ -69,7 +79,7 @@ public class UserController {
      * POST /api/v1/users/login
      */
     @PostMapping("/login")
-    public ResponseEntity<EventResponse> login(@RequestBody Map<String, String> request) {
+    public ResponseEntity<EventResponse> login(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
         try {
             String phone = request.get("phone");
             String password = request.get("password");
@@ -82,11 +92,16 @@ public class UserController {
                 return ResponseEntity.badRequest().body(EventResponse.error(400, "密码不能为空"));
             }
             
+            // 限流检查，在密码哈希之前拒绝超额请求
+            loginThrottle.acquire(phone, httpRequest.getRemoteAddr());
+            
             // 执行登录
             UserService.UserLoginResult result = userService.login(phone, password);
             
             return ResponseEntity.ok(EventResponse.success(result, "登录成功"));
             
+        } catch (ThrottledException e) {
+            return ResponseEntity.status(429).body(EventResponse.error(429, e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(EventResponse.error(e.getMessage()));
         }
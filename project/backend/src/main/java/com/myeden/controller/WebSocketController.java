@@ -1,5 +1,6 @@
 package com.myeden.controller;
 
+import com.myeden.service.WebSocketPayloadCodec;
 import com.myeden.service.WebSocketService;
 import com.myeden.model.WebSocketMessage;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +18,7 @@ import java.util.HashMap;
  * - 提供在线用户信息查询接口
  * - 提供手动消息推送接口
  * - 处理用户上线消息广播
+ * - 提供紧凑编码的标签字典
  * 
  * @author MyEden Team
  * @version 1.0.0
@@ -29,6 +31,9 @@ public class WebSocketController {
     @Autowired
     private WebSocketService webSocketService;
     
+    @Autowired
+    private WebSocketPayloadCodec payloadCodec;
+    
     /**
      * 用户上线消息推送
      * 
@@ -134,4 +139,20 @@ public class WebSocketController {
             return EventResponse.error("发送心跳消息失败: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 获取紧凑编码标签字典
+     * 客户端在CONNECT帧中声明 payload-encoding: cbor 后，
+     * 订阅 /topic/broadcast.cbor 和 /user/queue/messages.cbor 接收CBOR负载
+     * 
+     * @return 标签字典
+     */
+    @GetMapping("/encoding")
+    public EventResponse getEncodingDictionary() {
+        try {
+            return EventResponse.success(payloadCodec.getTagDictionary(), "获取编码字典成功");
+        } catch (Exception e) {
+            return EventResponse.error("获取编码字典失败: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.myeden.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.Indexed;
+
+import java.time.LocalDateTime;
+
+/**
+ * 内容寻址文件实体
+ * 
+ * 功能说明：
+ * - 记录按SHA-256命名存储的上传文件
+ * - 维护引用计数，相同内容的重复上传共用同一个文件
+ * - 引用计数归零时才删除磁盘上的文件
+ * 
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "file_blobs")
+public class FileBlob {
+    
+    /**
+     * 记录ID
+     */
+    @Id
+    private String id;
+    
+    /**
+     * 文件URL（/uploads/{子目录}/{sha256}.{扩展名}）
+     */
+    @Indexed(unique = true)
+    private String fileUrl;
+    
+    /**
+     * 文件内容的SHA-256（十六进制）
+     */
+    private String sha256;
+    
+    /**
+     * 文件大小（字节）
+     */
+    private Long size;
+    
+    /**
+     * 引用计数
+     */
+    private Integer refCount;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
@@ -3,6 +3,7 @@ package com.myeden.entity;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -50,6 +51,17 @@ public class Post {
      */
     private String content;
     
+    /**
+     * 搜索词元（由内容切分生成，用于文本索引）
+     */
+    private String searchTokens;
+    
+    /**
+     * 文本搜索相关度得分（仅文本搜索结果中有值，不持久化）
+     */
+    @TextScore
+    private Float score;
+    
     /**
      * 内心活动（仅机器人动态）
      */
@@ -60,6 +72,11 @@ public class Post {
      */
     private List<String> images = new ArrayList<>();
     
+    /**
+     * 缩略图URL数组，与images一一对应
+     */
+    private List<String> thumbnails = new ArrayList<>();
+    
     /**
      * 点赞数
      */
@@ -140,6 +157,18 @@ public class Post {
         this.content = content;
     }
     
+    public String getSearchTokens() {
+        return searchTokens;
+    }
+    
+    public void setSearchTokens(String searchTokens) {
+        this.searchTokens = searchTokens;
+    }
+    
+    public Float getScore() {
+        return score;
+    }
+    
     public String getInnerThoughts() {
         return innerThoughts;
     }
@@ -156,6 +185,14 @@ public class Post {
         this.images = images;
     }
     
+    public List<String> getThumbnails() {
+        return thumbnails;
+    }
+    
+    public void setThumbnails(List<String> thumbnails) {
+        this.thumbnails = thumbnails;
+    }
+    
     public Integer getLikeCount() {
         return likeCount;
     }
@@ -1,6 +1,9 @@
 package com.myeden.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.myeden.model.ActiveSchedule;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
 
@@ -150,6 +153,12 @@ public class Robot {
      */
     private List<ActiveTimeRange> activeTimeRanges = new ArrayList<>();
     
+    /**
+     * 编译后的活跃时间表（不持久化，首次使用时编译）
+     */
+    @Transient
+    private ActiveSchedule activeSchedule;
+    
     /**
      * 个人主题列表
      * 存储机器人喜欢讨论的个人主题，用于内容生成
@@ -171,6 +180,12 @@ public class Robot {
      */
     private LocalDateTime updatedAt;
     
+    /**
+     * 配置指纹，配置同步时用于判断机器人配置是否变化
+     */
+    @JsonIgnore
+    private String configHash;
+    
     // 内部类：活跃时间段
     public static class ActiveTimeRange {
         private String startTime; // 开始时间 HH:mm
@@ -483,6 +498,18 @@ public class Robot {
     
     public void setActiveTimeRanges(List<ActiveTimeRange> activeTimeRanges) {
         this.activeTimeRanges = activeTimeRanges;
+        this.activeSchedule = null;
+    }
+    
+    /**
+     * 获取编译后的活跃时间表
+     */
+    @JsonIgnore
+    public ActiveSchedule getActiveSchedule() {
+        if (activeSchedule == null) {
+            activeSchedule = ActiveSchedule.compile(activeTimeRanges);
+        }
+        return activeSchedule;
     }
     
     public List<Topic> getTopics() {
@@ -517,11 +544,20 @@ public class Robot {
         this.updatedAt = updatedAt;
     }
     
+    public String getConfigHash() {
+        return configHash;
+    }
+    
+    public void setConfigHash(String configHash) {
+        this.configHash = configHash;
+    }
+    
     /**
      * 添加活跃时间段
      */
     public void addActiveTimeRange(String startTime, String endTime) {
         this.activeTimeRanges.add(new ActiveTimeRange(startTime, endTime));
+        this.activeSchedule = null;
     }
     
     /**
@@ -559,37 +595,7 @@ public class Robot {
      * 检查是否在活跃时间段
      */
     public boolean isInActiveTimeSlot() {
-        if (this.activeTimeRanges.isEmpty()) {
-            return true; // 如果没有设置活跃时间，默认全天活跃
-        }
-        
-        LocalTime currentTime = LocalTime.now();
-        
-        for (ActiveTimeRange range : this.activeTimeRanges) {
-            if (isTimeInRange(currentTime, range.getStartTime(), range.getEndTime())) {
-                return true;
-            }
-        }
-        return false;
-    }
-    
-    /**
-     * 检查时间是否在指定范围内（支持跨天时间段）
-     */
-    private boolean isTimeInRange(LocalTime currentTime, String startTimeStr, String endTimeStr) {
-        LocalTime startTime = LocalTime.parse(startTimeStr);
-        LocalTime endTime = LocalTime.parse(endTimeStr);
-        
-        // 如果结束时间小于开始时间，说明是跨天时间段
-        if (endTime.isBefore(startTime)) {
-            // 跨天时间段：当前时间 >= 开始时间 或 当前时间 <= 结束时间
-            return currentTime.isAfter(startTime) || currentTime.equals(startTime) || 
-                   currentTime.isBefore(endTime) || currentTime.equals(endTime);
-        } else {
-            // 同一天时间段：开始时间 <= 当前时间 <= 结束时间
-            return (currentTime.isAfter(startTime) || currentTime.equals(startTime)) && 
-                   (currentTime.isBefore(endTime) || currentTime.equals(endTime));
-        }
+        return getActiveSchedule().isActiveAt(LocalTime.now());
     }
     
     /**
@@ -625,6 +631,7 @@ public class Robot {
         this.replyFrequency = robot.getReplyFrequency();
         this.shareFrequency = robot.getShareFrequency();
         this.activeTimeRanges = robot.getActiveTimeRanges();
+        this.activeSchedule = null;
         this.topics = robot.getTopics();
         this.isActive = robot.getIsActive();
         this.updatedAt = LocalDateTime.now();
@@ -0,0 +1,67 @@
+package com.myeden.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.Indexed;
+
+import java.time.LocalDateTime;
+
+/**
+ * 机器人每日配额检查点实体
+ *
+ * 功能说明：
+ * - 保存机器人当天已使用的发布、评论、回复次数
+ * - 由配额账本定期写入，服务重启时恢复当天计数
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "robot_daily_quotas")
+public class RobotDailyQuota {
+
+    /**
+     * 记录ID（{机器人ID}:{日期}）
+     */
+    @Id
+    private String id;
+
+    /**
+     * 机器人ID
+     */
+    private String robotId;
+
+    /**
+     * 日期（yyyy-MM-dd）
+     */
+    @Indexed
+    private String day;
+
+    /**
+     * 已发布动态次数
+     */
+    private Integer postCount;
+
+    /**
+     * 已发表评论次数
+     */
+    private Integer commentCount;
+
+    /**
+     * 已回复评论次数
+     */
+    private Integer replyCount;
+
+    /**
+     * 检查点写入时间
+     */
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,63 @@
+package com.myeden.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+
+import java.time.LocalDateTime;
+
+/**
+ * 机器人预生成动态草稿实体
+ *
+ * 功能说明：
+ * - 保存低峰时段预先生成、尚未发布的机器人动态内容和内心活动
+ * - 草稿按目标发布时间生成，只在目标时间附近发布，过期后丢弃
+ * - 发布时原子地取出并删除
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "robot_post_drafts")
+@CompoundIndex(name = "robot_target_idx", def = "{'robotId': 1, 'targetTime': 1}")
+public class RobotPostDraft {
+
+    /**
+     * 记录ID
+     */
+    @Id
+    private String id;
+
+    /**
+     * 机器人ID
+     */
+    private String robotId;
+
+    /**
+     * 动态内容
+     */
+    private String content;
+
+    /**
+     * 内心活动
+     */
+    private String innerThoughts;
+
+    /**
+     * 目标发布时间（生成内容时使用的时间上下文）
+     */
+    private LocalDateTime targetTime;
+
+    /**
+     * 生成时间
+     */
+    private LocalDateTime createdAt;
+}
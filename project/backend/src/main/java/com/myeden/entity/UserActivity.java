@@ -0,0 +1,93 @@
+package com.myeden.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.Indexed;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户活跃度聚合实体
+ * 
+ * 功能说明：
+ * - 按用户预先聚合发帖数、评论数、获赞数和最后活跃时间
+ * - 由发帖、评论、点赞等写操作原子递增维护
+ * - 定期通过$group聚合重建，修正遗漏的增量
+ * 
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "user_activities")
+public class UserActivity {
+    
+    /**
+     * 记录ID
+     */
+    @Id
+    private String id;
+    
+    /**
+     * 用户ID
+     */
+    @Indexed(unique = true)
+    private String userId;
+    
+    /**
+     * 未删除的动态数
+     */
+    private Long totalPosts;
+    
+    /**
+     * 未删除的评论数
+     */
+    private Long totalComments;
+    
+    /**
+     * 动态获得的点赞数
+     */
+    private Long postLikes;
+    
+    /**
+     * 评论获得的点赞数
+     */
+    private Long commentLikes;
+    
+    /**
+     * 今日计数对应的日期（yyyy-MM-dd）
+     */
+    private String activityDay;
+    
+    /**
+     * 今日发布的动态数
+     */
+    private Long todayPosts;
+    
+    /**
+     * 今日发布的评论数
+     */
+    private Long todayComments;
+    
+    /**
+     * 最后活跃时间（最新的发帖或评论时间）
+     */
+    private LocalDateTime lastActiveAt;
+    
+    /**
+     * 上次聚合重建时间
+     */
+    private LocalDateTime reconciledAt;
+    
+    /**
+     * 上次增量更新时间，聚合重建时跳过重建期间有增量的记录
+     */
+    private LocalDateTime updatedAt;
+}
@@ -73,6 +73,11 @@ public class WorldConfig {
      */
     private LocalDateTime updatedAt;
     
+    /**
+     * 配置指纹，配置同步时用于判断世界配置是否变化
+     */
+    private String configHash;
+    
     // 构造函数
     public WorldConfig() {
         this.createdAt = LocalDateTime.now();
@@ -167,6 +172,14 @@ public class WorldConfig {
         this.updatedAt = updatedAt;
     }
     
+    public String getConfigHash() {
+        return configHash;
+    }
+    
+    public void setConfigHash(String configHash) {
+        this.configHash = configHash;
+    }
+    
     /**
      * 添加机器人到世界
      */
@@ -0,0 +1,46 @@
+package com.myeden.event;
+
+/**
+ * 作者资料变更事件
+ *
+ * 功能说明：
+ * - 用户注册、修改资料或机器人配置同步后发布
+ * - created标记新注册的用户或新创建的机器人
+ * - 携带作者当前的显示名，供作者名索引等监听方增量更新
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class AuthorProfileChangedEvent {
+
+    private final String authorId;
+    private final String authorType;
+    private final String name;
+    private final boolean created;
+
+    public AuthorProfileChangedEvent(String authorId, String authorType, String name) {
+        this(authorId, authorType, name, false);
+    }
+
+    public AuthorProfileChangedEvent(String authorId, String authorType, String name, boolean created) {
+        this.authorId = authorId;
+        this.authorType = authorType;
+        this.name = name;
+        this.created = created;
+    }
+
+    public String getAuthorId() { return authorId; }
+    public String getAuthorType() { return authorType; }
+    public String getName() { return name; }
+    public boolean isCreated() { return created; }
+
+    @Override
+    public String toString() {
+        return "AuthorProfileChangedEvent{" +
+                "authorId='" + authorId + '\'' +
+                ", authorType='" + authorType + '\'' +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
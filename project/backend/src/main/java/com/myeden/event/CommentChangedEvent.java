@@ -0,0 +1,89 @@
+package com.myeden.event;
+
+import com.myeden.entity.Comment;
+
+import java.time.LocalDateTime;
+
+/**
+ * 评论变更事件
+ *
+ * 功能说明：
+ * - 评论或回复发布、删除以及点赞数变化后发布
+ * - 携带评论内容快照，供搜索索引等监听方增量更新
+ * - 在写操作的线程中同步分发，监听方不应执行耗时操作
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class CommentChangedEvent {
+
+    /**
+     * 变更类型
+     */
+    public enum ChangeType {
+        CREATED,            // 发布评论或回复
+        DELETED,            // 删除评论
+        LIKE_COUNT_CHANGED  // 点赞数变化
+    }
+
+    private final ChangeType changeType;
+    private final String commentId;
+    private final String postId;
+    private final String parentId;
+    private final String authorId;
+    private final String authorType;
+    private final String content;
+    private final LocalDateTime createdAt;
+    private final int likeCount;
+    private final int likeDelta;
+
+    public CommentChangedEvent(ChangeType changeType, Comment comment) {
+        this(changeType, comment, 0);
+    }
+
+    public CommentChangedEvent(ChangeType changeType, Comment comment, int likeDelta) {
+        this.changeType = changeType;
+        this.commentId = comment.getCommentId();
+        this.postId = comment.getPostId();
+        this.parentId = comment.getParentId();
+        this.authorId = comment.getAuthorId();
+        this.authorType = comment.getAuthorType();
+        this.content = comment.getContent();
+        this.createdAt = comment.getCreatedAt();
+        this.likeCount = comment.getLikeCount() != null ? comment.getLikeCount() : 0;
+        this.likeDelta = likeDelta;
+    }
+
+    public static CommentChangedEvent created(Comment comment) {
+        return new CommentChangedEvent(ChangeType.CREATED, comment);
+    }
+
+    public static CommentChangedEvent deleted(Comment comment) {
+        return new CommentChangedEvent(ChangeType.DELETED, comment);
+    }
+
+    public static CommentChangedEvent likeCountChanged(Comment comment, int likeDelta) {
+        return new CommentChangedEvent(ChangeType.LIKE_COUNT_CHANGED, comment, likeDelta);
+    }
+
+    public ChangeType getChangeType() { return changeType; }
+    public String getCommentId() { return commentId; }
+    public String getPostId() { return postId; }
+    public String getParentId() { return parentId; }
+    public String getAuthorId() { return authorId; }
+    public String getAuthorType() { return authorType; }
+    public String getContent() { return content; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public int getLikeCount() { return likeCount; }
+    public int getLikeDelta() { return likeDelta; }
+
+    @Override
+    public String toString() {
+        return "CommentChangedEvent{" +
+                "changeType=" + changeType +
+                ", commentId='" + commentId + '\'' +
+                ", postId='" + postId + '\'' +
+                '}';
+    }
+}
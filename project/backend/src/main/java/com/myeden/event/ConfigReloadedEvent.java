@@ -0,0 +1,30 @@
+package com.myeden.event;
+
+/**
+ * 配置重新加载事件
+ *
+ * 功能说明：
+ * - 世界配置或机器人配置重新加载并同步到数据库后发布
+ * - configType为world或robot，供缓存了配置派生内容的监听方失效重建
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ConfigReloadedEvent {
+
+    private final String configType;
+
+    public ConfigReloadedEvent(String configType) {
+        this.configType = configType;
+    }
+
+    public String getConfigType() { return configType; }
+
+    @Override
+    public String toString() {
+        return "ConfigReloadedEvent{" +
+                "configType='" + configType + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,105 @@
+package com.myeden.event;
+
+import com.myeden.entity.Post;
+
+import java.time.LocalDateTime;
+
+/**
+ * 动态变更事件
+ *
+ * 功能说明：
+ * - 动态发布、删除以及点赞数、评论数变化后发布
+ * - 携带变更后的计数快照，监听方无需再查询数据库
+ * - 在写操作的线程中同步分发，监听方不应执行耗时操作
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class PostChangedEvent {
+
+    /**
+     * 变更类型
+     */
+    public enum ChangeType {
+        CREATED,                // 发布动态
+        DELETED,                // 删除动态
+        LIKE_COUNT_CHANGED,     // 点赞数变化
+        COMMENT_COUNT_CHANGED   // 评论数变化
+    }
+
+    private final ChangeType changeType;
+    private final String postId;
+    private final String authorId;
+    private final String authorType;
+    private final String content;
+    private final LocalDateTime createdAt;
+    private final int likeCount;
+    private final int commentCount;
+    private final LocalDateTime updatedAt;
+    private final String actorId;
+    private final int likeDelta;
+
+    public PostChangedEvent(ChangeType changeType, Post post, String actorId) {
+        this(changeType, post, actorId, 0);
+    }
+
+    public PostChangedEvent(ChangeType changeType, Post post, String actorId, int likeDelta) {
+        this.changeType = changeType;
+        this.postId = post.getPostId();
+        this.authorId = post.getAuthorId();
+        this.authorType = post.getAuthorType();
+        this.content = post.getContent();
+        this.createdAt = post.getCreatedAt();
+        this.likeCount = post.getLikeCount() != null ? post.getLikeCount() : 0;
+        this.commentCount = post.getCommentCount() != null ? post.getCommentCount() : 0;
+        this.updatedAt = post.getUpdatedAt();
+        this.actorId = actorId;
+        this.likeDelta = likeDelta;
+    }
+
+    public static PostChangedEvent created(Post post) {
+        return new PostChangedEvent(ChangeType.CREATED, post, post.getAuthorId());
+    }
+
+    public static PostChangedEvent deleted(Post post) {
+        return new PostChangedEvent(ChangeType.DELETED, post, post.getAuthorId());
+    }
+
+    public static PostChangedEvent likeCountChanged(Post post, String userId, int likeDelta) {
+        return new PostChangedEvent(ChangeType.LIKE_COUNT_CHANGED, post, userId, likeDelta);
+    }
+
+    public static PostChangedEvent commentCountChanged(Post post, String commenterId) {
+        return new PostChangedEvent(ChangeType.COMMENT_COUNT_CHANGED, post, commenterId);
+    }
+
+    /**
+     * 是否改变了动态流的成员（而不仅是计数）
+     */
+    public boolean isMembershipChange() {
+        return changeType == ChangeType.CREATED || changeType == ChangeType.DELETED;
+    }
+
+    public ChangeType getChangeType() { return changeType; }
+    public String getPostId() { return postId; }
+    public String getAuthorId() { return authorId; }
+    public String getAuthorType() { return authorType; }
+    public String getContent() { return content; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public int getLikeCount() { return likeCount; }
+    public int getCommentCount() { return commentCount; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public String getActorId() { return actorId; }
+    public int getLikeDelta() { return likeDelta; }
+
+    @Override
+    public String toString() {
+        return "PostChangedEvent{" +
+                "changeType=" + changeType +
+                ", postId='" + postId + '\'' +
+                ", likeCount=" + likeCount +
+                ", commentCount=" + commentCount +
+                '}';
+    }
+}
@@ -0,0 +1,45 @@
+package com.myeden.event;
+
+import java.util.List;
+
+/**
+ * 机器人配置同步完成事件
+ *
+ * 功能说明：
+ * - 机器人配置同步到数据库后发布，携带本次同步的变更集
+ * - 只有配置指纹变化的机器人出现在变更集中，未变化的机器人只计数
+ * - 供需要整体重建的内存索引在一次同步后只重建一次
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class RobotConfigSyncedEvent {
+
+    private final List<String> createdRobotIds;
+    private final List<String> updatedRobotIds;
+    private final int unchangedCount;
+
+    public RobotConfigSyncedEvent(List<String> createdRobotIds, List<String> updatedRobotIds, int unchangedCount) {
+        this.createdRobotIds = List.copyOf(createdRobotIds);
+        this.updatedRobotIds = List.copyOf(updatedRobotIds);
+        this.unchangedCount = unchangedCount;
+    }
+
+    public List<String> getCreatedRobotIds() { return createdRobotIds; }
+    public List<String> getUpdatedRobotIds() { return updatedRobotIds; }
+    public int getUnchangedCount() { return unchangedCount; }
+
+    public boolean hasChanges() {
+        return !createdRobotIds.isEmpty() || !updatedRobotIds.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "RobotConfigSyncedEvent{" +
+                "created=" + createdRobotIds +
+                ", updated=" + updatedRobotIds +
+                ", unchanged=" + unchangedCount +
+                '}';
+    }
+}
@@ -0,0 +1,132 @@
+package com.myeden.model;
+
+import com.myeden.entity.Robot;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编译后的机器人活跃时间表
+ *
+ * 功能说明：
+ * - 将"HH:mm"活跃时间段编译为一天1440分钟的位图，判断是否活跃只需一次位运算
+ * - 时间段包含开始和结束两个分钟，结束时间早于开始时间表示跨天
+ * - 计算下一个活跃状态切换时刻，供唤醒调度使用
+ * - 相同配置的时间表共享同一实例
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class ActiveSchedule {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /**
+     * 共享实例上限，机器人配置种类有限，超出时整体清空
+     */
+    private static final int MAX_INTERNED = 1024;
+
+    private static final Map<String, ActiveSchedule> INTERNED = new ConcurrentHashMap<>();
+
+    /**
+     * 全天活跃（未配置时间段）
+     */
+    public static final ActiveSchedule ALWAYS = new ActiveSchedule(fullDay());
+
+    private final BitSet minutes;
+
+    private ActiveSchedule(BitSet minutes) {
+        this.minutes = minutes;
+    }
+
+    /**
+     * 编译活跃时间段
+     *
+     * @param ranges 活跃时间段，为空表示全天活跃
+     * @return 编译后的时间表
+     */
+    public static ActiveSchedule compile(List<Robot.ActiveTimeRange> ranges) {
+        if (ranges == null || ranges.isEmpty()) {
+            return ALWAYS;
+        }
+        StringBuilder key = new StringBuilder();
+        for (Robot.ActiveTimeRange range : ranges) {
+            key.append(range.getStartTime()).append('-').append(range.getEndTime()).append(',');
+        }
+        ActiveSchedule cached = INTERNED.get(key.toString());
+        if (cached != null) {
+            return cached;
+        }
+
+        BitSet minutes = new BitSet(MINUTES_PER_DAY);
+        for (Robot.ActiveTimeRange range : ranges) {
+            int start = minuteOfDay(LocalTime.parse(range.getStartTime()));
+            int end = minuteOfDay(LocalTime.parse(range.getEndTime()));
+            if (end >= start) {
+                minutes.set(start, end + 1);
+            } else {
+                // 跨天时间段
+                minutes.set(start, MINUTES_PER_DAY);
+                minutes.set(0, end + 1);
+            }
+        }
+
+        ActiveSchedule schedule = new ActiveSchedule(minutes);
+        if (INTERNED.size() >= MAX_INTERNED) {
+            INTERNED.clear();
+        }
+        INTERNED.put(key.toString(), schedule);
+        return schedule;
+    }
+
+    /**
+     * 指定时刻是否活跃
+     */
+    public boolean isActiveAt(LocalTime time) {
+        return minutes.get(minuteOfDay(time));
+    }
+
+    /**
+     * 是否全天状态不变（全天活跃或全天不活跃）
+     */
+    public boolean isConstant() {
+        int cardinality = minutes.cardinality();
+        return cardinality == 0 || cardinality == MINUTES_PER_DAY;
+    }
+
+    /**
+     * 下一个活跃状态切换时刻
+     *
+     * @param now 当前时间
+     * @return 状态切换的分钟起点；全天状态不变时返回null
+     */
+    public LocalDateTime nextTransition(LocalDateTime now) {
+        if (isConstant()) {
+            return null;
+        }
+        int minute = minuteOfDay(now.toLocalTime());
+        boolean current = minutes.get(minute);
+        for (int offset = 1; offset <= MINUTES_PER_DAY; offset++) {
+            if (minutes.get((minute + offset) % MINUTES_PER_DAY) != current) {
+                return now.truncatedTo(ChronoUnit.MINUTES).plusMinutes(offset);
+            }
+        }
+        return null;
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static BitSet fullDay() {
+        BitSet minutes = new BitSet(MINUTES_PER_DAY);
+        minutes.set(0, MINUTES_PER_DAY);
+        return minutes;
+    }
+}
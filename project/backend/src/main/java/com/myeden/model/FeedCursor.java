@@ -0,0 +1,80 @@
+package com.myeden.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * 动态流游标
+ *
+ * 功能说明：
+ * - 记录上一页最后一条动态的位置（创建时间 + 动态ID）
+ * - 编码为不透明的URL安全字符串返回给客户端
+ * - 客户端原样回传以获取下一页，服务端无需skip和count
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class FeedCursor {
+
+    /**
+     * 游标格式版本，格式变化时递增
+     */
+    private static final String VERSION = "v1";
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final LocalDateTime createdAt;
+
+    private final String postId;
+
+    public FeedCursor(LocalDateTime createdAt, String postId) {
+        this.createdAt = createdAt;
+        this.postId = postId;
+    }
+
+    /**
+     * 编码游标
+     * @return 不透明的游标字符串
+     */
+    public String encode() {
+        long epochMillis = createdAt.atZone(ZONE).toInstant().toEpochMilli();
+        String raw = VERSION + ":" + epochMillis + ":" + postId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     * @param cursor 游标字符串，为空表示第一页
+     * @return 游标，第一页返回null
+     * @throws IllegalArgumentException 游标格式无效
+     */
+    public static FeedCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("无效的游标");
+            }
+            LocalDateTime createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(parts[1])), ZONE);
+            return new FeedCursor(createdAt, parts[2]);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException和Base64解码错误均为IllegalArgumentException
+            throw new IllegalArgumentException("无效的游标", e);
+        }
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getPostId() {
+        return postId;
+    }
+}
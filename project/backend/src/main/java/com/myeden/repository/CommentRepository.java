@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 评论数据访问层
@@ -387,4 +388,12 @@ public interface CommentRepository extends MongoRepository<Comment, String> {
      */
     @Query(value = "{'replyToId': ?0, 'authorId': ?1, 'authorType': ?2, 'isDeleted': false}", count = true)
     long countByReplyToIdAndAuthorIdAndAuthorTypeAndIsDeletedFalse(String replyToId, String authorId, String authorType);
-} 
\ No newline at end of file
+    
+    /**
+     * 流式读取所有未删除的评论（用于重建搜索索引）
+     * 调用方负责关闭Stream以释放游标
+     * @return 评论流
+     */
+    @Query("{'isDeleted': false}")
+    Stream<Comment> streamAllActive();
+}
\ No newline at end of file
@@ -3,13 +3,17 @@ package com.myeden.repository;
 import com.myeden.entity.Post;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.TextCriteria;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 动态数据访问层
@@ -149,6 +153,63 @@ public interface PostRepository extends MongoRepository<Post, String> {
     @Query("{'content': {$regex: ?0, $options: 'i'}, 'isDeleted': false}")
     Page<Post> findByContentKeywordAndIsDeletedFalse(String keyword, Pageable pageable);
     
+    /**
+     * 全文搜索动态（分页，使用searchTokens文本索引）
+     * @param criteria 文本搜索条件
+     * @param pageable 分页参数，可按score（相关度）排序
+     * @return 动态分页结果
+     */
+    Page<Post> findByIsDeletedFalse(TextCriteria criteria, Pageable pageable);
+    
+    /**
+     * 查找尚未生成搜索词元的动态（用于回填）
+     * @param pageable 分页参数
+     * @return 动态列表
+     */
+    List<Post> findBySearchTokensIsNull(Pageable pageable);
+    
+    /**
+     * 只更新动态的搜索词元，不覆盖计数等其他字段
+     * @param postId 动态ID
+     * @param searchTokens 搜索词元
+     */
+    @Query("{'postId': ?0}")
+    @Update("{'$set': {'searchTokens': ?1}}")
+    void updateSearchTokens(String postId, String searchTokens);
+    
+    /**
+     * 根据动态ID批量查找未删除的动态
+     * @param postIds 动态ID集合
+     * @return 动态列表（顺序不保证）
+     */
+    List<Post> findByPostIdInAndIsDeletedFalse(Collection<String> postIds);
+    
+    /**
+     * 流式读取所有未删除的动态（用于重建搜索索引）
+     * 调用方负责关闭Stream以释放游标
+     * @return 动态流
+     */
+    @Query("{'isDeleted': false}")
+    Stream<Post> streamAllActive();
+    
+    /**
+     * 查找指定作者集合的动态（分页，使用authorId+createdAt复合索引）
+     * @param authorIds 作者ID集合
+     * @param pageable 分页参数
+     * @return 动态分页结果
+     */
+    Page<Post> findByAuthorIdInAndIsDeletedFalse(Collection<String> authorIds, Pageable pageable);
+    
+    /**
+     * 根据内容关键字或作者集合搜索动态（分页）
+     * @param keyword 已转义的内容关键字
+     * @param authorIds 名称匹配的作者ID集合
+     * @param pageable 分页参数
+     * @return 动态分页结果
+     */
+    @Query("{$or: [{'content': {$regex: ?0, $options: 'i'}}, {'authorId': {$in: ?1}}], 'isDeleted': false}")
+    Page<Post> findByKeywordOrAuthorIdInAndIsDeletedFalse(String keyword, Collection<String> authorIds, Pageable pageable);
+    
     /**
      * 根据作者关键字搜索动态（分页）
      * @param keyword 作者关键字
@@ -364,4 +425,87 @@ public interface PostRepository extends MongoRepository<Post, String> {
      */
     @Query("{'createdAt': {$gte: ?0}, 'isDeleted': false}")
     List<Post> findByCreatedAtAfterAndIsDeletedFalseOrderByCreatedAtDesc(LocalDateTime createdAt);
-} 
\ No newline at end of file
+    
+    /**
+     * 游标分页：获取动态流第一页（不执行count）
+     * 使用 idx_post_created_at_desc 索引按创建时间倒序扫描
+     * @param pageable 分页参数（仅使用limit）
+     * @return 动态列表
+     */
+    @Query(value = "{'isDeleted': false}", sort = "{'createdAt': -1}")
+    List<Post> findFeedFirstPage(Pageable pageable);
+    
+    /**
+     * 游标分页：获取指定时间之前的动态（不执行count）
+     * @param before 游标时间（不含）
+     * @param pageable 分页参数（仅使用limit）
+     * @return 动态列表
+     */
+    @Query(value = "{'isDeleted': false, 'createdAt': {$lt: ?0}}", sort = "{'createdAt': -1}")
+    List<Post> findFeedBefore(LocalDateTime before, Pageable pageable);
+    
+    /**
+     * 游标分页：获取与指定创建时间相同的动态，用于补全跨页的同一时间戳分组
+     * @param createdAt 创建时间
+     * @return 动态列表
+     */
+    @Query("{'isDeleted': false, 'createdAt': ?0}")
+    List<Post> findFeedAt(LocalDateTime createdAt);
+    
+    /**
+     * 游标分页：按作者类型获取动态流第一页
+     * @param authorType 作者类型
+     * @param pageable 分页参数（仅使用limit）
+     * @return 动态列表
+     */
+    @Query(value = "{'authorType': ?0, 'isDeleted': false}", sort = "{'createdAt': -1}")
+    List<Post> findFeedFirstPageByAuthorType(String authorType, Pageable pageable);
+    
+    /**
+     * 游标分页：按作者类型获取指定时间之前的动态
+     * @param authorType 作者类型
+     * @param before 游标时间（不含）
+     * @param pageable 分页参数（仅使用limit）
+     * @return 动态列表
+     */
+    @Query(value = "{'authorType': ?0, 'isDeleted': false, 'createdAt': {$lt: ?1}}", sort = "{'createdAt': -1}")
+    List<Post> findFeedBeforeByAuthorType(String authorType, LocalDateTime before, Pageable pageable);
+    
+    /**
+     * 游标分页：按作者类型获取与指定创建时间相同的动态
+     * @param authorType 作者类型
+     * @param createdAt 创建时间
+     * @return 动态列表
+     */
+    @Query("{'authorType': ?0, 'isDeleted': false, 'createdAt': ?1}")
+    List<Post> findFeedAtByAuthorType(String authorType, LocalDateTime createdAt);
+    
+    /**
+     * 游标分页：获取指定作者的动态流第一页
+     * 使用 idx_author_created_compound 索引
+     * @param authorId 作者ID
+     * @param pageable 分页参数（仅使用limit）
+     * @return 动态列表
+     */
+    @Query(value = "{'authorId': ?0, 'isDeleted': false}", sort = "{'createdAt': -1}")
+    List<Post> findFeedFirstPageByAuthorId(String authorId, Pageable pageable);
+    
+    /**
+     * 游标分页：获取指定作者在指定时间之前的动态
+     * @param authorId 作者ID
+     * @param before 游标时间（不含）
+     * @param pageable 分页参数（仅使用limit）
+     * @return 动态列表
+     */
+    @Query(value = "{'authorId': ?0, 'isDeleted': false, 'createdAt': {$lt: ?1}}", sort = "{'createdAt': -1}")
+    List<Post> findFeedBeforeByAuthorId(String authorId, LocalDateTime before, Pageable pageable);
+    
+    /**
+     * 游标分页：获取指定作者与指定创建时间相同的动态
+     * @param authorId 作者ID
+     * @param createdAt 创建时间
+     * @return 动态列表
+     */
+    @Query("{'authorId': ?0, 'isDeleted': false, 'createdAt': ?1}")
+    List<Post> findFeedAtByAuthorId(String authorId, LocalDateTime createdAt);
+}
@@ -192,6 +192,13 @@ public interface UserRepository extends MongoRepository<User, String> {
     @Query("{'createdAt': {$gte: ?0}}")
     List<User> findTodayRegisteredUsers(java.time.LocalDateTime startOfDay);
     
+    /**
+     * 统计指定时间之后注册的用户数量
+     * @param startOfDay 开始时间
+     * @return 用户数量
+     */
+    long countByCreatedAtGreaterThanEqual(java.time.LocalDateTime startOfDay);
+    
     /**
      * 查找指定年龄的用户
      * @param age 年龄
@@ -0,0 +1,282 @@
+package com.myeden.service;
+
+import com.myeden.entity.Robot;
+import com.myeden.entity.User;
+import com.myeden.event.AuthorProfileChangedEvent;
+import com.myeden.repository.RobotRepository;
+import com.myeden.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 作者名索引
+ *
+ * 功能说明：
+ * - 在内存中维护用户昵称和机器人名称到作者ID的前缀树
+ * - 名称的每个后缀都插入前缀树，因此关键字可匹配名称的任意连续片段
+ * - 将搜索关键字解析为有上限的作者ID集合，供authorId $in 的索引查询使用
+ * - 启动后全量加载，资料变更事件增量更新，并定期全量重建以自愈
+ * - 重建期间到达的增量更新先应用到当前索引并记录下来，切换到新索引时重放，不会丢失
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class AuthorNameIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthorNameIndex.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RobotRepository robotRepository;
+
+    @Value("${search.author-index.max-authors:200}")
+    private int maxAuthors;
+
+    /**
+     * 参与索引的名称最大长度，超出部分不参与匹配
+     */
+    @Value("${search.author-index.max-name-length:32}")
+    private int maxNameLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node();
+
+    /**
+     * 当前索引的名称：作者ID -> 规范化名称
+     */
+    private Map<String, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * 重建期间记录的增量更新（作者ID, 名称），不在重建时为null
+     */
+    private List<String[]> updatesDuringReload;
+
+    /**
+     * 启动后全量加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * 定期全量重建，修正遗漏的增量更新
+     */
+    @Scheduled(fixedDelayString = "${search.author-index.reload-interval:600000}",
+               initialDelayString = "${search.author-index.reload-interval:600000}")
+    public synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            updatesDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Node newRoot = new Node();
+            Map<String, String> newNames = new ConcurrentHashMap<>();
+            for (User user : userRepository.findAll()) {
+                indexName(newRoot, newNames, user.getUserId(), user.getNickname());
+            }
+            for (Robot robot : robotRepository.findAll()) {
+                indexName(newRoot, newNames, robot.getRobotId(), robot.getName());
+            }
+
+            lock.writeLock().lock();
+            try {
+                root = newRoot;
+                names = newNames;
+                // 全量数据可能早于重建期间的资料变更，按顺序重放这些变更
+                for (String[] update : updatesDuringReload) {
+                    apply(update[0], update[1]);
+                }
+            } finally {
+                updatesDuringReload = null;
+                lock.writeLock().unlock();
+            }
+            logger.info("作者名索引加载完成，作者数量: {}", newNames.size());
+        } catch (Exception e) {
+            lock.writeLock().lock();
+            try {
+                updatesDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.error("作者名索引加载失败", e);
+        }
+    }
+
+    /**
+     * 作者资料变更时增量更新
+     */
+    @EventListener
+    public void onAuthorProfileChanged(AuthorProfileChangedEvent event) {
+        put(event.getAuthorId(), event.getName());
+    }
+
+    /**
+     * 更新作者名称
+     *
+     * @param authorId 作者ID
+     * @param name 新名称，为空表示移除
+     */
+    public void put(String authorId, String name) {
+        if (authorId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            apply(authorId, name);
+            if (updatesDuringReload != null) {
+                updatesDuringReload.add(new String[] {authorId, name});
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 在当前索引中替换作者名称，调用方持有写锁
+     */
+    private void apply(String authorId, String name) {
+        String previous = names.remove(authorId);
+        if (previous != null) {
+            removeName(authorId, previous);
+        }
+        indexName(root, names, authorId, name);
+    }
+
+    /**
+     * 将关键字解析为名称包含该关键字的作者ID
+     * 名称完全匹配的作者排在前面
+     *
+     * @param keyword 关键字
+     * @return 作者ID集合，最多max-authors个
+     */
+    public Set<String> resolve(String keyword) {
+        Set<String> result = new LinkedHashSet<>();
+        String normalized = normalize(keyword);
+        if (normalized.isEmpty()) {
+            return result;
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < normalized.length() && node != null; ) {
+                int cp = normalized.codePointAt(i);
+                node = node.children.get(cp);
+                i += Character.charCount(cp);
+            }
+            if (node == null) {
+                return result;
+            }
+
+            // 完全匹配优先，其次按前缀树广度优先收集
+            for (String authorId : node.authorIds) {
+                if (normalized.equals(names.get(authorId))) {
+                    result.add(authorId);
+                }
+            }
+            Deque<Node> queue = new ArrayDeque<>();
+            queue.add(node);
+            while (!queue.isEmpty() && result.size() < maxAuthors) {
+                Node current = queue.poll();
+                for (String authorId : current.authorIds) {
+                    result.add(authorId);
+                    if (result.size() >= maxAuthors) {
+                        break;
+                    }
+                }
+                queue.addAll(current.children.values());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 插入名称的所有后缀
+     */
+    private void indexName(Node target, Map<String, String> targetNames, String authorId, String name) {
+        String normalized = normalize(name);
+        if (authorId == null || normalized.isEmpty()) {
+            return;
+        }
+        targetNames.put(authorId, normalized);
+        for (int start = 0; start < normalized.length(); start = normalized.offsetByCodePoints(start, 1)) {
+            Node node = target;
+            for (int i = start; i < normalized.length(); ) {
+                int cp = normalized.codePointAt(i);
+                node = node.children.computeIfAbsent(cp, k -> new Node());
+                i += Character.charCount(cp);
+            }
+            node.authorIds.add(authorId);
+        }
+    }
+
+    /**
+     * 移除名称的所有后缀，并清理空节点
+     */
+    private void removeName(String authorId, String normalized) {
+        for (int start = 0; start < normalized.length(); start = normalized.offsetByCodePoints(start, 1)) {
+            removePath(root, normalized, start, authorId);
+        }
+    }
+
+    private boolean removePath(Node node, String name, int index, String authorId) {
+        if (index >= name.length()) {
+            node.authorIds.remove(authorId);
+        } else {
+            int cp = name.codePointAt(index);
+            Node child = node.children.get(cp);
+            if (child != null && removePath(child, name, index + Character.charCount(cp), authorId)) {
+                node.children.remove(cp);
+            }
+        }
+        return node.authorIds.isEmpty() && node.children.isEmpty();
+    }
+
+    private String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        if (normalized.codePointCount(0, normalized.length()) > maxNameLength) {
+            normalized = normalized.substring(0, normalized.offsetByCodePoints(0, maxNameLength));
+        }
+        return normalized;
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static class Node {
+        private final Map<Integer, Node> children = new HashMap<>();
+        private final Set<String> authorIds = new LinkedHashSet<>();
+    }
+}
@@ -0,0 +1,217 @@
+package com.myeden.service;
+
+import com.myeden.config.RobotConfig;
+import com.myeden.config.WorldConfig;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配置文件监听器
+ *
+ * 功能说明：
+ * - 监听配置目录下的world-config.yaml和robots-config.yaml，文件变化后自动热更新，无需调用重新加载接口
+ * - 同一文件的连续变化合并处理（防抖），编辑器多次写入只触发一次重新加载
+ * - 在后台线程解析和绑定新配置，文件内容与上次应用时相同则跳过
+ * - 解析或验证失败时保留当前配置，机器人行为调度不暂停
+ * - 机器人配置按指纹增量同步，只有变化的机器人重建作息状态；Dify对话在每次重新加载后轮换
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class ConfigFileWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigFileWatcher.class);
+
+    static final String WORLD_CONFIG_FILE = "world-config.yaml";
+    static final String ROBOTS_CONFIG_FILE = "robots-config.yaml";
+
+    @Value("${config.watch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${config.watch.directory:../config}")
+    private String directory;
+
+    @Value("${config.watch.debounce-millis:1000}")
+    private long debounceMillis;
+
+    @Autowired
+    private ConfigService configService;
+
+    private WatchService watchService;
+
+    /**
+     * 等待处理的文件及其最后一次变化时间
+     */
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 各文件上次应用时的内容指纹
+     */
+    private final Map<String, String> appliedHashes = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Path root = Paths.get(directory).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            logger.warn("配置目录不存在，配置文件监听未启动: {}", root);
+            return;
+        }
+        // 启动时的配置已由ConfigInitializer加载，记录当前指纹避免重复应用
+        for (String fileName : List.of(WORLD_CONFIG_FILE, ROBOTS_CONFIG_FILE)) {
+            String hash = contentHash(root.resolve(fileName));
+            if (hash != null) {
+                appliedHashes.put(fileName, hash);
+            }
+        }
+        try {
+            watchService = root.getFileSystem().newWatchService();
+            root.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.warn("配置目录监听不可用，请通过重新加载接口更新配置: {}", e.getMessage());
+            return;
+        }
+
+        Thread watcher = new Thread(() -> watchLoop(root), "config-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        logger.info("配置文件监听已启动: {}", root);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("关闭配置目录监听失败", e);
+            }
+        }
+    }
+
+    private void watchLoop(Path root) {
+        try {
+            while (true) {
+                // 有待处理文件时按防抖间隔轮询，否则一直等待
+                WatchKey key = pending.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            markPending(WORLD_CONFIG_FILE);
+                            markPending(ROBOTS_CONFIG_FILE);
+                            continue;
+                        }
+                        String fileName = event.context().toString();
+                        if (WORLD_CONFIG_FILE.equals(fileName) || ROBOTS_CONFIG_FILE.equals(fileName)) {
+                            markPending(fileName);
+                        }
+                    }
+                    key.reset();
+                }
+                long now = System.currentTimeMillis();
+                pending.entrySet().removeIf(entry -> {
+                    if (now - entry.getValue() < debounceMillis) {
+                        return false;
+                    }
+                    reload(root.resolve(entry.getKey()));
+                    return true;
+                });
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            logger.debug("配置目录监听已停止");
+        }
+    }
+
+    private void markPending(String fileName) {
+        pending.put(fileName, System.currentTimeMillis());
+    }
+
+    /**
+     * 解析配置文件并应用到当前配置
+     *
+     * @param file 配置文件路径
+     * @return 是否应用了新配置；内容未变化、解析或验证失败时返回false
+     */
+    boolean reload(Path file) {
+        String fileName = file.getFileName().toString();
+        String hash = contentHash(file);
+        if (hash == null || hash.equals(appliedHashes.get(fileName))) {
+            return false;
+        }
+        try {
+            long start = System.nanoTime();
+            boolean applied;
+            if (ROBOTS_CONFIG_FILE.equals(fileName)) {
+                RobotConfig fresh = bind(file, "robots", RobotConfig.class);
+                applied = fresh != null && configService.applyRobotConfig(fresh);
+            } else {
+                WorldConfig fresh = bind(file, "world", WorldConfig.class);
+                applied = fresh != null && configService.applyWorldConfig(fresh);
+            }
+            if (applied) {
+                appliedHashes.put(fileName, hash);
+                logger.info("配置文件已热更新: {}, 耗时{}ms", fileName,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return applied;
+        } catch (Exception e) {
+            logger.error("配置文件解析失败，保留当前配置: {}", fileName, e);
+            return false;
+        }
+    }
+
+    /**
+     * 按应用启动时相同的规则解析YAML并绑定到配置类
+     */
+    static <T> T bind(Path file, String prefix, Class<T> type) throws IOException {
+        List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+                .load(file.getFileName().toString(), new FileSystemResource(file));
+        return new Binder(ConfigurationPropertySources.from(sources)).bind(prefix, type).orElse(null);
+    }
+
+    private static String contentHash(Path file) {
+        try {
+            byte[] content = Files.readAllBytes(file);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (IOException e) {
+            // 文件正在被替换或已删除，等待下一次变化
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -42,6 +42,20 @@ public interface ConfigService {
      */
     boolean reloadRobotConfig();
     
+    /**
+     * 用新解析的世界配置替换当前配置并同步
+     * @param config 新的世界配置对象
+     * @return 是否应用成功，验证失败时保留当前配置
+     */
+    boolean applyWorldConfig(WorldConfig config);
+    
+    /**
+     * 用新解析的机器人配置替换当前配置并增量同步
+     * @param config 新的机器人配置对象
+     * @return 是否应用成功，验证失败时保留当前配置
+     */
+    boolean applyRobotConfig(RobotConfig config);
+    
     /**
      * 验证世界配置
      * @param config 世界配置对象
@@ -1,8 +1,12 @@
 package com.myeden.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.myeden.entity.User;
+import com.myeden.event.AuthorProfileChangedEvent;
 import com.myeden.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -18,6 +22,7 @@ import java.util.Collections;
  * - 实现Spring Security的UserDetailsService接口
  * - 根据用户ID加载用户详情
  * - 为Spring Security提供用户认证信息
+ * - 短时间缓存用户详情，用户资料变更时失效，认证热路径不访问数据库
  * 
  * @author MyEden Team
  * @version 1.0.0
@@ -29,8 +34,41 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    @Qualifier("principalCache")
+    private Cache<String, UserDetails> principalCache;
+    
     @Override
     public UserDetails loadUserByUsername(String userId) throws UsernameNotFoundException {
+        UserDetails cached = principalCache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        
+        UserDetails userDetails = loadFromDatabase(userId);
+        principalCache.put(userId, userDetails);
+        return userDetails;
+    }
+    
+    /**
+     * 用户资料变更时使缓存失效
+     */
+    @EventListener
+    public void onAuthorProfileChanged(AuthorProfileChangedEvent event) {
+        if ("user".equals(event.getAuthorType())) {
+            evict(event.getAuthorId());
+        }
+    }
+    
+    /**
+     * 使指定用户的缓存失效
+     * @param userId 用户ID
+     */
+    public void evict(String userId) {
+        principalCache.invalidate(userId);
+    }
+    
+    private UserDetails loadFromDatabase(String userId) {
         // 根据用户ID查找用户
         var userOpt = userRepository.findByUserId(userId);
         
@@ -0,0 +1,143 @@
+package com.myeden.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.myeden.config.DifyConfig;
+import com.myeden.event.AuthorProfileChangedEvent;
+import com.myeden.event.ConfigReloadedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dify对话登记表
+ *
+ * 功能说明：
+ * - 按机器人和讨论线索（如post、post:{postId}）记录正在使用的Dify对话ID、所在端点和已进行的轮数
+ * - 对话的第一轮发送完整提示词，之后只发送情境部分，人设背景每个对话只发送一次
+ * - 轮数达到上限后开启新对话，避免Dify端累积的历史无限增长
+ * - 机器人资料变化或配置重新加载后丢弃相关对话，新对话使用新的人设
+ * - 长时间不用的对话自动过期
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class DifyConversationRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DifyConversationRegistry.class);
+
+    private static final String KEY_SEPARATOR = "|";
+
+    @Autowired
+    private DifyConfig difyConfig;
+
+    private final Cache<String, Conversation> conversations = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(6, TimeUnit.HOURS)
+            .build();
+
+    /**
+     * 对话状态，不可变，每轮替换
+     */
+    public static class Conversation {
+        private final String conversationId;
+        private final String endpoint;
+        private final int turns;
+
+        Conversation(String conversationId, String endpoint, int turns) {
+            this.conversationId = conversationId;
+            this.endpoint = endpoint;
+            this.turns = turns;
+        }
+
+        public String getConversationId() { return conversationId; }
+        public String getEndpoint() { return endpoint; }
+        public int getTurns() { return turns; }
+    }
+
+    /**
+     * 获取可继续使用的对话
+     *
+     * @param robotId 机器人ID
+     * @param threadKey 讨论线索
+     * @return 对话；没有对话或轮数已达上限时返回null，调用方应发送完整提示词
+     */
+    public Conversation current(String robotId, String threadKey) {
+        String key = key(robotId, threadKey);
+        Conversation conversation = conversations.getIfPresent(key);
+        if (conversation == null) {
+            return null;
+        }
+        if (conversation.turns >= difyConfig.getConversationMaxTurns()) {
+            conversations.invalidate(key);
+            return null;
+        }
+        return conversation;
+    }
+
+    /**
+     * 记录一轮成功的对话
+     *
+     * @param endpoint 对话所在的Dify端点，对话只能在该端点续用
+     * @param conversationId Dify返回的对话ID，为空时丢弃该线索的对话
+     */
+    public void record(String robotId, String threadKey, String endpoint, String conversationId) {
+        String key = key(robotId, threadKey);
+        if (conversationId == null || conversationId.isEmpty()) {
+            conversations.invalidate(key);
+            return;
+        }
+        conversations.asMap().compute(key, (k, existing) ->
+            existing != null && existing.conversationId.equals(conversationId)
+                ? new Conversation(conversationId, endpoint, existing.turns + 1)
+                : new Conversation(conversationId, endpoint, 1));
+    }
+
+    /**
+     * 丢弃指定线索的对话
+     */
+    public void invalidate(String robotId, String threadKey) {
+        conversations.invalidate(key(robotId, threadKey));
+    }
+
+    /**
+     * 丢弃机器人的所有对话
+     */
+    public void invalidateRobot(String robotId) {
+        String prefix = robotId + KEY_SEPARATOR;
+        conversations.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * 当前登记的对话数量
+     */
+    public long size() {
+        conversations.cleanUp();
+        return conversations.estimatedSize();
+    }
+
+    @EventListener
+    public void onAuthorProfileChanged(AuthorProfileChangedEvent event) {
+        if ("robot".equals(event.getAuthorType())) {
+            invalidateRobot(event.getAuthorId());
+        }
+    }
+
+    @EventListener
+    public void onConfigReloaded(ConfigReloadedEvent event) {
+        // 人设还取自昵称、说话风格和公共话题等未同步到数据库的配置字段，
+        // 这些字段的变化不会产生资料变更事件，因此配置重新加载时全部轮换
+        conversations.invalidateAll();
+        logger.info("{}配置已重新加载，Dify对话全部轮换", event.getConfigType());
+    }
+
+    private static String key(String robotId, String threadKey) {
+        return robotId + KEY_SEPARATOR + threadKey;
+    }
+}
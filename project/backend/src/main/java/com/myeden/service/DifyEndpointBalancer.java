@@ -0,0 +1,329 @@
+package com.myeden.service;
+
+import com.myeden.config.DifyConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dify端点负载均衡器
+ *
+ * 功能说明：
+ * - 管理多个Dify应用/密钥端点，每个端点有权重和并发上限（只配置url和key时不限并发）
+ * - 按权重随机抽取两个端点，选择"延迟EWMA ×（进行中请求数+1）÷ 权重"较小的一个（二选一）
+ * - 失败的请求按请求超时时间计入延迟EWMA，快速失败（限流、拒绝连接）的端点不会因"延迟低"吸引更多请求
+ * - 失败惩罚以摘除时长为半衰期向成功请求的延迟衰减，失败后的首个成功样本直接作为当前延迟，恢复的端点重新获得流量
+ * - 连续失败达到阈值的端点暂时摘除，到期后自动恢复；全部摘除时仍在所有端点中选择
+ * - 对话绑定在创建它的端点上，续用对话时优先使用原端点
+ * - 记录每个端点的请求耗时、进行中请求数、延迟EWMA和摘除次数
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class DifyEndpointBalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DifyEndpointBalancer.class);
+
+    /**
+     * EWMA平滑系数，新样本的权重
+     */
+    private static final double EWMA_ALPHA = 0.3;
+
+    @Autowired
+    private DifyConfig difyConfig;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private volatile List<EndpointState> endpoints = List.of();
+
+    /**
+     * 端点运行状态
+     */
+    public class EndpointState {
+        private final String name;
+        private final String url;
+        private final String key;
+        private final int weight;
+        private final Semaphore permits;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile double latencyEwmaMillis;
+        private volatile double successLatencyMillis;
+        private volatile long lastFailureAt;
+        private volatile long ejectedUntil;
+
+        EndpointState(String name, String url, String key, int weight, int maxConcurrency) {
+            this.name = name;
+            this.url = url;
+            this.key = key;
+            this.weight = Math.max(1, weight);
+            this.permits = new Semaphore(maxConcurrency > 0 ? maxConcurrency : Integer.MAX_VALUE);
+        }
+
+        public String getName() { return name; }
+        public String getUrl() { return url; }
+        public String getKey() { return key; }
+        public int getOutstanding() { return outstanding.get(); }
+
+        /**
+         * 当前延迟EWMA，最近失败的惩罚部分随时间衰减
+         */
+        public double getLatencyEwmaMillis() {
+            long failedAt = lastFailureAt;
+            if (failedAt == 0) {
+                return latencyEwmaMillis;
+            }
+            double halfLives = (System.currentTimeMillis() - failedAt) / (double) Math.max(1, difyConfig.getEjectDuration());
+            return successLatencyMillis + (latencyEwmaMillis - successLatencyMillis) * Math.pow(0.5, halfLives);
+        }
+
+        public boolean isEjected() {
+            return System.currentTimeMillis() < ejectedUntil;
+        }
+
+        double cost() {
+            return Math.max(getLatencyEwmaMillis(), 1.0) * (outstanding.get() + 1) / weight;
+        }
+    }
+
+    /**
+     * 一次请求占用的端点，请求结束后必须调用complete
+     */
+    public class Lease {
+        private final EndpointState endpoint;
+        private final long startNanos = System.nanoTime();
+        private boolean completed;
+
+        Lease(EndpointState endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String getName() { return endpoint.name; }
+        public String getUrl() { return endpoint.url; }
+        public String getKey() { return endpoint.key; }
+
+        /**
+         * 结束请求，记录耗时和结果
+         *
+         * @param success 端点是否正常响应（业务上的对话不存在等不算端点故障）
+         */
+        public void complete(boolean success) {
+            complete(success, System.nanoTime() - startNanos);
+        }
+
+        void complete(boolean success, long elapsedNanos) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            endpoint.outstanding.decrementAndGet();
+            endpoint.permits.release();
+            onComplete(endpoint, success, elapsedNanos);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        List<EndpointState> states = new ArrayList<>();
+        List<DifyConfig.Endpoint> configured = difyConfig.getEndpoints();
+        if (configured == null || configured.isEmpty()) {
+            DifyConfig.Endpoint single = new DifyConfig.Endpoint();
+            single.setUrl(difyConfig.getUrl());
+            single.setKey(difyConfig.getKey());
+            // 未配置端点列表时保持原来的行为，不限制并发
+            single.setMaxConcurrency(0);
+            configured = List.of(single);
+        }
+        Set<String> names = new HashSet<>();
+        for (DifyConfig.Endpoint endpoint : configured) {
+            String name = endpoint.getName() != null ? endpoint.getName() : hostOf(endpoint.getUrl());
+            // 同一主机的多个密钥按序号区分
+            for (int i = 2; !names.add(name); i++) {
+                name = (endpoint.getName() != null ? endpoint.getName() : hostOf(endpoint.getUrl())) + "-" + i;
+            }
+            EndpointState state = new EndpointState(name, endpoint.getUrl(), endpoint.getKey(),
+                endpoint.getWeight(), endpoint.getMaxConcurrency());
+            states.add(state);
+            registerGauges(state);
+        }
+        endpoints = states;
+        logger.info("Dify端点加载完成，端点数量: {}", states.size());
+    }
+
+    /**
+     * 占用一个端点
+     *
+     * @param preferred 优先使用的端点名称（对话所在端点），为空或该端点不可用时按负载选择
+     * @return 占用的端点；全部端点并发已满且等待超时时返回null，调用方应放弃本次请求
+     */
+    public Lease acquire(String preferred) {
+        List<EndpointState> current = endpoints;
+        if (current.isEmpty()) {
+            return null;
+        }
+        try {
+            if (preferred != null) {
+                for (EndpointState endpoint : current) {
+                    if (endpoint.name.equals(preferred) && !endpoint.isEjected()) {
+                        Lease lease = tryLease(endpoint, 0);
+                        if (lease != null) {
+                            return lease;
+                        }
+                    }
+                }
+            }
+
+            List<EndpointState> healthy = new ArrayList<>();
+            for (EndpointState endpoint : current) {
+                if (!endpoint.isEjected()) {
+                    healthy.add(endpoint);
+                }
+            }
+            List<EndpointState> candidates = healthy.isEmpty() ? current : healthy;
+
+            EndpointState best = pickTwo(candidates);
+            Lease lease = tryLease(best, 0);
+            if (lease != null) {
+                return lease;
+            }
+            // 选中的端点已满，按代价依次尝试其他端点，都满时等待代价最小的端点
+            List<EndpointState> byCost = new ArrayList<>(candidates);
+            byCost.sort((a, b) -> Double.compare(a.cost(), b.cost()));
+            for (EndpointState endpoint : byCost) {
+                lease = tryLease(endpoint, 0);
+                if (lease != null) {
+                    return lease;
+                }
+            }
+            return tryLease(byCost.get(0), difyConfig.getAcquireTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 当前所有端点状态
+     */
+    public List<EndpointState> getEndpoints() {
+        return endpoints;
+    }
+
+    private Lease tryLease(EndpointState endpoint, long timeoutMillis) throws InterruptedException {
+        if (!endpoint.permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+        endpoint.outstanding.incrementAndGet();
+        return new Lease(endpoint);
+    }
+
+    /**
+     * 按权重随机抽取两个不同端点，返回代价较小的一个
+     */
+    private EndpointState pickTwo(List<EndpointState> candidates) {
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        EndpointState first = pickWeighted(candidates, null);
+        EndpointState second = pickWeighted(candidates, first);
+        return second.cost() < first.cost() ? second : first;
+    }
+
+    private EndpointState pickWeighted(List<EndpointState> candidates, EndpointState exclude) {
+        int total = 0;
+        for (EndpointState endpoint : candidates) {
+            if (endpoint != exclude) {
+                total += endpoint.weight;
+            }
+        }
+        int r = ThreadLocalRandom.current().nextInt(total);
+        for (EndpointState endpoint : candidates) {
+            if (endpoint == exclude) {
+                continue;
+            }
+            r -= endpoint.weight;
+            if (r < 0) {
+                return endpoint;
+            }
+        }
+        return candidates.get(candidates.size() - 1);
+    }
+
+    private void onComplete(EndpointState endpoint, boolean success, long elapsedNanos) {
+        double millis = elapsedNanos / 1_000_000.0;
+        if (success) {
+            // 失败后的首个成功样本直接作为当前延迟，不再背负之前的惩罚
+            endpoint.latencyEwmaMillis = endpoint.lastFailureAt != 0 ? millis : ewma(endpoint.latencyEwmaMillis, millis);
+            endpoint.successLatencyMillis = ewma(endpoint.successLatencyMillis, millis);
+            endpoint.lastFailureAt = 0;
+        } else {
+            // 失败的耗时不代表端点的服务能力，按请求超时时间惩罚，惩罚从已衰减的当前值累加
+            endpoint.latencyEwmaMillis = ewma(endpoint.getLatencyEwmaMillis(), Math.max(millis, difyConfig.getTimeout()));
+            endpoint.lastFailureAt = System.currentTimeMillis();
+        }
+
+        if (success) {
+            endpoint.consecutiveFailures.set(0);
+        } else if (endpoint.consecutiveFailures.incrementAndGet() >= difyConfig.getEjectFailureThreshold()
+                && !endpoint.isEjected()) {
+            endpoint.consecutiveFailures.set(0);
+            endpoint.ejectedUntil = System.currentTimeMillis() + difyConfig.getEjectDuration();
+            logger.warn("Dify端点连续失败，暂时摘除: {}, {}ms", endpoint.name, difyConfig.getEjectDuration());
+            if (meterRegistry != null) {
+                meterRegistry.counter("ai.dify.endpoint.ejections", "endpoint", endpoint.name).increment();
+            }
+        }
+
+        if (meterRegistry != null) {
+            Timer.builder("ai.dify.endpoint.requests")
+                .tag("endpoint", endpoint.name)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static double ewma(double previous, double sample) {
+        return previous == 0 ? sample : previous + EWMA_ALPHA * (sample - previous);
+    }
+
+    private void registerGauges(EndpointState state) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Gauge.builder("ai.dify.endpoint.outstanding", state, EndpointState::getOutstanding)
+            .tag("endpoint", state.name)
+            .register(meterRegistry);
+        Gauge.builder("ai.dify.endpoint.latency.ewma", state, EndpointState::getLatencyEwmaMillis)
+            .tag("endpoint", state.name)
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (Exception e) {
+            return url;
+        }
+    }
+}
@@ -20,9 +20,24 @@ public interface DifyService {
      * @param prompt 提示词
      * @param userId 机器人信息（用于API配置）
      * @return 生成的内容
+     * @throws DifyUnavailableException 所有端点并发已满且等待超时
      */
     String callDifyApi(String prompt, String userId);
     
+    /**
+     * 在机器人的讨论线索中调用Dify API
+     * 开启对话复用时，对话的第一轮发送完整提示词，之后在同一对话中只发送情境部分；
+     * 未开启时等同于callDifyApi(fullPrompt, userId)
+     * 
+     * @param fullPrompt 完整提示词（含人设背景）
+     * @param situationalPrompt 不含人设背景的情境提示词
+     * @param userId 机器人ID
+     * @param threadKey 讨论线索，如post、post:{postId}
+     * @return 生成的内容
+     * @throws DifyUnavailableException 所有端点并发已满且等待超时
+     */
+    String callDifyApi(String fullPrompt, String situationalPrompt, String userId, String threadKey);
+    
     /**
      * 检查Dify API连接状态
      * 验证API密钥和连接是否正常
@@ -0,0 +1,19 @@
+package com.myeden.service;
+
+/**
+ * Dify端点不可用异常
+ *
+ * 功能说明：
+ * - 所有Dify端点并发已满且等待超时时抛出
+ * - 机器人行为捕获后放弃本次行动并归还配额，不发布备用内容
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class DifyUnavailableException extends RuntimeException {
+
+    public DifyUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -1,17 +1,44 @@
 package com.myeden.service;
 
+import com.myeden.entity.FileBlob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
 
 /**
  * 文件服务类
@@ -20,6 +47,9 @@ import java.util.UUID;
  * - 提供文件上传和管理功能
  * - 支持文件类型验证和大小限制
  * - 提供安全的文件存储路径管理
+ * - 内容寻址模式下按SHA-256命名存储，重复内容只存一份并维护引用计数
+ * - 同一内容文件的"引用+落盘"与"释放+删除"按文件加锁串行，避免上传复用的文件被并发删除
+ * - 多图上传在fileTaskExecutor上并行处理，任一失败时回滚已写入的图片
  * 
  * @author MyEden Team
  * @version 1.0.0
@@ -39,6 +69,49 @@ public class FileService {
     @Value("${file.upload.allowed-types:jpg,jpeg,png,gif}")
     private String allowedTypes;
     
+    /**
+     * 是否按内容哈希存储
+     */
+    @Value("${file.upload.content-addressed:true}")
+    private boolean contentAddressed;
+    
+    /**
+     * 单次多图上传的最大并行数（含请求线程）
+     */
+    @Value("${file.upload.parallelism:4}")
+    private int uploadParallelism;
+    
+    @Autowired
+    @Qualifier("fileTaskExecutor")
+    private Executor fileTaskExecutor;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+    
+    /**
+     * 内容寻址文件名：64位十六进制SHA-256 + 可选的衍生图规格 + 扩展名
+     */
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("^[0-9a-f]{64}(_[a-z]+)?\\.[a-z0-9]+$");
+    
+    /**
+     * 内容寻址文件的分段锁数量
+     */
+    private static final int BLOB_LOCK_STRIPES = 64;
+    
+    /**
+     * 按文件URL分段的锁，串行化同一文件的引用、落盘、释放和删除
+     */
+    private final ReentrantLock[] blobLocks = new ReentrantLock[BLOB_LOCK_STRIPES];
+    
+    {
+        for (int i = 0; i < BLOB_LOCK_STRIPES; i++) {
+            blobLocks[i] = new ReentrantLock();
+        }
+    }
+    
     /**
      * 上传文件
      * @param file 文件
@@ -60,11 +133,17 @@ public class FileService {
             // 生成文件名
             String originalFilename = file.getOriginalFilename();
             String extension = getFileExtension(originalFilename);
+            
+            if (contentAddressed) {
+                return storeContentAddressed(file, absoluteUploadPath, subDirectory, extension);
+            }
+            
             String filename = generateUniqueFilename(extension);
             
             // 保存文件
             Path filePath = Paths.get(directory, filename);
             Files.copy(file.getInputStream(), filePath);
+            imageDerivativeService.scheduleDerivatives(filePath);
             
             logger.info("文件上传成功: {} -> {}", originalFilename, filePath.toString());
             
@@ -77,6 +156,111 @@ public class FileService {
         }
     }
     
+    /**
+     * 按内容哈希存储文件
+     * 上传流只读取一次：边写临时文件边计算SHA-256，再原子重命名为哈希文件名
+     * 目标文件已存在时丢弃临时文件，只增加引用计数
+     * 检查文件、落盘和增加引用在文件锁内完成，期间并发的删除不会移走刚复用的文件
+     */
+    private String storeContentAddressed(MultipartFile file, String absoluteUploadPath,
+                                         String subDirectory, String extension) throws IOException {
+        Path tempDirectory = Paths.get(absoluteUploadPath, ".tmp");
+        Files.createDirectories(tempDirectory);
+        Path tempFile = Files.createTempFile(tempDirectory, "upload-", ".part");
+        
+        try {
+            MessageDigest digest = newSha256();
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest);
+                 OutputStream out = Files.newOutputStream(tempFile)) {
+                size = in.transferTo(out);
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            String filename = sha256 + "." + extension;
+            Path target = Paths.get(absoluteUploadPath, subDirectory, filename);
+            String fileUrl = "/uploads/" + subDirectory + "/" + filename;
+            
+            ReentrantLock lock = blobLock(fileUrl);
+            lock.lock();
+            try {
+                if (Files.exists(target)) {
+                    logger.info("文件内容已存在，复用: {} -> {}", file.getOriginalFilename(), target);
+                } else {
+                    try {
+                        Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+                        logger.info("文件上传成功: {} -> {}", file.getOriginalFilename(), target);
+                    } catch (FileAlreadyExistsException e) {
+                        // 其他实例并发写入了相同内容，直接复用
+                        logger.debug("文件已由并发上传写入: {}", target);
+                    }
+                }
+                retain(fileUrl, sha256, size);
+            } finally {
+                lock.unlock();
+            }
+            imageDerivativeService.scheduleDerivatives(target);
+            return fileUrl;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+    
+    /**
+     * 增加文件引用计数，首次引用时创建记录
+     */
+    private void retain(String fileUrl, String sha256, long size) {
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.upsert(
+            Query.query(Criteria.where("fileUrl").is(fileUrl)),
+            new Update()
+                .inc("refCount", 1)
+                .set("updatedAt", now)
+                .setOnInsert("sha256", sha256)
+                .setOnInsert("size", size)
+                .setOnInsert("createdAt", now),
+            FileBlob.class);
+    }
+    
+    /**
+     * 减少文件引用计数
+     * @return 引用计数是否已归零且记录已移除
+     */
+    private boolean release(String fileUrl) {
+        Query query = Query.query(Criteria.where("fileUrl").is(fileUrl));
+        FileBlob blob = mongoTemplate.findAndModify(query,
+            new Update().inc("refCount", -1).set("updatedAt", LocalDateTime.now()),
+            FindAndModifyOptions.options().returnNew(true),
+            FileBlob.class);
+        if (blob == null || blob.getRefCount() > 0) {
+            return false;
+        }
+        // 只有引用计数仍为0时才移除，期间有新引用则保留
+        return mongoTemplate.remove(
+            Query.query(Criteria.where("fileUrl").is(fileUrl).and("refCount").lte(0)),
+            FileBlob.class).getDeletedCount() > 0;
+    }
+    
+    /**
+     * 判断URL是否为内容寻址文件（文件名为SHA-256，内容不可变）
+     * @param fileUrl 文件URL或文件名
+     * @return 是否为内容寻址文件
+     */
+    public static boolean isContentAddressed(String fileUrl) {
+        if (fileUrl == null) {
+            return false;
+        }
+        String filename = fileUrl.substring(fileUrl.lastIndexOf('/') + 1);
+        return CONTENT_ADDRESSED_NAME.matcher(filename).matches();
+    }
+    
+    private MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+    
     /**
      * 获取绝对上传路径
      * @return 绝对路径
@@ -164,21 +348,46 @@ public class FileService {
     
     /**
      * 删除文件
+     * 内容寻址文件只减少引用计数，没有引用时才删除磁盘文件
      * @param fileUrl 文件URL
      */
     public void deleteFile(String fileUrl) {
-        if (fileUrl != null && fileUrl.startsWith("/uploads/")) {
-            String relativePath = fileUrl.substring(8); // 移除 "/uploads/"
-            Path filePath = Paths.get(uploadPath, relativePath);
-            
-            try {
-                Files.deleteIfExists(filePath);
-            } catch (IOException e) {
-                throw new RuntimeException("文件删除失败", e);
+        if (fileUrl == null || !fileUrl.startsWith("/uploads/")) {
+            return;
+        }
+        if (!isContentAddressed(fileUrl)) {
+            deleteFromDisk(fileUrl);
+            return;
+        }
+        
+        // 释放引用和删除磁盘文件在文件锁内完成，与复用同一文件的上传串行
+        ReentrantLock lock = blobLock(fileUrl);
+        lock.lock();
+        try {
+            if (release(fileUrl)) {
+                deleteFromDisk(fileUrl);
             }
+        } finally {
+            lock.unlock();
         }
     }
     
+    private void deleteFromDisk(String fileUrl) {
+        String relativePath = fileUrl.substring("/uploads/".length());
+        Path filePath = Paths.get(getAbsoluteUploadPath(), relativePath);
+        
+        try {
+            Files.deleteIfExists(filePath);
+            imageDerivativeService.deleteDerivatives(filePath);
+        } catch (IOException e) {
+            throw new RuntimeException("文件删除失败", e);
+        }
+    }
+    
+    private ReentrantLock blobLock(String fileUrl) {
+        return blobLocks[Math.floorMod(fileUrl.hashCode(), BLOB_LOCK_STRIPES)];
+    }
+    
     /**
      * 上传图片文件
      * @param file 图片文件
@@ -187,4 +396,91 @@ public class FileService {
     public String uploadImage(MultipartFile file) {
         return uploadFile(file, "images");
     }
+    
+    /**
+     * 并行上传多张图片
+     * 先校验全部文件，再由请求线程和fileTaskExecutor上的工作线程共同领取上传任务，
+     * 并行数不超过file.upload.parallelism；任一图片失败时删除本次已写入的图片并抛出原异常
+     * 
+     * @param files 图片文件，空文件被忽略
+     * @return 图片URL，顺序与传入顺序一致
+     */
+    public List<String> uploadImages(List<MultipartFile> files) {
+        List<MultipartFile> images = new ArrayList<>();
+        if (files != null) {
+            for (MultipartFile file : files) {
+                if (file != null && !file.isEmpty()) {
+                    validateFile(file);
+                    images.add(file);
+                }
+            }
+        }
+        if (images.size() <= 1) {
+            return images.isEmpty() ? new ArrayList<>() : new ArrayList<>(List.of(uploadImage(images.get(0))));
+        }
+        
+        String[] urls = new String[images.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        Runnable worker = () -> {
+            int index;
+            while (!failed.get() && (index = next.getAndIncrement()) < images.size()) {
+                try {
+                    urls[index] = uploadImage(images.get(index));
+                } catch (RuntimeException e) {
+                    failed.set(true);
+                    throw e;
+                }
+            }
+        };
+        
+        List<CompletableFuture<Void>> helpers = new ArrayList<>();
+        int workers = Math.max(1, Math.min(uploadParallelism, images.size()));
+        for (int i = 1; i < workers; i++) {
+            helpers.add(CompletableFuture.runAsync(worker, fileTaskExecutor));
+        }
+        
+        RuntimeException failure = null;
+        try {
+            worker.run();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (CompletableFuture<Void> helper : helpers) {
+            try {
+                helper.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause()
+                        : new RuntimeException("文件上传失败", e.getCause());
+                }
+            }
+        }
+        
+        if (failure != null) {
+            deleteFiles(Arrays.asList(urls));
+            throw failure;
+        }
+        return new ArrayList<>(Arrays.asList(urls));
+    }
+    
+    /**
+     * 批量删除文件，单个失败只记录日志
+     * 用于回滚已上传的文件
+     * 
+     * @param fileUrls 文件URL，null元素被忽略
+     */
+    public void deleteFiles(List<String> fileUrls) {
+        for (String fileUrl : fileUrls) {
+            if (fileUrl == null) {
+                continue;
+            }
+            try {
+                deleteFile(fileUrl);
+            } catch (RuntimeException e) {
+                logger.warn("回滚上传文件失败: {}", fileUrl, e);
+            }
+        }
+    }
 } 
\ No newline at end of file
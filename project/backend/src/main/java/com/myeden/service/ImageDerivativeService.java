@@ -0,0 +1,350 @@
+package com.myeden.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 图片衍生图服务
+ *
+ * 功能说明：
+ * - 为上传的图片生成固定尺寸的缩略图（thumb）和压缩重编码的中图（medium）
+ * - 衍生图以 {原文件名}_{规格}.jpg 存放在原图旁边
+ * - 上传后在专用的有界执行器中异步生成，队列满时放弃预生成；首次请求时若尚未生成则同步生成
+ * - 同一衍生图的并发生成请求合并为一次（single-flight）
+ * - 解码前先读取图片头中的尺寸，像素数超过上限的图片不生成衍生图；
+ *   大图按目标尺寸降采样解码，避免整图解码占满内存
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class ImageDerivativeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+    /**
+     * 缩略图规格
+     */
+    public static final String THUMB = "thumb";
+
+    /**
+     * 中图规格
+     */
+    public static final String MEDIUM = "medium";
+
+    /**
+     * 全部规格
+     */
+    public static final List<String> VARIANTS = List.of(THUMB, MEDIUM);
+
+    /**
+     * 可生成衍生图的原图类型（GIF保留动画，不生成）
+     */
+    private static final List<String> SOURCE_TYPES = List.of("jpg", "jpeg", "png");
+
+    @Value("${file.derivatives.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.derivatives.thumb-size:320}")
+    private int thumbSize;
+
+    @Value("${file.derivatives.medium-size:1080}")
+    private int mediumSize;
+
+    @Value("${file.derivatives.quality:0.8}")
+    private float quality;
+
+    @Value("${file.derivatives.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Autowired
+    @Qualifier("imageDerivativeExecutor")
+    private Executor imageDerivativeExecutor;
+
+    /**
+     * 正在生成的衍生图：目标路径 -> 生成结果
+     */
+    private final Map<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 获取指定规格衍生图的访问URL
+     *
+     * @param fileUrl 原图URL
+     * @param variant 规格
+     * @return 衍生图URL，不支持衍生图时返回原图URL
+     */
+    public static String variantUrl(String fileUrl, String variant) {
+        if (fileUrl == null || !SOURCE_TYPES.contains(extensionOf(fileUrl))) {
+            return fileUrl;
+        }
+        return fileUrl + "?size=" + variant;
+    }
+
+    /**
+     * 为图片URL列表生成对应规格的URL列表
+     *
+     * @param fileUrls 原图URL列表
+     * @param variant 规格
+     * @return 衍生图URL列表
+     */
+    public static List<String> variantUrls(List<String> fileUrls, String variant) {
+        List<String> urls = new ArrayList<>();
+        if (fileUrls != null) {
+            for (String fileUrl : fileUrls) {
+                urls.add(variantUrl(fileUrl, variant));
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * 获取衍生图文件路径（不检查是否存在）
+     *
+     * @param original 原图路径
+     * @param variant 规格
+     * @return 衍生图路径
+     */
+    public static Path derivativePath(Path original, String variant) {
+        String filename = original.getFileName().toString();
+        int dot = filename.lastIndexOf('.');
+        String baseName = dot > 0 ? filename.substring(0, dot) : filename;
+        return original.resolveSibling(baseName + "_" + variant + ".jpg");
+    }
+
+    /**
+     * 上传后异步生成全部规格
+     *
+     * @param original 原图路径
+     */
+    public void scheduleDerivatives(Path original) {
+        if (!enabled || !SOURCE_TYPES.contains(extensionOf(original.getFileName().toString()))) {
+            return;
+        }
+        try {
+            imageDerivativeExecutor.execute(() -> {
+                for (String variant : VARIANTS) {
+                    try {
+                        getDerivative(original, variant);
+                    } catch (IOException e) {
+                        logger.warn("生成衍生图失败: {} ({})", original, variant, e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 执行器队列已满时放弃预生成，首次请求时再生成
+            logger.debug("衍生图预生成未提交: {}", original, e);
+        }
+    }
+
+    /**
+     * 获取衍生图，不存在时生成
+     *
+     * @param original 原图路径
+     * @param variant 规格
+     * @return 衍生图路径；规格未知、原图不支持或像素数超过上限时返回null
+     * @throws IOException 生成失败
+     */
+    public Path getDerivative(Path original, String variant) throws IOException {
+        Integer maxEdge = maxEdgeOf(variant);
+        if (!enabled || maxEdge == null || !SOURCE_TYPES.contains(extensionOf(original.getFileName().toString()))) {
+            return null;
+        }
+
+        Path target = derivativePath(original, variant);
+        if (Files.exists(target)) {
+            return target;
+        }
+
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(target, mine);
+        if (existing != null) {
+            // 已有线程在生成同一衍生图，等待其结果
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+            }
+        }
+
+        try {
+            Path result = Files.exists(target) || generate(original, target, maxEdge) ? target : null;
+            mine.complete(result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(target, mine);
+        }
+    }
+
+    /**
+     * 删除原图的全部衍生图
+     *
+     * @param original 原图路径
+     */
+    public void deleteDerivatives(Path original) {
+        for (String variant : VARIANTS) {
+            try {
+                Files.deleteIfExists(derivativePath(original, variant));
+            } catch (IOException e) {
+                logger.warn("删除衍生图失败: {} ({})", original, variant, e);
+            }
+        }
+    }
+
+    /**
+     * 缩放并以JPEG重编码，先写临时文件再原子重命名
+     *
+     * @return 是否生成；原图像素数超过上限时返回false
+     */
+    private boolean generate(Path original, Path target, int maxEdge) throws IOException {
+        long start = System.currentTimeMillis();
+        BufferedImage source = decode(original, maxEdge);
+        if (source == null) {
+            return false;
+        }
+
+        BufferedImage scaled = scale(source, maxEdge);
+        Path temp = Files.createTempFile(target.getParent(), ".derivative-", ".part");
+        try {
+            writeJpeg(scaled, temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.debug("衍生图生成完成: {} ({}x{}), 耗时: {}ms", target.getFileName(),
+                    scaled.getWidth(), scaled.getHeight(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    /**
+     * 读取图片头检查尺寸，再按整数倍降采样解码，解码结果的最长边不小于maxEdge
+     *
+     * @return 解码后的图片；像素数超过上限时返回null
+     * @throws IOException 不是可识别的图片或解码失败
+     */
+    private BufferedImage decode(Path original, int maxEdge) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("无法解码图片: " + original);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    logger.warn("图片像素数超过上限，不生成衍生图: {} ({}x{})", original, width, height);
+                    return null;
+                }
+
+                int subsampling = Math.max(1, Math.max(width, height) / maxEdge);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按最长边缩放，不放大；大比例缩小时逐级减半以保证质量
+     * 透明区域填充白色，因为JPEG不支持透明
+     */
+    private BufferedImage scale(BufferedImage source, int maxEdge) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        BufferedImage current = source;
+        int currentWidth = width;
+        int currentHeight = height;
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+            if (ratio == 1.0) {
+                currentWidth = targetWidth;
+                currentHeight = targetHeight;
+            }
+
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, currentWidth, currentHeight);
+                g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (currentWidth != targetWidth || currentHeight != targetHeight);
+
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private Integer maxEdgeOf(String variant) {
+        if (THUMB.equals(variant)) {
+            return thumbSize;
+        }
+        if (MEDIUM.equals(variant)) {
+            return mediumSize;
+        }
+        return null;
+    }
+
+    private static String extensionOf(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(dot + 1).toLowerCase() : "";
+    }
+}
@@ -1,14 +1,22 @@
 package com.myeden.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -21,6 +29,7 @@ import java.util.function.Function;
  * - 提供JWT token的生成和验证功能
  * - 支持token的解析和过期时间检查
  * - 提供安全的密钥管理
+ * - 签名密钥和解析器只构建一次，已验证的token缓存到过期为止
  * 
  * @author MyEden Team
  * @version 1.0.0
@@ -35,13 +44,31 @@ public class JwtService {
     @Value("${jwt.expiration:86400000}")
     private long expiration;
     
+    @Autowired
+    @Qualifier("verifiedTokenCache")
+    private Cache<String, Claims> verifiedTokenCache;
+    
+    private SecretKey signingKey;
+    
+    private JwtParser parser;
+    
+    /**
+     * 初始化签名密钥和解析器（均为线程安全的不可变对象）
+     */
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+    
     /**
      * 获取签名密钥
      * @return 签名密钥
      */
     private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
     
     /**
@@ -120,13 +147,34 @@ public class JwtService {
     
     /**
      * 提取所有声明
+     * 已验证的token直接从缓存返回，未命中时校验签名和过期时间后写入缓存
      * @param token JWT token
      * @return 所有声明
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .parseClaimsJws(token)
-                .getBody();
+        String key = hashToken(token);
+        Claims claims = verifiedTokenCache.getIfPresent(key);
+        if (claims != null) {
+            return claims;
+        }
+        
+        claims = parser.parseClaimsJws(token).getBody();
+        verifiedTokenCache.put(key, claims);
+        return claims;
+    }
+    
+    /**
+     * 计算token的SHA-256摘要作为缓存键
+     * 使用完整token而不是签名段，保证头部或载荷被篡改的token不会命中
+     * @param token JWT token
+     * @return Base64编码的摘要
+     */
+    private String hashToken(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
     }
 } 
\ No newline at end of file
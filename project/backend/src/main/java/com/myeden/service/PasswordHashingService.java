@@ -0,0 +1,106 @@
+package com.myeden.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 密码哈希服务
+ *
+ * 功能说明：
+ * - 在专用的有界线程池中执行BCrypt加密和校验，不占用请求线程的CPU
+ * - 队列已满或等待超时时快速失败，抛出ThrottledException由控制器返回429
+ * - 记录哈希耗时和拒绝次数指标
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    @Qualifier("passwordHashExecutor")
+    private Executor passwordHashExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 等待哈希结果的最长时间（毫秒），包含排队时间
+     */
+    @Value("${security.password-hash.timeout:5000}")
+    private long timeout;
+
+    /**
+     * 加密密码
+     *
+     * @param rawPassword 明文密码
+     * @return 密文
+     */
+    public String encode(String rawPassword) {
+        return execute("encode", () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 校验密码
+     *
+     * @param rawPassword 明文密码
+     * @param encodedPassword 密文
+     * @return 是否匹配
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return execute("matches", () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> T execute(String operation, Supplier<T> task) {
+        Timer timer = meterRegistry.timer("auth.password.hash", "operation", operation);
+
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> timer.record(task), passwordHashExecutor);
+        } catch (RejectedExecutionException e) {
+            throw reject("queue_full");
+        }
+
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw reject("timeout");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("密码哈希被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("密码哈希失败", e.getCause());
+        }
+    }
+
+    private ThrottledException reject(String reason) {
+        meterRegistry.counter("auth.password.rejected", "reason", reason).increment();
+        logger.warn("密码哈希请求被拒绝，原因: {}", reason);
+        return new ThrottledException("登录请求过多，请稍后再试");
+    }
+}
@@ -0,0 +1,220 @@
+package com.myeden.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.myeden.event.PostChangedEvent;
+import com.myeden.service.PostService.PostFeedResult;
+import com.myeden.service.PostService.PostListResult;
+import com.myeden.service.PostService.PostSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 动态流首页缓存
+ *
+ * 功能说明：
+ * - 缓存按作者类型筛选的前几页动态列表和游标动态流第一页（已填充作者信息）
+ * - 读穿透：未命中时由第一个请求加载，同一键的并发请求等待该次加载结果
+ * - 发布、删除动态时失效受影响的作者类型（以及全部）对应的缓存
+ * - 点赞数、评论数变化时原地修补已缓存的动态摘要，不重新查询
+ * - 每个变更事件递增代数；加载期间代数变化时，加载结果只返回给本次请求，不留在缓存中
+ *
+ * 缓存内容与当前用户无关（isLiked始终为false），作者昵称和头像的变化
+ * 依赖hotPostsCache的过期时间刷新。
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class PostFeedCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostFeedCache.class);
+
+    private static final String KEY_PREFIX = "feed:";
+
+    private static final String ALL_TYPES = "all";
+
+    @Autowired
+    @Qualifier("hotPostsCache")
+    private Cache<String, Object> hotPostsCache;
+
+    @Value("${feed.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${feed.cache.max-pages:3}")
+    private int maxPages;
+
+    /**
+     * 动态变更代数，每个PostChangedEvent递增一次
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 获取分页动态列表，前maxPages页走缓存
+     *
+     * @param page 页码（从1开始）
+     * @param size 每页大小
+     * @param authorType 作者类型，为空表示全部
+     * @param loader 未命中时的加载函数
+     * @return 动态列表结果
+     */
+    public PostListResult getPostList(int page, int size, String authorType, Supplier<PostListResult> loader) {
+        if (!enabled || page < 1 || page > maxPages) {
+            return loader.get();
+        }
+        String key = KEY_PREFIX + typeSegment(authorType) + ":list:" + page + ":" + size;
+        return (PostListResult) load(key, loader);
+    }
+
+    /**
+     * 获取游标动态流第一页（不含总数）
+     *
+     * @param size 每页大小
+     * @param authorType 作者类型，为空表示全部
+     * @param loader 未命中时的加载函数
+     * @return 动态流结果
+     */
+    public PostFeedResult getFirstFeedPage(int size, String authorType, Supplier<PostFeedResult> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String key = KEY_PREFIX + typeSegment(authorType) + ":first:" + size;
+        return (PostFeedResult) load(key, loader);
+    }
+
+    /**
+     * 读穿透加载，并发请求共享同一次加载
+     *
+     * 失效和修补只作用于已完成加载的缓存项，正在加载的键会被跳过；
+     * 因此加载开始后若有变更事件，加载结果可能已过期，加载完成后将其移出缓存。
+     */
+    private Object load(String key, Supplier<?> loader) {
+        long[] startedAt = {-1};
+        Object value = hotPostsCache.get(key, k -> {
+            startedAt[0] = generation.get();
+            return loader.get();
+        });
+        if (startedAt[0] >= 0 && generation.get() != startedAt[0]) {
+            hotPostsCache.asMap().remove(key, value);
+            logger.debug("加载期间动态已变更，丢弃缓存结果: {}", key);
+        }
+        return value;
+    }
+
+    /**
+     * 处理动态变更事件
+     * 先递增代数，使正在进行的加载在完成后丢弃结果，再失效或修补已缓存的页
+     */
+    @EventListener
+    public void onPostChanged(PostChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        generation.incrementAndGet();
+        if (event.isMembershipChange()) {
+            invalidate(event.getAuthorType());
+        } else {
+            patchCounters(event);
+        }
+    }
+
+    /**
+     * 失效全部和指定作者类型的缓存
+     */
+    public void invalidate(String authorType) {
+        String allPrefix = KEY_PREFIX + ALL_TYPES + ":";
+        String typePrefix = KEY_PREFIX + typeSegment(authorType) + ":";
+        hotPostsCache.asMap().keySet().removeIf(key -> key.startsWith(allPrefix) || key.startsWith(typePrefix));
+        logger.debug("动态流缓存已失效: authorType={}", authorType);
+    }
+
+    /**
+     * 修补已缓存页中该动态的点赞数和评论数
+     */
+    private void patchCounters(PostChangedEvent event) {
+        String allPrefix = KEY_PREFIX + ALL_TYPES + ":";
+        String typePrefix = KEY_PREFIX + typeSegment(event.getAuthorType()) + ":";
+        for (String key : new ArrayList<>(hotPostsCache.asMap().keySet())) {
+            if (!key.startsWith(allPrefix) && !key.startsWith(typePrefix)) {
+                continue;
+            }
+            hotPostsCache.asMap().computeIfPresent(key, (k, value) -> patch(value, event));
+        }
+    }
+
+    private Object patch(Object value, PostChangedEvent event) {
+        if (value instanceof PostListResult) {
+            PostListResult list = (PostListResult) value;
+            List<PostSummary> posts = patchSummaries(list.getPosts(), event);
+            return posts == null ? list : new PostListResult(posts, list.getTotal(), list.getPage(), list.getSize());
+        }
+        if (value instanceof PostFeedResult) {
+            PostFeedResult feed = (PostFeedResult) value;
+            List<PostSummary> posts = patchSummaries(feed.getPosts(), event);
+            return posts == null ? feed : new PostFeedResult(posts, feed.getNextCursor(), feed.isHasMore(), feed.getTotal());
+        }
+        return value;
+    }
+
+    /**
+     * 复制摘要列表并替换目标动态的计数，列表中不含该动态时返回null
+     */
+    private List<PostSummary> patchSummaries(List<PostSummary> summaries, PostChangedEvent event) {
+        for (int i = 0; i < summaries.size(); i++) {
+            PostSummary summary = summaries.get(i);
+            if (!summary.getPostId().equals(event.getPostId())) {
+                continue;
+            }
+            if (isNewer(summary.getUpdatedAt(), event.getUpdatedAt())) {
+                // 乱序到达的旧事件
+                return null;
+            }
+            List<PostSummary> patched = new ArrayList<>(summaries);
+            PostSummary updated = new PostSummary(
+                summary.getPostId(),
+                summary.getAuthorId(),
+                summary.getAuthorType(),
+                summary.getAuthorName(),
+                summary.getAuthorAvatar(),
+                summary.getContent(),
+                summary.getImages(),
+                event.getLikeCount(),
+                event.getCommentCount(),
+                summary.isLiked(),
+                summary.getCreatedAt(),
+                event.getUpdatedAt() != null
+                    ? event.getUpdatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                    : summary.getUpdatedAt()
+            );
+            updated.setThumbnails(summary.getThumbnails());
+            updated.setHighlight(summary.getHighlight());
+            patched.set(i, updated);
+            return patched;
+        }
+        return null;
+    }
+
+    private boolean isNewer(String cachedUpdatedAt, LocalDateTime eventUpdatedAt) {
+        if (cachedUpdatedAt == null || eventUpdatedAt == null) {
+            return false;
+        }
+        return LocalDateTime.parse(cachedUpdatedAt, DateTimeFormatter.ISO_LOCAL_DATE_TIME).isAfter(eventUpdatedAt);
+    }
+
+    private String typeSegment(String authorType) {
+        return StringUtils.hasText(authorType) ? authorType : ALL_TYPES;
+    }
+}
@@ -0,0 +1,596 @@
+package com.myeden.service;
+
+import com.myeden.entity.Comment;
+import com.myeden.entity.Post;
+import com.myeden.entity.Robot;
+import com.myeden.entity.User;
+import com.myeden.event.AuthorProfileChangedEvent;
+import com.myeden.event.CommentChangedEvent;
+import com.myeden.event.PostChangedEvent;
+import com.myeden.repository.CommentRepository;
+import com.myeden.repository.PostRepository;
+import com.myeden.repository.RobotRepository;
+import com.myeden.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.cjk.CJKBigramFilter;
+import org.apache.lucene.analysis.cjk.CJKWidthFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.highlight.Highlighter;
+import org.apache.lucene.search.highlight.InvalidTokenOffsetsException;
+import org.apache.lucene.search.highlight.QueryScorer;
+import org.apache.lucene.search.highlight.SimpleHTMLEncoder;
+import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
+import org.apache.lucene.search.highlight.SimpleFragmenter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * 动态全文搜索索引（内嵌Lucene）
+ *
+ * 功能说明：
+ * - 在本地磁盘维护动态内容、评论内容和作者显示名的倒排索引
+ * - 通过动态、评论变更事件增量更新，近实时刷新读取器后即可搜索
+ * - 作者改名时按作者重写其动态文档，新名字可立即搜索
+ * - 索引为空时启动后自动重建，重建时流式读取动态和评论集合
+ * - 返回按相关度排序的动态ID和高亮片段，由动态服务回表组装结果
+ *
+ * 中日韩文字索引时输出单字和二元组，查询时只用二元组（单字查询保留单字），
+ * 与SearchTokenizer的规则一致。索引结构版本记录在提交数据中，版本不一致时启动后重建。
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class PostSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndex.class);
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_POST_ID = "postId";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_AUTHOR_NAME = "authorName";
+    private static final String FIELD_AUTHOR_KEY = "authorKey";
+    private static final String FIELD_CREATED_AT = "createdAt";
+
+    /**
+     * 索引结构版本，文档字段变化时递增
+     */
+    private static final String SCHEMA_VERSION = "2";
+    private static final String COMMIT_SCHEMA = "schema";
+
+    private static final String TYPE_POST = "post";
+    private static final String TYPE_COMMENT = "comment";
+
+    private static final int HIGHLIGHT_FRAGMENT_SIZE = 80;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Value("${search.lucene.enabled:false}")
+    private boolean enabled;
+
+    @Value("${search.lucene.path:./data/search-index}")
+    private String indexPath;
+
+    @Value("${search.lucene.max-hits:1000}")
+    private int maxHits;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RobotRepository robotRepository;
+
+    private final Analyzer indexAnalyzer = cjkAnalyzer(true);
+
+    private final Analyzer queryAnalyzer = cjkAnalyzer(false);
+
+    private Directory directory;
+
+    private IndexWriter writer;
+
+    private SearcherManager searcherManager;
+
+    /**
+     * 索引是否完整可用（重建期间为false，搜索回退到数据库）
+     */
+    private volatile boolean ready;
+
+    /**
+     * 自上次提交后是否有未提交的修改
+     */
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    /**
+     * 打开索引目录
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            directory = FSDirectory.open(Paths.get(indexPath));
+            IndexWriterConfig config = new IndexWriterConfig(indexAnalyzer);
+            config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            writer = new IndexWriter(directory, config);
+            searcherManager = new SearcherManager(writer, null);
+            ready = writer.getDocStats().numDocs > 0 && SCHEMA_VERSION.equals(committedSchema());
+            logger.info("搜索索引已打开: path={}, docs={}", indexPath, writer.getDocStats().numDocs);
+        } catch (IOException e) {
+            logger.error("打开搜索索引失败，搜索将使用数据库: path={}", indexPath, e);
+            enabled = false;
+        }
+    }
+
+    /**
+     * 启动后索引为空时自动重建
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (enabled && !ready) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 搜索索引是否可用
+     *
+     * @return 是否可用
+     */
+    public boolean isAvailable() {
+        return enabled && ready;
+    }
+
+    /**
+     * 流式读取动态和评论集合，重建整个索引
+     */
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        ready = false;
+        Map<String, String> authorNames = new HashMap<>();
+        int posts = 0;
+        int comments = 0;
+        try {
+            writer.deleteAll();
+            try (Stream<Post> stream = postRepository.streamAllActive()) {
+                for (Post post : (Iterable<Post>) stream::iterator) {
+                    writer.updateDocument(idTerm(TYPE_POST, post.getPostId()), postDocument(
+                        post.getPostId(), post.getContent(), toEpochMillis(post.getCreatedAt()),
+                        authorKey(post.getAuthorId(), post.getAuthorType()),
+                        authorNames.computeIfAbsent(authorKey(post.getAuthorId(), post.getAuthorType()),
+                            k -> resolveAuthorName(post.getAuthorId(), post.getAuthorType()))));
+                    posts++;
+                }
+            }
+            try (Stream<Comment> stream = commentRepository.streamAllActive()) {
+                for (Comment comment : (Iterable<Comment>) stream::iterator) {
+                    writer.updateDocument(idTerm(TYPE_COMMENT, comment.getCommentId()), commentDocument(
+                        comment.getCommentId(), comment.getPostId(), comment.getContent(), comment.getCreatedAt()));
+                    comments++;
+                }
+            }
+            writer.setLiveCommitData(Map.of(COMMIT_SCHEMA, SCHEMA_VERSION).entrySet());
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+            ready = true;
+            logger.info("搜索索引重建完成: posts={}, comments={}, 耗时={}ms",
+                posts, comments, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("搜索索引重建失败", e);
+        }
+    }
+
+    /**
+     * 动态发布、删除时增量更新索引
+     */
+    @EventListener
+    public void onPostChanged(PostChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            switch (event.getChangeType()) {
+                case CREATED:
+                    writer.updateDocument(idTerm(TYPE_POST, event.getPostId()), postDocument(
+                        event.getPostId(), event.getContent(), toEpochMillis(event.getCreatedAt()),
+                        authorKey(event.getAuthorId(), event.getAuthorType()),
+                        resolveAuthorName(event.getAuthorId(), event.getAuthorType())));
+                    dirty.set(true);
+                    break;
+                case DELETED:
+                    // 同时移除该动态下的评论
+                    writer.deleteDocuments(new Term(FIELD_POST_ID, event.getPostId()));
+                    dirty.set(true);
+                    break;
+                default:
+                    // 计数变化不影响索引
+                    break;
+            }
+        } catch (IOException e) {
+            logger.warn("更新动态搜索索引失败: postId={}", event.getPostId(), e);
+        }
+    }
+
+    /**
+     * 作者改名时用新名字重写该作者的全部动态文档
+     * 重建期间跳过，重建时从数据库读取当前名字
+     */
+    @EventListener
+    public void onAuthorProfileChanged(AuthorProfileChangedEvent event) {
+        if (!enabled || !ready || event.isCreated() || event.getName() == null) {
+            return;
+        }
+        try {
+            // 先刷新读取器，包含刚写入的动态
+            searcherManager.maybeRefreshBlocking();
+            IndexSearcher searcher = searcherManager.acquire();
+            int rewritten = 0;
+            try {
+                Query byAuthor = new TermQuery(new Term(FIELD_AUTHOR_KEY,
+                    authorKey(event.getAuthorId(), event.getAuthorType())));
+                int count = searcher.count(byAuthor);
+                if (count == 0) {
+                    return;
+                }
+                StoredFields storedFields = searcher.storedFields();
+                for (ScoreDoc scoreDoc : searcher.search(byAuthor, count).scoreDocs) {
+                    Document stored = storedFields.document(scoreDoc.doc);
+                    if (event.getName().equals(stored.get(FIELD_AUTHOR_NAME))) {
+                        continue;
+                    }
+                    String postId = stored.get(FIELD_POST_ID);
+                    writer.updateDocument(idTerm(TYPE_POST, postId), postDocument(postId, stored.get(FIELD_CONTENT),
+                        stored.getField(FIELD_CREATED_AT).numericValue().longValue(),
+                        stored.get(FIELD_AUTHOR_KEY), event.getName()));
+                    rewritten++;
+                }
+            } finally {
+                searcherManager.release(searcher);
+            }
+            if (rewritten > 0) {
+                dirty.set(true);
+                searcherManager.maybeRefresh();
+                logger.debug("作者改名，已重写动态索引: {}, 文档数: {}", event, rewritten);
+            }
+        } catch (IOException e) {
+            logger.warn("更新作者名搜索索引失败: {}", event, e);
+        }
+    }
+
+    /**
+     * 评论发布、删除时增量更新索引
+     */
+    @EventListener
+    public void onCommentChanged(CommentChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Term id = idTerm(TYPE_COMMENT, event.getCommentId());
+            if (event.getChangeType() == CommentChangedEvent.ChangeType.CREATED) {
+                writer.updateDocument(id, commentDocument(
+                    event.getCommentId(), event.getPostId(), event.getContent(), event.getCreatedAt()));
+            } else if (event.getChangeType() == CommentChangedEvent.ChangeType.DELETED) {
+                writer.deleteDocuments(id);
+            } else {
+                return;
+            }
+            dirty.set(true);
+        } catch (IOException e) {
+            logger.warn("更新评论搜索索引失败: commentId={}", event.getCommentId(), e);
+        }
+    }
+
+    /**
+     * 定期刷新近实时读取器，使新写入的文档可被搜索
+     */
+    @Scheduled(fixedDelayString = "${search.lucene.refresh-interval:1000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            logger.warn("刷新搜索索引读取器失败", e);
+        }
+    }
+
+    /**
+     * 定期提交索引修改到磁盘
+     */
+    @Scheduled(fixedDelayString = "${search.lucene.commit-interval:30000}")
+    public void commit() {
+        if (!enabled || !dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            writer.commit();
+        } catch (IOException e) {
+            dirty.set(true);
+            logger.warn("提交搜索索引失败", e);
+        }
+    }
+
+    /**
+     * 搜索动态
+     *
+     * @param keyword 关键字
+     * @param searchType 搜索类型：content(内容)、author(发帖人)、all(内容、发帖人和评论)
+     * @param page 页码（从1开始）
+     * @param size 每页大小
+     * @return 按相关度排序的动态ID和高亮片段
+     * @throws IOException 索引读取失败
+     */
+    public IndexSearchResult search(String keyword, String searchType, int page, int size) throws IOException {
+        Query query = buildQuery(keyword, searchType);
+        if (query == null) {
+            return new IndexSearchResult(Collections.emptyList(), Collections.emptyMap(), 0);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            Sort sort = new Sort(SortField.FIELD_SCORE, new SortField(FIELD_CREATED_AT, SortField.Type.LONG, true));
+            TopDocs topDocs = searcher.search(query, maxHits, sort);
+            StoredFields storedFields = searcher.storedFields();
+
+            // 同一动态只保留得分最高的命中（动态本身或其评论）
+            Map<String, Integer> bestDocs = new LinkedHashMap<>();
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                String postId = storedFields.document(scoreDoc.doc).get(FIELD_POST_ID);
+                bestDocs.putIfAbsent(postId, scoreDoc.doc);
+            }
+
+            List<String> orderedIds = new ArrayList<>(bestDocs.keySet());
+            int from = Math.min((page - 1) * size, orderedIds.size());
+            int to = Math.min(from + size, orderedIds.size());
+            List<String> pageIds = new ArrayList<>(orderedIds.subList(from, to));
+
+            // 只为当前页生成高亮
+            Highlighter highlighter = new Highlighter(
+                new SimpleHTMLFormatter("<em>", "</em>"), new SimpleHTMLEncoder(), new QueryScorer(query, FIELD_CONTENT));
+            highlighter.setTextFragmenter(new SimpleFragmenter(HIGHLIGHT_FRAGMENT_SIZE));
+            Map<String, String> highlights = new HashMap<>();
+            for (String postId : pageIds) {
+                String content = storedFields.document(bestDocs.get(postId)).get(FIELD_CONTENT);
+                String fragment = highlight(highlighter, content);
+                if (fragment != null) {
+                    highlights.put(postId, fragment);
+                }
+            }
+
+            return new IndexSearchResult(pageIds, highlights, orderedIds.size());
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * 关闭索引
+     */
+    @PreDestroy
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        } catch (IOException e) {
+            logger.warn("关闭搜索索引失败", e);
+        }
+    }
+
+    /**
+     * 构建查询：每个字段内所有词元必须命中，字段之间任一命中即可
+     */
+    private Query buildQuery(String keyword, String searchType) {
+        QueryBuilder builder = new QueryBuilder(queryAnalyzer);
+        Query postContent = builder.createBooleanQuery(FIELD_CONTENT, keyword, BooleanClause.Occur.MUST);
+        Query authorName = builder.createBooleanQuery(FIELD_AUTHOR_NAME, keyword, BooleanClause.Occur.MUST);
+
+        BooleanQuery.Builder fields = new BooleanQuery.Builder();
+        String type = searchType != null ? searchType.toLowerCase() : "all";
+        if (!"author".equals(type) && postContent != null) {
+            fields.add(ofType(TYPE_POST, postContent), BooleanClause.Occur.SHOULD);
+        }
+        if (!"content".equals(type) && authorName != null) {
+            fields.add(ofType(TYPE_POST, authorName), BooleanClause.Occur.SHOULD);
+        }
+        if ("all".equals(type) && postContent != null) {
+            // 评论命中时返回其所属动态，权重低于动态本身
+            fields.add(new BoostQuery(ofType(TYPE_COMMENT, postContent), 0.5f),
+                BooleanClause.Occur.SHOULD);
+        }
+        BooleanQuery query = fields.build();
+        return query.clauses().isEmpty() ? null : query;
+    }
+
+    private Query ofType(String type, Query query) {
+        return new BooleanQuery.Builder()
+            .add(query, BooleanClause.Occur.MUST)
+            .add(new TermQuery(new Term(FIELD_TYPE, type)), BooleanClause.Occur.FILTER)
+            .build();
+    }
+
+    private String highlight(Highlighter highlighter, String content) {
+        if (content == null) {
+            return null;
+        }
+        try {
+            return highlighter.getBestFragment(indexAnalyzer, FIELD_CONTENT, content);
+        } catch (IOException | InvalidTokenOffsetsException e) {
+            logger.debug("生成高亮片段失败", e);
+            return null;
+        }
+    }
+
+    private Document postDocument(String postId, String content, long createdAt, String authorKey, String authorName) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, TYPE_POST + ":" + postId, Field.Store.NO));
+        document.add(new StringField(FIELD_TYPE, TYPE_POST, Field.Store.NO));
+        document.add(new StringField(FIELD_POST_ID, postId, Field.Store.YES));
+        document.add(new TextField(FIELD_CONTENT, content != null ? content : "", Field.Store.YES));
+        // 作者标识和创建时间存储在文档中，改名时无需回表即可重写文档
+        document.add(new StringField(FIELD_AUTHOR_KEY, authorKey, Field.Store.YES));
+        document.add(new TextField(FIELD_AUTHOR_NAME, authorName != null ? authorName : "", Field.Store.YES));
+        document.add(new NumericDocValuesField(FIELD_CREATED_AT, createdAt));
+        document.add(new StoredField(FIELD_CREATED_AT, createdAt));
+        return document;
+    }
+
+    private Document commentDocument(String commentId, String postId, String content, LocalDateTime createdAt) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, TYPE_COMMENT + ":" + commentId, Field.Store.NO));
+        document.add(new StringField(FIELD_TYPE, TYPE_COMMENT, Field.Store.NO));
+        document.add(new StringField(FIELD_POST_ID, postId, Field.Store.YES));
+        document.add(new TextField(FIELD_CONTENT, content != null ? content : "", Field.Store.YES));
+        document.add(new NumericDocValuesField(FIELD_CREATED_AT, toEpochMillis(createdAt)));
+        return document;
+    }
+
+    private String authorKey(String authorId, String authorType) {
+        return authorType + ":" + authorId;
+    }
+
+    private String committedSchema() {
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (COMMIT_SCHEMA.equals(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private Term idTerm(String type, String id) {
+        return new Term(FIELD_ID, type + ":" + id);
+    }
+
+    private long toEpochMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZONE).toInstant().toEpochMilli() : 0L;
+    }
+
+    /**
+     * 获取作者显示名
+     */
+    private String resolveAuthorName(String authorId, String authorType) {
+        if ("user".equals(authorType)) {
+            Optional<User> userOpt = userRepository.findByUserId(authorId);
+            return userOpt.map(User::getNickname).orElse(null);
+        }
+        if ("robot".equals(authorType)) {
+            Optional<Robot> robotOpt = robotRepository.findByRobotId(authorId);
+            return robotOpt.map(Robot::getName).orElse(null);
+        }
+        return null;
+    }
+
+    /**
+     * 中日韩二元组分析器
+     *
+     * @param outputUnigrams 是否同时输出单字（索引时为true，查询时为false）
+     */
+    private static Analyzer cjkAnalyzer(boolean outputUnigrams) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer source = new StandardTokenizer();
+                TokenStream result = new CJKWidthFilter(source);
+                result = new LowerCaseFilter(result);
+                result = new CJKBigramFilter(result, CJKBigramFilter.HAN | CJKBigramFilter.HIRAGANA
+                    | CJKBigramFilter.KATAKANA | CJKBigramFilter.HANGUL, outputUnigrams);
+                return new TokenStreamComponents(source, result);
+            }
+
+            @Override
+            protected TokenStream normalize(String fieldName, TokenStream in) {
+                return new LowerCaseFilter(new CJKWidthFilter(in));
+            }
+        };
+    }
+
+    /**
+     * 索引搜索结果
+     */
+    public static class IndexSearchResult {
+        private final List<String> postIds;
+        private final Map<String, String> highlights;
+        private final int total;
+
+        public IndexSearchResult(List<String> postIds, Map<String, String> highlights, int total) {
+            this.postIds = postIds;
+            this.highlights = highlights;
+            this.total = total;
+        }
+
+        public List<String> getPostIds() { return postIds; }
+        public Map<String, String> getHighlights() { return highlights; }
+        public int getTotal() { return total; }
+    }
+}
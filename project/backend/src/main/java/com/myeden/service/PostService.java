@@ -38,6 +38,17 @@ public interface PostService {
      */
     PostListResult getPostList(int page, int size, String authorType);
     
+    /**
+     * 游标分页获取动态流
+     * 按创建时间倒序，不执行skip和逐页count，适用于无限滚动
+     * @param cursor 上一页返回的游标（第一页为空）
+     * @param size 每页大小
+     * @param authorType 作者类型过滤（可选）
+     * @param includeTotal 是否返回总数（来自短时缓存）
+     * @return 动态列表和下一页游标
+     */
+    PostFeedResult getPostFeed(String cursor, int size, String authorType, boolean includeTotal);
+    
     /**
      * 获取动态详情
      * @param postId 动态ID
@@ -46,6 +57,14 @@ public interface PostService {
      */
     PostDetail getPostDetail(String postId, String currentUserId);
     
+    /**
+     * 获取动态快照
+     * 只包含动态内容和作者信息，不加载点赞和评论列表，供多个机器人反应时共享
+     * @param postId 动态ID
+     * @return 只读的动态详细信息（点赞和评论列表为空）
+     */
+    PostDetail getPostSnapshot(String postId);
+    
     /**
      * 删除动态
      * @param postId 动态ID
@@ -79,6 +98,16 @@ public interface PostService {
      */
     PostListResult getUserPosts(String authorId, int page, int size);
     
+    /**
+     * 游标分页获取用户的动态流
+     * @param authorId 作者ID
+     * @param cursor 上一页返回的游标（第一页为空）
+     * @param size 每页大小
+     * @param includeTotal 是否返回总数（来自短时缓存）
+     * @return 动态列表和下一页游标
+     */
+    PostFeedResult getUserPostFeed(String authorId, String cursor, int size, boolean includeTotal);
+    
     /**
      * 根据关键字搜索动态
      * @param keyword 搜索关键字
@@ -145,6 +174,29 @@ public interface PostService {
         public int getTotalPages() { return totalPages; }
     }
     
+    /**
+     * 游标分页动态流结果
+     */
+    class PostFeedResult {
+        private List<PostSummary> posts;
+        private String nextCursor;
+        private boolean hasMore;
+        private Long total; // 仅在请求时返回，来自短时缓存
+        
+        public PostFeedResult(List<PostSummary> posts, String nextCursor, boolean hasMore, Long total) {
+            this.posts = posts;
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+            this.total = total;
+        }
+        
+        // Getter方法
+        public List<PostSummary> getPosts() { return posts; }
+        public String getNextCursor() { return nextCursor; }
+        public boolean isHasMore() { return hasMore; }
+        public Long getTotal() { return total; }
+    }
+    
     /**
      * 动态摘要信息
      */
@@ -161,6 +213,8 @@ public interface PostService {
         private boolean isLiked;
         private String createdAt;
         private String updatedAt;
+        private String highlight; // 搜索高亮片段（仅搜索结果）
+        private List<String> thumbnails; // 缩略图URL，与images一一对应
         
         public PostSummary(String postId, String authorId, String authorType, String authorName, 
                           String authorAvatar, String content, List<String> images, int likeCount, 
@@ -192,6 +246,11 @@ public interface PostService {
         public boolean isLiked() { return isLiked; }
         public String getCreatedAt() { return createdAt; }
         public String getUpdatedAt() { return updatedAt; }
+        public String getHighlight() { return highlight; }
+        public List<String> getThumbnails() { return thumbnails; }
+        
+        public void setHighlight(String highlight) { this.highlight = highlight; }
+        public void setThumbnails(List<String> thumbnails) { this.thumbnails = thumbnails; }
     }
     
     /**
@@ -212,6 +271,7 @@ public interface PostService {
         private List<CommentSummary> comments; // 新增：评论列表
         private String createdAt;
         private String updatedAt;
+        private List<String> thumbnails; // 缩略图URL，与images一一对应
         
         public PostDetail(String postId, String authorId, String authorType, String authorName, 
                          String authorAvatar, String content, List<String> images, int likeCount, 
@@ -248,6 +308,9 @@ public interface PostService {
         public List<CommentSummary> getComments() { return comments; }
         public String getCreatedAt() { return createdAt; }
         public String getUpdatedAt() { return updatedAt; }
+        public List<String> getThumbnails() { return thumbnails; }
+        
+        public void setThumbnails(List<String> thumbnails) { this.thumbnails = thumbnails; }
     }
     
     /**
@@ -0,0 +1,256 @@
+package com.myeden.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 提示词预算器
+ *
+ * 功能说明：
+ * - 提示词按段落组装，每段估算token数，超出预算时按优先级裁剪
+ * - 引用的动态、评论内容最先截断，其次是当前情况、作者信息、个人档案，人设背景最后裁剪
+ * - 引用内容按字符截断并保留下限，档案和背景按行从末尾删除，固定段落（身份、生成要求）不裁剪
+ * - 按提示词类型记录裁剪前后的token数分布和裁剪次数
+ *
+ * token数按中日韩字符每字1个、其他非空白字符每4个1个估算，与常见分词器的量级一致。
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class PromptBudgeter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromptBudgeter.class);
+
+    /**
+     * 裁剪顺序，数值小的先裁剪
+     */
+    public static final int QUOTED = 0;
+    public static final int CONTEXT = 1;
+    public static final int AUTHOR = 2;
+    public static final int PROFILE = 3;
+    public static final int PERSONA = 4;
+
+    private static final String ELLIPSIS = "…（后略）";
+
+    /**
+     * 裁剪方式
+     */
+    public enum Trim {
+        /** 不裁剪 */
+        NONE,
+        /** 按字符截断 */
+        TRUNCATE,
+        /** 从末尾按行删除，保留第一行 */
+        DROP_LINES
+    }
+
+    @Value("${prompt.budget.max-tokens:1200}")
+    private int maxTokens;
+
+    /**
+     * 引用内容截断后至少保留的token数
+     */
+    @Value("${prompt.budget.quoted-min-tokens:80}")
+    private int quotedMinTokens;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 开始组装一个提示词
+     *
+     * @param promptType 提示词类型（post/comment/reply/inner_thoughts），用于指标标签
+     */
+    public Prompt newPrompt(String promptType) {
+        return new Prompt(promptType);
+    }
+
+    /**
+     * 估算文本的token数
+     */
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            if (SearchTokenizer.isCjk(codePoint)) {
+                cjk++;
+            } else if (!Character.isWhitespace(codePoint)) {
+                other++;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    /**
+     * 提示词段落
+     */
+    private static class Section {
+        private String text;
+        private final int trimOrder;
+        private final Trim trim;
+
+        Section(String text, int trimOrder, Trim trim) {
+            this.text = text;
+            this.trimOrder = trimOrder;
+            this.trim = trim;
+        }
+    }
+
+    /**
+     * 组装中的提示词
+     */
+    public class Prompt {
+        private final String promptType;
+        private final List<Section> sections = new ArrayList<>();
+
+        private Prompt(String promptType) {
+            this.promptType = promptType;
+        }
+
+        /**
+         * 添加不裁剪的段落
+         */
+        public Prompt add(String text) {
+            return add(text, Integer.MAX_VALUE, Trim.NONE);
+        }
+
+        /**
+         * 添加可裁剪的段落
+         *
+         * @param text 段落内容
+         * @param trimOrder 裁剪顺序（QUOTED、CONTEXT、AUTHOR、PROFILE、PERSONA）
+         * @param trim 裁剪方式
+         */
+        public Prompt add(String text, int trimOrder, Trim trim) {
+            if (text != null && !text.isEmpty()) {
+                sections.add(new Section(text, trimOrder, trim));
+            }
+            return this;
+        }
+
+        /**
+         * 按预算裁剪并拼接，记录提示词大小
+         */
+        public String build() {
+            int before = 0;
+            for (Section section : sections) {
+                before += estimateTokens(section.text);
+            }
+
+            int total = before;
+            if (total > maxTokens) {
+                List<Section> trimmable = new ArrayList<>();
+                for (Section section : sections) {
+                    if (section.trim != Trim.NONE) {
+                        trimmable.add(section);
+                    }
+                }
+                trimmable.sort(Comparator.comparingInt(section -> section.trimOrder));
+                for (Section section : trimmable) {
+                    if (total <= maxTokens) {
+                        break;
+                    }
+                    int tokens = estimateTokens(section.text);
+                    section.text = section.trim == Trim.TRUNCATE
+                        ? truncate(section.text, tokens - (total - maxTokens))
+                        : dropLines(section.text, tokens - (total - maxTokens));
+                    total += estimateTokens(section.text) - tokens;
+                }
+                logger.debug("{}提示词超出预算，裁剪前: {}，裁剪后: {}", promptType, before, total);
+            }
+
+            record(before, total);
+            StringBuilder prompt = new StringBuilder();
+            for (Section section : sections) {
+                prompt.append(section.text);
+            }
+            return prompt.toString();
+        }
+
+        /**
+         * 拼接情境部分，即人设背景和个人档案之外的段落，用于已发送过人设的Dify对话
+         * 在build之后调用，沿用build的裁剪结果，不记录指标
+         */
+        public String buildSituational() {
+            StringBuilder prompt = new StringBuilder();
+            for (Section section : sections) {
+                if (section.trimOrder != PROFILE && section.trimOrder != PERSONA) {
+                    prompt.append(section.text);
+                }
+            }
+            return prompt.toString();
+        }
+
+        private void record(int before, int after) {
+            if (meterRegistry == null) {
+                return;
+            }
+            meterRegistry.summary("ai.prompt.tokens", "type", promptType, "stage", "raw").record(before);
+            meterRegistry.summary("ai.prompt.tokens", "type", promptType, "stage", "sent").record(after);
+            if (after < before) {
+                meterRegistry.counter("ai.prompt.trimmed", "type", promptType).increment();
+            }
+        }
+    }
+
+    /**
+     * 按字符截断到目标token数（含省略标记），不低于引用内容下限
+     */
+    private String truncate(String text, int targetTokens) {
+        if (estimateTokens(text) <= Math.max(targetTokens, quotedMinTokens)) {
+            return text;
+        }
+        int target = Math.max(targetTokens - estimateTokens(ELLIPSIS), quotedMinTokens);
+        int tokens = 0;
+        int other = 0;
+        int end = 0;
+        while (end < text.length()) {
+            int codePoint = text.codePointAt(end);
+            if (SearchTokenizer.isCjk(codePoint)) {
+                tokens++;
+            } else if (!Character.isWhitespace(codePoint) && other++ % 4 == 0) {
+                tokens++;
+            }
+            if (tokens > target) {
+                break;
+            }
+            end += Character.charCount(codePoint);
+        }
+        return text.substring(0, end) + ELLIPSIS;
+    }
+
+    /**
+     * 从末尾按行删除直到不超过目标token数，保留第一行
+     */
+    private String dropLines(String text, int targetTokens) {
+        // 段落以换行开头，第一行从开头的换行之后算起，避免把段落标题连同内容一起删掉
+        int firstLine = 0;
+        while (firstLine < text.length() && text.charAt(firstLine) == '\n') {
+            firstLine++;
+        }
+        String current = text;
+        while (estimateTokens(current) > targetTokens) {
+            int cut = current.lastIndexOf('\n');
+            if (cut <= firstLine) {
+                break;
+            }
+            current = current.substring(0, cut);
+        }
+        return current;
+    }
+}
@@ -2,6 +2,11 @@ package com.myeden.service;
 
 import com.myeden.entity.Robot;
 
+import java.util.List;
+import com.myeden.entity.RobotPostDraft;
+
+import java.time.LocalDateTime;
+
 /**
  * 机器人行为管理服务接口
  * 负责管理AI机器人的行为触发、时机控制和状态管理
@@ -30,6 +35,27 @@ public interface RobotBehaviorService {
      */
     boolean triggerRobotComment(String robotId, String postId);
     
+    /**
+     * 触发机器人对动态快照发表评论
+     * 多个机器人对同一动态反应时共享同一份快照，活跃时间和概率判断在加载任何数据之前完成
+     * 
+     * @param robot 机器人
+     * @param snapshot 动态快照（见PostService.getPostSnapshot）
+     * @return 是否成功触发
+     */
+    boolean triggerRobotComment(Robot robot, PostService.PostDetail snapshot);
+    
+    /**
+     * 选择对新动态做出评论的机器人
+     * 排除不在活跃时间段和评论配额已用完的机器人，再按兴趣相关度选出前K个
+     * 
+     * @param robots 候选机器人
+     * @param content 动态内容
+     * @param skippedRobots 收集被排除的机器人及原因，用于日志
+     * @return 选中的机器人，按相关度从高到低
+     */
+    List<Robot> selectCommentReactors(List<Robot> robots, String content, List<String> skippedRobots);
+    
     /**
      * 触发机器人回复评论
      * 根据机器人配置和评论内容判断是否应该回复
@@ -79,31 +105,33 @@ public interface RobotBehaviorService {
     
     /**
      * 重置所有机器人每日统计
-     * 定时任务调用的方法
+     * 配额按日期自动归零，这里清理过期的配额检查点
      */
     void resetDailyStats();
     
     /**
-     * 定时触发机器人行为
-     * 每分钟执行一次，随机触发机器人发布动态或评论
+     * 执行一次计划行为
+     * 由唤醒调度器在机器人的计划行为时刻调用，随机发布动态、评论或回复
+     * 
+     * @param robotId 机器人ID
      */
-    void scheduledRobotBehavior();
+    void performScheduledAction(String robotId);
     
     /**
      * 启动机器人行为调度
-     * 启动定时任务，定期触发机器人行为
+     * 加载全部机器人并按活跃时间表安排唤醒
      */
     void startBehaviorScheduler();
     
     /**
      * 停止机器人行为调度
-     * 停止定时任务
+     * 已安排的唤醒全部失效
      */
     void stopBehaviorScheduler();
     
     /**
-     * 触发所有在线机器人对指定动态进行评论
-     * 当有新动态发布时，自动触发所有符合条件的机器人进行AI评论
+     * 触发在线机器人对指定动态进行评论
+     * 在活跃且有评论配额的机器人中，按兴趣相关度选出最相关的若干个进行AI评论
      * 
      * @param postId 动态ID
      * @param postContent 动态内容（用于日志记录）
@@ -111,10 +139,30 @@ public interface RobotBehaviorService {
      */
     void triggerAllRobotsComment(String postId, String postContent);
     
+    /**
+     * 为预生成池生成一份动态草稿
+     * 使用目标发布时间的时间上下文生成内容和内心活动，不保存也不占用配额
+     * 
+     * @param robot 机器人
+     * @param targetTime 目标发布时间
+     * @return 未保存的草稿
+     */
+    RobotPostDraft generatePostDraft(Robot robot, LocalDateTime targetTime);
+    
     /**
      * 刷新机器人在线状态
      * 根据机器人的活跃时间配置更新数据库中的isActive状态
      * 并推送WebSocket消息通知状态变化
      */
     void refreshRobotActiveStatus();
+    
+    /**
+     * 更新单个机器人的在线状态
+     * 状态与数据库不一致时保存并推送WebSocket消息
+     * 
+     * @param robot 机器人信息
+     * @param active 是否在线
+     * @return 状态是否发生变化
+     */
+    boolean updateRobotActiveStatus(Robot robot, boolean active);
 } 
\ No newline at end of file
@@ -0,0 +1,179 @@
+package com.myeden.service;
+
+import com.myeden.entity.Robot;
+import com.myeden.event.RobotConfigSyncedEvent;
+import com.myeden.repository.RobotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 机器人兴趣索引
+ *
+ * 功能说明：
+ * - 将机器人的兴趣、个人主题名称和性格特征切分为词元，建立词元到机器人的倒排索引
+ * - 新动态只切分一次，按命中的词元累加各机器人的相关度
+ * - 从候选机器人中选出相关度最高的若干个参与反应，减少与动态无关的AI生成
+ * - 没有任何机器人相关时随机选少量机器人兜底，避免动态无人回应
+ * - 启动后全量加载，机器人创建或配置变化时重建
+ *
+ * 个人主题来自robots-config.yaml中机器人的topic配置，同步到数据库后与兴趣一起索引。
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class RobotInterestIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RobotInterestIndex.class);
+
+    private static final double INTEREST_WEIGHT = 3.0;
+
+    private static final double TOPIC_WEIGHT = 2.0;
+
+    private static final double TRAIT_WEIGHT = 1.0;
+
+    @Autowired
+    private RobotRepository robotRepository;
+
+    /**
+     * 没有相关机器人时随机选择的数量
+     */
+    @Value("${robot.reaction.fallback-count:1}")
+    private int fallbackCount;
+
+    /**
+     * 倒排索引：词元 -> (机器人ID -> 权重)，整体替换，读取无需加锁
+     */
+    private volatile Map<String, Map<String, Double>> postings = Map.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * 机器人配置同步有变化时重建，一次同步只重建一次
+     */
+    @EventListener
+    public void onRobotConfigSynced(RobotConfigSyncedEvent event) {
+        if (event.hasChanges()) {
+            reload();
+        }
+    }
+
+    /**
+     * 全量重建索引
+     */
+    @Scheduled(fixedDelayString = "${robot.reaction.reload-interval:600000}",
+               initialDelayString = "${robot.reaction.reload-interval:600000}")
+    public void reload() {
+        try {
+            List<Robot> robots = robotRepository.findAll();
+            Map<String, Map<String, Double>> index = new HashMap<>();
+            for (Robot robot : robots) {
+                indexRobot(index, robot);
+            }
+            postings = index;
+            logger.info("机器人兴趣索引加载完成，机器人数量: {}, 词元数量: {}", robots.size(), index.size());
+        } catch (Exception e) {
+            logger.error("机器人兴趣索引加载失败", e);
+        }
+    }
+
+    /**
+     * 计算动态内容与各机器人的相关度
+     *
+     * @param content 动态内容
+     * @return 机器人ID -> 相关度，未命中的机器人不出现
+     */
+    public Map<String, Double> score(String content) {
+        Map<String, Map<String, Double>> current = postings;
+        Map<String, Double> scores = new HashMap<>();
+        if (content == null || content.isBlank()) {
+            return scores;
+        }
+        for (String token : SearchTokenizer.toIndexText(content).split(" ")) {
+            Map<String, Double> robots = current.get(token);
+            if (robots != null) {
+                robots.forEach((robotId, weight) -> scores.merge(robotId, weight, Double::sum));
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * 从候选机器人中选出与动态最相关的机器人
+     *
+     * @param content 动态内容
+     * @param candidates 已通过活跃时间和配额检查的候选机器人
+     * @param limit 最多选择的数量
+     * @return 按相关度从高到低排列的机器人；都不相关时返回随机的兜底机器人
+     */
+    public List<Robot> selectRelevant(String content, List<Robot> candidates, int limit) {
+        if (candidates.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Map<String, Double> scores = score(content);
+        List<Robot> shuffled = new ArrayList<>(candidates);
+        // 先打乱再稳定排序，相关度相同的机器人随机排列
+        Collections.shuffle(shuffled);
+
+        List<Robot> relevant = new ArrayList<>();
+        for (Robot robot : shuffled) {
+            if (scores.getOrDefault(robot.getRobotId(), 0.0) > 0) {
+                relevant.add(robot);
+            }
+        }
+        if (relevant.isEmpty()) {
+            return shuffled.subList(0, Math.min(fallbackCount, shuffled.size()));
+        }
+        relevant.sort(Comparator.comparingDouble((Robot robot) -> scores.get(robot.getRobotId())).reversed());
+        return relevant.subList(0, Math.min(limit, relevant.size()));
+    }
+
+    private void indexRobot(Map<String, Map<String, Double>> index, Robot robot) {
+        if (robot.getInterests() != null) {
+            for (String interest : robot.getInterests()) {
+                indexKeyword(index, robot.getRobotId(), interest, INTEREST_WEIGHT);
+            }
+        }
+        if (robot.getTopics() != null) {
+            for (Robot.Topic topic : robot.getTopics()) {
+                indexKeyword(index, robot.getRobotId(), topic.getName(), TOPIC_WEIGHT);
+            }
+        }
+        if (robot.getTraits() != null) {
+            for (String trait : robot.getTraits()) {
+                indexKeyword(index, robot.getRobotId(), trait, TRAIT_WEIGHT);
+            }
+        }
+    }
+
+    /**
+     * 关键字按查询规则切分，权重平均分给各词元，完整命中一个关键字得到该关键字的全部权重
+     */
+    private void indexKeyword(Map<String, Map<String, Double>> index, String robotId, String keyword, double weight) {
+        if (keyword == null || keyword.isBlank()) {
+            return;
+        }
+        List<String> tokens = SearchTokenizer.toQueryTokens(keyword);
+        for (String token : tokens) {
+            index.computeIfAbsent(token, key -> new HashMap<>())
+                .merge(robotId, weight / tokens.size(), Double::sum);
+        }
+    }
+}
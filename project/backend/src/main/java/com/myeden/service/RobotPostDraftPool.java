@@ -0,0 +1,223 @@
+package com.myeden.service;
+
+import com.myeden.entity.Robot;
+import com.myeden.entity.RobotPostDraft;
+import com.myeden.model.ActiveSchedule;
+import com.myeden.repository.RobotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 机器人动态预生成池
+ *
+ * 功能说明：
+ * - 在低峰时段为每个机器人预先生成少量动态草稿，存入robot_post_drafts集合
+ * - 草稿的目标发布时间取下一个高峰时段内机器人活跃的随机时刻，生成时使用目标时刻的时间上下文
+ * - 发布时只取目标时间在新鲜窗口内的草稿，取出即删除，没有合适草稿时再实时生成；发布失败时放回草稿
+ * - 每个机器人的草稿数量不超过池大小和每日发布上限，过期草稿定期清理
+ * - 低峰时段逐个机器人顺序生成，把AI调用从高峰平移到低峰
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class RobotPostDraftPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(RobotPostDraftPool.class);
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    @Value("${robot.draft-pool.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 每个机器人保留的草稿数量
+     */
+    @Value("${robot.draft-pool.size:3}")
+    private int poolSize;
+
+    /**
+     * 低峰时段（小时，含开始不含结束）
+     */
+    @Value("${robot.draft-pool.off-peak-start:1}")
+    private int offPeakStart;
+
+    @Value("${robot.draft-pool.off-peak-end:7}")
+    private int offPeakEnd;
+
+    /**
+     * 高峰时段（小时，含开始不含结束），草稿的目标发布时间落在这个时段
+     */
+    @Value("${robot.draft-pool.peak-start:19}")
+    private int peakStart;
+
+    @Value("${robot.draft-pool.peak-end:24}")
+    private int peakEnd;
+
+    /**
+     * 新鲜窗口（分钟），当前时间与目标发布时间相差不超过这个值时草稿可用
+     */
+    @Value("${robot.draft-pool.fresh-window-minutes:90}")
+    private int freshWindowMinutes;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RobotRepository robotRepository;
+
+    @Autowired
+    private RobotQuotaLedger quotaLedger;
+
+    @Autowired
+    @Lazy
+    private RobotBehaviorService robotBehaviorService;
+
+    private final AtomicBoolean filling = new AtomicBoolean();
+
+    /**
+     * 取出一份可发布的草稿
+     *
+     * @param robotId 机器人ID
+     * @return 目标时间在新鲜窗口内、最早的草稿；没有时返回空
+     */
+    public Optional<RobotPostDraft> pop(String robotId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Query query = Query.query(Criteria.where("robotId").is(robotId)
+                    .and("targetTime").gte(now.minusMinutes(freshWindowMinutes)).lte(now.plusMinutes(freshWindowMinutes)))
+                .with(Sort.by(Sort.Direction.ASC, "targetTime"));
+            return Optional.ofNullable(mongoTemplate.findAndRemove(query, RobotPostDraft.class));
+        } catch (Exception e) {
+            logger.warn("取出机器人动态草稿失败: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 放回取出后未能发布的草稿
+     *
+     * @param draft 取出的草稿
+     */
+    public void restore(RobotPostDraft draft) {
+        try {
+            // 保留原ID，重复放回时主键冲突，不会产生重复草稿
+            mongoTemplate.insert(draft);
+        } catch (Exception e) {
+            logger.warn("放回机器人动态草稿失败: {}, {}", draft.getRobotId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 清理过期草稿，低峰时段补充草稿
+     */
+    @Scheduled(fixedDelayString = "${robot.draft-pool.fill-interval:600000}")
+    public void fill() {
+        if (!enabled || !filling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            mongoTemplate.remove(Query.query(Criteria.where("targetTime").lt(now.minusMinutes(freshWindowMinutes))),
+                RobotPostDraft.class);
+            if (!isOffPeak(now.getHour())) {
+                return;
+            }
+
+            int generated = 0;
+            for (Robot robot : robotRepository.findAll()) {
+                generated += fillRobot(robot, now);
+            }
+            if (generated > 0) {
+                logger.info("机器人动态草稿补充完成，新生成: {}", generated);
+            }
+        } catch (Exception e) {
+            logger.error("补充机器人动态草稿失败", e);
+        } finally {
+            filling.set(false);
+        }
+    }
+
+    /**
+     * 当前草稿数量（含未到目标时间的）
+     */
+    public long countDrafts(String robotId) {
+        return mongoTemplate.count(Query.query(Criteria.where("robotId").is(robotId)), RobotPostDraft.class);
+    }
+
+    private int fillRobot(Robot robot, LocalDateTime now) {
+        int limit = quotaLedger.limitOf(RobotQuotaLedger.QuotaType.POST);
+        int target = limit > 0 ? Math.min(poolSize, limit) : poolSize;
+        long existing = countDrafts(robot.getRobotId());
+
+        int generated = 0;
+        for (long i = existing; i < target; i++) {
+            LocalDateTime targetTime = pickTargetTime(robot.getActiveSchedule(), now);
+            if (targetTime == null) {
+                break;
+            }
+            try {
+                RobotPostDraft draft = robotBehaviorService.generatePostDraft(robot, targetTime);
+                if (draft == null) {
+                    break;
+                }
+                mongoTemplate.insert(draft);
+                generated++;
+            } catch (Exception e) {
+                logger.warn("预生成机器人动态失败: {}, {}", robot.getRobotId(), e.getMessage());
+                break;
+            }
+        }
+        return generated;
+    }
+
+    /**
+     * 在未来24小时内选择目标发布时间
+     * 优先选高峰时段内机器人活跃的分钟，机器人高峰时段不活跃时退而选任意活跃分钟
+     */
+    LocalDateTime pickTargetTime(ActiveSchedule schedule, LocalDateTime now) {
+        LocalDateTime start = now.truncatedTo(ChronoUnit.MINUTES).plusMinutes(freshWindowMinutes);
+        List<LocalDateTime> peak = new ArrayList<>();
+        List<LocalDateTime> active = new ArrayList<>();
+        for (int offset = 0; offset < MINUTES_PER_DAY; offset++) {
+            LocalDateTime candidate = start.plusMinutes(offset);
+            if (!schedule.isActiveAt(candidate.toLocalTime())) {
+                continue;
+            }
+            active.add(candidate);
+            int hour = candidate.getHour();
+            if (hour >= peakStart && hour < peakEnd) {
+                peak.add(candidate);
+            }
+        }
+        List<LocalDateTime> pool = !peak.isEmpty() ? peak : active;
+        return pool.isEmpty() ? null : pool.get(ThreadLocalRandom.current().nextInt(pool.size()));
+    }
+
+    private boolean isOffPeak(int hour) {
+        return offPeakStart <= offPeakEnd
+            ? hour >= offPeakStart && hour < offPeakEnd
+            : hour >= offPeakStart || hour < offPeakEnd;
+    }
+}
@@ -0,0 +1,253 @@
+package com.myeden.service;
+
+import com.myeden.config.RobotConfig;
+import com.myeden.entity.RobotDailyQuota;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 机器人每日配额账本
+ *
+ * 功能说明：
+ * - 按机器人、按天记录发布、评论、回复次数，上限取自robots-config.yaml的base_config
+ * - 调用AI生成内容前先占用配额，生成或保存失败时归还，并发触发也不会超出上限
+ * - 计数只在内存中原子更新，定期把有变化的机器人写入检查点
+ * - 启动时从检查点恢复当天计数，重启不会重置配额
+ * - 日期变化时计数自动归零，不依赖零点定时任务
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class RobotQuotaLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(RobotQuotaLedger.class);
+
+    /**
+     * 配额类型
+     */
+    public enum QuotaType { POST, COMMENT, REPLY }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RobotConfig robotConfig;
+
+    /**
+     * 检查点保留天数
+     */
+    @Value("${robot.quota.retention-days:7}")
+    private int retentionDays;
+
+    private final Map<String, DailyCounters> ledger = new ConcurrentHashMap<>();
+
+    /**
+     * 单个机器人一天的计数
+     */
+    private static class DailyCounters {
+        private final LocalDate day;
+        private final AtomicInteger[] counts = new AtomicInteger[QuotaType.values().length];
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        DailyCounters(LocalDate day, int posts, int comments, int replies) {
+            this.day = day;
+            counts[QuotaType.POST.ordinal()] = new AtomicInteger(posts);
+            counts[QuotaType.COMMENT.ordinal()] = new AtomicInteger(comments);
+            counts[QuotaType.REPLY.ordinal()] = new AtomicInteger(replies);
+        }
+
+        AtomicInteger of(QuotaType type) {
+            return counts[type.ordinal()];
+        }
+    }
+
+    /**
+     * 从检查点恢复当天计数
+     */
+    @PostConstruct
+    public void restore() {
+        try {
+            LocalDate today = LocalDate.now();
+            List<RobotDailyQuota> quotas = mongoTemplate.find(
+                Query.query(Criteria.where("day").is(today.toString())), RobotDailyQuota.class);
+            for (RobotDailyQuota quota : quotas) {
+                ledger.put(quota.getRobotId(), new DailyCounters(today,
+                    valueOf(quota.getPostCount()), valueOf(quota.getCommentCount()), valueOf(quota.getReplyCount())));
+            }
+            logger.info("机器人配额已恢复，机器人数量: {}", quotas.size());
+        } catch (Exception e) {
+            logger.warn("恢复机器人配额失败，从零开始计数: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 占用一次配额
+     *
+     * @param robotId 机器人ID
+     * @param type 配额类型
+     * @return 是否占用成功，已达上限时返回false
+     */
+    public boolean tryAcquire(String robotId, QuotaType type) {
+        int limit = limitOf(type);
+        DailyCounters counters = current(robotId);
+        AtomicInteger count = counters.of(type);
+        while (true) {
+            int used = count.get();
+            if (limit > 0 && used >= limit) {
+                return false;
+            }
+            if (count.compareAndSet(used, used + 1)) {
+                counters.dirty.set(true);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还一次配额（行为未完成时调用）
+     */
+    public void release(String robotId, QuotaType type) {
+        DailyCounters counters = current(robotId);
+        counters.of(type).updateAndGet(used -> Math.max(0, used - 1));
+        counters.dirty.set(true);
+    }
+
+    /**
+     * 是否还有剩余配额，用于在查询候选内容前提前跳过
+     */
+    public boolean hasRemaining(String robotId, QuotaType type) {
+        int limit = limitOf(type);
+        return limit <= 0 || current(robotId).of(type).get() < limit;
+    }
+
+    /**
+     * 今日已使用次数
+     */
+    public int getUsed(String robotId, QuotaType type) {
+        return current(robotId).of(type).get();
+    }
+
+    /**
+     * 每日上限，未配置或不大于0表示不限制
+     */
+    public int limitOf(QuotaType type) {
+        RobotConfig.BaseConfig baseConfig = robotConfig != null ? robotConfig.getBaseConfig() : null;
+        if (baseConfig == null) {
+            return 0;
+        }
+        switch (type) {
+            case POST:
+                return baseConfig.getMaxDailyPosts();
+            case COMMENT:
+                return baseConfig.getMaxDailyComments();
+            default:
+                return baseConfig.getMaxDailyReplies();
+        }
+    }
+
+    /**
+     * 重置指定机器人今日计数
+     */
+    public void reset(String robotId) {
+        DailyCounters counters = new DailyCounters(LocalDate.now(), 0, 0, 0);
+        counters.dirty.set(true);
+        ledger.put(robotId, counters);
+    }
+
+    /**
+     * 写入检查点，只写有变化的机器人
+     */
+    @Scheduled(fixedDelayString = "${robot.quota.checkpoint-interval:30000}")
+    public void checkpoint() {
+        List<Map.Entry<String, DailyCounters>> changed = new ArrayList<>();
+        for (Map.Entry<String, DailyCounters> entry : ledger.entrySet()) {
+            // 先清除标记再读取计数，写入期间的新变化留到下一次检查点
+            if (entry.getValue().dirty.compareAndSet(true, false)) {
+                changed.add(entry);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RobotDailyQuota.class);
+            LocalDateTime now = LocalDateTime.now();
+            for (Map.Entry<String, DailyCounters> entry : changed) {
+                DailyCounters counters = entry.getValue();
+                String day = counters.day.toString();
+                operations.upsert(Query.query(Criteria.where("_id").is(entry.getKey() + ":" + day)),
+                    new Update()
+                        .set("robotId", entry.getKey())
+                        .set("day", day)
+                        .set("postCount", counters.of(QuotaType.POST).get())
+                        .set("commentCount", counters.of(QuotaType.COMMENT).get())
+                        .set("replyCount", counters.of(QuotaType.REPLY).get())
+                        .set("updatedAt", now));
+            }
+            operations.execute();
+            logger.debug("机器人配额检查点已写入，机器人数量: {}", changed.size());
+        } catch (Exception e) {
+            for (Map.Entry<String, DailyCounters> entry : changed) {
+                entry.getValue().dirty.set(true);
+            }
+            logger.warn("写入机器人配额检查点失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 清理过期的检查点和内存中的旧计数
+     */
+    @Scheduled(cron = "0 5 0 * * ?")
+    public void purgeExpired() {
+        LocalDate today = LocalDate.now();
+        checkpoint();
+        ledger.values().removeIf(counters -> counters.day.isBefore(today) && !counters.dirty.get());
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("day").lt(today.minusDays(retentionDays).toString())),
+                RobotDailyQuota.class);
+        } catch (Exception e) {
+            logger.warn("清理机器人配额检查点失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    private DailyCounters current(String robotId) {
+        LocalDate today = LocalDate.now();
+        DailyCounters counters = ledger.get(robotId);
+        if (counters != null && counters.day.equals(today)) {
+            return counters;
+        }
+        return ledger.compute(robotId, (key, existing) ->
+            existing != null && existing.day.equals(today) ? existing : new DailyCounters(today, 0, 0, 0));
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+}
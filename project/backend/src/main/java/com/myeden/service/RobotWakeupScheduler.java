@@ -0,0 +1,273 @@
+package com.myeden.service;
+
+import com.myeden.entity.Robot;
+import com.myeden.event.AuthorProfileChangedEvent;
+import com.myeden.model.ActiveSchedule;
+import com.myeden.repository.RobotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 机器人唤醒调度器
+ *
+ * 功能说明：
+ * - 每个机器人只在两类时刻被唤醒：活跃状态切换时刻和下一次计划行为时刻
+ * - 唤醒时刻放在1秒精度、一小时一圈的时间轮中，空闲机器人不产生任何查询
+ * - 活跃状态切换时更新数据库中的isActive并推送状态变化
+ * - 行为时刻按每分钟行动概率抽样（与原每分钟轮询的期望频率一致），行为结束后再安排下一次
+ * - 机器人配置变化时重新编译时间表并重新安排，旧的唤醒项按版本号忽略
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class RobotWakeupScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RobotWakeupScheduler.class);
+
+    private static final long TICK_MILLIS = 1000;
+
+    private static final int WHEEL_SIZE = 3600;
+
+    @Value("${robot.behavior.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 活跃期间每分钟发生一次行为的概率
+     */
+    @Value("${robot.behavior.action-probability:0.75}")
+    private double actionProbability;
+
+    @Autowired
+    private RobotRepository robotRepository;
+
+    @Autowired
+    @Lazy
+    private RobotBehaviorService robotBehaviorService;
+
+    @Autowired
+    @Qualifier("aiTaskExecutor")
+    private Executor aiTaskExecutor;
+
+    private final TimerWheel<Wakeup> wheel = new TimerWheel<>(WHEEL_SIZE, TICK_MILLIS, System.currentTimeMillis());
+
+    private final Map<String, RobotState> states = new ConcurrentHashMap<>();
+
+    private final AtomicLong generations = new AtomicLong();
+
+    private volatile boolean running;
+
+    private enum Kind { TRANSITION, ACTION }
+
+    /**
+     * 唤醒项
+     */
+    private static class Wakeup {
+        private final String robotId;
+        private final Kind kind;
+        private final long generation;
+
+        Wakeup(String robotId, Kind kind, long generation) {
+            this.robotId = robotId;
+            this.kind = kind;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * 机器人调度状态
+     */
+    private static class RobotState {
+        private final ActiveSchedule schedule;
+        private final long generation;
+        private volatile boolean active;
+
+        RobotState(ActiveSchedule schedule, long generation, boolean active) {
+            this.schedule = schedule;
+            this.generation = generation;
+            this.active = active;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * 启动调度，加载全部机器人
+     */
+    public synchronized void start() {
+        running = true;
+        reloadAll();
+        logger.info("机器人唤醒调度已启动，机器人: {}, 待唤醒: {}", states.size(), wheel.size());
+    }
+
+    /**
+     * 停止调度，已安排的唤醒项全部失效
+     */
+    public synchronized void stop() {
+        running = false;
+        states.clear();
+        logger.info("机器人唤醒调度已停止");
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 重新加载全部机器人
+     */
+    public void reloadAll() {
+        try {
+            List<Robot> robots = robotRepository.findAll();
+            Set<String> robotIds = new HashSet<>();
+            for (Robot robot : robots) {
+                robotIds.add(robot.getRobotId());
+                register(robot);
+            }
+            states.keySet().retainAll(robotIds);
+        } catch (Exception e) {
+            logger.error("加载机器人调度失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 机器人创建或配置更新后重新安排
+     */
+    @EventListener
+    public void onAuthorProfileChanged(AuthorProfileChangedEvent event) {
+        if (!running || !"robot".equals(event.getAuthorType())) {
+            return;
+        }
+        robotRepository.findByRobotId(event.getAuthorId()).ifPresent(this::register);
+    }
+
+    /**
+     * 推进时间轮，处理到期的唤醒项
+     */
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public void tick() {
+        if (!running) {
+            return;
+        }
+        for (Wakeup wakeup : wheel.advance(System.currentTimeMillis())) {
+            RobotState state = states.get(wakeup.robotId);
+            if (state == null || state.generation != wakeup.generation) {
+                continue;
+            }
+            try {
+                if (wakeup.kind == Kind.TRANSITION) {
+                    onTransition(wakeup.robotId, state);
+                } else {
+                    onAction(wakeup.robotId, state);
+                }
+            } catch (Exception e) {
+                logger.error("处理机器人唤醒失败: {}", wakeup.robotId, e);
+            }
+        }
+    }
+
+    /**
+     * 等待中的唤醒项数量（含已失效未取出的）
+     */
+    public int getPendingWakeups() {
+        return wheel.size();
+    }
+
+    private void register(Robot robot) {
+        LocalDateTime now = LocalDateTime.now();
+        ActiveSchedule schedule = robot.getActiveSchedule();
+        boolean active = schedule.isActiveAt(now.toLocalTime());
+        RobotState state = new RobotState(schedule, generations.incrementAndGet(), active);
+        states.put(robot.getRobotId(), state);
+
+        if (!Boolean.valueOf(active).equals(robot.getIsActive())) {
+            robotBehaviorService.updateRobotActiveStatus(robot, active);
+        }
+        scheduleTransition(robot.getRobotId(), state, now);
+        if (active) {
+            scheduleAction(robot.getRobotId(), state);
+        }
+    }
+
+    private void onTransition(String robotId, RobotState state) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean active = state.schedule.isActiveAt(now.toLocalTime());
+        if (active != state.active) {
+            state.active = active;
+            aiTaskExecutor.execute(() -> robotRepository.findByRobotId(robotId)
+                .ifPresent(robot -> robotBehaviorService.updateRobotActiveStatus(robot, active)));
+            if (active) {
+                scheduleAction(robotId, state);
+            }
+        }
+        scheduleTransition(robotId, state, now);
+    }
+
+    private void onAction(String robotId, RobotState state) {
+        if (!state.active) {
+            // 已下线，等下次上线再安排
+            return;
+        }
+        aiTaskExecutor.execute(() -> {
+            try {
+                robotBehaviorService.performScheduledAction(robotId);
+            } finally {
+                // 行为结束后再安排下一次，同一机器人的行为不会重叠
+                if (running && states.get(robotId) == state && state.active) {
+                    scheduleAction(robotId, state);
+                }
+            }
+        });
+    }
+
+    private void scheduleTransition(String robotId, RobotState state, LocalDateTime now) {
+        LocalDateTime next = state.schedule.nextTransition(now);
+        if (next != null) {
+            wheel.schedule(new Wakeup(robotId, Kind.TRANSITION, state.generation),
+                next.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    private void scheduleAction(String robotId, RobotState state) {
+        wheel.schedule(new Wakeup(robotId, Kind.ACTION, state.generation),
+            System.currentTimeMillis() + nextActionDelayMillis());
+    }
+
+    /**
+     * 抽样下一次行为的延迟：第k分钟行动的概率为几何分布，分钟内的秒数随机，避免机器人同时行动
+     */
+    private long nextActionDelayMillis() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long minutes = 0;
+        if (actionProbability < 1) {
+            double p = Math.max(actionProbability, 0.001);
+            minutes = (long) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+        }
+        return minutes * 60_000 + 1_000 + random.nextLong(59_000);
+    }
+}
@@ -0,0 +1,149 @@
+package com.myeden.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 搜索分词工具
+ *
+ * 功能说明：
+ * - MongoDB文本索引按空白和标点切词，不会切分中文，整段中文会成为一个词
+ * - 写入时将内容切分为空格分隔的词元，存入动态的searchTokens字段并建立文本索引
+ * - 中日韩文字输出单字和相邻二元组，字母数字按连续串输出小写单词
+ * - 查询时使用相同规则切分关键字，保证索引和查询的词元一致
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class SearchTokenizer {
+
+    /**
+     * 查询词元上限，避免超长关键字产生过多短语匹配
+     */
+    public static final int MAX_QUERY_TOKENS = 16;
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 生成写入索引字段的词元文本
+     *
+     * @param text 原始内容
+     * @return 空格分隔的词元，内容为空时返回空字符串
+     */
+    public static String toIndexText(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        forEachRun(text, (run, cjk) -> {
+            if (!cjk) {
+                tokens.add(run);
+                return;
+            }
+            int[] chars = run.codePoints().toArray();
+            for (int i = 0; i < chars.length; i++) {
+                tokens.add(new String(chars, i, 1));
+                if (i + 1 < chars.length) {
+                    tokens.add(new String(chars, i, 2));
+                }
+            }
+        });
+        return String.join(" ", tokens);
+    }
+
+    /**
+     * 将查询关键字切分为词元
+     * 中文连续串只输出二元组（单字串输出单字），所有词元需同时命中
+     *
+     * @param keyword 查询关键字
+     * @return 词元列表，最多MAX_QUERY_TOKENS个
+     */
+    public static List<String> toQueryTokens(String keyword) {
+        Set<String> tokens = new LinkedHashSet<>();
+        forEachRun(keyword, (run, cjk) -> {
+            if (!cjk) {
+                tokens.add(run);
+                return;
+            }
+            int[] chars = run.codePoints().toArray();
+            if (chars.length == 1) {
+                tokens.add(run);
+                return;
+            }
+            for (int i = 0; i + 1 < chars.length; i++) {
+                tokens.add(new String(chars, i, 2));
+            }
+        });
+        List<String> result = new ArrayList<>(tokens);
+        return result.size() > MAX_QUERY_TOKENS ? result.subList(0, MAX_QUERY_TOKENS) : result;
+    }
+
+    /**
+     * 转义正则表达式元字符，使用户输入按字面匹配
+     *
+     * @param keyword 用户输入
+     * @return 转义后的正则表达式
+     */
+    public static String escapeRegex(String keyword) {
+        if (keyword == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(keyword.length() + 8);
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * 按字符类别切分连续串：中日韩文字串、字母数字串，其余字符作为分隔符
+     */
+    private static void forEachRun(String text, RunConsumer consumer) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder run = new StringBuilder();
+        Boolean runCjk = null;
+        for (int i = 0; i < lower.length(); ) {
+            int cp = lower.codePointAt(i);
+            i += Character.charCount(cp);
+            Boolean cjk = isCjk(cp) ? Boolean.TRUE : Character.isLetterOrDigit(cp) ? Boolean.FALSE : null;
+            if (cjk == null || !cjk.equals(runCjk)) {
+                if (run.length() > 0) {
+                    consumer.accept(run.toString(), runCjk);
+                    run.setLength(0);
+                }
+                runCjk = cjk;
+            }
+            if (cjk != null) {
+                run.appendCodePoint(cp);
+            }
+        }
+        if (run.length() > 0) {
+            consumer.accept(run.toString(), runCjk);
+        }
+    }
+
+    /**
+     * 是否为中日韩文字（汉字、假名、谚文）
+     */
+    static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    @FunctionalInterface
+    private interface RunConsumer {
+        void accept(String run, boolean cjk);
+    }
+}
@@ -0,0 +1,274 @@
+package com.myeden.service;
+
+import com.myeden.entity.Comment;
+import com.myeden.entity.Post;
+import com.myeden.entity.Robot;
+import com.myeden.entity.User;
+import com.myeden.event.AuthorProfileChangedEvent;
+import com.myeden.event.CommentChangedEvent;
+import com.myeden.event.PostChangedEvent;
+import com.myeden.repository.RobotRepository;
+import com.myeden.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 实时统计计数器
+ *
+ * 功能说明：
+ * - 在内存中维护世界和用户统计的计数，统计接口直接读取，不再每次count
+ * - 由用户注册、动态发布、评论发布、机器人创建等写事件增量更新
+ * - 定期用estimatedDocumentCount和条件count校准，修正遗漏的增量
+ * - 超过最大陈旧时间未校准时，读取触发一次后台校准（同一时间只有一个），读取方继续使用当前计数
+ * - 校准失败后按指数退避重试，数据库不可用时不会被每次读取反复触发
+ *
+ * 总数口径与原来的count()一致，包含软删除的动态和评论。
+ * 性别和首次登录人数只通过校准更新，误差不超过一个校准周期。
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class StatisticsCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsCounters.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RobotRepository robotRepository;
+
+    /**
+     * 允许的最大陈旧时间（毫秒）
+     */
+    @Value("${statistics.max-staleness:300000}")
+    private long maxStaleness;
+
+    /**
+     * 校准失败后的首次重试间隔（毫秒），之后逐次加倍，不超过最大陈旧时间
+     */
+    @Value("${statistics.retry-backoff:5000}")
+    private long retryBackoff;
+
+    @Autowired
+    @Qualifier("taskScheduler")
+    private Executor reconcileExecutor;
+
+    private final Counter totalUsers = new Counter();
+    private final Counter totalPosts = new Counter();
+    private final Counter totalComments = new Counter();
+    private final Counter totalRobots = new Counter();
+    private final Counter activeRobots = new Counter();
+    private final Counter todayRegisteredUsers = new Counter();
+    private final Counter maleUsers = new Counter();
+    private final Counter femaleUsers = new Counter();
+    private final Counter firstLoginUsers = new Counter();
+
+    /**
+     * 今日注册数对应的日期
+     */
+    private volatile LocalDate countingDay = LocalDate.now();
+
+    /**
+     * 上次校准时间，0表示尚未校准
+     */
+    private volatile long lastReconciledAt;
+
+    /**
+     * 是否有校准正在进行
+     */
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    /**
+     * 连续失败次数和下次允许读取触发校准的时间
+     */
+    private volatile int consecutiveFailures;
+    private volatile long retryAt;
+
+    public long getTotalUsers() { return read(totalUsers); }
+    public long getTotalPosts() { return read(totalPosts); }
+    public long getTotalComments() { return read(totalComments); }
+    public long getTotalRobots() { return read(totalRobots); }
+    public long getActiveRobots() { return read(activeRobots); }
+    public long getMaleUsers() { return read(maleUsers); }
+    public long getFemaleUsers() { return read(femaleUsers); }
+    public long getFirstLoginUsers() { return read(firstLoginUsers); }
+
+    public long getTodayRegisteredUsers() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(countingDay)) {
+            // 跨天后先清零今日注册数，再在后台校准
+            synchronized (this) {
+                if (!today.equals(countingDay)) {
+                    todayRegisteredUsers.reset();
+                    countingDay = today;
+                    requestReconcile(true);
+                }
+            }
+        }
+        return read(todayRegisteredUsers);
+    }
+
+    /**
+     * 用户注册、机器人创建
+     */
+    @EventListener
+    public void onAuthorProfileChanged(AuthorProfileChangedEvent event) {
+        if (!event.isCreated()) {
+            return;
+        }
+        if ("user".equals(event.getAuthorType())) {
+            totalUsers.increment();
+            todayRegisteredUsers.increment();
+            firstLoginUsers.increment();
+        } else if ("robot".equals(event.getAuthorType())) {
+            totalRobots.increment();
+        }
+    }
+
+    /**
+     * 动态发布（软删除不减少总数）
+     */
+    @EventListener
+    public void onPostChanged(PostChangedEvent event) {
+        if (event.getChangeType() == PostChangedEvent.ChangeType.CREATED) {
+            totalPosts.increment();
+        }
+    }
+
+    /**
+     * 评论发布（软删除不减少总数）
+     */
+    @EventListener
+    public void onCommentChanged(CommentChangedEvent event) {
+        if (event.getChangeType() == CommentChangedEvent.ChangeType.CREATED) {
+            totalComments.increment();
+        }
+    }
+
+    /**
+     * 机器人在线状态变化
+     *
+     * @param delta 在线数量变化
+     */
+    public void adjustActiveRobots(int delta) {
+        activeRobots.add(delta);
+    }
+
+    /**
+     * 定期校准，已有校准进行中时跳过
+     */
+    @Scheduled(fixedDelayString = "${statistics.reconcile-interval:60000}")
+    public void reconcile() {
+        if (reconciling.compareAndSet(false, true)) {
+            runReconcile();
+        }
+    }
+
+    /**
+     * 请求一次后台校准
+     *
+     * @param ignoreBackoff 是否忽略失败退避（跨天时必须尽快校准）
+     */
+    private void requestReconcile(boolean ignoreBackoff) {
+        if (!ignoreBackoff && System.currentTimeMillis() < retryAt) {
+            return;
+        }
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            reconcileExecutor.execute(this::runReconcile);
+        } catch (RuntimeException e) {
+            reconciling.set(false);
+            logger.warn("统计计数校准任务提交失败: {}", e.getMessage());
+        }
+    }
+
+    private void runReconcile() {
+        try {
+            long start = System.currentTimeMillis();
+            LocalDate today = LocalDate.now();
+
+            totalUsers.reconcile(() -> mongoTemplate.estimatedCount(User.class));
+            totalPosts.reconcile(() -> mongoTemplate.estimatedCount(Post.class));
+            totalComments.reconcile(() -> mongoTemplate.estimatedCount(Comment.class));
+            totalRobots.reconcile(() -> mongoTemplate.estimatedCount(Robot.class));
+            activeRobots.reconcile(robotRepository::countByIsActiveTrue);
+            todayRegisteredUsers.reconcile(() -> userRepository.countByCreatedAtGreaterThanEqual(today.atStartOfDay()));
+            maleUsers.reconcile(() -> userRepository.countByGender("male"));
+            femaleUsers.reconcile(() -> userRepository.countByGender("female"));
+            firstLoginUsers.reconcile(() -> userRepository.countByIsFirstLogin(true));
+
+            countingDay = today;
+            lastReconciledAt = System.currentTimeMillis();
+            consecutiveFailures = 0;
+            retryAt = 0;
+            logger.debug("统计计数校准完成，耗时: {}ms", lastReconciledAt - start);
+        } catch (Exception e) {
+            int failures = ++consecutiveFailures;
+            long backoff = Math.min(maxStaleness, retryBackoff << Math.min(failures - 1, 16));
+            retryAt = System.currentTimeMillis() + backoff;
+            logger.warn("统计计数校准失败（连续{}次），{}ms后重试，继续使用增量计数: {}",
+                failures, backoff, e.getMessage());
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    private long read(Counter counter) {
+        if (System.currentTimeMillis() - lastReconciledAt > maxStaleness) {
+            requestReconcile(false);
+        }
+        return Math.max(0, counter.get());
+    }
+
+    /**
+     * 校准基数 + 增量的计数器
+     * 校准时以查询结果为基数，保留查询期间发生的增量
+     */
+    private static class Counter {
+        private final LongAdder delta = new LongAdder();
+        private volatile long base;
+
+        void increment() {
+            delta.increment();
+        }
+
+        void add(long value) {
+            delta.add(value);
+        }
+
+        long get() {
+            return base + delta.sum();
+        }
+
+        void reset() {
+            base = -delta.sum();
+        }
+
+        void reconcile(LongSupplier query) {
+            long deltaBefore = delta.sum();
+            long actual = query.getAsLong();
+            base = actual - deltaBefore;
+        }
+    }
+}
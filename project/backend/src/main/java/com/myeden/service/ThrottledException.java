@@ -0,0 +1,19 @@
+package com.myeden.service;
+
+/**
+ * 请求被限流异常
+ *
+ * 功能说明：
+ * - 登录限流或密码哈希队列已满时抛出
+ * - 控制器捕获后返回429，提示客户端稍后重试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ThrottledException extends RuntimeException {
+
+    public ThrottledException(String message) {
+        super(message);
+    }
+}
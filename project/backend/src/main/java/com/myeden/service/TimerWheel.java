@@ -0,0 +1,103 @@
+package com.myeden.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 哈希时间轮
+ *
+ * 功能说明：
+ * - 按到期tick把定时项放入对应槽位，推进时只检查经过的槽位
+ * - 超过一圈的定时项留在槽位中，直到到期tick才取出
+ * - 推进的开销只与经过的槽位和到期项数量有关，与等待中的定时项总数无关
+ * - 不支持取消，调用方通过版本号等方式忽略过期的定时项
+ *
+ * @param <T> 定时项类型
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class TimerWheel<T> {
+
+    private final long tickMillis;
+
+    private final List<List<Entry<T>>> slots;
+
+    /**
+     * 已处理到的tick
+     */
+    private long currentTick;
+
+    private int size;
+
+    private static class Entry<T> {
+        private final T item;
+        private final long deadlineTick;
+
+        Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    /**
+     * @param wheelSize 槽位数
+     * @param tickMillis 每个tick的毫秒数
+     * @param startMillis 起始时间
+     */
+    public TimerWheel(int wheelSize, long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 添加定时项，已过期的定时项在下一个tick取出
+     *
+     * @param item 定时项
+     * @param deadlineMillis 到期时间
+     */
+    public synchronized void schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis);
+        slots.get((int) (deadlineTick % slots.size())).add(new Entry<>(item, deadlineTick));
+        size++;
+    }
+
+    /**
+     * 推进到指定时间，取出所有到期的定时项
+     *
+     * @param nowMillis 当前时间
+     * @return 到期的定时项，按槽位顺序
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+        // 落后超过一圈时每个槽位只需检查一次
+        long steps = Math.min(targetTick - currentTick, slots.size());
+        for (long step = 1; step <= steps; step++) {
+            List<Entry<T>> slot = slots.get((int) ((currentTick + step) % slots.size()));
+            Iterator<Entry<T>> iterator = slot.iterator();
+            while (iterator.hasNext()) {
+                Entry<T> entry = iterator.next();
+                if (entry.deadlineTick <= targetTick) {
+                    expired.add(entry.item);
+                    iterator.remove();
+                    size--;
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expired;
+    }
+
+    /**
+     * 等待中的定时项数量
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,454 @@
+package com.myeden.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 上传文件传输服务
+ *
+ * 功能说明：
+ * - /uploads/** 与 /api/v1/files/** 共用的文件传输实现
+ * - Tomcat支持时交给连接器以sendfile（FileChannel.transferTo到socket）零拷贝发送，否则分块复制
+ * - 支持单段Range请求（206/416）和If-Range
+ * - 条件请求（If-None-Match、If-Modified-Since等）交给ServletWebRequest处理
+ * - 文件元数据保存在有界Caffeine缓存中，由上传目录的WatchService及时失效
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class UploadFileServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadFileServer.class);
+
+    /**
+     * 内容寻址文件的缓存时间（一年）
+     */
+    private static final long IMMUTABLE_MAX_AGE_SECONDS = 365L * 24 * 3600;
+
+    /**
+     * Tomcat sendfile请求属性
+     */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 无sendfile时的复制缓冲区大小
+     */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    @Value("${file.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${file.cache.max-size:1000}")
+    private int maxCacheSize;
+
+    @Value("${file.cache.ttl:3600}")
+    private int cacheTtlSeconds;
+
+    @Value("${file.serve.sendfile:true}")
+    private boolean sendfileEnabled;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    private Path root;
+
+    private Cache<Path, FileMetadata> metadataCache;
+
+    private WatchService watchService;
+
+    /**
+     * 已注册监听的目录
+     */
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+
+    /**
+     * 文件元数据
+     */
+    private static class FileMetadata {
+        private final String etag;
+        private final long lastModified;
+        private final long fileSize;
+        private final String contentType;
+
+        FileMetadata(String etag, long lastModified, long fileSize, String contentType) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fileSize = fileSize;
+            this.contentType = contentType;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        root = Paths.get(uploadPath).toAbsolutePath().normalize();
+        metadataCache = Caffeine.newBuilder()
+                .maximumSize(maxCacheSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .recordStats()
+                .build();
+        startWatching();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("关闭上传目录监听失败", e);
+            }
+        }
+    }
+
+    /**
+     * 发送上传目录下的文件
+     *
+     * @param relativePath 相对上传目录的路径
+     * @param size 图片规格（thumb/medium），为空时发送原文件
+     * @param request HTTP请求
+     * @param response HTTP响应
+     * @throws IOException 传输失败
+     */
+    public void serve(String relativePath, String size, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        Path file = resolve(relativePath);
+        if (file != null) {
+            file = resolveVariant(file, size);
+        }
+        FileMetadata metadata = file != null ? getMetadata(file) : null;
+        if (metadata == null) {
+            logger.debug("文件不存在或不可读: {}", relativePath);
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        setCacheHeaders(response, file.getFileName().toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, "GET, HEAD");
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_MAX_AGE, String.valueOf(cacheTtlSeconds));
+
+        // 304/412 由框架按RFC 9110判定，同时写入ETag和Last-Modified
+        String etag = "\"" + metadata.etag + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag, metadata.lastModified)) {
+            return;
+        }
+
+        long length = metadata.fileSize;
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, etag, metadata.lastModified)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                // 多段Range按规范可以忽略，返回完整内容
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    if (start >= length || start > end) {
+                        throw new IllegalArgumentException("Range超出文件长度");
+                    }
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+        }
+
+        response.setContentType(metadata.contentType);
+        response.setContentLengthLong(end - start + 1);
+        if ("HEAD".equals(request.getMethod()) || end < start) {
+            return;
+        }
+
+        if (sendfileEnabled && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 由Tomcat在响应提交后以sendfile发送，结束位置不包含
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        // 无sendfile时按位置分块读取后写出；transferTo到非文件通道时内部仍要经过8KB缓冲，反而更慢
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(COPY_BUFFER_SIZE, end - start + 1));
+            long position = start;
+            long remaining = end - start + 1;
+            while (remaining > 0) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                out.write(buffer.array(), 0, read);
+                position += read;
+                remaining -= read;
+            }
+        }
+    }
+
+    /**
+     * 元数据缓存条目数
+     */
+    public long getCacheSize() {
+        return metadataCache.estimatedSize();
+    }
+
+    /**
+     * 元数据缓存命中率
+     */
+    public double getCacheHitRate() {
+        return metadataCache.stats().hitRate();
+    }
+
+    /**
+     * 清空元数据缓存
+     *
+     * @return 清理前的条目数
+     */
+    public long clearCache() {
+        long size = metadataCache.estimatedSize();
+        metadataCache.invalidateAll();
+        return size;
+    }
+
+    /**
+     * 解析相对路径，拒绝越出上传目录的路径
+     */
+    private Path resolve(String relativePath) {
+        String path = relativePath.startsWith("/") ? relativePath.substring(1) : relativePath;
+        Path file = root.resolve(path).normalize();
+        return file.startsWith(root) && !file.equals(root) ? file : null;
+    }
+
+    /**
+     * 解析请求的图片规格，衍生图不可用时回退到原图
+     */
+    private Path resolveVariant(Path original, String size) {
+        if (size == null || size.isEmpty() || !Files.exists(original)) {
+            return original;
+        }
+        try {
+            Path derivative = imageDerivativeService.getDerivative(original, size);
+            return derivative != null ? derivative : original;
+        } catch (IOException e) {
+            logger.warn("衍生图不可用，返回原图: {} ({})", original, size, e);
+            return original;
+        }
+    }
+
+    private FileMetadata getMetadata(Path file) {
+        if (!cacheEnabled) {
+            return loadMetadata(file);
+        }
+        FileMetadata cached = metadataCache.getIfPresent(file);
+        if (cached != null) {
+            return cached;
+        }
+        // 不存在的文件不缓存，避免上传后短时间内仍返回404
+        FileMetadata metadata = loadMetadata(file);
+        if (metadata != null) {
+            metadataCache.put(file, metadata);
+        }
+        return metadata;
+    }
+
+    private FileMetadata loadMetadata(Path file) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attrs.isRegularFile() || !Files.isReadable(file)) {
+                return null;
+            }
+            String filename = file.getFileName().toString();
+            long lastModified = attrs.lastModifiedTime().toMillis();
+            // 内容寻址文件直接使用内容哈希，其他文件基于大小和修改时间
+            String etag = FileService.isContentAddressed(filename)
+                ? filename.substring(0, filename.lastIndexOf('.'))
+                : Long.toHexString(attrs.size()) + "-" + Long.toHexString(lastModified);
+            return new FileMetadata(etag, lastModified, attrs.size(), getContentType(filename));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * If-Range：ETag强比较或Last-Modified精确匹配时才按Range发送
+     */
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified / 1000 * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 设置缓存控制头
+     * 内容寻址文件名即内容哈希，内容永不变化，使用一年的immutable缓存，客户端无需再验证
+     */
+    private void setCacheHeaders(HttpServletResponse response, String filename) {
+        if (FileService.isContentAddressed(filename)) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=" + IMMUTABLE_MAX_AGE_SECONDS + ", immutable");
+            response.setDateHeader(HttpHeaders.EXPIRES, System.currentTimeMillis() + IMMUTABLE_MAX_AGE_SECONDS * 1000L);
+        } else {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=" + cacheTtlSeconds + ", must-revalidate");
+            response.setDateHeader(HttpHeaders.EXPIRES, System.currentTimeMillis() + cacheTtlSeconds * 1000L);
+        }
+    }
+
+    /**
+     * 监听上传目录，文件变化时失效对应的元数据
+     */
+    private void startWatching() {
+        if (!cacheEnabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(root);
+            watchService = root.getFileSystem().newWatchService();
+            registerTree(root);
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.warn("上传目录监听不可用，元数据仅按TTL过期: {}", e.getMessage());
+            return;
+        }
+
+        Thread watcher = new Thread(this::watchLoop, "upload-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        logger.info("上传目录监听已启动: {}", root);
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = watchedDirectories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                        metadataCache.invalidateAll();
+                        continue;
+                    }
+                    Path changed = directory.resolve((Path) event.context());
+                    metadataCache.invalidate(changed);
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                        registerTree(changed);
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirectories.remove(key);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            logger.debug("上传目录监听已停止");
+        } catch (IOException e) {
+            logger.warn("上传目录监听异常，元数据仅按TTL过期", e);
+        }
+    }
+
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 根据文件名获取Content-Type
+     */
+    private String getContentType(String filename) {
+        int lastDotIndex = filename.lastIndexOf('.');
+        String extension = lastDotIndex > 0 ? filename.substring(lastDotIndex + 1).toLowerCase() : "";
+
+        switch (extension) {
+            case "jpg":
+            case "jpeg":
+                return "image/jpeg";
+            case "png":
+                return "image/png";
+            case "gif":
+                return "image/gif";
+            case "webp":
+                return "image/webp";
+            case "svg":
+                return "image/svg+xml";
+            case "ico":
+                return "image/x-icon";
+            case "pdf":
+                return "application/pdf";
+            case "txt":
+                return "text/plain";
+            case "json":
+                return "application/json";
+            case "xml":
+                return "application/xml";
+            case "css":
+                return "text/css";
+            case "js":
+                return "application/javascript";
+            case "html":
+            case "htm":
+                return "text/html";
+            default:
+                return "application/octet-stream";
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.myeden.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.myeden.entity.Comment;
+import com.myeden.entity.Post;
+import com.myeden.entity.UserActivity;
+import com.myeden.event.AuthorProfileChangedEvent;
+import com.myeden.event.CommentChangedEvent;
+import com.myeden.event.PostChangedEvent;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.LiteralOperators;
+import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 用户活跃度聚合服务
+ *
+ * 功能说明：
+ * - 维护user_activities集合中每个用户的发帖数、评论数、获赞数、今日计数和最后活跃时间
+ * - 监听动态、评论和点赞事件，用$inc/$max原子更新聚合记录
+ * - 今日计数随activityDay跨天重置，重置通过条件更新保证只发生一次
+ * - 定期用$group聚合重建全部记录，记录缺失时读取前按单个用户重建
+ *
+ * 口径与原来的实时统计一致：总数和获赞数只计未删除的内容，今日计数包含已删除的内容。
+ * 重建只统计开始前创建的内容，并跳过重建期间有增量的记录，避免覆盖或重复计入这些增量。
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class UserActivityAggregates {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserActivityAggregates.class);
+
+    private static final String TOTAL_POSTS = "totalPosts";
+    private static final String TOTAL_COMMENTS = "totalComments";
+    private static final String POST_LIKES = "postLikes";
+    private static final String COMMENT_LIKES = "commentLikes";
+    private static final String TODAY_POSTS = "todayPosts";
+    private static final String TODAY_COMMENTS = "todayComments";
+    private static final String UPDATED_AT = "updatedAt";
+
+    @Value("${user-activity.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * 获取用户的活跃度聚合，记录不存在时先聚合重建
+     * 返回的今日计数已按当前日期处理
+     *
+     * @param userId 用户ID
+     * @return 活跃度聚合
+     */
+    public UserActivity getActivity(String userId) {
+        UserActivity activity = mongoTemplate.findOne(byUser(userId), UserActivity.class);
+        if (activity == null) {
+            activity = rebuild(userId);
+        }
+        if (!LocalDate.now().toString().equals(activity.getActivityDay())) {
+            activity.setTodayPosts(0L);
+            activity.setTodayComments(0L);
+        }
+        return activity;
+    }
+
+    /**
+     * 新用户注册时创建空的聚合记录
+     */
+    @EventListener
+    public void onAuthorProfileChanged(AuthorProfileChangedEvent event) {
+        if (!event.isCreated() || !"user".equals(event.getAuthorType())) {
+            return;
+        }
+        try {
+            mongoTemplate.upsert(byUser(event.getAuthorId()), new Update()
+                .setOnInsert(TOTAL_POSTS, 0L)
+                .setOnInsert(TOTAL_COMMENTS, 0L)
+                .setOnInsert(POST_LIKES, 0L)
+                .setOnInsert(COMMENT_LIKES, 0L)
+                .setOnInsert("activityDay", LocalDate.now().toString())
+                .setOnInsert(TODAY_POSTS, 0L)
+                .setOnInsert(TODAY_COMMENTS, 0L)
+                .setOnInsert("reconciledAt", LocalDateTime.now()), UserActivity.class);
+        } catch (Exception e) {
+            logger.warn("创建用户活跃度聚合失败: userId={}", event.getAuthorId(), e);
+        }
+    }
+
+    /**
+     * 动态发布、删除和点赞数变化
+     */
+    @EventListener
+    public void onPostChanged(PostChangedEvent event) {
+        if (!"user".equals(event.getAuthorType())) {
+            return;
+        }
+        try {
+            switch (event.getChangeType()) {
+                case CREATED:
+                    recordCreated(event.getAuthorId(), TOTAL_POSTS, TODAY_POSTS, TODAY_COMMENTS, event.getCreatedAt());
+                    break;
+                case DELETED:
+                    increment(event.getAuthorId(), new Update()
+                        .inc(TOTAL_POSTS, -1)
+                        .inc(POST_LIKES, -event.getLikeCount()));
+                    break;
+                case LIKE_COUNT_CHANGED:
+                    if (event.getLikeDelta() != 0) {
+                        increment(event.getAuthorId(), new Update().inc(POST_LIKES, event.getLikeDelta()));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } catch (Exception e) {
+            logger.warn("更新用户活跃度聚合失败: {}", event, e);
+        }
+    }
+
+    /**
+     * 评论发布、删除和点赞数变化
+     */
+    @EventListener
+    public void onCommentChanged(CommentChangedEvent event) {
+        if (!"user".equals(event.getAuthorType())) {
+            return;
+        }
+        try {
+            switch (event.getChangeType()) {
+                case CREATED:
+                    recordCreated(event.getAuthorId(), TOTAL_COMMENTS, TODAY_COMMENTS, TODAY_POSTS, event.getCreatedAt());
+                    break;
+                case DELETED:
+                    increment(event.getAuthorId(), new Update()
+                        .inc(TOTAL_COMMENTS, -1)
+                        .inc(COMMENT_LIKES, -event.getLikeCount()));
+                    break;
+                case LIKE_COUNT_CHANGED:
+                    if (event.getLikeDelta() != 0) {
+                        increment(event.getAuthorId(), new Update().inc(COMMENT_LIKES, event.getLikeDelta()));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } catch (Exception e) {
+            logger.warn("更新用户活跃度聚合失败: {}", event, e);
+        }
+    }
+
+    /**
+     * 定期聚合重建全部用户的记录
+     */
+    @Scheduled(fixedDelayString = "${user-activity.reconcile-interval:3600000}",
+               initialDelayString = "${user-activity.reconcile-initial-delay:60000}")
+    public void reconcile() {
+        try {
+            long start = System.currentTimeMillis();
+            LocalDateTime runStart = LocalDateTime.now();
+            int users = 0;
+            // 开始后创建的内容由增量计入，不参与本次重建；聚合结果按游标分批写入
+            try (Stream<UserActivity> activities = aggregate(
+                    Criteria.where("authorType").is("user").and("createdAt").lt(toDate(runStart)))) {
+                List<UserActivity> batch = new ArrayList<>();
+                Iterator<UserActivity> iterator = activities.iterator();
+                while (iterator.hasNext()) {
+                    batch.add(iterator.next());
+                    if (batch.size() >= reconcileBatchSize || !iterator.hasNext()) {
+                        writeBatch(batch, runStart);
+                        users += batch.size();
+                        batch.clear();
+                    }
+                }
+            }
+
+            // 本次没有重建到（已没有任何内容）、重建期间也没有增量的用户，计数归零
+            mongoTemplate.updateMulti(
+                Query.query(new Criteria().andOperator(
+                    Criteria.where("reconciledAt").lt(runStart),
+                    notUpdatedSince(runStart))),
+                toUpdate(emptyActivity(null), runStart), UserActivity.class);
+
+            logger.info("用户活跃度聚合重建完成，用户数: {}, 耗时: {}ms",
+                       users, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("用户活跃度聚合重建失败", e);
+        }
+    }
+
+    /**
+     * 聚合重建单个用户的记录
+     *
+     * @param userId 用户ID
+     * @return 重建后的记录
+     */
+    public UserActivity rebuild(String userId) {
+        UserActivity activity;
+        try (Stream<UserActivity> activities = aggregate(
+                Criteria.where("authorId").is(userId).and("authorType").is("user"))) {
+            activity = activities.findFirst().orElseGet(() -> emptyActivity(userId));
+        }
+        mongoTemplate.upsert(byUser(userId), toUpdate(activity, LocalDateTime.now()), UserActivity.class);
+        return activity;
+    }
+
+    /**
+     * 写入一批重建结果，记录的重建时间为本次重建的开始时间
+     */
+    private void writeBatch(List<UserActivity> batch, LocalDateTime runStart) {
+        // 先只插入缺失的记录，再覆盖重建期间没有增量的记录；有增量的记录保留到下一次重建
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, UserActivity.class);
+        for (UserActivity activity : batch) {
+            bulk.upsert(byUser(activity.getUserId()), toInsert(activity, runStart));
+            bulk.updateOne(byUserNotUpdatedSince(activity.getUserId(), runStart), toUpdate(activity, runStart));
+        }
+        bulk.execute();
+    }
+
+    /**
+     * 记录一次发布：同一天直接递增今日计数，跨天时先重置今日计数
+     */
+    private void recordCreated(String userId, String totalField, String todayField, String otherTodayField,
+                               LocalDateTime createdAt) {
+        LocalDateTime activeAt = createdAt != null ? createdAt : LocalDateTime.now();
+        String today = LocalDate.now().toString();
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("userId").is(userId).and("activityDay").is(today)),
+                new Update().inc(totalField, 1).inc(todayField, 1).max("lastActiveAt", activeAt)
+                    .set(UPDATED_AT, LocalDateTime.now()),
+                UserActivity.class);
+            if (result.getMatchedCount() > 0) {
+                return;
+            }
+
+            // 条件是activityDay不等于今天，并发的跨天写入只有一个能匹配，其余回到递增分支
+            result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("userId").is(userId).and("activityDay").ne(today)),
+                new Update().inc(totalField, 1)
+                    .set("activityDay", today)
+                    .set(todayField, 1L)
+                    .set(otherTodayField, 0L)
+                    .max("lastActiveAt", activeAt)
+                    .set(UPDATED_AT, LocalDateTime.now()),
+                UserActivity.class);
+            if (result.getMatchedCount() > 0) {
+                return;
+            }
+        }
+        // 记录不存在，等待读取时或定期重建
+    }
+
+    /**
+     * 对已有记录做增量更新，记录不存在时不创建，避免以增量代替全量
+     */
+    private void increment(String userId, Update update) {
+        mongoTemplate.updateFirst(byUser(userId), update.set(UPDATED_AT, LocalDateTime.now()), UserActivity.class);
+    }
+
+    /**
+     * 按作者$group聚合动态和评论，评论通过$unionWith并入同一条管道，每个作者一条结果
+     */
+    private Stream<UserActivity> aggregate(Criteria match) {
+        Date startOfDay = toDate(LocalDate.now().atStartOfDay());
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(match),
+            contribution(true, startOfDay),
+            UnionWithOperation.unionWith(mongoTemplate.getCollectionName(Comment.class))
+                .pipeline(Aggregation.match(match), contribution(false, startOfDay)),
+            Aggregation.group("authorId")
+                .sum(TOTAL_POSTS).as(TOTAL_POSTS)
+                .sum(POST_LIKES).as(POST_LIKES)
+                .sum(TODAY_POSTS).as(TODAY_POSTS)
+                .sum(TOTAL_COMMENTS).as(TOTAL_COMMENTS)
+                .sum(COMMENT_LIKES).as(COMMENT_LIKES)
+                .sum(TODAY_COMMENTS).as(TODAY_COMMENTS)
+                .max("createdAt").as("lastActiveAt")
+        );
+        return mongoTemplate.aggregateStream(aggregation, mongoTemplate.getCollectionName(Post.class), Document.class)
+            .map(this::toActivity);
+    }
+
+    /**
+     * 把一条动态或评论投影为它对作者各项计数的贡献
+     */
+    private ProjectionOperation contribution(boolean post, Date startOfDay) {
+        ComparisonOperators.Eq notDeleted = ComparisonOperators.Eq.valueOf("isDeleted").equalToValue(false);
+        AggregationExpression total = ConditionalOperators.when(notDeleted).then(1).otherwise(0);
+        AggregationExpression likes = ConditionalOperators.when(notDeleted)
+            .thenValueOf(ConditionalOperators.ifNull("likeCount").then(0))
+            .otherwise(0);
+        AggregationExpression today = ConditionalOperators
+            .when(ComparisonOperators.Gte.valueOf("createdAt").greaterThanEqualToValue(startOfDay))
+            .then(1).otherwise(0);
+        AggregationExpression zero = LiteralOperators.Literal.asLiteral(0);
+        return Aggregation.project("authorId", "createdAt")
+            .and(post ? total : zero).as(TOTAL_POSTS)
+            .and(post ? likes : zero).as(POST_LIKES)
+            .and(post ? today : zero).as(TODAY_POSTS)
+            .and(post ? zero : total).as(TOTAL_COMMENTS)
+            .and(post ? zero : likes).as(COMMENT_LIKES)
+            .and(post ? zero : today).as(TODAY_COMMENTS);
+    }
+
+    private UserActivity toActivity(Document group) {
+        UserActivity activity = emptyActivity(group.getString("_id"));
+        activity.setTotalPosts(longValue(group, TOTAL_POSTS));
+        activity.setPostLikes(longValue(group, POST_LIKES));
+        activity.setTodayPosts(longValue(group, TODAY_POSTS));
+        activity.setTotalComments(longValue(group, TOTAL_COMMENTS));
+        activity.setCommentLikes(longValue(group, COMMENT_LIKES));
+        activity.setTodayComments(longValue(group, TODAY_COMMENTS));
+        activity.setLastActiveAt(toLocalDateTime(group.getDate("lastActiveAt")));
+        return activity;
+    }
+
+    private Update toUpdate(UserActivity activity, LocalDateTime reconciledAt) {
+        Update update = new Update()
+            .set(TOTAL_POSTS, activity.getTotalPosts())
+            .set(TOTAL_COMMENTS, activity.getTotalComments())
+            .set(POST_LIKES, activity.getPostLikes())
+            .set(COMMENT_LIKES, activity.getCommentLikes())
+            .set("activityDay", activity.getActivityDay())
+            .set(TODAY_POSTS, activity.getTodayPosts())
+            .set(TODAY_COMMENTS, activity.getTodayComments())
+            .set("reconciledAt", reconciledAt);
+        if (activity.getLastActiveAt() != null) {
+            update.set("lastActiveAt", activity.getLastActiveAt());
+        }
+        return update;
+    }
+
+    private Update toInsert(UserActivity activity, LocalDateTime reconciledAt) {
+        Update update = new Update();
+        toUpdate(activity, reconciledAt).getUpdateObject().get("$set", Document.class).forEach(update::setOnInsert);
+        return update;
+    }
+
+    private Criteria notUpdatedSince(LocalDateTime time) {
+        return new Criteria().orOperator(
+            Criteria.where(UPDATED_AT).lt(time),
+            Criteria.where(UPDATED_AT).exists(false));
+    }
+
+    private Query byUserNotUpdatedSince(String userId, LocalDateTime time) {
+        return Query.query(new Criteria().andOperator(Criteria.where("userId").is(userId), notUpdatedSince(time)));
+    }
+
+    private UserActivity emptyActivity(String userId) {
+        return UserActivity.builder()
+            .userId(userId)
+            .totalPosts(0L)
+            .totalComments(0L)
+            .postLikes(0L)
+            .commentLikes(0L)
+            .activityDay(LocalDate.now().toString())
+            .todayPosts(0L)
+            .todayComments(0L)
+            .build();
+    }
+
+    private Query byUser(String userId) {
+        return Query.query(Criteria.where("userId").is(userId));
+    }
+
+    private long longValue(Document document, String key) {
+        Object value = document.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private LocalDateTime toLocalDateTime(Date date) {
+        return date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null;
+    }
+}
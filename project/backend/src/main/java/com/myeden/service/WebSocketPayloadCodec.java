@@ -0,0 +1,276 @@
+package com.myeden.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.myeden.model.WebSocketMessage;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * WebSocket紧凑负载编解码器
+ *
+ * 功能说明：
+ * - 将WebSocketMessage编码为CBOR二进制格式，作为JSON之外的可选编码
+ * - 消息信封字段和热点消息（动态、评论、机器人行为）的数据字段使用稳定的短标签
+ * - 时间字段编码为epoch毫秒，消息类型编码为整数
+ * - 未登记的字段原样保留，保证向前兼容
+ *
+ * 标签一经发布不得修改含义，只能追加新标签。
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class WebSocketPayloadCodec {
+
+    /**
+     * 紧凑编码名称，客户端在STOMP CONNECT帧的payload-encoding头中声明
+     */
+    public static final String ENCODING_CBOR = "cbor";
+
+    /**
+     * 紧凑编码消息的目的地后缀
+     */
+    public static final String COMPACT_DESTINATION_SUFFIX = ".cbor";
+
+    /**
+     * 消息信封字段标签
+     */
+    private static final Map<String, String> ENVELOPE_TAGS = orderedTags(
+            "messageId", "i",
+            "type", "t",
+            "title", "h",
+            "content", "n",
+            "data", "d",
+            "senderId", "s",
+            "senderType", "st",
+            "targetUserId", "u",
+            "priority", "p",
+            "tags", "g",
+            "createdAt", "c",
+            "expiresAt", "e",
+            "isRead", "r",
+            "metadata", "m"
+    );
+
+    /**
+     * 热点消息数据字段标签
+     */
+    private static final Map<String, String> DATA_TAGS = orderedTags(
+            "postId", "p",
+            "commentId", "cm",
+            "replyId", "ri",
+            "parentId", "pa",
+            "replyToId", "rt",
+            "robotId", "r",
+            "robotName", "rn",
+            "actionType", "a",
+            "actionContent", "ac",
+            "innerThoughts", "it",
+            "authorId", "au",
+            "authorType", "at",
+            "authorName", "an",
+            "authorAvatar", "av",
+            "content", "ct",
+            "images", "im",
+            "status", "ss",
+            "statusText", "sx",
+            "createdAt", "ca",
+            "timestamp", "ts"
+    );
+
+    private static final Map<String, String> ENVELOPE_NAMES = invert(ENVELOPE_TAGS);
+
+    private static final Map<String, String> DATA_NAMES = invert(DATA_TAGS);
+
+    /**
+     * 数据中以ISO时间字符串表示、需要编码为epoch毫秒的字段
+     */
+    private static final Set<String> DATA_TIME_FIELDS = Set.of("createdAt", "timestamp");
+
+    /**
+     * 消息类型编码
+     */
+    private static final Map<WebSocketMessage.MessageType, Integer> TYPE_CODES =
+            new EnumMap<>(WebSocketMessage.MessageType.class);
+
+    /**
+     * 使用数据字段标签的热点消息类型
+     */
+    private static final Set<WebSocketMessage.MessageType> TAGGED_DATA_TYPES = EnumSet.of(
+            WebSocketMessage.MessageType.POST_UPDATE,
+            WebSocketMessage.MessageType.COMMENT_UPDATE,
+            WebSocketMessage.MessageType.ROBOT_ACTION
+    );
+
+    static {
+        TYPE_CODES.put(WebSocketMessage.MessageType.POST_UPDATE, 1);
+        TYPE_CODES.put(WebSocketMessage.MessageType.COMMENT_UPDATE, 2);
+        TYPE_CODES.put(WebSocketMessage.MessageType.NOTIFICATION, 3);
+        TYPE_CODES.put(WebSocketMessage.MessageType.ROBOT_ACTION, 4);
+        TYPE_CODES.put(WebSocketMessage.MessageType.SYSTEM_MESSAGE, 5);
+        TYPE_CODES.put(WebSocketMessage.MessageType.HEARTBEAT, 6);
+    }
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory()).registerModule(new JavaTimeModule());
+
+    /**
+     * 将消息编码为紧凑的CBOR字节
+     *
+     * @param message 消息
+     * @return CBOR字节
+     * @throws JsonProcessingException 编码失败
+     */
+    public byte[] encode(WebSocketMessage<?> message) throws JsonProcessingException {
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        putIfNotNull(envelope, "i", message.getMessageId());
+        putIfNotNull(envelope, "t", message.getType() != null ? TYPE_CODES.get(message.getType()) : null);
+        putIfNotNull(envelope, "h", message.getTitle());
+        putIfNotNull(envelope, "n", message.getContent());
+        putIfNotNull(envelope, "d", encodeData(message.getType(), message.getData()));
+        putIfNotNull(envelope, "s", message.getSenderId());
+        putIfNotNull(envelope, "st", message.getSenderType());
+        putIfNotNull(envelope, "u", message.getTargetUserId());
+        putIfNotNull(envelope, "p", message.getPriority());
+        putIfNotNull(envelope, "g", message.getTags());
+        putIfNotNull(envelope, "c", toEpochMillis(message.getCreatedAt()));
+        putIfNotNull(envelope, "e", toEpochMillis(message.getExpiresAt()));
+        putIfNotNull(envelope, "r", message.getIsRead());
+        putIfNotNull(envelope, "m", message.getMetadata());
+        return cborMapper.writeValueAsBytes(envelope);
+    }
+
+    /**
+     * 将紧凑的CBOR字节解码为使用完整字段名的消息Map
+     * 主要用于测试和服务端调试，时间字段保持epoch毫秒
+     *
+     * @param bytes CBOR字节
+     * @return 使用完整字段名的消息Map
+     * @throws IOException 解码失败
+     */
+    public Map<String, Object> decode(byte[] bytes) throws IOException {
+        Map<String, Object> envelope = cborMapper.readValue(bytes, new TypeReference<LinkedHashMap<String, Object>>() {});
+        Map<String, Object> result = expand(envelope, ENVELOPE_NAMES);
+
+        Object typeCode = result.get("type");
+        if (typeCode instanceof Number) {
+            WebSocketMessage.MessageType type = typeOf(((Number) typeCode).intValue());
+            result.put("type", type != null ? type.name() : typeCode);
+            if (type != null && TAGGED_DATA_TYPES.contains(type) && result.get("data") instanceof Map) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> data = (Map<String, Object>) result.get("data");
+                result.put("data", expand(data, DATA_NAMES));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取标签字典，供客户端解码使用
+     *
+     * @return 标签字典
+     */
+    public Map<String, Object> getTagDictionary() {
+        Map<String, Object> types = new LinkedHashMap<>();
+        TYPE_CODES.forEach((type, code) -> types.put(type.name(), code));
+
+        Map<String, Object> dictionary = new LinkedHashMap<>();
+        dictionary.put("encoding", ENCODING_CBOR);
+        dictionary.put("envelope", ENVELOPE_TAGS);
+        dictionary.put("data", DATA_TAGS);
+        dictionary.put("types", types);
+        return dictionary;
+    }
+
+    /**
+     * 编码消息数据，热点消息类型的Map数据使用短标签
+     */
+    private Object encodeData(WebSocketMessage.MessageType type, Object data) {
+        if (!(data instanceof Map) || type == null || !TAGGED_DATA_TYPES.contains(type)) {
+            return data;
+        }
+
+        Map<?, ?> source = (Map<?, ?>) data;
+        Map<String, Object> tagged = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            String key = String.valueOf(entry.getKey());
+            Object value = entry.getValue();
+            if (DATA_TIME_FIELDS.contains(key) && value instanceof String) {
+                value = parseIsoToEpochMillis((String) value);
+            }
+            tagged.put(DATA_TAGS.getOrDefault(key, key), value);
+        }
+        return tagged;
+    }
+
+    /**
+     * 将ISO时间字符串转为epoch毫秒，无法解析时保留原字符串
+     */
+    private Object parseIsoToEpochMillis(String value) {
+        try {
+            return toEpochMillis(LocalDateTime.parse(value, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        } catch (DateTimeParseException e) {
+            return value;
+        }
+    }
+
+    private Long toEpochMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZONE).toInstant().toEpochMilli() : null;
+    }
+
+    private WebSocketMessage.MessageType typeOf(int code) {
+        for (Map.Entry<WebSocketMessage.MessageType, Integer> entry : TYPE_CODES.entrySet()) {
+            if (entry.getValue() == code) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static void putIfNotNull(Map<String, Object> map, String key, Object value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+
+    private static Map<String, Object> expand(Map<String, Object> tagged, Map<String, String> tagToName) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        tagged.forEach((tag, value) -> result.put(tagToName.getOrDefault(tag, tag), value));
+        return result;
+    }
+
+    private static Map<String, String> invert(Map<String, String> tags) {
+        Map<String, String> inverted = new HashMap<>();
+        tags.forEach((name, tag) -> inverted.put(tag, name));
+        return inverted;
+    }
+
+    private static Map<String, String> orderedTags(String... pairs) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            tags.put(pairs[i], pairs[i + 1]);
+        }
+        return Collections.unmodifiableMap(tags);
+    }
+}
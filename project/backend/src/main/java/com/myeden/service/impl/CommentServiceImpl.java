@@ -5,6 +5,8 @@ import com.myeden.entity.Post;
 import com.myeden.entity.User;
 import com.myeden.entity.Robot;
 import com.myeden.entity.CommentLike;
+import com.myeden.event.CommentChangedEvent;
+import com.myeden.event.PostChangedEvent;
 import com.myeden.repository.CommentRepository;
 import com.myeden.repository.PostRepository;
 import com.myeden.repository.UserRepository;
@@ -15,6 +17,7 @@ import com.myeden.service.WebSocketService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -64,6 +67,9 @@ public class CommentServiceImpl implements CommentService {
     @Autowired
     private WebSocketService webSocketService;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Override
     public CommentResult createComment(String postId, String authorId, String authorType, String content, String innerThoughts) {
         try {
@@ -140,8 +146,10 @@ public class CommentServiceImpl implements CommentService {
             post.setCommentCount(post.getCommentCount() + 1);
             post.setUpdatedAt(LocalDateTime.now());
             postRepository.save(post);
+            eventPublisher.publishEvent(PostChangedEvent.commentCountChanged(post, authorId));
             
             logger.info("评论创建成功，评论ID: {}", savedComment.getCommentId());
+            eventPublisher.publishEvent(CommentChangedEvent.created(savedComment));
             
             // 推送WebSocket消息
             try {
@@ -263,9 +271,11 @@ public class CommentServiceImpl implements CommentService {
                 post.setCommentCount(post.getCommentCount() + 1);
                 post.setUpdatedAt(LocalDateTime.now());
                 postRepository.save(post);
+                eventPublisher.publishEvent(PostChangedEvent.commentCountChanged(post, authorId));
             }
             
             logger.info("回复评论成功，回复ID: {}", savedReply.getCommentId());
+            eventPublisher.publishEvent(CommentChangedEvent.created(savedReply));
             
             // 推送WebSocket消息
             try {
@@ -479,6 +489,7 @@ public class CommentServiceImpl implements CommentService {
                     post.setCommentCount(post.getCommentCount() - 1);
                     post.setUpdatedAt(LocalDateTime.now());
                     postRepository.save(post);
+                    eventPublisher.publishEvent(PostChangedEvent.commentCountChanged(post, authorId));
                 }
             }
             
@@ -495,6 +506,7 @@ public class CommentServiceImpl implements CommentService {
                 }
             }
             
+            eventPublisher.publishEvent(CommentChangedEvent.deleted(comment));
             logger.info("评论删除成功");
             return true;
             
@@ -538,6 +550,7 @@ public class CommentServiceImpl implements CommentService {
             comment.setLikeCount(comment.getLikeCount() + 1);
             comment.setUpdatedAt(LocalDateTime.now());
             commentRepository.save(comment);
+            eventPublisher.publishEvent(CommentChangedEvent.likeCountChanged(comment, 1));
             
             logger.info("评论点赞成功");
             return true;
@@ -576,6 +589,7 @@ public class CommentServiceImpl implements CommentService {
                 comment.setLikeCount(comment.getLikeCount() - 1);
                 comment.setUpdatedAt(LocalDateTime.now());
                 commentRepository.save(comment);
+                eventPublisher.publishEvent(CommentChangedEvent.likeCountChanged(comment, -1));
             }
             
             logger.info("取消点赞成功");
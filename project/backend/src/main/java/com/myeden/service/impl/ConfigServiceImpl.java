@@ -3,27 +3,44 @@ package com.myeden.service.impl;
 import com.myeden.config.WorldConfig;
 import com.myeden.config.RobotConfig;
 import com.myeden.entity.Robot;
+import com.myeden.event.AuthorProfileChangedEvent;
+import com.myeden.event.ConfigReloadedEvent;
+import com.myeden.event.RobotConfigSyncedEvent;
 import com.myeden.repository.RobotRepository;
 import com.myeden.repository.WorldConfigRepository;
 import com.myeden.service.ConfigService;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 /**
  * 配置管理服务实现类
  * 
  * 功能说明：
  * - 实现配置文件加载和解析功能
- * - 支持配置热更新和动态重载
+ * - 支持配置热更新和动态重载，并发的重新加载串行执行
  * - 管理世界配置和机器人配置
  * - 将世界配置和机器人配置同步到数据库
  * - 提供配置验证和错误处理
@@ -49,8 +66,19 @@ public class ConfigServiceImpl implements ConfigService {
     @Autowired
     private WorldConfigRepository worldConfigRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
     private ConfigStatus configStatus;
     
+    /**
+     * 重新加载锁，手动重新加载接口和配置文件监听的验证、替换、同步步骤串行执行
+     */
+    private final Object reloadLock = new Object();
+    
     public ConfigServiceImpl() {
         this.configStatus = new ConfigStatus(false, false, LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
     }
@@ -120,68 +148,120 @@ public class ConfigServiceImpl implements ConfigService {
     
     @Override
     public boolean reloadWorldConfig() {
-        try {
-            logger.info("重新加载世界配置...");
+        synchronized (reloadLock) {
+            try {
+                logger.info("重新加载世界配置...");
             
-            // 重新验证配置
-            ConfigValidationResult validationResult = validateWorldConfig(worldConfig);
-            if (!validationResult.isValid()) {
-                logger.error("世界配置验证失败: {}", validationResult.getMessage());
-                configStatus.setErrorMessage(validationResult.getMessage());
-                return false;
-            }
+                // 重新验证配置
+                ConfigValidationResult validationResult = validateWorldConfig(worldConfig);
+                if (!validationResult.isValid()) {
+                    logger.error("世界配置验证失败: {}", validationResult.getMessage());
+                    configStatus.setErrorMessage(validationResult.getMessage());
+                    return false;
+                }
             
-            // 同步世界配置到数据库
-            syncWorldConfigToDatabase();
+                // 同步世界配置到数据库
+                syncWorldConfigToDatabase();
             
-            configStatus.setWorldConfigLoaded(true);
-            configStatus.setLastLoadTime(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-            configStatus.setErrorMessage(null);
+                configStatus.setWorldConfigLoaded(true);
+                configStatus.setLastLoadTime(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                configStatus.setErrorMessage(null);
             
-            logger.info("世界配置重新加载成功");
-            return true;
+                eventPublisher.publishEvent(new ConfigReloadedEvent("world"));
+                logger.info("世界配置重新加载成功");
+                return true;
             
-        } catch (Exception e) {
-            logger.error("重新加载世界配置失败", e);
-            configStatus.setWorldConfigLoaded(false);
-            configStatus.setErrorMessage("重新加载世界配置失败: " + e.getMessage());
-            return false;
+            } catch (Exception e) {
+                logger.error("重新加载世界配置失败", e);
+                configStatus.setWorldConfigLoaded(false);
+                configStatus.setErrorMessage("重新加载世界配置失败: " + e.getMessage());
+                return false;
+            }
         }
     }
     
     @Override
     public boolean reloadRobotConfig() {
-        try {
-            logger.info("重新加载机器人配置...");
+        synchronized (reloadLock) {
+            try {
+                logger.info("重新加载机器人配置...");
             
-            // 重新验证配置
-            ConfigValidationResult validationResult = validateRobotConfig(robotConfig);
-            if (!validationResult.isValid()) {
-                logger.error("机器人配置验证失败: {}", validationResult.getMessage());
-                configStatus.setErrorMessage(validationResult.getMessage());
-                return false;
-            }
+                // 重新验证配置
+                ConfigValidationResult validationResult = validateRobotConfig(robotConfig);
+                if (!validationResult.isValid()) {
+                    logger.error("机器人配置验证失败: {}", validationResult.getMessage());
+                    configStatus.setErrorMessage(validationResult.getMessage());
+                    return false;
+                }
             
-            // 同步机器人配置到数据库
-            syncRobotsToDatabase();
+                // 同步机器人配置到数据库
+                syncRobotsToDatabase();
             
-            configStatus.setRobotConfigLoaded(true);
-            configStatus.setLastLoadTime(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-            configStatus.setErrorMessage(null);
+                configStatus.setRobotConfigLoaded(true);
+                configStatus.setLastLoadTime(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                configStatus.setErrorMessage(null);
             
-            logger.info("机器人配置重新加载成功");
-            return true;
+                eventPublisher.publishEvent(new ConfigReloadedEvent("robot"));
+                logger.info("机器人配置重新加载成功");
+                return true;
             
-        } catch (Exception e) {
-            logger.error("重新加载机器人配置失败", e);
-            configStatus.setRobotConfigLoaded(false);
-            configStatus.setErrorMessage("重新加载机器人配置失败: " + e.getMessage());
-            return false;
+            } catch (Exception e) {
+                logger.error("重新加载机器人配置失败", e);
+                configStatus.setRobotConfigLoaded(false);
+                configStatus.setErrorMessage("重新加载机器人配置失败: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+    
+    @Override
+    public boolean applyWorldConfig(WorldConfig fresh) {
+        synchronized (reloadLock) {
+            ConfigValidationResult validationResult = validateWorldConfig(fresh);
+            if (!validationResult.isValid()) {
+                logger.error("新的世界配置验证失败，保留当前配置: {}", validationResult.getMessage());
+                configStatus.setErrorMessage(validationResult.getMessage());
+                return false;
+            }
+        
+            // 逐个字段替换引用，读取方看到的是旧值或新值，不会看到半更新的对象
+            worldConfig.setName(fresh.getName());
+            worldConfig.setVersion(fresh.getVersion());
+            worldConfig.setDescription(fresh.getDescription());
+            worldConfig.setBackground(fresh.getBackground());
+            worldConfig.setEnvironment(fresh.getEnvironment());
+            worldConfig.setActivities(fresh.getActivities());
+            worldConfig.setStatistics(fresh.getStatistics());
+            worldConfig.setSettings(fresh.getSettings());
+        
+            return reloadWorldConfig();
+        }
+    }
+    
+    @Override
+    public boolean applyRobotConfig(RobotConfig fresh) {
+        synchronized (reloadLock) {
+            ConfigValidationResult validationResult = validateRobotConfig(fresh);
+            if (!validationResult.isValid()) {
+                logger.error("新的机器人配置验证失败，保留当前配置: {}", validationResult.getMessage());
+                configStatus.setErrorMessage(validationResult.getMessage());
+                return false;
+            }
+        
+            // 整体替换列表引用，不修改正在被读取的旧列表；
+            // 随后的指纹同步只为有变化的机器人写库并发布资料变更事件，
+            // 作息调度和兴趣索引据此只重建这些机器人的状态
+            robotConfig.setBaseConfig(fresh.getBaseConfig());
+            robotConfig.setBehaviorAlgorithm(fresh.getBehaviorAlgorithm());
+            robotConfig.setList(fresh.getList());
+        
+            return reloadRobotConfig();
         }
     }
     
     /**
      * 将世界配置同步到数据库
+     * 比较配置指纹，配置未变化时不写数据库
      */
     private void syncWorldConfigToDatabase() {
         if (worldConfig == null) {
@@ -190,30 +270,37 @@ public class ConfigServiceImpl implements ConfigService {
         }
         
         try {
-            logger.info("🔄 开始同步世界配置到数据库: {}", worldConfig.getName());
-            
             // 生成世界ID
             String worldId = "world_" + worldConfig.getName().toLowerCase().replaceAll("\\s+", "_");
+            com.myeden.entity.WorldConfig worldEntity = convertToWorldConfigEntity(worldConfig, worldId);
             
-            // 检查世界配置是否已存在
-            Optional<com.myeden.entity.WorldConfig> existingWorld = worldConfigRepository.findByWorldId(worldId);
+            Document fields = new Document()
+                .append("name", worldEntity.getName())
+                .append("description", worldEntity.getDescription())
+                .append("backgroundPrompt", worldEntity.getBackgroundPrompt())
+                .append("worldviewPrompt", worldEntity.getWorldviewPrompt());
+            String configHash = hashOf(fields);
             
-            com.myeden.entity.WorldConfig worldEntity;
-            if (existingWorld.isPresent()) {
-                // 更新现有世界配置
-                worldEntity = existingWorld.get();
-                updateWorldFromConfig(worldEntity, worldConfig);
-                logger.debug("🔄 更新世界配置: {}", worldConfig.getName());
-            } else {
-                // 创建新世界配置
-                worldEntity = convertToWorldConfigEntity(worldConfig, worldId);
-                logger.debug("➕ 创建世界配置: {}", worldConfig.getName());
+            Query query = Query.query(Criteria.where("worldId").is(worldId));
+            query.fields().include("configHash");
+            Document stored = mongoTemplate.findOne(query, Document.class,
+                mongoTemplate.getCollectionName(com.myeden.entity.WorldConfig.class));
+            if (stored != null && configHash.equals(stored.getString("configHash"))) {
+                logger.debug("世界配置未变化，跳过同步: {}", worldConfig.getName());
+                return;
             }
             
-            // 保存到数据库
-            worldConfigRepository.save(worldEntity);
+            LocalDateTime now = LocalDateTime.now();
+            Update update = new Update();
+            fields.forEach(update::set);
+            update.set("configHash", configHash)
+                .set("updatedAt", now)
+                .setOnInsert("isActive", true)
+                .setOnInsert("createdAt", now);
+            mongoTemplate.upsert(Query.query(Criteria.where("worldId").is(worldId)), update,
+                com.myeden.entity.WorldConfig.class);
             
-            logger.info("✅ 世界配置同步完成: {}", worldConfig.getName());
+            logger.info("✅ 世界配置同步完成（{}）: {}", stored != null ? "更新" : "创建", worldConfig.getName());
             
         } catch (Exception e) {
             logger.error("❌ 同步世界配置失败: {}", worldConfig.getName(), e);
@@ -287,26 +374,10 @@ public class ConfigServiceImpl implements ConfigService {
         return worldEntity;
     }
     
-    /**
-     * 从配置更新世界配置信息
-     */
-    private void updateWorldFromConfig(com.myeden.entity.WorldConfig existing, WorldConfig newConfig) {
-        // 更新基本信息
-        existing.setName(newConfig.getName());
-        existing.setDescription(newConfig.getDescription());
-        
-        // 重新构建背景prompt和世界观prompt
-        String worldId = existing.getWorldId();
-        com.myeden.entity.WorldConfig newEntity = convertToWorldConfigEntity(newConfig, worldId);
-        existing.setBackgroundPrompt(newEntity.getBackgroundPrompt());
-        existing.setWorldviewPrompt(newEntity.getWorldviewPrompt());
-        
-        // 更新时间戳
-        existing.setUpdatedAt(LocalDateTime.now());
-    }
-    
     /**
      * 将机器人配置同步到数据库
+     * 一次查询取出已有机器人的配置指纹，只把指纹变化的机器人用一次有序批量upsert写入，
+     * 变更集以事件形式通知内存中的索引和缓存
      */
     private void syncRobotsToDatabase() {
         if (robotConfig == null || robotConfig.getList() == null) {
@@ -315,41 +386,105 @@ public class ConfigServiceImpl implements ConfigService {
         }
         
         List<RobotConfig.RobotInfo> robotConfigs = robotConfig.getList();
-        int created = 0;
-        int updated = 0;
         int skipped = 0;
         
         logger.info("🔄 开始同步 {} 个机器人配置到数据库", robotConfigs.size());
         
+        // 转换为Robot实体
+        Map<String, Robot> robots = new LinkedHashMap<>();
         for (RobotConfig.RobotInfo robotConfig : robotConfigs) {
             try {
-                // 转换为Robot实体
                 Robot robot = convertToRobot(robotConfig);
-                
-                // 检查机器人是否已存在
-                Optional<Robot> existingRobot = robotRepository.findByRobotId(robot.getRobotId());
-                
-                if (existingRobot.isPresent()) {
-                    // 更新现有机器人
-                    Robot existing = existingRobot.get();
-                    updateRobotFromConfig(existing, robot);
-                    robotRepository.save(existing);
-                    updated++;
-                    logger.debug("🔄 更新机器人: {}", robot.getName());
-                } else {
-                    // 创建新机器人
-                    robotRepository.save(robot);
-                    created++;
-                    logger.debug("➕ 创建机器人: {}", robot.getName());
-                }
-                
+                robots.put(robot.getRobotId(), robot);
             } catch (Exception e) {
-                logger.error("❌ 同步机器人配置失败: {}", robotConfig.getName(), e);
+                logger.error("❌ 转换机器人配置失败: {}", robotConfig.getName(), e);
                 skipped++;
             }
         }
+        if (robots.isEmpty()) {
+            logger.info("📊 机器人同步完成 - 创建: 0, 更新: 0, 未变化: 0, 跳过: {}", skipped);
+            return;
+        }
+        
+        // 已有机器人的配置指纹
+        String collection = mongoTemplate.getCollectionName(Robot.class);
+        Query existingQuery = Query.query(Criteria.where("robotId").in(robots.keySet()));
+        existingQuery.fields().include("robotId").include("configHash");
+        Map<String, String> storedHashes = new HashMap<>();
+        for (Document document : mongoTemplate.find(existingQuery, Document.class, collection)) {
+            storedHashes.put(document.getString("robotId"), String.valueOf(document.get("configHash")));
+        }
+        
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Robot.class);
+        List<Robot> changed = new ArrayList<>();
+        int unchanged = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (Robot robot : robots.values()) {
+            Document fields = configFields(robot);
+            String configHash = hashOf(fields);
+            if (configHash.equals(storedHashes.get(robot.getRobotId()))) {
+                unchanged++;
+                continue;
+            }
+            Update update = new Update();
+            fields.forEach(update::set);
+            update.set("configHash", configHash)
+                .set("updatedAt", now)
+                .setOnInsert("isActive", robot.getIsActive())
+                .setOnInsert("createdAt", now);
+            operations.upsert(Query.query(Criteria.where("robotId").is(robot.getRobotId())), update);
+            changed.add(robot);
+        }
+        
+        int written = changed.size();
+        if (!changed.isEmpty()) {
+            try {
+                operations.execute();
+            } catch (BulkOperationException e) {
+                // 有序写入在第一个错误处停止，之前的机器人已写入
+                written = e.getErrors().isEmpty() ? 0 : e.getErrors().get(0).getIndex();
+                skipped += changed.size() - written;
+                logger.error("❌ 批量同步机器人配置失败，已写入: {}, 失败: {}", written, e.getMessage());
+            }
+        }
         
-        logger.info("📊 机器人同步完成 - 创建: {}, 更新: {}, 跳过: {}", created, updated, skipped);
+        List<String> createdIds = new ArrayList<>();
+        List<String> updatedIds = new ArrayList<>();
+        for (Robot robot : changed.subList(0, written)) {
+            boolean created = !storedHashes.containsKey(robot.getRobotId());
+            (created ? createdIds : updatedIds).add(robot.getRobotId());
+            eventPublisher.publishEvent(new AuthorProfileChangedEvent(robot.getRobotId(), "robot", robot.getName(), created));
+            logger.debug("{} 机器人: {}", created ? "➕ 创建" : "🔄 更新", robot.getName());
+        }
+        eventPublisher.publishEvent(new RobotConfigSyncedEvent(createdIds, updatedIds, unchanged));
+        
+        logger.info("📊 机器人同步完成 - 创建: {}, 更新: {}, 未变化: {}, 跳过: {}",
+            createdIds.size(), updatedIds.size(), unchanged, skipped);
+    }
+    
+    /**
+     * 机器人实体中来自配置的字段，不含ID、时间戳和运行时的在线状态
+     */
+    private Document configFields(Robot robot) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(robot, document);
+        for (String field : new String[] {"_id", "_class", "isActive", "createdAt", "updatedAt", "configHash"}) {
+            document.remove(field);
+        }
+        return document;
+    }
+    
+    /**
+     * 计算配置指纹
+     */
+    private static String hashOf(Document fields) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(fields.toJson().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
     }
     
     /**
@@ -493,70 +628,6 @@ public class ConfigServiceImpl implements ConfigService {
         return robot;
     }
     
-    /**
-     * 从配置更新机器人信息
-     */
-    private void updateRobotFromConfig(Robot existing, Robot newConfig) {
-        // 更新基本信息
-        existing.setName(newConfig.getName());
-        existing.setAvatar(newConfig.getAvatar());
-        existing.setPersonality(newConfig.getPersonality());
-        existing.setIntroduction(newConfig.getIntroduction());
-        
-        // 更新新增的个人信息字段
-        existing.setGender(newConfig.getGender());
-        existing.setAge(newConfig.getAge());
-        existing.setMbti(newConfig.getMbti());
-        existing.setBloodType(newConfig.getBloodType());
-        existing.setZodiac(newConfig.getZodiac());
-        existing.setOccupation(newConfig.getOccupation());
-        existing.setLocation(newConfig.getLocation());
-        existing.setEducation(newConfig.getEducation());
-        existing.setRelationship(newConfig.getRelationship());
-        existing.setFamily(newConfig.getFamily());
-        
-        // 更新性格特征列表
-        if (newConfig.getTraits() != null) {
-            existing.setTraits(new ArrayList<>(newConfig.getTraits()));
-        }
-        
-        // 更新兴趣爱好列表
-        if (newConfig.getInterests() != null) {
-            existing.setInterests(new ArrayList<>(newConfig.getInterests()));
-        }
-        
-        // 更新说话风格
-        if (newConfig.getSpeakingStyle() != null) {
-            Robot.SpeakingStyle speakingStyle = new Robot.SpeakingStyle();
-            speakingStyle.setTone(newConfig.getSpeakingStyle().getTone());
-            speakingStyle.setVocabulary(newConfig.getSpeakingStyle().getVocabulary());
-            speakingStyle.setEmojiUsage(newConfig.getSpeakingStyle().getEmojiUsage());
-            speakingStyle.setSentenceLength(newConfig.getSpeakingStyle().getSentenceLength());
-            existing.setSpeakingStyle(speakingStyle);
-        }
-        
-        // 更新行为模式
-        if (newConfig.getBehaviorPatterns() != null) {
-            Robot.BehaviorPatterns behaviorPatterns = new Robot.BehaviorPatterns();
-            behaviorPatterns.setGreetingFrequency(newConfig.getBehaviorPatterns().getGreetingFrequency());
-            behaviorPatterns.setComfortFrequency(newConfig.getBehaviorPatterns().getComfortFrequency());
-            behaviorPatterns.setShareFrequency(newConfig.getBehaviorPatterns().getShareFrequency());
-            behaviorPatterns.setCommentFrequency(newConfig.getBehaviorPatterns().getCommentFrequency());
-            behaviorPatterns.setReplyFrequency(newConfig.getBehaviorPatterns().getReplyFrequency());
-            existing.setBehaviorPatterns(behaviorPatterns);
-        }
-        
-        // 更新行为模式
-        existing.setReplyFrequency(newConfig.getReplyFrequency());
-        existing.setShareFrequency(newConfig.getShareFrequency());
-        
-        // 更新活跃时间段
-        existing.setActiveTimeRanges(newConfig.getActiveTimeRanges());
-        
-        // 更新时间戳
-        existing.setUpdatedAt(LocalDateTime.now());
-    }
-    
     @Override
     public ConfigValidationResult validateWorldConfig(WorldConfig config) {
         if (config == null) {
@@ -7,7 +7,10 @@ import com.myeden.entity.Robot;
 import com.myeden.model.DifyRequest;
 import com.myeden.model.DifyResponse;
 import com.myeden.service.CommentService;
+import com.myeden.service.DifyConversationRegistry;
+import com.myeden.service.DifyEndpointBalancer;
 import com.myeden.service.DifyService;
+import com.myeden.service.DifyUnavailableException;
 import com.myeden.service.PostService;
 import com.myeden.service.PromptService;
 import org.slf4j.Logger;
@@ -15,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.ResourceAccessException;
 
@@ -46,6 +50,12 @@ public class DifyServiceImpl implements DifyService {
     @Autowired
     private RestTemplate restTemplate;
     
+    @Autowired
+    private DifyConversationRegistry conversationRegistry;
+    
+    @Autowired
+    private DifyEndpointBalancer endpointBalancer;
+    
     // API调用统计
     private final AtomicInteger totalCalls = new AtomicInteger(0);
     private final AtomicInteger successCalls = new AtomicInteger(0);
@@ -59,12 +69,64 @@ public class DifyServiceImpl implements DifyService {
             request.setResponseMode("blocking");
             
             return callDifyApiInternal(request, "API调用");
+        } catch (DifyUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("调用Dify API失败: {}", e.getMessage(), e);
             return generateFallbackContent("API调用");
         }
     }
     
+    @Override
+    public String callDifyApi(String fullPrompt, String situationalPrompt, String userId, String threadKey) {
+        if (!difyConfig.isConversationEnabled()) {
+            return callDifyApi(fullPrompt, userId);
+        }
+        if (!difyConfig.isEnabled()) {
+            logger.warn("Dify API已禁用，使用备用内容生成");
+            return generateFallbackContent("对话调用");
+        }
+        try {
+            DifyConversationRegistry.Conversation conversation = conversationRegistry.current(userId, threadKey);
+            DifyEndpointBalancer.Lease lease = endpointBalancer.acquire(
+                conversation != null ? conversation.getEndpoint() : null);
+            if (lease == null) {
+                throw new DifyUnavailableException("Dify端点全部繁忙");
+            }
+            if (conversation != null && !conversation.getEndpoint().equals(lease.getName())) {
+                // 对话所在端点已摘除，对话不能跨端点续用
+                conversationRegistry.invalidate(userId, threadKey);
+                conversation = null;
+            }
+            
+            String conversationId = conversation != null ? conversation.getConversationId() : null;
+            DifyResponse response = null;
+            try {
+                response = send(buildRequest(conversationId != null ? situationalPrompt : fullPrompt, userId, conversationId), lease);
+            } catch (HttpClientErrorException.NotFound e) {
+                // 对话已在Dify端失效，开启新对话重新发送完整提示词
+                logger.info("Dify对话已失效，重新开启: {}, {}", userId, threadKey);
+                conversationRegistry.invalidate(userId, threadKey);
+                lease = endpointBalancer.acquire(null);
+                if (lease == null) {
+                    throw new DifyUnavailableException("Dify端点全部繁忙");
+                }
+                response = send(buildRequest(fullPrompt, userId, null), lease);
+            }
+            if (response == null) {
+                conversationRegistry.invalidate(userId, threadKey);
+                return generateFallbackContent("对话调用");
+            }
+            conversationRegistry.record(userId, threadKey, lease.getName(), response.getConversationId());
+            return response.getAnswer();
+        } catch (DifyUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("调用Dify API失败: {}", e.getMessage(), e);
+            return generateFallbackContent("对话调用");
+        }
+    }
+    
     @Override
     public boolean checkApiConnection() {
         try {
@@ -94,8 +156,16 @@ public class DifyServiceImpl implements DifyService {
     
     @Override
     public String getApiConfiguration() {
-        return String.format("Dify API配置 - URL: %s, 启用状态: %s", 
-                           difyConfig.getUrl(), 
+        StringBuilder endpoints = new StringBuilder();
+        for (DifyEndpointBalancer.EndpointState endpoint : endpointBalancer.getEndpoints()) {
+            if (endpoints.length() > 0) {
+                endpoints.append(", ");
+            }
+            endpoints.append(String.format("%s(%s%s)", endpoint.getName(), endpoint.getUrl(),
+                               endpoint.isEjected() ? ", 已摘除" : ""));
+        }
+        return String.format("Dify API配置 - 端点: %s, 启用状态: %s", 
+                           endpoints, 
                            difyConfig.isEnabled() ? "启用" : "禁用");
     }
 
@@ -108,42 +178,77 @@ public class DifyServiceImpl implements DifyService {
             return generateFallbackContent(operation);
         }
 
+        DifyEndpointBalancer.Lease lease = endpointBalancer.acquire(null);
+        if (lease == null) {
+            throw new DifyUnavailableException("Dify端点全部繁忙");
+        }
+        DifyResponse response = send(request, lease);
+        return response != null ? response.getAnswer() : generateFallbackContent(operation);
+    }
+
+    private DifyRequest buildRequest(String query, String userId, String conversationId) {
+        DifyRequest request = new DifyRequest(new HashMap<>(), query);
+        request.setUser(userId);
+        request.setResponseMode("blocking");
+        request.setConversationId(conversationId);
+        return request;
+    }
+
+    /**
+     * 向占用的端点发送请求并统计调用结果，结束时归还端点
+     * 端点未正常响应（连接失败、超时、限流、5xx等）计为端点故障，用于摘除判断
+     * 
+     * @return 有效响应；失败时返回null。续用的对话不存在时抛出NotFound，由调用方重开对话
+     */
+    private DifyResponse send(DifyRequest request, DifyEndpointBalancer.Lease lease) {
         totalCalls.incrementAndGet();
+        boolean endpointHealthy = false;
 
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + difyConfig.getKey());
+            headers.set("Authorization", "Bearer " + lease.getKey());
 
             HttpEntity<DifyRequest> entity = new HttpEntity<>(request, headers);
-            String url = difyConfig.getUrl() + "/chat-messages";
+            String url = lease.getUrl() + "/chat-messages";
 
             ResponseEntity<DifyResponse> response = restTemplate.exchange(
                 url, HttpMethod.POST, entity, DifyResponse.class);
+            endpointHealthy = true;
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 DifyResponse difyResponse = response.getBody();
                 if ("message".equals(difyResponse.getEvent()) && difyResponse.getAnswer() != null) {
                     successCalls.incrementAndGet();
-                    return difyResponse.getAnswer();
+                    return difyResponse;
                 } else {
                     failedCalls.incrementAndGet();
                     logger.error("Dify API返回异常响应: {}", difyResponse);
-                    return generateFallbackContent(operation);
+                    return null;
                 }
             } else {
                 failedCalls.incrementAndGet();
                 logger.error("Dify API调用失败，状态码: {}", response.getStatusCode());
-                return generateFallbackContent(operation);
+                return null;
             }
+        } catch (HttpClientErrorException.NotFound e) {
+            failedCalls.incrementAndGet();
+            if (request.getConversationId() != null) {
+                endpointHealthy = true;
+                throw e;
+            }
+            logger.error("Dify API调用异常: {}, {}", lease.getName(), e.getMessage());
+            return null;
         } catch (ResourceAccessException e) {
             failedCalls.incrementAndGet();
-            logger.error("Dify API连接失败: {}", e.getMessage());
-            return generateFallbackContent(operation);
+            logger.error("Dify API连接失败: {}, {}", lease.getName(), e.getMessage());
+            return null;
         } catch (Exception e) {
             failedCalls.incrementAndGet();
-            logger.error("Dify API调用异常: {}", e.getMessage(), e);
-            return generateFallbackContent(operation);
+            logger.error("Dify API调用异常: {}, {}", lease.getName(), e.getMessage(), e);
+            return null;
+        } finally {
+            lease.complete(endpointHealthy);
         }
     }
 
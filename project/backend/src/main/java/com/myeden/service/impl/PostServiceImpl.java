@@ -4,32 +4,50 @@ import com.myeden.entity.Post;
 import com.myeden.entity.User;
 import com.myeden.entity.Robot;
 import com.myeden.entity.PostLike;
+import com.myeden.event.PostChangedEvent;
+import com.myeden.model.FeedCursor;
 import com.myeden.repository.PostRepository;
 import com.myeden.repository.UserRepository;
 import com.myeden.repository.RobotRepository;
 import com.myeden.repository.PostLikeRepository;
+import com.myeden.service.ImageDerivativeService;
 import com.myeden.service.PostService;
 import com.myeden.service.FileService;
 import com.myeden.service.WebSocketService;
 import com.myeden.service.RobotBehaviorService;
 import com.myeden.service.CommentService;
 import com.myeden.service.CommentService.CommentSummary;
+import com.myeden.service.AuthorNameIndex;
+import com.myeden.service.PostFeedCache;
+import com.myeden.service.PostSearchIndex;
+import com.myeden.service.SearchTokenizer;
+import com.github.benmanes.caffeine.cache.Cache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -43,6 +61,7 @@ import java.util.stream.Collectors;
  * - 集成WebSocket实时消息推送
  * - 完善点赞功能，防止重复点赞
  * - 自动触发AI机器人评论功能
+ * - 支持基于游标的动态流分页（无skip、无逐页count）
  * 
  * @author MyEden Team
  * @version 1.0.0
@@ -80,6 +99,33 @@ public class PostServiceImpl implements PostService {
     @Autowired
     private CommentService commentService;
     
+    @Autowired
+    @Qualifier("feedTotalCache")
+    private Cache<String, Long> feedTotalCache;
+    
+    @Autowired
+    private PostFeedCache postFeedCache;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+    
+    @Autowired
+    private AuthorNameIndex authorNameIndex;
+    
+    /**
+     * 搜索引擎：text（文本索引+相关度排序）、regex（转义后的正则扫描）
+     */
+    @Value("${search.engine:text}")
+    private String searchEngine;
+    
+    /**
+     * 搜索词元回填批次大小
+     */
+    private static final int SEARCH_TOKEN_BACKFILL_BATCH = 200;
+    
     @Override
     public PostResult createPost(String authorId, String authorType, String content, List<MultipartFile> images) {
         try {
@@ -122,16 +168,8 @@ public class PostServiceImpl implements PostService {
                 throw new IllegalArgumentException("无效的作者类型");
             }
             
-            // 处理图片上传
-            List<String> imageUrls = new ArrayList<>();
-            if (images != null && !images.isEmpty()) {
-                for (MultipartFile image : images) {
-                    if (image != null && !image.isEmpty()) {
-                        String imageUrl = fileService.uploadImage(image);
-                        imageUrls.add(imageUrl);
-                    }
-                }
-            }
+            // 并行处理图片上传，任一失败时已上传的图片会被回滚
+            List<String> imageUrls = fileService.uploadImages(images);
             
             // 创建动态实体
             Post post = new Post();
@@ -139,17 +177,26 @@ public class PostServiceImpl implements PostService {
             post.setAuthorId(authorId);
             post.setAuthorType(authorType);
             post.setContent(content);
+            post.setSearchTokens(SearchTokenizer.toIndexText(content));
             post.setImages(imageUrls);
+            post.setThumbnails(ImageDerivativeService.variantUrls(imageUrls, ImageDerivativeService.THUMB));
             post.setLikeCount(0);
             post.setCommentCount(0);
             post.setIsDeleted(false);
             post.setCreatedAt(LocalDateTime.now());
             post.setUpdatedAt(LocalDateTime.now());
             
-            // 保存到数据库
-            Post savedPost = postRepository.save(post);
+            // 保存到数据库，失败时释放已上传的图片
+            Post savedPost;
+            try {
+                savedPost = postRepository.save(post);
+            } catch (RuntimeException e) {
+                fileService.deleteFiles(imageUrls);
+                throw e;
+            }
             
             logger.info("动态创建成功，动态ID: {}", savedPost.getPostId());
+            eventPublisher.publishEvent(PostChangedEvent.created(savedPost));
             
             // 推送WebSocket消息
             try {
@@ -161,6 +208,7 @@ public class PostServiceImpl implements PostService {
                 postData.put("authorAvatar", authorAvatar);
                 postData.put("content", savedPost.getContent());
                 postData.put("images", savedPost.getImages());
+                postData.put("thumbnails", savedPost.getThumbnails());
                 postData.put("createdAt", savedPost.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
                 
                 webSocketService.pushPostUpdate(postData);
@@ -190,37 +238,97 @@ public class PostServiceImpl implements PostService {
         try {
             logger.info("获取动态列表，页码: {}, 大小: {}, 作者类型: {}", page, size, authorType);
             
-            // 创建分页请求
-            Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.DESC, "createdAt"));
+            return postFeedCache.getPostList(page, size, authorType, () -> loadPostList(page, size, authorType));
             
-            // 查询动态
-            Page<Post> postPage;
-            if (StringUtils.hasText(authorType)) {
-                postPage = postRepository.findByAuthorTypeAndIsDeletedFalse(authorType, pageable);
-            } else {
-                postPage = postRepository.findByIsDeletedFalse(pageable);
-            }
+        } catch (Exception e) {
+            logger.error("获取动态列表失败", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * 从数据库加载分页动态列表
+     */
+    private PostListResult loadPostList(int page, int size, String authorType) {
+        // 创建分页请求
+        Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.DESC, "createdAt"));
+        
+        // 查询动态
+        Page<Post> postPage;
+        if (StringUtils.hasText(authorType)) {
+            postPage = postRepository.findByAuthorTypeAndIsDeletedFalse(authorType, pageable);
+        } else {
+            postPage = postRepository.findByIsDeletedFalse(pageable);
+        }
+        
+        // 转换为摘要信息
+        List<PostSummary> postSummaries = postPage.getContent().stream()
+            .map(this::convertToPostSummary)
+            .collect(Collectors.toList());
+        
+        logger.info("获取动态列表成功，总数: {}", postPage.getTotalElements());
+        
+        return new PostListResult(
+            postSummaries,
+            (int) postPage.getTotalElements(),
+            page,
+            size
+        );
+    }
+    
+    @Override
+    public PostFeedResult getPostFeed(String cursor, int size, String authorType, boolean includeTotal) {
+        try {
+            logger.info("游标获取动态流，大小: {}, 作者类型: {}", size, authorType);
             
-            // 转换为摘要信息
-            List<PostSummary> postSummaries = postPage.getContent().stream()
-                .map(this::convertToPostSummary)
-                .collect(Collectors.toList());
+            FeedCursor feedCursor = FeedCursor.decode(cursor);
+            boolean byType = StringUtils.hasText(authorType);
             
-            logger.info("获取动态列表成功，总数: {}", postPage.getTotalElements());
+            // 第一页走首页缓存，总数单独从总数缓存获取
+            PostFeedResult result = feedCursor == null
+                ? postFeedCache.getFirstFeedPage(size, authorType, () -> loadPostFeed(null, size, authorType))
+                : loadPostFeed(feedCursor, size, authorType);
             
-            return new PostListResult(
-                postSummaries,
-                (int) postPage.getTotalElements(),
-                page,
-                size
-            );
+            if (!includeTotal) {
+                return result;
+            }
+            Long total = byType
+                ? getCachedFeedTotal("type:" + authorType, () -> postRepository.countByAuthorTypeAndIsDeleted(authorType, false))
+                : getCachedFeedTotal("all", () -> postRepository.countByIsDeleted(false));
+            return new PostFeedResult(result.getPosts(), result.getNextCursor(), result.isHasMore(), total);
             
         } catch (Exception e) {
-            logger.error("获取动态列表失败", e);
+            logger.error("游标获取动态流失败", e);
             throw e;
         }
     }
     
+    /**
+     * 从数据库加载一页动态流（不含总数）
+     */
+    private PostFeedResult loadPostFeed(FeedCursor feedCursor, int size, String authorType) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        boolean byType = StringUtils.hasText(authorType);
+        
+        // 多取一条用于判断是否还有下一页
+        List<Post> fetched;
+        if (feedCursor == null) {
+            fetched = byType
+                ? postRepository.findFeedFirstPageByAuthorType(authorType, limit)
+                : postRepository.findFeedFirstPage(limit);
+        } else {
+            fetched = byType
+                ? postRepository.findFeedBeforeByAuthorType(authorType, feedCursor.getCreatedAt(), limit)
+                : postRepository.findFeedBefore(feedCursor.getCreatedAt(), limit);
+        }
+        
+        List<Post> page = completeFeedPage(fetched, size, createdAt -> byType
+            ? postRepository.findFeedAtByAuthorType(authorType, createdAt)
+            : postRepository.findFeedAt(createdAt));
+        
+        return buildFeedResult(page, fetched.size() > size, null);
+    }
+    
     @Override
     public PostDetail getPostDetail(String postId, String currentUserId) {
         try {
@@ -234,26 +342,6 @@ public class PostServiceImpl implements PostService {
             
             Post post = postOpt.get();
             
-            // 获取作者信息
-            String authorName = "";
-            String authorAvatar = "";
-            
-            if ("user".equals(post.getAuthorType())) {
-                Optional<User> userOpt = userRepository.findByUserId(post.getAuthorId());
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    authorName = user.getNickname();
-                    authorAvatar = user.getAvatar();
-                }
-            } else if ("robot".equals(post.getAuthorType())) {
-                Optional<Robot> robotOpt = robotRepository.findByRobotId(post.getAuthorId());
-                if (robotOpt.isPresent()) {
-                    Robot robot = robotOpt.get();
-                    authorName = robot.getName();
-                    authorAvatar = robot.getAvatar();
-                }
-            }
-            
             // 获取点赞详情列表和当前用户是否点赞状态
             List<PostLike> postLikes = postLikeRepository.findByPostId(postId);
             List<LikeDetail> likes = new ArrayList<>();
@@ -313,22 +401,7 @@ public class PostServiceImpl implements PostService {
             
             logger.info("获取动态详情成功，评论数量: {}", comments.size());
             
-            return new PostDetail(
-                post.getPostId(),
-                post.getAuthorId(),
-                post.getAuthorType(),
-                authorName,
-                authorAvatar,
-                post.getContent(),
-                post.getImages(),
-                post.getLikeCount(),
-                post.getCommentCount(),
-                isLiked,
-                likes,
-                comments,
-                post.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
-                post.getUpdatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
-            );
+            return buildPostDetail(post, isLiked, likes, comments);
             
         } catch (Exception e) {
             logger.error("获取动态详情失败", e);
@@ -336,6 +409,59 @@ public class PostServiceImpl implements PostService {
         }
     }
     
+    @Override
+    public PostDetail getPostSnapshot(String postId) {
+        Post post = postRepository.findByPostIdAndIsDeletedFalse(postId)
+            .orElseThrow(() -> new IllegalArgumentException("动态不存在"));
+        // 快照在多个机器人之间共享，列表均不可修改
+        List<String> images = post.getImages() != null ? List.copyOf(post.getImages()) : List.of();
+        post.setImages(images);
+        return buildPostDetail(post, false, List.of(), List.of());
+    }
+    
+    /**
+     * 组装动态详情，查询作者名称和头像
+     */
+    private PostDetail buildPostDetail(Post post, boolean isLiked, List<LikeDetail> likes, List<CommentSummary> comments) {
+        String authorName = "";
+        String authorAvatar = "";
+        
+        if ("user".equals(post.getAuthorType())) {
+            Optional<User> userOpt = userRepository.findByUserId(post.getAuthorId());
+            if (userOpt.isPresent()) {
+                User user = userOpt.get();
+                authorName = user.getNickname();
+                authorAvatar = user.getAvatar();
+            }
+        } else if ("robot".equals(post.getAuthorType())) {
+            Optional<Robot> robotOpt = robotRepository.findByRobotId(post.getAuthorId());
+            if (robotOpt.isPresent()) {
+                Robot robot = robotOpt.get();
+                authorName = robot.getName();
+                authorAvatar = robot.getAvatar();
+            }
+        }
+        
+        PostDetail detail = new PostDetail(
+            post.getPostId(),
+            post.getAuthorId(),
+            post.getAuthorType(),
+            authorName,
+            authorAvatar,
+            post.getContent(),
+            post.getImages(),
+            post.getLikeCount(),
+            post.getCommentCount(),
+            isLiked,
+            likes,
+            comments,
+            post.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+            post.getUpdatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+        );
+        detail.setThumbnails(thumbnailsOf(post));
+        return detail;
+    }
+    
     @Override
     public boolean deletePost(String postId, String authorId) {
         try {
@@ -358,6 +484,7 @@ public class PostServiceImpl implements PostService {
             post.setIsDeleted(true);
             post.setUpdatedAt(LocalDateTime.now());
             postRepository.save(post);
+            eventPublisher.publishEvent(PostChangedEvent.deleted(post));
             
             logger.info("动态删除成功");
             return true;
@@ -402,6 +529,7 @@ public class PostServiceImpl implements PostService {
             post.setLikeCount(post.getLikeCount() + 1);
             post.setUpdatedAt(LocalDateTime.now());
             postRepository.save(post);
+            eventPublisher.publishEvent(PostChangedEvent.likeCountChanged(post, userId, 1));
             
             logger.info("动态点赞成功");
             return true;
@@ -440,6 +568,7 @@ public class PostServiceImpl implements PostService {
                 post.setLikeCount(post.getLikeCount() - 1);
                 post.setUpdatedAt(LocalDateTime.now());
                 postRepository.save(post);
+                eventPublisher.publishEvent(PostChangedEvent.likeCountChanged(post, userId, -1));
             }
             
             logger.info("取消点赞成功");
@@ -482,29 +611,74 @@ public class PostServiceImpl implements PostService {
         }
     }
     
+    @Override
+    public PostFeedResult getUserPostFeed(String authorId, String cursor, int size, boolean includeTotal) {
+        try {
+            logger.info("游标获取用户动态流，用户ID: {}, 大小: {}", authorId, size);
+            
+            FeedCursor feedCursor = FeedCursor.decode(cursor);
+            Pageable limit = PageRequest.of(0, size + 1);
+            
+            List<Post> fetched = feedCursor == null
+                ? postRepository.findFeedFirstPageByAuthorId(authorId, limit)
+                : postRepository.findFeedBeforeByAuthorId(authorId, feedCursor.getCreatedAt(), limit);
+            
+            List<Post> page = completeFeedPage(fetched, size,
+                createdAt -> postRepository.findFeedAtByAuthorId(authorId, createdAt));
+            
+            Long total = includeTotal
+                ? getCachedFeedTotal("author:" + authorId, () -> postRepository.countByAuthorIdAndIsDeleted(authorId, false))
+                : null;
+            
+            return buildFeedResult(page, fetched.size() > size, total);
+            
+        } catch (Exception e) {
+            logger.error("游标获取用户动态流失败", e);
+            throw e;
+        }
+    }
+    
     @Override
     public PostListResult searchPosts(String keyword, String searchType, int page, int size) {
         try {
             logger.info("搜索动态，关键字: {}, 搜索类型: {}, 页码: {}, 大小: {}", keyword, searchType, page, size);
             
+            // 启用内嵌搜索索引时优先使用，失败时回退到数据库搜索
+            if (postSearchIndex.isAvailable()) {
+                try {
+                    return searchByIndex(keyword, searchType, page, size);
+                } catch (IOException e) {
+                    logger.warn("搜索索引查询失败，回退到数据库搜索", e);
+                }
+            }
+            
             // 创建分页请求
             Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.DESC, "createdAt"));
             
             // 根据搜索类型执行不同的查询
+            boolean textEngine = "text".equalsIgnoreCase(searchEngine);
+            String pattern = SearchTokenizer.escapeRegex(keyword);
             Page<Post> postPage;
             switch (searchType.toLowerCase()) {
                 case "content":
                     // 只搜索内容
-                    postPage = postRepository.findByContentKeywordAndIsDeletedFalse(keyword, pageable);
+                    postPage = textEngine
+                        ? searchByText(keyword, page, size)
+                        : postRepository.findByContentKeywordAndIsDeletedFalse(pattern, pageable);
                     break;
                 case "author":
-                    // 只搜索作者
-                    postPage = postRepository.findByAuthorKeywordAndIsDeletedFalse(keyword, pageable);
+                    // 只搜索作者：名称解析为作者ID后走authorId索引
+                    Set<String> authorIds = authorNameIndex.resolve(keyword);
+                    postPage = authorIds.isEmpty()
+                        ? Page.empty(pageable)
+                        : postRepository.findByAuthorIdInAndIsDeletedFalse(authorIds, pageable);
                     break;
                 case "all":
                 default:
-                    // 搜索内容和作者
-                    postPage = postRepository.findByKeywordAndIsDeletedFalse(keyword, pageable);
+                    // 搜索内容和作者（$text不能与其他条件$or组合，文本模式分两次查询后合并）
+                    postPage = textEngine
+                        ? searchByTextOrAuthor(keyword, page, size, pageable)
+                        : postRepository.findByKeywordOrAuthorIdInAndIsDeletedFalse(pattern, authorNameIndex.resolve(keyword), pageable);
                     break;
             }
             
@@ -528,6 +702,173 @@ public class PostServiceImpl implements PostService {
         }
     }
     
+    /**
+     * 截取一页动态，并补全跨页的同一创建时间分组
+     * 
+     * 索引只按createdAt排序，同一时间戳的动态之间没有稳定顺序，
+     * 因此页尾若落在同一时间戳分组中间，将整个分组放入本页，
+     * 下一页只需查询 createdAt < 游标时间，不会遗漏或重复
+     * 
+     * @param fetched 查询结果（最多size+1条）
+     * @param size 每页大小
+     * @param tieLoader 按创建时间加载同一分组的动态
+     * @return 本页动态
+     */
+    private List<Post> completeFeedPage(List<Post> fetched, int size, Function<LocalDateTime, List<Post>> tieLoader) {
+        if (fetched.size() <= size) {
+            return fetched;
+        }
+        
+        List<Post> page = new ArrayList<>(fetched.subList(0, size));
+        LocalDateTime boundary = page.get(size - 1).getCreatedAt();
+        if (boundary.equals(fetched.get(size).getCreatedAt())) {
+            Set<String> included = page.stream().map(Post::getPostId).collect(Collectors.toSet());
+            for (Post post : tieLoader.apply(boundary)) {
+                if (included.add(post.getPostId())) {
+                    page.add(post);
+                }
+            }
+        }
+        return page;
+    }
+    
+    /**
+     * 通过内嵌搜索索引搜索动态，按索引返回的相关度顺序回表组装结果
+     */
+    private PostListResult searchByIndex(String keyword, String searchType, int page, int size) throws IOException {
+        PostSearchIndex.IndexSearchResult hits = postSearchIndex.search(keyword, searchType, page, size);
+        
+        Map<String, Post> postMap = postRepository.findByPostIdInAndIsDeletedFalse(hits.getPostIds()).stream()
+            .collect(Collectors.toMap(Post::getPostId, Function.identity(), (a, b) -> a));
+        
+        List<PostSummary> postSummaries = new ArrayList<>();
+        for (String postId : hits.getPostIds()) {
+            Post post = postMap.get(postId);
+            if (post == null) {
+                continue;
+            }
+            PostSummary summary = convertToPostSummary(post);
+            summary.setHighlight(hits.getHighlights().get(postId));
+            postSummaries.add(summary);
+        }
+        
+        logger.info("索引搜索动态成功，关键字: {}, 结果数量: {}", keyword, hits.getTotal());
+        return new PostListResult(postSummaries, hits.getTotal(), page, size);
+    }
+    
+    /**
+     * 通过searchTokens文本索引搜索动态，按相关度和时间排序
+     * 所有查询词元都需命中（短语匹配取交集）
+     */
+    private Page<Post> searchByText(String keyword, int page, int size) {
+        Pageable pageable = PageRequest.of(page - 1, size,
+            Sort.by(Sort.Direction.DESC, "score").and(Sort.by(Sort.Direction.DESC, "createdAt")));
+        
+        List<String> tokens = SearchTokenizer.toQueryTokens(keyword);
+        if (tokens.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        
+        // 词元已完成切分，使用none语言关闭词干提取和停用词
+        TextCriteria criteria = TextCriteria.forLanguage("none");
+        for (String token : tokens) {
+            criteria.matchingPhrase(token);
+        }
+        return postRepository.findByIsDeletedFalse(criteria, pageable);
+    }
+    
+    /**
+     * 文本模式下同时搜索内容和作者
+     * 内容命中按相关度排在前面，其后是作者的其余动态（按时间倒序），重复的动态只保留一次；
+     * 两个查询各取前page*size条即可确定合并结果的第page页
+     */
+    private Page<Post> searchByTextOrAuthor(String keyword, int page, int size, Pageable pageable) {
+        int window = page * size;
+        Page<Post> contentHits = searchByText(keyword, 1, window);
+        Set<String> authorIds = authorNameIndex.resolve(keyword);
+        Page<Post> authorHits = authorIds.isEmpty()
+            ? Page.empty()
+            : postRepository.findByAuthorIdInAndIsDeletedFalse(authorIds,
+                PageRequest.of(0, window, Sort.by(Sort.Direction.DESC, "createdAt")));
+        
+        Map<String, Post> merged = new LinkedHashMap<>();
+        for (Post post : contentHits.getContent()) {
+            merged.put(post.getPostId(), post);
+        }
+        int overlap = 0;
+        for (Post post : authorHits.getContent()) {
+            if (merged.putIfAbsent(post.getPostId(), post) != null) {
+                overlap++;
+            }
+        }
+        
+        List<Post> all = new ArrayList<>(merged.values());
+        int from = Math.min((page - 1) * size, all.size());
+        int to = Math.min(from + size, all.size());
+        long total = contentHits.getTotalElements() + authorHits.getTotalElements() - overlap;
+        return new PageImpl<>(all.subList(from, to), pageable, total);
+    }
+    
+    /**
+     * 启动后为历史动态回填搜索词元
+     * 每批更新后这些动态不再满足查询条件，因此始终读取第一页；
+     * 只$set词元字段，避免覆盖回填期间发生的点赞、评论计数变化
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSearchTokens() {
+        if (!"text".equalsIgnoreCase(searchEngine)) {
+            return;
+        }
+        try {
+            Pageable batch = PageRequest.of(0, SEARCH_TOKEN_BACKFILL_BATCH);
+            int filled = 0;
+            String previousFirstId = null;
+            List<Post> posts;
+            while (!(posts = postRepository.findBySearchTokensIsNull(batch)).isEmpty()) {
+                // 同一批次重复出现说明更新未生效，停止以免死循环
+                if (Objects.equals(previousFirstId, posts.get(0).getPostId())) {
+                    logger.warn("动态搜索词元回填未生效，已停止，动态ID: {}", previousFirstId);
+                    break;
+                }
+                previousFirstId = posts.get(0).getPostId();
+                for (Post post : posts) {
+                    postRepository.updateSearchTokens(post.getPostId(), SearchTokenizer.toIndexText(post.getContent()));
+                }
+                filled += posts.size();
+            }
+            if (filled > 0) {
+                logger.info("动态搜索词元回填完成，数量: {}", filled);
+            }
+        } catch (Exception e) {
+            logger.error("动态搜索词元回填失败", e);
+        }
+    }
+    
+    /**
+     * 构建游标分页结果
+     */
+    private PostFeedResult buildFeedResult(List<Post> page, boolean hasMore, Long total) {
+        List<PostSummary> postSummaries = page.stream()
+            .map(this::convertToPostSummary)
+            .collect(Collectors.toList());
+        
+        String nextCursor = null;
+        if (hasMore && !page.isEmpty()) {
+            Post last = page.get(page.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getPostId()).encode();
+        }
+        
+        return new PostFeedResult(postSummaries, nextCursor, hasMore, total);
+    }
+    
+    /**
+     * 获取缓存的动态总数
+     */
+    private Long getCachedFeedTotal(String key, Supplier<Long> counter) {
+        return feedTotalCache.get(key, k -> counter.get());
+    }
+    
     /**
      * 将Post实体转换为PostSummary
      */
@@ -566,7 +907,7 @@ public class PostServiceImpl implements PostService {
             isLiked = userLike.isPresent();
         }
         
-        return new PostSummary(
+        PostSummary summary = new PostSummary(
             post.getPostId(),
             post.getAuthorId(),
             post.getAuthorType(),
@@ -580,6 +921,19 @@ public class PostServiceImpl implements PostService {
             post.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
             post.getUpdatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
         );
+        summary.setThumbnails(thumbnailsOf(post));
+        return summary;
+    }
+    
+    /**
+     * 获取动态的缩略图URL，早期动态未记录时按原图推导
+     */
+    private List<String> thumbnailsOf(Post post) {
+        List<String> thumbnails = post.getThumbnails();
+        if (thumbnails == null || thumbnails.size() != (post.getImages() != null ? post.getImages().size() : 0)) {
+            return ImageDerivativeService.variantUrls(post.getImages(), ImageDerivativeService.THUMB);
+        }
+        return thumbnails;
     }
     
     /**
@@ -618,36 +972,17 @@ public class PostServiceImpl implements PostService {
                 return;
             }
             
-            // 随机选择1-3个机器人进行评论
-            int commentCount = new Random().nextInt(3) + 1;
-            commentCount = Math.min(commentCount, activeRobots.size());
-            
-            // 随机打乱机器人列表
-            Collections.shuffle(activeRobots);
+            // 所有机器人共享同一份动态快照
+            PostDetail snapshot = getPostSnapshot(postId);
             
+            // 排除不在活跃时间段和评论配额已用完的机器人，按兴趣相关度选择最相关的机器人进行评论
             List<String> skippedRobots = new ArrayList<>();
+            List<Robot> selected = robotBehaviorService.selectCommentReactors(activeRobots, snapshot.getContent(), skippedRobots);
             
-            for (int i = 0; i < commentCount; i++) {
-                Robot robot = activeRobots.get(i);
-                
+            for (Robot robot : selected) {
                 try {
-                    // 检查机器人是否在活跃时间段
-                    if (!robotBehaviorService.isRobotActive(robot)) {
-                        logger.debug("机器人 {} 不在活跃时间段，跳过", robot.getName());
-                        skippedRobots.add(robot.getName() + "(非活跃时间)");
-                        continue;
-                    }
-                    
-                    // 检查今日评论数量限制
-                    RobotDailyStats stats = getDailyStats(robot.getRobotId());
-                    /*if (stats.getCommentCount() >= 20) { // 每日最多20条评论
-                        logger.debug("机器人 {} 今日评论数量已达上限，跳过", robot.getName());
-                        skippedRobots.add(robot.getName() + "(评论上限)");
-                        continue;
-                    }*/
-                    
                     // 触发机器人评论
-                    boolean success = robotBehaviorService.triggerRobotComment(robot.getRobotId(), postId);
+                    boolean success = robotBehaviorService.triggerRobotComment(robot, snapshot);
                     
                     if (success) {
                         logger.info("机器人 {} 评论成功", robot.getName());
@@ -741,29 +1076,6 @@ public class PostServiceImpl implements PostService {
         }
     }
     
-    /**
-     * 机器人每日行为统计内部类
-     */
-    private static class RobotDailyStats {
-        private int commentCount = 0;
-        
-        public int getCommentCount() {
-            return commentCount;
-        }
-        
-        public void incrementComment() {
-            commentCount++;
-        }
-    }
-    
-    /**
-     * 获取机器人每日统计
-     */
-    private RobotDailyStats getDailyStats(String robotId) {
-        // 简化实现，实际项目中应该使用缓存或数据库
-        return new RobotDailyStats();
-    }
-    
     /**
      * 加载动态的评论和回复列表
      * 一次性加载所有评论和回复，避免前端多次调用
@@ -6,6 +6,8 @@ import com.myeden.entity.User;
 import com.myeden.repository.RobotRepository;
 import com.myeden.repository.UserRepository;
 import com.myeden.service.DifyService;
+import com.myeden.service.DifyUnavailableException;
+import com.myeden.service.PromptBudgeter;
 import com.myeden.service.PromptService;
 import com.myeden.service.PostService;
 import com.myeden.service.CommentService;
@@ -49,168 +51,200 @@ public class PromptServiceImpl implements PromptService {
     @Autowired
     private DifyService difyService;
     
+    @Autowired
+    private PromptBudgeter promptBudgeter;
+    
     private final Random random = new Random();
     
     @Override
     public String buildPostPrompt(Robot robot, String context) {
-        StringBuilder prompt = new StringBuilder();
+        String result = composePostPrompt(robot, context).build();
+        log.info("生成的动态提示词: {}", result);
+        return result;
+    }
+    
+    /**
+     * 组装动态提示词各段落，人设背景和个人档案之外的段落为情境部分
+     */
+    private PromptBudgeter.Prompt composePostPrompt(Robot robot, String context) {
+        PromptBudgeter.Prompt prompt = promptBudgeter.newPrompt("post");
         
         // 获取机器人的详细配置信息
         RobotConfig.RobotInfo robotInfo = getRobotInfo(robot.getName());
         
         // 构建机器人身份设定
-        prompt.append(String.format("你是%s（昵称：%s），%s。\n\n## 背景信息清单",
+        prompt.add(String.format("你是%s（昵称：%s），%s。\n\n## 背景信息清单",
             robot.getName(), 
             robotInfo != null ? robotInfo.getNickname() : robot.getName(), 
             robot.getPersonality()));
         
         // 使用智能选择器构建背景信息
-        prompt.append(buildSmartBackground(robot));
+        prompt.add(buildSmartBackground(robot), PromptBudgeter.PERSONA, PromptBudgeter.Trim.DROP_LINES);
         
         // 使用智能选择器构建个人档案
-        prompt.append(buildSmartPersonalInfo(robot));
+        prompt.add(buildSmartPersonalInfo(robot), PromptBudgeter.PROFILE, PromptBudgeter.Trim.DROP_LINES);
         
         // 添加上下文信息
         if (context != null && !context.trim().isEmpty()) {
-            prompt.append(String.format("\n\n### 当前情况：%s", context));
+            prompt.add(String.format("\n\n### 当前情况：%s", context), PromptBudgeter.CONTEXT, PromptBudgeter.Trim.TRUNCATE);
         }
         
         // 添加随机选择的主题
         String selectedTopic = selectRandomTopic(robot);
-        prompt.append(String.format("\n\n## 生成%s相关内容", selectedTopic));
+        prompt.add(String.format("\n\n## 生成%s相关内容", selectedTopic));
         
         // 添加动态生成要求
-        prompt.append("\n\n## 根据以下发帖要求, 和你的性格和当前情况，生成一条纯文本的，自然、真实的朋友圈动态, 仅返回动态本身, 不包含任何标题。");
-        prompt.append("\n- 避免机械感, 广告感, 官方口吻, 要使用口语化, 略带网络感的表达, 偶尔可以有小瑕疵(比如错别字, 用'...'代表思考)");
-        prompt.append("\n- 内容要符合你的性格特征");
-        prompt.append("\n- 语言风格要符合你的说话习惯");
-        prompt.append("\n- 长度控制在10-150字之间");
-        prompt.append("\n- 必须围绕指定的主题进行创作");
-        prompt.append("\n- 控制内容与职业相关回答占10%, 内容与职业无关的回答占90%");
+        prompt.add("\n\n## 根据以下发帖要求, 和你的性格和当前情况，生成一条纯文本的，自然、真实的朋友圈动态, 仅返回动态本身, 不包含任何标题。"
+            + "\n- 避免机械感, 广告感, 官方口吻, 要使用口语化, 略带网络感的表达, 偶尔可以有小瑕疵(比如错别字, 用'...'代表思考)"
+            + "\n- 内容要符合你的性格特征"
+            + "\n- 语言风格要符合你的说话习惯"
+            + "\n- 长度控制在10-150字之间"
+            + "\n- 必须围绕指定的主题进行创作"
+            + "\n- 控制内容与职业相关回答占10%, 内容与职业无关的回答占90%");
 
-        log.info("生成的动态提示词: {}", prompt.toString());
-        
-        return prompt.toString();
+        return prompt;
     }
     
     @Override
     public String buildCommentPrompt(Robot robot, PostService.PostDetail post, String context) {
-        StringBuilder prompt = new StringBuilder();
+        String result = composeCommentPrompt(robot, post, context).build();
+        log.info("生成的评论提示词: {}", result);
+        return result;
+    }
+    
+    /**
+     * 组装评论提示词各段落，人设背景和个人档案之外的段落为情境部分
+     */
+    private PromptBudgeter.Prompt composeCommentPrompt(Robot robot, PostService.PostDetail post, String context) {
+        PromptBudgeter.Prompt prompt = promptBudgeter.newPrompt("comment");
         
         // 获取机器人的详细配置信息
         RobotConfig.RobotInfo robotInfo = getRobotInfo(robot.getName());
         
         // 构建机器人身份设定
         String nickname = robotInfo != null ? robotInfo.getNickname() : robot.getName();
-        prompt.append(String.format("你是%s（昵称：%s），%s。你看到了一条朋友圈动态，想要评论一下。\n\n## 背景信息清单",
+        prompt.add(String.format("你是%s（昵称：%s），%s。你看到了一条朋友圈动态，想要评论一下。\n\n## 背景信息清单",
             robot.getName(), nickname, robot.getPersonality()));
         
         // 使用智能选择器构建背景信息
-        prompt.append(buildSmartBackground(robot));
+        prompt.add(buildSmartBackground(robot), PromptBudgeter.PERSONA, PromptBudgeter.Trim.DROP_LINES);
         
         // 使用智能选择器构建个人档案
-        prompt.append(buildSmartPersonalInfo(robot));
+        prompt.add(buildSmartPersonalInfo(robot), PromptBudgeter.PROFILE, PromptBudgeter.Trim.DROP_LINES);
         
         // 添加动态信息
-        prompt.append(String.format("\n\n## 你看到的动态内容：%s", post.getContent()));
-        prompt.append(String.format("\n作者信息：%s", getAuthorInfo(post)));
+        prompt.add(String.format("\n\n## 你看到的动态内容：%s", post.getContent()), PromptBudgeter.QUOTED, PromptBudgeter.Trim.TRUNCATE);
+        prompt.add(String.format("\n作者信息：%s", getAuthorInfo(post)), PromptBudgeter.AUTHOR, PromptBudgeter.Trim.TRUNCATE);
         if (post.getImages() != null && !post.getImages().isEmpty()) {
-            prompt.append(String.format("\n动态图片：%s张", post.getImages().size()));
+            prompt.add(String.format("\n动态图片：%s张", post.getImages().size()));
         }
         
         // 添加上下文信息
         if (context != null && !context.trim().isEmpty()) {
-            prompt.append(String.format("\n\n当前情况：%s", context));
+            prompt.add(String.format("\n\n当前情况：%s", context), PromptBudgeter.CONTEXT, PromptBudgeter.Trim.TRUNCATE);
         }
         
         // 添加评论生成要求
-        prompt.append("\n\n请根据一下发帖要求，加上你的性格和先前你看到的动态内容，生成一条纯文本的，自然、真实的评论, 仅返回动态本身, 不包含任何标题。");
-        prompt.append("\n- 避免机械感, 广告感, 官方口吻, 要使用口语化, 略带网络感的表达, 偶尔可以有小瑕疵(比如错别字, 用'...'代表思考)");
-        prompt.append("\n- 评论要符合你的性格特征");
-        prompt.append("\n- 语言风格要符合你的说话习惯");
-        prompt.append("\n- 长度控制在20-40字之间");
-        prompt.append("\n- 控制内容与职业相关回答占10%, 内容与职业无关的回答占90%");
+        prompt.add("\n\n请根据一下发帖要求，加上你的性格和先前你看到的动态内容，生成一条纯文本的，自然、真实的评论, 仅返回动态本身, 不包含任何标题。"
+            + "\n- 避免机械感, 广告感, 官方口吻, 要使用口语化, 略带网络感的表达, 偶尔可以有小瑕疵(比如错别字, 用'...'代表思考)"
+            + "\n- 评论要符合你的性格特征"
+            + "\n- 语言风格要符合你的说话习惯"
+            + "\n- 长度控制在20-40字之间"
+            + "\n- 控制内容与职业相关回答占10%, 内容与职业无关的回答占90%");
 
-        log.info("生成的评论提示词: {}", prompt.toString());
-        
-        return prompt.toString();
+        return prompt;
     }
     
     @Override
     public String buildReplyPrompt(Robot robot, CommentService.CommentDetail commentDetail, 
                                   PostService.PostDetail postDetail, String context) {
-        StringBuilder prompt = new StringBuilder();
+        String result = composeReplyPrompt(robot, commentDetail, postDetail, context).build();
+        log.info("生成的回复提示词: {}", result);
+        return result;
+    }
+    
+    /**
+     * 组装回复提示词各段落，人设背景和个人档案之外的段落为情境部分
+     */
+    private PromptBudgeter.Prompt composeReplyPrompt(Robot robot, CommentService.CommentDetail commentDetail, 
+                                                     PostService.PostDetail postDetail, String context) {
+        PromptBudgeter.Prompt prompt = promptBudgeter.newPrompt("reply");
         
         // 获取机器人的详细配置信息
         RobotConfig.RobotInfo robotInfo = getRobotInfo(robot.getName());
         
         // 构建机器人身份设定
         String nickname = robotInfo != null ? robotInfo.getNickname() : robot.getName();
-        prompt.append(String.format("你是%s（昵称：%s），%s。你看到一个朋友圈消息的评论， 要回复一条评论\n\n## 背景信息列表",
+        prompt.add(String.format("你是%s（昵称：%s），%s。你看到一个朋友圈消息的评论， 要回复一条评论\n\n## 背景信息列表",
             robot.getName(), nickname, robot.getPersonality()));
         
         // 使用智能选择器构建背景信息
-        prompt.append(buildSmartBackground(robot));
+        prompt.add(buildSmartBackground(robot), PromptBudgeter.PERSONA, PromptBudgeter.Trim.DROP_LINES);
         
         // 使用智能选择器构建个人档案
-        prompt.append(buildSmartPersonalInfo(robot));
+        prompt.add(buildSmartPersonalInfo(robot), PromptBudgeter.PROFILE, PromptBudgeter.Trim.DROP_LINES);
         
-        // 添加动态和评论信息
-        prompt.append(String.format("\n\n你看到的朋友圈内容：%s", postDetail.getContent()));
-        prompt.append(String.format("\n你看到的评论内容：%s", commentDetail.getContent()));
-        prompt.append(String.format("\n评论者是：%s", getCommentAuthorInfo(commentDetail)));
+        // 添加动态和评论信息，动态原文先于评论截断
+        prompt.add(String.format("\n\n你看到的朋友圈内容：%s", postDetail.getContent()), PromptBudgeter.QUOTED, PromptBudgeter.Trim.TRUNCATE);
+        prompt.add(String.format("\n你看到的评论内容：%s", commentDetail.getContent()), PromptBudgeter.QUOTED, PromptBudgeter.Trim.TRUNCATE);
+        prompt.add(String.format("\n评论者是：%s", getCommentAuthorInfo(commentDetail)), PromptBudgeter.AUTHOR, PromptBudgeter.Trim.TRUNCATE);
         
         // 添加上下文信息
         if (context != null && !context.trim().isEmpty()) {
-            prompt.append(String.format("\n\n当前情况：%s", context));
+            prompt.add(String.format("\n\n当前情况：%s", context), PromptBudgeter.CONTEXT, PromptBudgeter.Trim.TRUNCATE);
         }
         
         // 添加回复生成要求
-        prompt.append("\n\n请根据以下要求, 结合你的性格和评论内容，生成一条纯文本的, 自然、真实的回复，只返回评论内容, 不要任何标题。");
-        prompt.append("\n- 避免机械感, 广告感, 官方口吻, 要使用口语化, 略带网络感的表达, 偶尔可以有小瑕疵(比如错别字, 用'...'代表思考)");
-        prompt.append("\n- 回复要符合你的性格特征");
-        prompt.append("\n- 语言风格要符合你的说话习惯");
-        prompt.append("\n- 长度控制在15-30字之间");
-        prompt.append("\n- 控制内容与职业相关回答占10%, 内容与职业无关的回答占90%");
+        prompt.add("\n\n请根据以下要求, 结合你的性格和评论内容，生成一条纯文本的, 自然、真实的回复，只返回评论内容, 不要任何标题。"
+            + "\n- 避免机械感, 广告感, 官方口吻, 要使用口语化, 略带网络感的表达, 偶尔可以有小瑕疵(比如错别字, 用'...'代表思考)"
+            + "\n- 回复要符合你的性格特征"
+            + "\n- 语言风格要符合你的说话习惯"
+            + "\n- 长度控制在15-30字之间"
+            + "\n- 控制内容与职业相关回答占10%, 内容与职业无关的回答占90%");
 
-        log.info("生成的回复提示词: {}", prompt.toString());
-        
-        return prompt.toString();
+        return prompt;
     }
     
     @Override
     public String buildInnerThoughtsPrompt(Robot robot, String situation) {
-        StringBuilder prompt = new StringBuilder();
+        String result = composeInnerThoughtsPrompt(robot, situation).build();
+        log.info("生成的内心活动提示词: {}", result);
+        return result;
+    }
+    
+    /**
+     * 组装内心活动提示词各段落，人设背景和个人档案之外的段落为情境部分
+     */
+    private PromptBudgeter.Prompt composeInnerThoughtsPrompt(Robot robot, String situation) {
+        PromptBudgeter.Prompt prompt = promptBudgeter.newPrompt("inner_thoughts");
         
         // 获取机器人的详细配置信息
         RobotConfig.RobotInfo robotInfo = getRobotInfo(robot.getName());
         
         // 构建机器人身份设定
         String nickname = robotInfo != null ? robotInfo.getNickname() : robot.getName();
-        prompt.append(String.format("你是%s（昵称：%s），一个%s的伊甸园居民。现在你要进行内心独白。", 
+        prompt.add(String.format("你是%s（昵称：%s），一个%s的伊甸园居民。现在你要进行内心独白。", 
             robot.getName(), nickname, robot.getPersonality()));
         
         // 使用智能选择器构建背景信息
-        prompt.append(buildSmartBackground(robot));
+        prompt.add(buildSmartBackground(robot), PromptBudgeter.PERSONA, PromptBudgeter.Trim.DROP_LINES);
         
         // 使用智能选择器构建个人档案
-        prompt.append(buildSmartPersonalInfo(robot));
+        prompt.add(buildSmartPersonalInfo(robot), PromptBudgeter.PROFILE, PromptBudgeter.Trim.DROP_LINES);
         
-        // 添加当前情况
-        prompt.append(String.format("\n\n当前情况：%s", situation));
+        // 添加当前情况（通常包含动态或评论原文）
+        prompt.add(String.format("\n\n当前情况：%s", situation), PromptBudgeter.QUOTED, PromptBudgeter.Trim.TRUNCATE);
         
         // 添加内心独白生成要求
-        prompt.append("\n\n请根据你的性格和当前情况，生成一段内心独白。");
-        prompt.append("要求：");
-        prompt.append("\n1. 独白要符合你的性格特征");
-        prompt.append("\n2. 语言风格要符合你的说话习惯");
-        prompt.append("\n3. 长度控制在30-100字之间");
-        prompt.append("\n4. 内容要真实自然，体现内心感受");
-        prompt.append("\n5. 可以适当使用省略号等表达方式");
-        
-        log.info("生成的内心活动提示词: {}", prompt.toString());
-        
-        return prompt.toString();
+        prompt.add("\n\n请根据你的性格和当前情况，生成一段内心独白。"
+            + "要求："
+            + "\n1. 独白要符合你的性格特征"
+            + "\n2. 语言风格要符合你的说话习惯"
+            + "\n3. 长度控制在30-100字之间"
+            + "\n4. 内容要真实自然，体现内心感受"
+            + "\n5. 可以适当使用省略号等表达方式");
+        
+        return prompt;
     }
     
     @Override
@@ -526,17 +560,26 @@ public class PromptServiceImpl implements PromptService {
         return authorInfo.toString();
     }
 
+    /**
+     * 发送提示词，开启对话复用时由DifyService决定发送完整提示词还是情境部分
+     */
+    private String callDify(PromptBudgeter.Prompt prompt, Robot robot, String threadKey) {
+        String fullPrompt = prompt.build();
+        log.info("生成的提示词（{}）: {}", threadKey, fullPrompt);
+        return difyService.callDifyApi(fullPrompt, prompt.buildSituational(), robot.getRobotId(), threadKey);
+    }
+
     @Override
     public String generatePostContent(Robot robot, String context) {
         try {
-            // 使用PromptService构建提示词
-            String prompt = buildPostPrompt(robot, context);
-
-            // 调用Dify API
-            String rawContent = difyService.callDifyApi(prompt, robot.getRobotId());
+            // 构建提示词并调用Dify API，同一讨论线索复用对话
+            String rawContent = callDify(composePostPrompt(robot, context), robot, "post");
 
             // 使用PromptService处理生成的内容
             return processGeneratedContent(rawContent, robot, "post");
+        } catch (DifyUnavailableException e) {
+            // 端点繁忙时放弃本次行动，不发布备用内容
+            throw e;
         } catch (Exception e) {
             log.error("生成机器人动态内容失败: {}", e.getMessage(), e);
             return generateFallbackPost(robot, context);
@@ -546,14 +589,14 @@ public class PromptServiceImpl implements PromptService {
     @Override
     public String generateCommentContent(Robot robot, PostService.PostDetail post, String context) {
         try {
-            // 使用PromptService构建提示词
-            String prompt = buildCommentPrompt(robot, post, context);
-
-            // 调用Dify API
-            String rawContent = difyService.callDifyApi(prompt, robot.getRobotId());
+            // 构建提示词并调用Dify API，同一讨论线索复用对话
+            String rawContent = callDify(composeCommentPrompt(robot, post, context), robot, "post:" + post.getPostId());
 
             // 使用PromptService处理生成的内容
             return processGeneratedContent(rawContent, robot, "comment");
+        } catch (DifyUnavailableException e) {
+            // 端点繁忙时放弃本次行动，不发布备用内容
+            throw e;
         } catch (Exception e) {
             log.error("生成机器人评论内容失败: {}", e.getMessage(), e);
             return generateFallbackComment(robot, post.getContent());
@@ -563,14 +606,14 @@ public class PromptServiceImpl implements PromptService {
     @Override
     public String generateReplyContent(Robot robot, CommentService.CommentDetail commentDetail, PostService.PostDetail postDetail, String context) {
         try {
-            // 使用PromptService构建提示词
-            String prompt = buildReplyPrompt(robot, commentDetail, postDetail, context);
-
-            // 调用Dify API
-            String rawContent = difyService.callDifyApi(prompt, robot.getRobotId());
+            // 构建提示词并调用Dify API，同一讨论线索复用对话
+            String rawContent = callDify(composeReplyPrompt(robot, commentDetail, postDetail, context), robot, "post:" + postDetail.getPostId());
 
             // 使用PromptService处理生成的内容
             return processGeneratedContent(rawContent, robot, "reply");
+        } catch (DifyUnavailableException e) {
+            // 端点繁忙时放弃本次行动，不发布备用内容
+            throw e;
         } catch (Exception e) {
             log.error("生成机器人回复内容失败: {}", e.getMessage(), e);
             return generateFallbackReply(robot, commentDetail.getContent());
@@ -580,14 +623,14 @@ public class PromptServiceImpl implements PromptService {
     @Override
     public String generateInnerThoughts(Robot robot, String situation) {
         try {
-            // 使用PromptService构建提示词
-            String prompt = buildInnerThoughtsPrompt(robot, situation);
-
-            // 调用Dify API
-            String rawContent = difyService.callDifyApi(prompt, robot.getRobotId());
+            // 构建提示词并调用Dify API，同一讨论线索复用对话
+            String rawContent = callDify(composeInnerThoughtsPrompt(robot, situation), robot, "thoughts");
 
             // 使用PromptService处理生成的内容
             return processGeneratedContent(rawContent, robot, "inner_thoughts");
+        } catch (DifyUnavailableException e) {
+            // 端点繁忙时放弃本次行动，不发布备用内容
+            throw e;
         } catch (Exception e) {
             log.error("生成机器人内心活动失败: {}", e.getMessage(), e);
             return generateFallbackInnerThoughts(robot, situation);
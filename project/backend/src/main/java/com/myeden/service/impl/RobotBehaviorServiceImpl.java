@@ -3,15 +3,19 @@ package com.myeden.service.impl;
 import com.myeden.entity.Robot;
 import com.myeden.entity.Post;
 import com.myeden.entity.Comment;
+import com.myeden.entity.RobotPostDraft;
+import com.myeden.event.PostChangedEvent;
 import com.myeden.repository.RobotRepository;
 import com.myeden.repository.PostRepository;
 import com.myeden.repository.CommentRepository;
+import com.myeden.repository.PostLikeRepository;
 import com.myeden.service.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.scheduling.annotation.Async;
 
@@ -47,6 +51,9 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
     @Autowired
     private CommentRepository commentRepository;
     
+    @Autowired
+    private PostLikeRepository postLikeRepository;
+    
     @Autowired
     private PromptService promptService;
     
@@ -60,54 +67,32 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
     @Autowired
     private WebSocketService webSocketService;
     
-    private final Random random = new Random();
-    private final ConcurrentHashMap<String, RobotDailyStats> dailyStats = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Object> localCache = new ConcurrentHashMap<>();
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private StatisticsCounters statisticsCounters;
+    
+    @Autowired
+    private RobotWakeupScheduler robotWakeupScheduler;
+    
+    @Autowired
+    private RobotQuotaLedger quotaLedger;
+    
+    @Autowired
+    private RobotInterestIndex robotInterestIndex;
+    
+    @Autowired
+    private RobotPostDraftPool postDraftPool;
     
     /**
-     * 机器人每日行为统计内部类
+     * 新动态最多触发评论的机器人数量
      */
-    private static class RobotDailyStats {
-        private int postCount = 0;
-        private int commentCount = 0;
-        private int replyCount = 0;
-        private LocalDateTime lastReset = LocalDateTime.now();
-        
-        public void incrementPost() {
-            postCount++;
-        }
-
-        public void incrementComment() {
-            commentCount++;
-        }
-
-        public void incrementReply() {
-            replyCount++;
-        }
-        
-        public int getPostCount() {
-            return postCount;
-        }
-
-        public int getCommentCount() {
-            return commentCount;
-        }
-
-        public int getReplyCount() {
-            return replyCount;
-        }
-
-        public LocalDateTime getLastReset() {
-            return lastReset;
-        }
-        
-        public void reset() {
-            postCount = 0;
-            commentCount = 0;
-            replyCount = 0;
-            lastReset = LocalDateTime.now();
-        }
-    }
+    @Value("${robot.reaction.top-k:3}")
+    private int reactionTopK;
+    
+    private final Random random = new Random();
+    private final ConcurrentHashMap<String, Object> localCache = new ConcurrentHashMap<>();
     
     /**
      * 本地缓存操作 - 替代Redis功能
@@ -142,42 +127,59 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
                 logger.warn("机器人不存在: {}", robotId);
                 return null;
             }
-            
+        return checkRobotPostCondition(robot, behaviorType, context, isRobot) ? robot : null;
+    }
+
+    /**
+     * 对已加载的机器人检查前置条件，只做内存判断，不查询数据库
+     * @return 是否满足条件
+     */
+    private boolean checkRobotPostCondition(Robot robot, String behaviorType, String context, boolean isRobot) {
             // 直接检查机器人是否在活跃时间段，不依赖数据库中的isActive字段
             if (!isRobotActive(robot)) {
-                logger.info("机器人不在活跃时间段: {}", robotId);
-                return null;
+                logger.info("机器人不在活跃时间段: {}", robot.getRobotId());
+                return false;
             }
             
             // 计算触发概率
         double probability = calculateBehaviorProbability(robot, behaviorType, context, isRobot);
             if (random.nextDouble() > probability) {
-            logger.info("机器人{}概率未触发: {}, 概率: {}", behaviorType, robotId, probability);
-            return null;
+            logger.info("机器人{}概率未触发: {}, 概率: {}", behaviorType, robot.getRobotId(), probability);
+            return false;
         }
-        return robot;
+        return true;
     }
 
     @Override
     public boolean triggerRobotPost(String robotId) {
+        boolean acquired = false;
+        boolean completed = false;
+        RobotPostDraft draft = null;
         try {
             // 统一前置条件判断
             Robot robot = checkRobotPostCondition(robotId, "post", "自动发布动态", true);
             if (robot == null) return false;
 
-            // 检查今日发布数量限制
-            RobotDailyStats stats = getDailyStats(robotId);
-            /*
-             * if (stats.getPostCount() >= 10) { // 每日最多10条动态
-             * logger.info("机器人今日发布数量已达上限, 最多10条: {}", robotId);
-             * return false;
-             * }
-             */
+            // 检查今日发布数量限制，先占用配额再调用AI生成内容
+            acquired = quotaLedger.tryAcquire(robotId, RobotQuotaLedger.QuotaType.POST);
+            if (!acquired) {
+                logger.info("机器人今日发布数量已达上限: {}", robotId);
+                return false;
+            }
             
-            // 生成动态内容
-            String context = buildPostContext();
-            String content = promptService.generatePostContent(robot, context);
-            String innerThoughts = promptService.generateInnerThoughts(robot, "发布动态: " + content);
+            // 优先使用预生成的草稿，没有合适草稿时实时生成
+            String content;
+            String innerThoughts;
+            draft = postDraftPool.pop(robotId).orElse(null);
+            if (draft != null) {
+                content = draft.getContent();
+                innerThoughts = draft.getInnerThoughts();
+                logger.debug("机器人使用预生成动态草稿: {}, 目标时间: {}", robotId, draft.getTargetTime());
+            } else {
+                String context = buildPostContext(LocalDateTime.now());
+                content = promptService.generatePostContent(robot, context);
+                innerThoughts = promptService.generateInnerThoughts(robot, "发布动态: " + content);
+            }
             
             // 直接创建动态实体，避免调用postService.createPost
             Post post = new Post();
@@ -185,6 +187,7 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
             post.setAuthorId(robotId);
             post.setAuthorType("robot");
             post.setContent(content);
+            post.setSearchTokens(SearchTokenizer.toIndexText(content));
             post.setInnerThoughts(innerThoughts);
             post.setImages(new ArrayList<>());
             post.setLikeCount(0);
@@ -197,7 +200,8 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
             Post savedPost = postRepository.save(post);
             
             if (savedPost != null) {
-                stats.incrementPost();
+                completed = true;
+                eventPublisher.publishEvent(PostChangedEvent.created(savedPost));
                 logger.info("机器人成功发布动态: {}, 内容: {}, 内心活动: {}", robotId, content, innerThoughts);
                 
                 // 推送WebSocket消息
@@ -224,21 +228,47 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
         } catch (Exception e) {
             logger.error("触发机器人发布动态失败: {}", e.getMessage(), e);
             return false;
+        } finally {
+            if (acquired && !completed) {
+                quotaLedger.release(robotId, RobotQuotaLedger.QuotaType.POST);
+            }
+            // 动态未保存成功时放回草稿，避免丢失预生成的内容
+            if (draft != null && !completed) {
+                postDraftPool.restore(draft);
+            }
         }
     }
     
     @Override
     public boolean triggerRobotComment(String robotId, String postId) {
         try {
-            // 获取动态内容（先查post，后判断）
-            PostService.PostDetail postDetail = postService.getPostDetail(postId, robotId);
-            boolean isRobot = "robot".equals(postDetail.getAuthorType());
+            Robot robot = robotRepository.findByRobotId(robotId).orElse(null);
+            if (robot == null) {
+                logger.warn("机器人不存在: {}", robotId);
+                return false;
+            }
+            // 不在活跃时间段时不加载动态
+            if (!isRobotActive(robot)) {
+                logger.info("机器人不在活跃时间段: {}", robotId);
+                return false;
+            }
+            return triggerRobotComment(robot, postService.getPostSnapshot(postId));
+            
+        } catch (Exception e) {
+            logger.error("触发机器人发表评论失败: {}", e.getMessage(), e);
+                return false;
+            }
+    }
+
+    @Override
+    public boolean triggerRobotComment(Robot robot, PostService.PostDetail snapshot) {
+        try {
+            boolean isRobot = "robot".equals(snapshot.getAuthorType());
             // 统一前置条件判断
-            Robot robot = checkRobotPostCondition(robotId, "comment", "对动态发表评论", isRobot);
-            if (robot == null) return false;
+            if (!checkRobotPostCondition(robot, "comment", "对动态发表评论", isRobot)) return false;
 
             // 随机决定行为：点赞、评论或点赞加评论
-            return triggerRandomRobotAction(robot, postId, postDetail);
+            return triggerRandomRobotAction(robot, snapshot.getPostId(), snapshot);
             
         } catch (Exception e) {
             logger.error("触发机器人发表评论失败: {}", e.getMessage(), e);
@@ -289,12 +319,8 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
      */
     private boolean performRobotLike(Robot robot, String postId) {
         try {
-            // 检查是否已经点赞过 - 通过查询点赞记录来判断
-            List<PostService.LikeDetail> likes = postService.getPostLikes(postId).getLikes();
-            boolean alreadyLiked = likes.stream()
-                    .anyMatch(like -> like.getUserId().equals(robot.getRobotId()));
-            
-            if (alreadyLiked) {
+            // 检查是否已经点赞过 - 按动态ID和机器人ID查询是否存在点赞记录
+            if (postLikeRepository.existsByPostIdAndUserId(postId, robot.getRobotId())) {
                 logger.info("机器人 {} 已经点赞过动态 {}", robot.getRobotId(), postId);
                 return false;
             }
@@ -337,15 +363,15 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
      * @return 是否成功评论
      */
     private boolean performRobotComment(Robot robot, String postId, PostService.PostDetail postDetail) {
+        boolean acquired = false;
+        boolean completed = false;
         try {
-            // 检查今日评论数量限制
-            RobotDailyStats stats = getDailyStats(robot.getRobotId());
-            /*
-             * if (stats.getCommentCount() >= 20) { // 每日最多20条评论
-             * logger.info("机器人评论超限: 每天最多20次 {}", robot.getRobotId());
-             * return false;
-             * }
-             */
+            // 检查今日评论数量限制，先占用配额再调用AI生成内容
+            acquired = quotaLedger.tryAcquire(robot.getRobotId(), RobotQuotaLedger.QuotaType.COMMENT);
+            if (!acquired) {
+                logger.info("机器人今日评论数量已达上限: {}", robot.getRobotId());
+                return false;
+            }
 
             String postContent = postDetail.getContent();
             String context = buildCommentContext(postContent);
@@ -356,7 +382,7 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
             CommentService.CommentResult commentResult = commentService.createComment(postId, robot.getRobotId(), "robot", content,
                     innerThoughts);
             if (commentResult != null) {
-                stats.incrementComment();
+                completed = true;
                 logger.info("机器人成功发表评论: {}, 内容: {}, 内心活动: {}", robot.getRobotId(), content, innerThoughts);
                 
                 // 推送WebSocket消息
@@ -384,26 +410,57 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
         } catch (Exception e) {
             logger.error("机器人评论失败: {}", e.getMessage(), e);
             return false;
+        } finally {
+            if (acquired && !completed) {
+                quotaLedger.release(robot.getRobotId(), RobotQuotaLedger.QuotaType.COMMENT);
+            }
         }
     }
     
+    @Override
+    public List<Robot> selectCommentReactors(List<Robot> robots, String content, List<String> skippedRobots) {
+        // 先排除不在活跃时间段和评论配额已用完的机器人
+        List<Robot> candidates = new ArrayList<>();
+        for (Robot robot : robots) {
+            // 直接检查机器人是否在活跃时间段，不依赖数据库中的isActive字段
+            if (!isRobotActive(robot)) {
+                skippedRobots.add(robot.getName() + "(非活跃时间)");
+            } else if (!quotaLedger.hasRemaining(robot.getRobotId(), RobotQuotaLedger.QuotaType.COMMENT)) {
+                skippedRobots.add(robot.getName() + "(评论上限)");
+            } else {
+                candidates.add(robot);
+            }
+        }
+        return robotInterestIndex.selectRelevant(content, candidates, reactionTopK);
+    }
+    
     @Override
     public boolean triggerRobotReply(String robotId, String commentId) {
+        boolean acquired = false;
+        boolean completed = false;
         try {
+            // 配额已用完时不再查询评论和动态
+            if (!quotaLedger.hasRemaining(robotId, RobotQuotaLedger.QuotaType.REPLY)) {
+                logger.info("机器人今日回复数量已达上限: {}", robotId);
+                return false;
+            }
+            
             // 获取评论内容（先查comment，后判断）
             CommentService.CommentDetail commentDetail = commentService.getCommentDetail(commentId);
-            PostService.PostDetail postDetail = postService.getPostDetail(commentDetail.getPostId(), robotId);
             boolean isRobot = "robot".equals(commentDetail.getAuthorType());
             // 统一前置条件判断
             Robot robot = checkRobotPostCondition(robotId, "reply", "回复评论", isRobot);
             if (robot == null) return false;
             
-            // 检查今日回复数量限制
-            RobotDailyStats stats = getDailyStats(robotId);
-            /*if (stats.getReplyCount() >= 15) { // 每日最多15条回复
-                logger.info("机器人回复超限: 每天最多15次 {}", robotId);
+            // 检查今日回复数量限制，先占用配额再调用AI生成内容
+            acquired = quotaLedger.tryAcquire(robotId, RobotQuotaLedger.QuotaType.REPLY);
+            if (!acquired) {
+                logger.info("机器人今日回复数量已达上限: {}", robotId);
                 return false;
-            }*/
+            }
+            
+            // 通过前置条件后再加载动态快照
+            PostService.PostDetail postDetail = postService.getPostSnapshot(commentDetail.getPostId());
 
             String commentContent = commentDetail.getContent();
             String context = buildReplyContext(commentContent);
@@ -416,7 +473,7 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
             CommentService.CommentResult replyResult = commentService.replyComment(commentId, robotId, "robot", content,
                     innerThoughts);
             if (replyResult != null) {
-                stats.incrementReply();
+                completed = true;
                 logger.info("机器人成功回复评论: {}, 内容: {}, 内心活动: {}", robotId, content, innerThoughts);
                 
                 // 推送WebSocket消息
@@ -444,6 +501,10 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
         } catch (Exception e) {
             logger.error("触发机器人回复评论失败: {}", e.getMessage(), e);
             return false;
+        } finally {
+            if (acquired && !completed) {
+                quotaLedger.release(robotId, RobotQuotaLedger.QuotaType.REPLY);
+            }
         }
     }
     
@@ -595,54 +656,49 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
     
     @Override
     public String getRobotDailyStats(String robotId) {
-        RobotDailyStats stats = getDailyStats(robotId);
-        return String.format("机器人%s今日统计 - 动态: %d, 评论: %d, 回复: %d", 
-                           robotId, stats.getPostCount(), stats.getCommentCount(), stats.getReplyCount());
+        return String.format("机器人%s今日统计 - 动态: %s, 评论: %s, 回复: %s", robotId,
+                           formatQuota(robotId, RobotQuotaLedger.QuotaType.POST),
+                           formatQuota(robotId, RobotQuotaLedger.QuotaType.COMMENT),
+                           formatQuota(robotId, RobotQuotaLedger.QuotaType.REPLY));
     }
     
     @Override
     public void resetRobotDailyStats(String robotId) {
-        RobotDailyStats stats = getDailyStats(robotId);
-        stats.reset();
+        quotaLedger.reset(robotId);
         logger.info("重置机器人每日统计: {}", robotId);
     }
     
     @Override
     public void startBehaviorScheduler() {
         logger.info("启动机器人行为调度器");
+        robotWakeupScheduler.start();
     }
     
     @Override
     public void stopBehaviorScheduler() {
         logger.info("停止机器人行为调度器");
+        robotWakeupScheduler.stop();
     }
     
     /**
-     * 定时触发机器人行为（每分钟执行一次）
+     * 执行一次计划行为
+     * 唤醒时机由RobotWakeupScheduler按活跃时间表安排，这里在发布、评论、回复中等概率选择一种
      */
-    @Scheduled(fixedRate = 60000) // 1分钟
-    public void scheduledRobotBehavior() {
+    @Override
+    public void performScheduledAction(String robotId) {
         try {
-            // 获取所有机器人，然后逐个检查活跃状态
-            List<Robot> allRobots = robotRepository.findAll();
-            for (Robot robot : allRobots) {
-                // 直接检查机器人是否在活跃时间段，不依赖数据库中的isActive字段
-                if (isRobotActive(robot)) {
-                    // 随机触发机器人行为
-                    double randomValue = random.nextDouble();
-                    if (randomValue < 0.25) {
-                        triggerRobotPost(robot.getRobotId());
-                    } else if (randomValue < 0.5) {
-                        // 随机选择一个近三天的动态进行评论
-                        triggerRobotCommentOnRecentPosts(robot.getRobotId());
-                    } else if (randomValue < 0.75) {
-                        // 随机选择一个近三天的评论进行回复
-                        triggerRobotReplyOnRecentComments(robot.getRobotId());
-                    }
-                }
+            int action = random.nextInt(3);
+            if (action == 0) {
+                triggerRobotPost(robotId);
+            } else if (action == 1) {
+                // 随机选择一个近三天的动态进行评论
+                triggerRobotCommentOnRecentPosts(robotId);
+            } else {
+                // 随机选择一个近三天的评论进行回复
+                triggerRobotReplyOnRecentComments(robotId);
             }
         } catch (Exception e) {
-            logger.error("定时机器人行为执行失败: {}", e.getMessage(), e);
+            logger.error("机器人计划行为执行失败: {}", robotId, e);
         }
     }
     
@@ -664,13 +720,10 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
                 return;
             }
             
-            // 检查今日评论数量限制
-            RobotDailyStats stats = getDailyStats(robotId);
-            /*
-             * if (stats.getCommentCount() >= 20) { // 每日最多20条评论
-             * return;
-             * }
-             */
+            // 检查今日评论数量限制，用完时不再查询候选动态
+            if (!quotaLedger.hasRemaining(robotId, RobotQuotaLedger.QuotaType.COMMENT)) {
+                return;
+            }
             
             // 获取近三天的帖子，按时间倒序排列（最新的在前）
             LocalDateTime threeDaysAgo = LocalDateTime.now().minusDays(1);
@@ -716,7 +769,7 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
             Post selectedPost = targetPosts.get(0);
             
             // 触发机器人评论
-            boolean success = triggerRobotComment(robotId, selectedPost.getPostId());
+            boolean success = triggerRobotComment(robot, postService.getPostSnapshot(selectedPost.getPostId()));
             if (success) {
                 String postType = humanPosts.contains(selectedPost) ? "人类用户" : "机器人";
                 logger.info("机器人 {} 成功对{}帖子 {} 触发评论", robot.getName(), postType, selectedPost.getPostId());
@@ -747,13 +800,10 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
                 return;
             }
             
-            // 检查今日回复数量限制
-            RobotDailyStats stats = getDailyStats(robotId);
-            /*
-             * if (stats.getReplyCount() >= 15) { // 每日最多15条回复
-             * return;
-             * }
-             */
+            // 检查今日回复数量限制，用完时不再查询候选评论
+            if (!quotaLedger.hasRemaining(robotId, RobotQuotaLedger.QuotaType.REPLY)) {
+                return;
+            }
             
             // 获取近三天的评论，按时间倒序排列（最新的在前）
             LocalDateTime threeDaysAgo = LocalDateTime.now().minusDays(1);
@@ -812,12 +862,12 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
     }
     
     /**
-     * 每日重置机器人统计（每天0点执行）
+     * 每日重置机器人统计
+     * 配额账本按日期自动归零，这里只清理过期的检查点
      */
-    @Scheduled(cron = "0 0 0 * * ?")
     public void resetDailyStats() {
         try {
-            dailyStats.clear();
+            quotaLedger.purgeExpired();
             logger.info("重置所有机器人每日统计");
         } catch (Exception e) {
             logger.error("重置每日统计失败: {}", e.getMessage(), e);
@@ -825,12 +875,27 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
     }
     
     // 辅助方法
-    private RobotDailyStats getDailyStats(String robotId) {
-        return dailyStats.computeIfAbsent(robotId, k -> new RobotDailyStats());
+    private String formatQuota(String robotId, RobotQuotaLedger.QuotaType type) {
+        int limit = quotaLedger.limitOf(type);
+        int used = quotaLedger.getUsed(robotId, type);
+        return limit > 0 ? used + "/" + limit : String.valueOf(used);
     }
     
-    private String buildPostContext() {
-        LocalDateTime now = LocalDateTime.now();
+    @Override
+    public RobotPostDraft generatePostDraft(Robot robot, LocalDateTime targetTime) {
+        String context = buildPostContext(targetTime);
+        String content = promptService.generatePostContent(robot, context);
+        String innerThoughts = promptService.generateInnerThoughts(robot, "发布动态: " + content);
+        return RobotPostDraft.builder()
+            .robotId(robot.getRobotId())
+            .content(content)
+            .innerThoughts(innerThoughts)
+            .targetTime(targetTime)
+            .createdAt(LocalDateTime.now())
+            .build();
+    }
+    
+    private String buildPostContext(LocalDateTime now) {
         LocalTime time = now.toLocalTime();
         String weekDay = now.getDayOfWeek().toString();
         String timeOfDay = getTimeOfDay(time);
@@ -944,10 +1009,10 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
     }
     
     /**
-     * 刷新机器人在线状态（每5分钟执行一次）
-     * 根据机器人的活跃时间配置更新数据库中的isActive状态
+     * 刷新全部机器人在线状态
+     * 状态切换由RobotWakeupScheduler在切换时刻完成，这里只用于手动全量校正
      */
-    @Scheduled(fixedRate = 300000) // 5分钟
+    @Override
     public void refreshRobotActiveStatus() {
         try {
             logger.info("开始刷新机器人在线状态...");
@@ -955,35 +1020,8 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
             int updatedCount = 0;
             
             for (Robot robot : allRobots) {
-                boolean shouldBeActive = robot.isInActiveTimeSlot();
-                boolean currentActive = robot.getIsActive();
-                
-                // 如果状态需要更新
-                if (shouldBeActive != currentActive) {
-                    robot.setIsActive(shouldBeActive);
-                    robot.setUpdatedAt(LocalDateTime.now());
-                    robotRepository.save(robot);
+                if (updateRobotActiveStatus(robot, robot.isInActiveTimeSlot())) {
                     updatedCount++;
-                    
-                    logger.info("机器人 {} 状态更新: {} -> {}", 
-                              robot.getName(), 
-                              currentActive ? "在线" : "离线", 
-                              shouldBeActive ? "在线" : "离线");
-                    
-                    // 推送WebSocket消息通知状态变化
-                    try {
-                        Map<String, Object> statusData = new HashMap<>();
-                        statusData.put("robotId", robot.getRobotId());
-                        statusData.put("robotName", robot.getName());
-                        statusData.put("status", shouldBeActive ? "online" : "offline");
-                        statusData.put("statusText", shouldBeActive ? "在线" : "离线");
-                        statusData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-                        
-                        webSocketService.pushRobotAction(statusData);
-                        logger.debug("WebSocket机器人状态变化消息推送成功: {}", robot.getName());
-                    } catch (Exception e) {
-                        logger.warn("WebSocket状态变化消息推送失败: {}", e.getMessage());
-                    }
                 }
             }
             
@@ -998,6 +1036,40 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
         }
     }
     
+    @Override
+    public boolean updateRobotActiveStatus(Robot robot, boolean shouldBeActive) {
+        boolean currentActive = Boolean.TRUE.equals(robot.getIsActive());
+        if (shouldBeActive == currentActive) {
+            return false;
+        }
+        
+        robot.setIsActive(shouldBeActive);
+        robot.setUpdatedAt(LocalDateTime.now());
+        robotRepository.save(robot);
+        statisticsCounters.adjustActiveRobots(shouldBeActive ? 1 : -1);
+        
+        logger.info("机器人 {} 状态更新: {} -> {}", 
+                  robot.getName(), 
+                  currentActive ? "在线" : "离线", 
+                  shouldBeActive ? "在线" : "离线");
+        
+        // 推送WebSocket消息通知状态变化
+        try {
+            Map<String, Object> statusData = new HashMap<>();
+            statusData.put("robotId", robot.getRobotId());
+            statusData.put("robotName", robot.getName());
+            statusData.put("status", shouldBeActive ? "online" : "offline");
+            statusData.put("statusText", shouldBeActive ? "在线" : "离线");
+            statusData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            
+            webSocketService.pushRobotAction(statusData);
+            logger.debug("WebSocket机器人状态变化消息推送成功: {}", robot.getName());
+        } catch (Exception e) {
+            logger.warn("WebSocket状态变化消息推送失败: {}", e.getMessage());
+        }
+        return true;
+    }
+    
     /**
      * 触发所有在线机器人对指定动态进行评论
      * 当有新动态发布时，自动触发所有符合条件的机器人进行AI评论
@@ -1019,30 +1091,21 @@ public class RobotBehaviorServiceImpl implements RobotBehaviorService {
                 return;
             }
             
+            // 所有机器人共享同一份动态快照
+            PostService.PostDetail snapshot = postService.getPostSnapshot(postId);
+            
             int triggeredCount = 0;
             int totalRobots = allRobots.size();
             List<String> triggeredRobots = new ArrayList<>();
             List<String> skippedRobots = new ArrayList<>();
             
-            for (Robot robot : allRobots) {
+            // 只让活跃、有评论配额且与动态最相关的机器人参与
+            List<Robot> selected = selectCommentReactors(allRobots, snapshot.getContent(), skippedRobots);
+            
+            for (Robot robot : selected) {
                 try {
-                    // 直接检查机器人是否在活跃时间段，不依赖数据库中的isActive字段
-                    if (!isRobotActive(robot)) {
-                        logger.debug("机器人 {} 不在活跃时间段，跳过", robot.getName());
-                        skippedRobots.add(robot.getName() + "(非活跃时间)");
-                        continue;
-                    }
-                    
-                    // 检查今日评论数量限制
-                    RobotDailyStats stats = getDailyStats(robot.getRobotId());
-                    /*if (stats.getCommentCount() >= 20) { // 每日最多20条评论
-                        logger.debug("机器人 {} 今日评论数量已达上限，跳过", robot.getName());
-                        skippedRobots.add(robot.getName() + "(评论上限)");
-                        continue;
-                    }*/
-                    
                     // 触发机器人评论
-                    boolean success = triggerRobotComment(robot.getRobotId(), postId);
+                    boolean success = triggerRobotComment(robot, snapshot);
                     if (success) {
                         triggeredCount++;
                         triggeredRobots.add(robot.getName());
@@ -1,16 +1,20 @@
 package com.myeden.service.impl;
 
 import com.myeden.entity.User;
+import com.myeden.entity.UserActivity;
+import com.myeden.event.AuthorProfileChangedEvent;
 import com.myeden.repository.UserRepository;
-import com.myeden.repository.PostRepository;
-import com.myeden.repository.CommentRepository;
+import com.myeden.service.ImageDerivativeService;
 import com.myeden.service.FileService;
 import com.myeden.service.JwtService;
+import com.myeden.service.PasswordHashingService;
+import com.myeden.service.StatisticsCounters;
+import com.myeden.service.UserActivityAggregates;
 import com.myeden.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -44,7 +48,7 @@ public class UserServiceImpl implements UserService {
     private UserRepository userRepository;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
     
     @Autowired
     private JwtService jwtService;
@@ -53,10 +57,13 @@ public class UserServiceImpl implements UserService {
     private FileService fileService;
     
     @Autowired
-    private PostRepository postRepository;
+    private ApplicationEventPublisher eventPublisher;
     
     @Autowired
-    private CommentRepository commentRepository;
+    private StatisticsCounters statisticsCounters;
+    
+    @Autowired
+    private UserActivityAggregates userActivityAggregates;
     
     // 默认头像文件列表缓存
     private volatile List<String> defaultAvatarFiles = null;
@@ -79,8 +86,8 @@ public class UserServiceImpl implements UserService {
         // 生成默认头像
         String defaultAvatar = generateDefaultAvatar();
         
-        // 加密密码
-        String encodedPassword = passwordEncoder.encode(password);
+        // 加密密码（在专用线程池中执行）
+        String encodedPassword = passwordHashingService.encode(password);
         
         // 创建用户
         User user = new User(userId, phone, encodedPassword);
@@ -90,6 +97,7 @@ public class UserServiceImpl implements UserService {
         
         // 保存用户
         userRepository.save(user);
+        eventPublisher.publishEvent(new AuthorProfileChangedEvent(userId, "user", nickname, true));
         
         logger.info("新用户注册成功 - 用户ID: {}, 昵称: {}, 默认头像: {}", userId, nickname, defaultAvatar);
         
@@ -109,8 +117,8 @@ public class UserServiceImpl implements UserService {
         
         User user = userOpt.get();
         
-        // 验证密码
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        // 验证密码（在专用线程池中执行）
+        if (!passwordHashingService.matches(password, user.getPassword())) {
             throw new RuntimeException("密码错误");
         }
         
@@ -143,7 +151,9 @@ public class UserServiceImpl implements UserService {
         user.updateUser(userUpdate);
         
         // 保存用户
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new AuthorProfileChangedEvent(userId, "user", savedUser.getNickname()));
+        return savedUser;
     }
     
     @Override
@@ -157,6 +167,8 @@ public class UserServiceImpl implements UserService {
         
         // 上传文件
         String avatarUrl = fileService.uploadFile(file, "avatars");
+        // 头像只以小尺寸展示，记录缩略图URL
+        avatarUrl = ImageDerivativeService.variantUrl(avatarUrl, ImageDerivativeService.THUMB);
         
         // 更新用户头像
         user.setAvatar(avatarUrl);
@@ -197,15 +209,12 @@ public class UserServiceImpl implements UserService {
     
     @Override
     public UserStatistics getStatistics() {
-        // 获取今日开始时间
-        LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
-        
-        // 统计各项数据
-        Long totalUsers = userRepository.count();
-        Long todayRegisteredUsers = (long) userRepository.findTodayRegisteredUsers(startOfDay).size();
-        Long maleUsers = userRepository.countByGender("male");
-        Long femaleUsers = userRepository.countByGender("female");
-        Long firstLoginUsers = userRepository.countByIsFirstLogin(true);
+        // 从内存计数器读取，由注册事件增量更新并定期校准
+        Long totalUsers = statisticsCounters.getTotalUsers();
+        Long todayRegisteredUsers = statisticsCounters.getTodayRegisteredUsers();
+        Long maleUsers = statisticsCounters.getMaleUsers();
+        Long femaleUsers = statisticsCounters.getFemaleUsers();
+        Long firstLoginUsers = statisticsCounters.getFirstLoginUsers();
         
         return new UserStatistics(totalUsers, todayRegisteredUsers, maleUsers, femaleUsers, firstLoginUsers);
     }
@@ -227,24 +236,22 @@ public class UserServiceImpl implements UserService {
         LocalDateTime now = LocalDateTime.now();
         Long registrationDays = ChronoUnit.DAYS.between(createdAt, now);
         
-        // 获取今日开始时间
-        LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
+        // 从预聚合记录读取，不再加载用户的全部动态和评论
+        UserActivity activity = userActivityAggregates.getActivity(userId);
         
-        // 统计发帖数
-        Long totalPosts = postRepository.countByAuthorIdAndIsDeleted(userId, false);
-        Long todayPosts = postRepository.countTodayPostsByAuthor(userId, startOfDay);
-        
-        // 统计评论数
-        Long totalComments = commentRepository.countByAuthorIdAndIsDeleted(userId, false);
-        Long todayComments = commentRepository.countTodayCommentsByAuthor(userId, startOfDay);
+        Long totalPosts = activity.getTotalPosts();
+        Long todayPosts = activity.getTodayPosts();
+        Long totalComments = activity.getTotalComments();
+        Long todayComments = activity.getTodayComments();
         
         // 统计获得的点赞数（动态点赞 + 评论点赞）
-        Long totalPostLikes = calculateUserPostLikes(userId);
-        Long totalCommentLikes = calculateUserCommentLikes(userId);
+        Long totalPostLikes = activity.getPostLikes();
+        Long totalCommentLikes = activity.getCommentLikes();
         Long totalLikes = totalPostLikes + totalCommentLikes;
         
-        // 获取最后活跃时间（取最新的发帖或评论时间）
-        String lastActiveTime = getLastActiveTime(userId);
+        // 最后活跃时间（最新的发帖或评论时间），没有记录时使用注册时间
+        LocalDateTime lastActiveAt = activity.getLastActiveAt() != null ? activity.getLastActiveAt() : createdAt;
+        String lastActiveTime = lastActiveAt != null ? lastActiveAt.format(java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "";
         
         logger.info("用户个人统计信息计算完成 - 用户: {}, 注册天数: {}, 发帖数: {}, 评论数: {}, 总点赞数: {}", 
                    user.getNickname(), registrationDays, totalPosts, totalComments, totalLikes);
@@ -265,92 +272,6 @@ public class UserServiceImpl implements UserService {
         );
     }
     
-    /**
-     * 计算用户动态获得的点赞数
-     * @param userId 用户ID
-     * @return 点赞数
-     */
-    private Long calculateUserPostLikes(String userId) {
-        try {
-            // 获取用户的所有动态
-            List<com.myeden.entity.Post> userPosts = postRepository.findByAuthorIdAndIsDeleted(userId, false);
-            
-            // 计算所有动态的点赞数总和
-            return userPosts.stream()
-                .mapToLong(post -> post.getLikeCount() != null ? post.getLikeCount() : 0)
-                .sum();
-        } catch (Exception e) {
-            logger.warn("计算用户动态点赞数失败，用户ID: {}", userId, e);
-            return 0L;
-        }
-    }
-    
-    /**
-     * 计算用户评论获得的点赞数
-     * @param userId 用户ID
-     * @return 点赞数
-     */
-    private Long calculateUserCommentLikes(String userId) {
-        try {
-            // 获取用户的所有评论
-            List<com.myeden.entity.Comment> userComments = commentRepository.findByAuthorIdAndIsDeleted(userId, false);
-            
-            // 计算所有评论的点赞数总和
-            return userComments.stream()
-                .mapToLong(comment -> comment.getLikeCount() != null ? comment.getLikeCount() : 0)
-                .sum();
-        } catch (Exception e) {
-            logger.warn("计算用户评论点赞数失败，用户ID: {}", userId, e);
-            return 0L;
-        }
-    }
-    
-    /**
-     * 获取用户最后活跃时间
-     * @param userId 用户ID
-     * @return 最后活跃时间字符串
-     */
-    private String getLastActiveTime(String userId) {
-        try {
-            LocalDateTime lastPostTime = null;
-            LocalDateTime lastCommentTime = null;
-            
-            // 获取用户最新的发帖时间
-            List<com.myeden.entity.Post> recentPosts = postRepository.findRecentPostsByAuthor(userId, 1);
-            if (!recentPosts.isEmpty()) {
-                lastPostTime = recentPosts.get(0).getCreatedAt();
-            }
-            
-            // 获取用户最新的评论时间
-            List<com.myeden.entity.Comment> recentComments = commentRepository.findRecentCommentsByAuthor(userId, 1);
-            if (!recentComments.isEmpty()) {
-                lastCommentTime = recentComments.get(0).getCreatedAt();
-            }
-            
-            // 取较新的时间作为最后活跃时间
-            LocalDateTime lastActiveTime = null;
-            if (lastPostTime != null && lastCommentTime != null) {
-                lastActiveTime = lastPostTime.isAfter(lastCommentTime) ? lastPostTime : lastCommentTime;
-            } else if (lastPostTime != null) {
-                lastActiveTime = lastPostTime;
-            } else if (lastCommentTime != null) {
-                lastActiveTime = lastCommentTime;
-            } else {
-                // 如果没有发帖和评论记录，使用注册时间
-                Optional<User> userOpt = getUserById(userId);
-                if (userOpt.isPresent()) {
-                    lastActiveTime = userOpt.get().getCreatedAt();
-                }
-            }
-            
-            return lastActiveTime != null ? lastActiveTime.format(java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "";
-            
-        } catch (Exception e) {
-            logger.warn("获取用户最后活跃时间失败，用户ID: {}", userId, e);
-            return "";
-        }
-    }
-    
     /**
      * 生成用户ID
      * @return 用户ID
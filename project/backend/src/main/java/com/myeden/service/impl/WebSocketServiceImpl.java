@@ -2,10 +2,14 @@ package com.myeden.service.impl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myeden.config.WebSocketSessionManager;
 import com.myeden.model.WebSocketMessage;
+import com.myeden.service.JwtService;
+import com.myeden.service.WebSocketPayloadCodec;
 import com.myeden.service.WebSocketService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Service;
@@ -26,6 +30,7 @@ import java.util.UUID;
  * - 维护在线用户会话映射
  * - 提供广播和点对点消息功能
  * - 处理消息去重和过滤
+ * - 为协商了紧凑编码的连接额外推送CBOR负载（目的地带.cbor后缀）
  * 
  * @author MyEden Team
  * @version 1.0.0
@@ -41,6 +46,24 @@ public class WebSocketServiceImpl implements WebSocketService {
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private WebSocketSessionManager webSocketSessionManager;
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    @Autowired
+    private WebSocketPayloadCodec payloadCodec;
+    
+    @Value("${websocket.message.compact-encoding-enabled:true}")
+    private boolean compactEncodingEnabled;
+    
+    /**
+     * 紧凑编码消息的STOMP头
+     */
+    private static final Map<String, Object> COMPACT_HEADERS =
+            Map.of("payload-encoding", WebSocketPayloadCodec.ENCODING_CBOR);
+    
     /**
      * 在线用户会话映射：用户ID -> 会话ID列表
      */
@@ -87,6 +110,12 @@ public class WebSocketServiceImpl implements WebSocketService {
             // 广播消息
             messagingTemplate.convertAndSend("/topic/broadcast", messageJson);
             
+            // 存在紧凑编码连接时，额外广播一份CBOR负载（每条消息只编码一次）
+            if (compactEncodingEnabled && webSocketSessionManager.hasCompactSessions()) {
+                messagingTemplate.convertAndSend("/topic/broadcast" + WebSocketPayloadCodec.COMPACT_DESTINATION_SUFFIX,
+                        payloadCodec.encode(message), COMPACT_HEADERS);
+            }
+            
             log.info("广播消息成功: type={}, messageId={}", message.getType(), message.getMessageId());
         } catch (JsonProcessingException e) {
             log.error("消息序列化失败", e);
@@ -120,6 +149,10 @@ public class WebSocketServiceImpl implements WebSocketService {
             
             // 发送给指定用户
             messagingTemplate.convertAndSendToUser(userId, "/queue/messages", messageJson);
+            if (isCompactUser(userId)) {
+                messagingTemplate.convertAndSendToUser(userId, "/queue/messages" + WebSocketPayloadCodec.COMPACT_DESTINATION_SUFFIX,
+                        payloadCodec.encode(message), COMPACT_HEADERS);
+            }
             
             log.info("发送消息给用户成功: userId={}, type={}, messageId={}", 
                     userId, message.getType(), message.getMessageId());
@@ -154,9 +187,17 @@ public class WebSocketServiceImpl implements WebSocketService {
             String messageJson = objectMapper.writeValueAsString(message);
             
             // 发送给用户组
+            byte[] compactPayload = null;
             for (String userId : userIds) {
                 if (isUserOnline(userId)) {
                     messagingTemplate.convertAndSendToUser(userId, "/queue/messages", messageJson);
+                    if (isCompactUser(userId)) {
+                        if (compactPayload == null) {
+                            compactPayload = payloadCodec.encode(message);
+                        }
+                        messagingTemplate.convertAndSendToUser(userId, "/queue/messages" + WebSocketPayloadCodec.COMPACT_DESTINATION_SUFFIX,
+                                compactPayload, COMPACT_HEADERS);
+                    }
                 }
             }
             
@@ -244,23 +285,34 @@ public class WebSocketServiceImpl implements WebSocketService {
      */
     @Override
     public void disconnectUser(String userId) {
+        // 关闭底层会话，会话映射由断开事件清理
+        int closed = webSocketSessionManager.closeUserSessions(userId);
+        
         List<String> sessions = userSessions.get(userId);
         if (sessions != null) {
             for (String sessionId : sessions) {
                 sessionUsers.remove(sessionId);
             }
             userSessions.remove(userId);
-            log.info("用户连接已断开: userId={}", userId);
         }
+        log.info("用户连接已断开: userId={}, closedSessions={}", userId, closed);
     }
     
     /**
      * 发送心跳消息
+     * 
+     * 连接保活由消息代理的STOMP心跳负责，这里仅发送一条轻量的应用层心跳，
+     * 不经过去重记录，避免占用去重缓存
      */
     @Override
     public void sendHeartbeat() {
-        WebSocketMessage<String> heartbeat = WebSocketMessage.heartbeat();
-        broadcastMessage(heartbeat);
+        try {
+            WebSocketMessage<String> heartbeat = WebSocketMessage.heartbeat();
+            messagingTemplate.convertAndSend("/topic/broadcast", objectMapper.writeValueAsString(heartbeat));
+            log.debug("发送应用层心跳消息");
+        } catch (JsonProcessingException e) {
+            log.error("心跳消息序列化失败", e);
+        }
     }
     
     /**
@@ -271,6 +323,11 @@ public class WebSocketServiceImpl implements WebSocketService {
         String sessionId = accessor.getSessionId();
         String userId = extractUserId(accessor);
         
+        // 绑定会话并执行每个用户的最大会话数限制
+        String encoding = accessor.getFirstNativeHeader("payload-encoding");
+        boolean compact = compactEncodingEnabled && WebSocketPayloadCodec.ENCODING_CBOR.equalsIgnoreCase(encoding);
+        webSocketSessionManager.bindUser(sessionId, userId, compact);
+        
         if (userId != null) {
             // 添加用户会话映射
             userSessions.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>()).add(sessionId);
@@ -317,10 +374,32 @@ public class WebSocketServiceImpl implements WebSocketService {
         // 这里需要根据实际的认证方式提取用户ID
         // 可以从JWT token、用户头信息等地方获取
         Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
-        if (sessionAttributes != null) {
+        if (sessionAttributes != null && sessionAttributes.get("userId") != null) {
             return (String) sessionAttributes.get("userId");
         }
-        return null;
+        
+        // 从CONNECT帧的Authorization头中解析JWT
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            String userId = jwtService.extractUserId(authHeader.substring(7));
+            if (userId != null && sessionAttributes != null) {
+                sessionAttributes.put("userId", userId);
+            }
+            return userId;
+        } catch (Exception e) {
+            log.warn("解析WebSocket连接令牌失败: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 检查用户是否有使用紧凑编码的会话
+     */
+    private boolean isCompactUser(String userId) {
+        return compactEncodingEnabled && webSocketSessionManager.hasUserSessions(userId, true);
     }
     
     /**
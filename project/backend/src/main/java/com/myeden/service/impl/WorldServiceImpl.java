@@ -12,6 +12,7 @@ import com.myeden.repository.PostRepository;
 import com.myeden.repository.CommentRepository;
 import com.myeden.service.WorldService;
 import com.myeden.service.ConfigService;
+import com.myeden.service.StatisticsCounters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -53,6 +54,9 @@ public class WorldServiceImpl implements WorldService {
     @Autowired
     private CommentRepository commentRepository;
     
+    @Autowired
+    private StatisticsCounters statisticsCounters;
+    
     @Override
     public WorldInfo getWorldInfo() {
         try {
@@ -166,14 +170,14 @@ public class WorldServiceImpl implements WorldService {
     @Override
     public WorldStatistics getWorldStatistics() {
         try {
-            logger.info("从数据库获取实时世界统计信息...");
+            logger.debug("从实时计数器获取世界统计信息...");
             
-            // 从数据库实时统计
-            long totalUsers = userRepository.count();
-            long totalPosts = postRepository.count();
-            long totalComments = commentRepository.count();
-            long totalRobots = robotRepository.count();
-            long activeRobots = robotRepository.countByIsActiveTrue();
+            // 从内存计数器读取，由写事件增量更新并定期校准
+            long totalUsers = statisticsCounters.getTotalUsers();
+            long totalPosts = statisticsCounters.getTotalPosts();
+            long totalComments = statisticsCounters.getTotalComments();
+            long totalRobots = statisticsCounters.getTotalRobots();
+            long activeRobots = statisticsCounters.getActiveRobots();
             
             // 获取世界创建时间（从配置文件中获取）
             String worldCreatedAt = "2024-01-01";
@@ -195,7 +199,7 @@ public class WorldServiceImpl implements WorldService {
                 worldCreatedAt
             );
             
-            logger.info("世界统计信息 - 用户: {}, 动态: {}, 评论: {}, 机器人: {} (在线: {})", 
+            logger.debug("世界统计信息 - 用户: {}, 动态: {}, 评论: {}, 机器人: {} (在线: {})", 
                 totalUsers, totalPosts, totalComments, totalRobots, activeRobots);
             
             return statistics;
@@ -0,0 +1,88 @@
+package com.myeden.service;
+
+import com.myeden.entity.User;
+import com.myeden.repository.RobotRepository;
+import com.myeden.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 作者名索引单元测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class AuthorNameIndexTest {
+
+    private AuthorNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AuthorNameIndex();
+        ReflectionTestUtils.setField(index, "maxAuthors", 2);
+        ReflectionTestUtils.setField(index, "maxNameLength", 32);
+    }
+
+    @Test
+    void testResolve_MatchesAnyPartOfName() {
+        index.put("user_1", "小明");
+        index.put("robot_1", "Alice");
+
+        assertEquals(Set.of("user_1"), index.resolve("小"));
+        assertEquals(Set.of("user_1"), index.resolve("明"));
+        assertEquals(Set.of("robot_1"), index.resolve("LIC"));
+        assertTrue(index.resolve("小红").isEmpty());
+    }
+
+    @Test
+    void testResolve_ExactMatchFirstAndBounded() {
+        index.put("user_1", "阿明同学");
+        index.put("user_2", "小阿明");
+        index.put("user_3", "阿明");
+
+        Set<String> ids = index.resolve("阿明");
+        assertEquals(2, ids.size());
+        assertEquals("user_3", ids.iterator().next());
+    }
+
+    @Test
+    void testPut_RenameReplacesOldName() {
+        index.put("user_1", "小明");
+        index.put("user_1", "大壮");
+
+        assertTrue(index.resolve("小明").isEmpty());
+        assertEquals(List.of("user_1"), List.copyOf(index.resolve("壮")));
+    }
+
+    @Test
+    void testReload_KeepsUpdatesArrivingDuringRebuild() {
+        UserRepository userRepository = mock(UserRepository.class);
+        RobotRepository robotRepository = mock(RobotRepository.class);
+        ReflectionTestUtils.setField(index, "userRepository", userRepository);
+        ReflectionTestUtils.setField(index, "robotRepository", robotRepository);
+
+        User stale = new User();
+        stale.setUserId("user_1");
+        stale.setNickname("小明");
+        when(userRepository.findAll()).thenAnswer(invocation -> {
+            // 全量读取期间发生改名和新用户注册，读到的仍是旧数据
+            index.put("user_1", "大壮");
+            index.put("user_2", "阿花");
+            return List.of(stale);
+        });
+
+        index.reload();
+
+        assertTrue(index.resolve("小明").isEmpty());
+        assertEquals(Set.of("user_1"), index.resolve("大壮"));
+        assertEquals(Set.of("user_2"), index.resolve("阿花"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.myeden.service;
+
+import com.myeden.config.RobotConfig;
+import com.myeden.config.WorldConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 配置文件监听测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class ConfigFileWatcherTest {
+
+    @TempDir
+    Path configDir;
+
+    private ConfigService configService;
+    private ConfigFileWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        configService = mock(ConfigService.class);
+        when(configService.applyRobotConfig(any())).thenReturn(true);
+        when(configService.applyWorldConfig(any())).thenReturn(true);
+
+        watcher = new ConfigFileWatcher();
+        ReflectionTestUtils.setField(watcher, "enabled", true);
+        ReflectionTestUtils.setField(watcher, "directory", configDir.toString());
+        ReflectionTestUtils.setField(watcher, "debounceMillis", 200L);
+        ReflectionTestUtils.setField(watcher, "configService", configService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        watcher.shutdown();
+    }
+
+    private Path writeRobots(String personality) throws IOException {
+        String yaml = "robots:\n"
+            + "  base_config:\n"
+            + "    max_daily_posts: 15\n"
+            + "  list:\n"
+            + "    - id: robot_001\n"
+            + "      name: 小明\n"
+            + "      personality: " + personality + "\n"
+            + "      interests:\n"
+            + "        - 摄影\n";
+        return Files.writeString(configDir.resolve(ConfigFileWatcher.ROBOTS_CONFIG_FILE), yaml, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testReload_BindsYamlAndSkipsUnchangedContent() throws IOException {
+        Path file = writeRobots("开朗");
+
+        assertTrue(watcher.reload(file));
+        assertFalse(watcher.reload(file));
+
+        ArgumentCaptor<RobotConfig> applied = ArgumentCaptor.forClass(RobotConfig.class);
+        verify(configService, times(1)).applyRobotConfig(applied.capture());
+        RobotConfig config = applied.getValue();
+        assertEquals(15, config.getBaseConfig().getMaxDailyPosts());
+        assertEquals("robot_001", config.getList().get(0).getId());
+        assertEquals("开朗", config.getList().get(0).getPersonality());
+        verify(configService, never()).applyWorldConfig(any());
+    }
+
+    @Test
+    void testReload_WorldConfigFile() throws IOException {
+        Path file = Files.writeString(configDir.resolve(ConfigFileWatcher.WORLD_CONFIG_FILE),
+            "world:\n  name: 伊甸园\n  version: 1.0.0\n", StandardCharsets.UTF_8);
+
+        assertTrue(watcher.reload(file));
+
+        ArgumentCaptor<WorldConfig> applied = ArgumentCaptor.forClass(WorldConfig.class);
+        verify(configService).applyWorldConfig(applied.capture());
+        assertEquals("伊甸园", applied.getValue().getName());
+    }
+
+    @Test
+    void testReload_MalformedYamlKeepsCurrentConfig() throws IOException {
+        Path file = Files.writeString(configDir.resolve(ConfigFileWatcher.ROBOTS_CONFIG_FILE),
+            "robots:\n  list: [\n", StandardCharsets.UTF_8);
+
+        assertFalse(watcher.reload(file));
+        verifyNoInteractions(configService);
+    }
+
+    @Test
+    void testWatch_DebouncesBurstOfWritesIntoOneReload() throws Exception {
+        writeRobots("开朗");
+        watcher.start();
+
+        writeRobots("安静");
+        writeRobots("内向");
+        writeRobots("细心");
+
+        ArgumentCaptor<RobotConfig> applied = ArgumentCaptor.forClass(RobotConfig.class);
+        verify(configService, timeout(5000)).applyRobotConfig(applied.capture());
+        Thread.sleep(500);
+        verify(configService, times(1)).applyRobotConfig(any());
+        assertEquals("细心", applied.getValue().getList().get(0).getPersonality());
+    }
+}
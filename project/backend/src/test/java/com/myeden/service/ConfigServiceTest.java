@@ -0,0 +1,174 @@
+package com.myeden.service;
+
+import com.myeden.config.RobotConfig;
+import com.myeden.entity.Robot;
+import com.myeden.event.AuthorProfileChangedEvent;
+import com.myeden.event.RobotConfigSyncedEvent;
+import com.myeden.service.impl.ConfigServiceImpl;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 配置同步测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@ExtendWith(MockitoExtension.class)
+class ConfigServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private RobotConfig robotConfig;
+
+    @InjectMocks
+    private ConfigServiceImpl configService;
+
+    private List<RobotConfig.RobotInfo> robots;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        lenient().when(mongoTemplate.getConverter()).thenReturn(converter);
+        lenient().when(mongoTemplate.getCollectionName(Robot.class)).thenReturn("robots");
+
+        robots = List.of(robotInfo("robot_001", "小明"), robotInfo("robot_002", "小红"));
+        lenient().when(robotConfig.getList()).thenReturn(robots);
+    }
+
+    private static RobotConfig.RobotInfo robotInfo(String id, String name) {
+        RobotConfig.RobotInfo info = new RobotConfig.RobotInfo();
+        info.setId(id);
+        info.setName(name);
+        info.setPersonality("开朗");
+        info.setDescription("喜欢摄影");
+        info.setInterests(List.of("摄影", "旅行"));
+        return info;
+    }
+
+    private void sync() {
+        ReflectionTestUtils.invokeMethod(configService, "syncRobotsToDatabase");
+    }
+
+    /**
+     * 首次同步并返回写入的各机器人配置指纹，之后的查询返回这些指纹
+     */
+    private List<Document> firstSync() {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("robots"))).thenReturn(List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Robot.class)).thenReturn(bulkOperations);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+
+        sync();
+
+        verify(bulkOperations, times(2)).upsert(any(Query.class), updates.capture());
+        verify(bulkOperations).execute();
+        List<Document> stored = new ArrayList<>();
+        for (int i = 0; i < robots.size(); i++) {
+            Document set = (Document) updates.getAllValues().get(i).getUpdateObject().get("$set");
+            stored.add(new Document("robotId", robots.get(i).getId()).append("configHash", set.get("configHash")));
+        }
+        reset(bulkOperations, eventPublisher);
+        return stored;
+    }
+
+    @Test
+    void testSync_CreatesAllRobotsInOneBulkWrite() {
+        firstSync();
+
+        verify(mongoTemplate, times(1)).bulkOps(BulkOperations.BulkMode.ORDERED, Robot.class);
+        verify(mongoTemplate, never()).save(any());
+    }
+
+    @Test
+    void testSync_UnchangedConfigWritesNothing() {
+        List<Document> stored = firstSync();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("robots"))).thenReturn(stored);
+
+        sync();
+
+        verifyNoInteractions(bulkOperations);
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(events.capture());
+        RobotConfigSyncedEvent synced = (RobotConfigSyncedEvent) events.getValue();
+        assertFalse(synced.hasChanges());
+        assertEquals(2, synced.getUnchangedCount());
+    }
+
+    @Test
+    void testSync_OnlyChangedRobotIsWrittenAndPublished() {
+        List<Document> stored = firstSync();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("robots"))).thenReturn(stored);
+        robots.get(1).setPersonality("安静");
+
+        sync();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(1)).upsert(any(Query.class), update.capture());
+        verify(bulkOperations).execute();
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals("安静", set.get("personality"));
+        assertFalse(set.containsKey("isActive"));
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        AuthorProfileChangedEvent changed = (AuthorProfileChangedEvent) events.getAllValues().get(0);
+        assertEquals("robot_002", changed.getAuthorId());
+        assertFalse(changed.isCreated());
+        RobotConfigSyncedEvent synced = (RobotConfigSyncedEvent) events.getAllValues().get(1);
+        assertEquals(List.of("robot_002"), synced.getUpdatedRobotIds());
+        assertEquals(1, synced.getUnchangedCount());
+    }
+
+    @Test
+    void testApplyRobotConfig_WaitsForReloadInProgress() throws Exception {
+        Object reloadLock = ReflectionTestUtils.getField(configService, "reloadLock");
+        CompletableFuture<Boolean> applied;
+        synchronized (reloadLock) {
+            // 模拟手动重新加载正在进行，配置文件监听的应用须等待
+            applied = CompletableFuture.supplyAsync(() -> configService.applyRobotConfig(new RobotConfig()));
+            Thread.sleep(200);
+            assertFalse(applied.isDone());
+        }
+        assertNotNull(applied.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,164 @@
+package com.myeden.service;
+
+import com.myeden.config.DifyConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dify端点负载均衡器测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class DifyEndpointBalancerTest {
+
+    private DifyConfig difyConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private DifyEndpointBalancer balancer;
+
+    @BeforeEach
+    void setUp() {
+        difyConfig = new DifyConfig();
+        difyConfig.setAcquireTimeout(10);
+        difyConfig.setEjectFailureThreshold(3);
+        difyConfig.setEjectDuration(60_000);
+        difyConfig.setEndpoints(List.of(endpoint("fast", 2), endpoint("slow", 2)));
+        meterRegistry = new SimpleMeterRegistry();
+
+        balancer = new DifyEndpointBalancer();
+        ReflectionTestUtils.setField(balancer, "difyConfig", difyConfig);
+        ReflectionTestUtils.setField(balancer, "meterRegistry", meterRegistry);
+        balancer.init();
+    }
+
+    private static DifyConfig.Endpoint endpoint(String name, int maxConcurrency) {
+        DifyConfig.Endpoint endpoint = new DifyConfig.Endpoint();
+        endpoint.setName(name);
+        endpoint.setUrl("http://" + name + ".local/v1");
+        endpoint.setKey("key-" + name);
+        endpoint.setMaxConcurrency(maxConcurrency);
+        return endpoint;
+    }
+
+    @Test
+    void testAcquire_PrefersLowerLatency() {
+        int fastHits = 0;
+        for (int i = 0; i < 100; i++) {
+            DifyEndpointBalancer.Lease lease = balancer.acquire(null);
+            boolean fast = "fast".equals(lease.getName());
+            fastHits += fast ? 1 : 0;
+            lease.complete(true, TimeUnit.MILLISECONDS.toNanos(fast ? 20 : 400));
+        }
+
+        assertTrue(fastHits >= 95, "快端点请求数: " + fastHits);
+        assertEquals(1, meterRegistry.timer("ai.dify.endpoint.requests", "endpoint", "slow", "outcome", "success").count(), 1);
+    }
+
+    @Test
+    void testAcquire_RespectsConcurrencyLimit() {
+        List<DifyEndpointBalancer.Lease> leases = List.of(
+            balancer.acquire(null), balancer.acquire(null), balancer.acquire(null), balancer.acquire(null));
+
+        assertEquals(2, leases.stream().filter(lease -> "fast".equals(lease.getName())).count());
+        assertNull(balancer.acquire(null));
+        assertEquals(2.0, meterRegistry.get("ai.dify.endpoint.outstanding").tag("endpoint", "slow").gauge().value());
+
+        leases.get(0).complete(true);
+        assertNotNull(balancer.acquire(null));
+    }
+
+    @Test
+    void testFailures_FastFailingEndpointDoesNotAttractTraffic() {
+        DifyEndpointBalancer.Lease ok = balancer.acquire("slow");
+        ok.complete(true, TimeUnit.MILLISECONDS.toNanos(200));
+        for (int i = 0; i < 2; i++) {
+            DifyEndpointBalancer.Lease failing = balancer.acquire("fast");
+            assertEquals("fast", failing.getName());
+            failing.complete(false, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            DifyEndpointBalancer.Lease lease = balancer.acquire(null);
+            assertEquals("slow", lease.getName());
+            lease.complete(true, TimeUnit.MILLISECONDS.toNanos(200));
+        }
+    }
+
+    @Test
+    void testFailures_RecoveredEndpointGetsTrafficAgain() throws InterruptedException {
+        difyConfig.setEjectDuration(50);
+        DifyEndpointBalancer.Lease warm = balancer.acquire("fast");
+        warm.complete(true, TimeUnit.MILLISECONDS.toNanos(20));
+        DifyEndpointBalancer.Lease slow = balancer.acquire("slow");
+        slow.complete(true, TimeUnit.MILLISECONDS.toNanos(400));
+        // 一次瞬时失败（如429）
+        DifyEndpointBalancer.Lease failing = balancer.acquire("fast");
+        failing.complete(false, TimeUnit.MILLISECONDS.toNanos(1));
+
+        DifyEndpointBalancer.Lease lease = balancer.acquire(null);
+        assertEquals("slow", lease.getName());
+        lease.complete(true, TimeUnit.MILLISECONDS.toNanos(400));
+
+        // 惩罚衰减后快端点重新获得流量，成功后延迟回到正常水平
+        Thread.sleep(600);
+        int fastHits = 0;
+        for (int i = 0; i < 20; i++) {
+            lease = balancer.acquire(null);
+            boolean fast = "fast".equals(lease.getName());
+            fastHits += fast ? 1 : 0;
+            lease.complete(true, TimeUnit.MILLISECONDS.toNanos(fast ? 20 : 400));
+        }
+        assertTrue(fastHits >= 18, "快端点请求数: " + fastHits);
+        assertTrue(balancer.getEndpoints().get(0).getLatencyEwmaMillis() < 100);
+    }
+
+    @Test
+    void testSingleUrlEndpoint_HasNoConcurrencyLimit() {
+        difyConfig.setEndpoints(null);
+        difyConfig.setUrl("http://dify.local/v1");
+        difyConfig.setKey("key");
+        balancer.init();
+
+        for (int i = 0; i < 50; i++) {
+            assertNotNull(balancer.acquire(null));
+        }
+    }
+
+    @Test
+    void testFailures_EjectEndpointAndBreakConversationPinning() {
+        for (int i = 0; i < 3; i++) {
+            DifyEndpointBalancer.Lease lease = balancer.acquire("slow");
+            assertEquals("slow", lease.getName());
+            lease.complete(false, TimeUnit.MILLISECONDS.toNanos(5));
+        }
+
+        assertEquals(1.0, meterRegistry.counter("ai.dify.endpoint.ejections", "endpoint", "slow").count());
+        for (int i = 0; i < 20; i++) {
+            DifyEndpointBalancer.Lease lease = balancer.acquire("slow");
+            assertEquals("fast", lease.getName());
+            lease.complete(true, TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+
+    @Test
+    void testSingleEndpoint_FallsBackToUrlAndKey() {
+        DifyConfig config = new DifyConfig();
+        config.setUrl("http://rag.example.com/v1");
+        config.setKey("app-key");
+        DifyEndpointBalancer single = new DifyEndpointBalancer();
+        ReflectionTestUtils.setField(single, "difyConfig", config);
+        single.init();
+
+        DifyEndpointBalancer.Lease lease = single.acquire(null);
+        assertEquals("rag.example.com", lease.getName());
+        assertEquals("app-key", lease.getKey());
+    }
+}
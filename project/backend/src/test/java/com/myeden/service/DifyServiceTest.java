@@ -0,0 +1,249 @@
+package com.myeden.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myeden.config.DifyConfig;
+import com.myeden.event.ConfigReloadedEvent;
+import com.myeden.service.impl.DifyServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Dify服务测试
+ * 使用记录请求内容的本地假Dify验证对话复用和多端点选择
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class DifyServiceTest {
+
+    private static final String URL = "http://dify.local/v1";
+    private static final String PERSONA = "\n性别:女\n年龄:25\n职业:摄影师\n### 性格特征：\n- 开朗\n- 细心";
+    private static final String SITUATION = "\n\n你看到的动态内容：今天去海边了";
+    private static final String FULL = "你是小明。" + PERSONA + SITUATION;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private DifyServiceImpl difyService;
+    private DifyConfig difyConfig;
+    private DifyConversationRegistry registry;
+    private MockRestServiceServer fakeDify;
+    private List<JsonNode> requests;
+
+    @BeforeEach
+    void setUp() {
+        difyConfig = new DifyConfig();
+        difyConfig.setUrl(URL);
+        difyConfig.setKey("test-key");
+        difyConfig.setConversationEnabled(true);
+        difyConfig.setConversationMaxTurns(3);
+
+        registry = new DifyConversationRegistry();
+        ReflectionTestUtils.setField(registry, "difyConfig", difyConfig);
+
+        RestTemplate restTemplate = new RestTemplate();
+        fakeDify = MockRestServiceServer.bindTo(restTemplate).build();
+        requests = new ArrayList<>();
+
+        DifyEndpointBalancer balancer = new DifyEndpointBalancer();
+        ReflectionTestUtils.setField(balancer, "difyConfig", difyConfig);
+        balancer.init();
+
+        difyService = new DifyServiceImpl();
+        ReflectionTestUtils.setField(difyService, "difyConfig", difyConfig);
+        ReflectionTestUtils.setField(difyService, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(difyService, "conversationRegistry", registry);
+        ReflectionTestUtils.setField(difyService, "endpointBalancer", balancer);
+    }
+
+    /**
+     * 假Dify：记录请求，新对话返回递增的对话ID，续用的对话原样返回
+     */
+    private void respondWithConversations(int times) {
+        int[] created = {0};
+        fakeDify.expect(ExpectedCount.times(times), requestTo(URL + "/chat-messages"))
+            .andRespond(request -> {
+                JsonNode body = objectMapper.readTree(((MockClientHttpRequest) request).getBodyAsString());
+                requests.add(body);
+                String conversationId = body.path("conversation_id").isTextual()
+                    ? body.get("conversation_id").asText()
+                    : "conv-" + (++created[0]);
+                String json = "{\"event\":\"message\",\"answer\":\"好看\",\"conversation_id\":\"" + conversationId + "\"}";
+                return withSuccess(json, MediaType.APPLICATION_JSON).createResponse(request);
+            });
+    }
+
+    private String query(int index) {
+        return requests.get(index).get("query").asText();
+    }
+
+    private boolean hasConversation(int index) {
+        return requests.get(index).path("conversation_id").isTextual();
+    }
+
+    @Test
+    void testConversationReuse_SendsPersonaOncePerEpoch() {
+        respondWithConversations(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("好看", difyService.callDifyApi(FULL, "你是小明。" + SITUATION, "robot_001", "post:p1"));
+        }
+
+        fakeDify.verify();
+        // 第一轮完整提示词，之后两轮只发情境部分，达到轮数上限后轮换新对话
+        assertEquals(FULL, query(0));
+        assertFalse(hasConversation(0));
+        assertEquals("你是小明。" + SITUATION, query(1));
+        assertEquals("conv-1", requests.get(1).get("conversation_id").asText());
+        assertEquals("conv-1", requests.get(2).get("conversation_id").asText());
+        assertTrue(query(1).length() < query(0).length());
+        assertEquals(FULL, query(3));
+        assertFalse(hasConversation(3));
+    }
+
+    @Test
+    void testConversationReuse_RotatesOnConfigReloadAndSeparatesThreads() {
+        respondWithConversations(4);
+
+        difyService.callDifyApi(FULL, SITUATION, "robot_001", "post:p1");
+        difyService.callDifyApi(FULL, SITUATION, "robot_001", "post:p2");
+        difyService.callDifyApi(FULL, SITUATION, "robot_001", "post:p1");
+        registry.onConfigReloaded(new ConfigReloadedEvent("robot"));
+        difyService.callDifyApi(FULL, SITUATION, "robot_001", "post:p1");
+
+        fakeDify.verify();
+        assertEquals(FULL, query(1));
+        assertEquals("conv-1", requests.get(2).get("conversation_id").asText());
+        assertEquals(FULL, query(3));
+        assertFalse(hasConversation(3));
+    }
+
+    @Test
+    void testConversationReuse_ReopensWhenConversationMissing() {
+        respondWithConversations(1);
+        difyService.callDifyApi(FULL, SITUATION, "robot_001", "post");
+        fakeDify.verify();
+
+        fakeDify.reset();
+        requests.clear();
+        fakeDify.expect(requestTo(URL + "/chat-messages")).andRespond(withStatus(HttpStatus.NOT_FOUND));
+        respondWithConversations(1);
+
+        assertEquals("好看", difyService.callDifyApi(FULL, SITUATION, "robot_001", "post"));
+        fakeDify.verify();
+        assertEquals(FULL, query(0));
+        assertFalse(hasConversation(0));
+    }
+
+    @Test
+    void testConversationDisabled_AlwaysSendsFullPrompt() {
+        difyConfig.setConversationEnabled(false);
+        respondWithConversations(2);
+
+        difyService.callDifyApi(FULL, SITUATION, "robot_001", "post");
+        difyService.callDifyApi(FULL, SITUATION, "robot_001", "post");
+
+        fakeDify.verify();
+        assertEquals(FULL, query(1));
+        assertFalse(hasConversation(1));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void testAllEndpointsBusy_ThrowsInsteadOfFallbackContent() {
+        DifyConfig.Endpoint only = new DifyConfig.Endpoint();
+        only.setUrl(URL);
+        only.setKey("test-key");
+        only.setMaxConcurrency(1);
+        difyConfig.setEndpoints(List.of(only));
+        difyConfig.setAcquireTimeout(10);
+        DifyEndpointBalancer balancer = new DifyEndpointBalancer();
+        ReflectionTestUtils.setField(balancer, "difyConfig", difyConfig);
+        balancer.init();
+        ReflectionTestUtils.setField(difyService, "endpointBalancer", balancer);
+
+        DifyEndpointBalancer.Lease held = balancer.acquire(null);
+        assertThrows(DifyUnavailableException.class,
+            () -> difyService.callDifyApi(FULL, SITUATION, "robot_001", "post"));
+        difyConfig.setConversationEnabled(false);
+        assertThrows(DifyUnavailableException.class, () -> difyService.callDifyApi(FULL, "robot_001"));
+        held.complete(true);
+    }
+
+    @Test
+    void testMultipleEndpoints_PrefersLowLatencyStub() {
+        DifyConfig.Endpoint fast = new DifyConfig.Endpoint();
+        fast.setName("fast");
+        fast.setUrl("http://fast.local/v1");
+        fast.setKey("key-fast");
+        DifyConfig.Endpoint slow = new DifyConfig.Endpoint();
+        slow.setName("slow");
+        slow.setUrl("http://slow.local/v1");
+        slow.setKey("key-slow");
+        difyConfig.setEndpoints(List.of(fast, slow));
+        difyConfig.setConversationEnabled(false);
+
+        DifyEndpointBalancer balancer = new DifyEndpointBalancer();
+        ReflectionTestUtils.setField(balancer, "difyConfig", difyConfig);
+        balancer.init();
+        ReflectionTestUtils.setField(difyService, "endpointBalancer", balancer);
+
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer stubs = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        ReflectionTestUtils.setField(difyService, "restTemplate", restTemplate);
+        int[] hits = new int[2];
+        stubs.expect(ExpectedCount.manyTimes(), requestTo("http://fast.local/v1/chat-messages"))
+            .andRespond(request -> {
+                hits[0]++;
+                assertEquals("Bearer key-fast", request.getHeaders().getFirst("Authorization"));
+                return respondAfter(request, 2);
+            });
+        stubs.expect(ExpectedCount.manyTimes(), requestTo("http://slow.local/v1/chat-messages"))
+            .andRespond(request -> {
+                hits[1]++;
+                return respondAfter(request, 60);
+            });
+
+        // 预热一次请求后重建均衡器，避免首个请求的类加载耗时计入某个端点的延迟
+        difyService.callDifyApi(FULL, "robot_001");
+        balancer.init();
+        hits[0] = 0;
+        hits[1] = 0;
+
+        for (int i = 0; i < 30; i++) {
+            assertEquals("好看", difyService.callDifyApi(FULL, "robot_001"));
+        }
+
+        assertEquals(30, hits[0] + hits[1]);
+        assertTrue(hits[1] <= 3, "慢端点请求数: " + hits[1]);
+    }
+
+    private ClientHttpResponse respondAfter(ClientHttpRequest request, long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String json = "{\"event\":\"message\",\"answer\":\"好看\",\"conversation_id\":\"c\"}";
+        return withSuccess(json, MediaType.APPLICATION_JSON).createResponse(request);
+    }
+}
@@ -0,0 +1,187 @@
+package com.myeden.service;
+
+import com.mongodb.client.result.DeleteResult;
+import com.myeden.entity.FileBlob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 文件服务单元测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@ExtendWith(MockitoExtension.class)
+class FileServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ImageDerivativeService imageDerivativeService;
+
+    @InjectMocks
+    private FileService fileService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fileService, "uploadPath", uploadDir.toString());
+        ReflectionTestUtils.setField(fileService, "maxFileSize", 1024L * 1024);
+        ReflectionTestUtils.setField(fileService, "allowedTypes", "jpg,png");
+        ReflectionTestUtils.setField(fileService, "contentAddressed", true);
+    }
+
+    @Test
+    void testUploadFile_SameContentStoredOnce() throws Exception {
+        byte[] content = "same-image-bytes".getBytes(StandardCharsets.UTF_8);
+
+        String first = fileService.uploadFile(new MockMultipartFile("file", "a.jpg", "image/jpeg", content), "images");
+        String second = fileService.uploadFile(new MockMultipartFile("file", "b.jpg", "image/jpeg", content), "images");
+
+        assertEquals(first, second);
+        assertTrue(FileService.isContentAddressed(first));
+        try (var files = Files.list(uploadDir.resolve("images"))) {
+            assertEquals(1, files.count());
+        }
+        try (var temps = Files.list(uploadDir.resolve(".tmp"))) {
+            assertEquals(0, temps.count());
+        }
+        verify(mongoTemplate, times(2)).upsert(any(Query.class), any(Update.class), eq(FileBlob.class));
+    }
+
+    @Test
+    void testDeleteFile_KeepsBlobWhileReferenced() throws Exception {
+        byte[] content = "avatar-bytes".getBytes(StandardCharsets.UTF_8);
+        String url = fileService.uploadFile(new MockMultipartFile("file", "a.png", "image/png", content), "avatars");
+        Path stored = uploadDir.resolve(url.substring("/uploads/".length()));
+
+        FileBlob referenced = FileBlob.builder().fileUrl(url).refCount(1).build();
+        FileBlob unreferenced = FileBlob.builder().fileUrl(url).refCount(0).build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(FileBlob.class)))
+            .thenReturn(referenced)
+            .thenReturn(unreferenced);
+        when(mongoTemplate.remove(any(Query.class), eq(FileBlob.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        fileService.deleteFile(url);
+        assertTrue(Files.exists(stored));
+
+        fileService.deleteFile(url);
+        assertFalse(Files.exists(stored));
+    }
+
+    @Test
+    void testUploadImages_ParallelKeepsOrderAndRollsBackOnFailure() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            ReflectionTestUtils.setField(fileService, "contentAddressed", false);
+            ReflectionTestUtils.setField(fileService, "uploadParallelism", 3);
+            ReflectionTestUtils.setField(fileService, "fileTaskExecutor", executor);
+
+            List<MultipartFile> images = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                images.add(new MockMultipartFile("file", "img" + i + ".jpg", "image/jpeg",
+                    ("image-" + i).getBytes(StandardCharsets.UTF_8)));
+            }
+            List<String> urls = fileService.uploadImages(images);
+            assertEquals(6, urls.size());
+            for (int i = 0; i < urls.size(); i++) {
+                Path stored = uploadDir.resolve(urls.get(i).substring("/uploads/".length()));
+                assertEquals("image-" + i, Files.readString(stored));
+            }
+            fileService.deleteFiles(urls);
+
+            images.add(3, new MockMultipartFile("file", "broken.jpg", "image/jpeg", new byte[] {1}) {
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    throw new IOException("disk full");
+                }
+            });
+            assertThrows(RuntimeException.class, () -> fileService.uploadImages(images));
+            try (var files = Files.list(uploadDir.resolve("images"))) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUploadAndDelete_ConcurrentReuseKeepsFile() throws Exception {
+        byte[] content = "shared-image-bytes".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger refCount = new AtomicInteger();
+        CountDownLatch reuseRetaining = new CountDownLatch(1);
+        CountDownLatch deleteFinished = new CountDownLatch(1);
+
+        // 内存中的引用计数；复用上传在增加引用前停顿，给并发删除插入的机会
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(FileBlob.class))).thenAnswer(invocation -> {
+            if (refCount.get() > 0) {
+                reuseRetaining.countDown();
+                deleteFinished.await(500, TimeUnit.MILLISECONDS);
+            }
+            refCount.incrementAndGet();
+            return null;
+        });
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(FileBlob.class)))
+            .thenAnswer(invocation -> FileBlob.builder().refCount(refCount.decrementAndGet()).build());
+        // 只有发生竞态（引用归零）时才会移除记录
+        lenient().when(mongoTemplate.remove(any(Query.class), eq(FileBlob.class)))
+            .thenAnswer(invocation -> DeleteResult.acknowledged(refCount.get() <= 0 ? 1 : 0));
+
+        String url = fileService.uploadFile(new MockMultipartFile("file", "a.jpg", "image/jpeg", content), "images");
+        Path stored = uploadDir.resolve(url.substring("/uploads/".length()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> reuse = executor.submit(() ->
+                fileService.uploadFile(new MockMultipartFile("file", "b.jpg", "image/jpeg", content), "images"));
+            assertTrue(reuseRetaining.await(5, TimeUnit.SECONDS));
+            Future<?> delete = executor.submit(() -> {
+                fileService.deleteFile(url);
+                deleteFinished.countDown();
+            });
+
+            assertEquals(url, reuse.get(5, TimeUnit.SECONDS));
+            delete.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, refCount.get());
+        assertTrue(Files.exists(stored));
+    }
+}
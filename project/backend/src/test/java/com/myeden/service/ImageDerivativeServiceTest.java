@@ -0,0 +1,145 @@
+package com.myeden.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图片衍生图服务测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class ImageDerivativeServiceTest {
+
+    private ImageDerivativeService service;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        service = new ImageDerivativeService();
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "thumbSize", 320);
+        ReflectionTestUtils.setField(service, "mediumSize", 1080);
+        ReflectionTestUtils.setField(service, "quality", 0.8f);
+        ReflectionTestUtils.setField(service, "maxPixels", 40_000_000L);
+        ReflectionTestUtils.setField(service, "imageDerivativeExecutor", (Executor) Runnable::run);
+    }
+
+    @Test
+    void busyExecutorSkipsPregenerationInsteadOfRunningOnCaller() throws Exception {
+        Path original = uploadDir.resolve("photo.png");
+        ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_ARGB), "png", original.toFile());
+        ReflectionTestUtils.setField(service, "imageDerivativeExecutor", (Executor) task -> {
+            throw new RejectedExecutionException("queue full");
+        });
+
+        service.scheduleDerivatives(original);
+
+        assertFalse(Files.exists(uploadDir.resolve("photo_thumb.jpg")));
+        assertNotNull(service.getDerivative(original, ImageDerivativeService.THUMB));
+    }
+
+    @Test
+    void generatesBoundedDerivativesNextToOriginal() throws Exception {
+        Path original = uploadDir.resolve("photo.png");
+        ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_ARGB), "png", original.toFile());
+
+        service.scheduleDerivatives(original);
+
+        Path thumb = uploadDir.resolve("photo_thumb.jpg");
+        Path medium = uploadDir.resolve("photo_medium.jpg");
+        assertTrue(Files.exists(thumb));
+        assertTrue(Files.exists(medium));
+        BufferedImage thumbImage = ImageIO.read(thumb.toFile());
+        assertEquals(320, thumbImage.getWidth());
+        assertEquals(160, thumbImage.getHeight());
+        assertEquals(1080, ImageIO.read(medium.toFile()).getWidth());
+        assertEquals(thumb, service.getDerivative(original, ImageDerivativeService.THUMB));
+
+        service.deleteDerivatives(original);
+        assertFalse(Files.exists(thumb));
+        assertFalse(Files.exists(medium));
+    }
+
+    @Test
+    void unsupportedTypesAndVariantsFallBackToOriginal() throws Exception {
+        assertNull(service.getDerivative(uploadDir.resolve("anim.gif"), ImageDerivativeService.THUMB));
+        assertNull(service.getDerivative(uploadDir.resolve("photo.jpg"), "huge"));
+
+        assertEquals("/uploads/images/a.gif", ImageDerivativeService.variantUrl("/uploads/images/a.gif", "thumb"));
+        assertEquals(List.of("/uploads/images/a.jpg?size=thumb"),
+                ImageDerivativeService.variantUrls(List.of("/uploads/images/a.jpg"), "thumb"));
+    }
+
+    @Test
+    void hugeDimensionsInTinyFileAreNotDecoded() throws Exception {
+        Path original = uploadDir.resolve("bomb.png");
+        Files.write(original, blankPng(30000, 30000));
+        assertTrue(Files.size(original) < 5 * 1024 * 1024);
+
+        service.scheduleDerivatives(original);
+
+        assertFalse(Files.exists(uploadDir.resolve("bomb_thumb.jpg")));
+        assertFalse(Files.exists(uploadDir.resolve("bomb_medium.jpg")));
+        assertNull(service.getDerivative(original, ImageDerivativeService.THUMB));
+    }
+
+    /**
+     * 全白的1位灰度PNG：像素数巨大但压缩后只有几百KB
+     */
+    private static byte[] blankPng(int width, int height) throws IOException {
+        ByteArrayOutputStream idat = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(idat, new Deflater(Deflater.BEST_COMPRESSION))) {
+            byte[] row = new byte[1 + (width + 7) / 8];
+            for (int y = 0; y < height; y++) {
+                deflater.write(row);
+            }
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(png);
+        out.write(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+        ByteArrayOutputStream ihdr = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(ihdr);
+        header.writeInt(width);
+        header.writeInt(height);
+        header.write(new byte[] {1, 0, 0, 0, 0});
+        writeChunk(out, "IHDR", ihdr.toByteArray());
+        writeChunk(out, "IDAT", idat.toByteArray());
+        writeChunk(out, "IEND", new byte[0]);
+        return png.toByteArray();
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+}
@@ -0,0 +1,54 @@
+package com.myeden.service;
+
+import com.myeden.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JWT服务单元测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class JwtServiceTest {
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        CacheConfig cacheConfig = new CacheConfig();
+        ReflectionTestUtils.setField(cacheConfig, "verifiedTokenCacheSize", 100L);
+
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "myeden-secret-key-2025-very-long-and-secure");
+        ReflectionTestUtils.setField(jwtService, "expiration", 60000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedTokenCache", cacheConfig.verifiedTokenCache());
+        jwtService.init();
+    }
+
+    @Test
+    void testExtractUserId_CachedAfterFirstVerification() {
+        String token = jwtService.generateToken("user_1");
+
+        assertEquals("user_1", jwtService.extractUserId(token));
+        assertTrue(jwtService.isTokenValid(token, "user_1"));
+        assertFalse(jwtService.isTokenExpired(token));
+    }
+
+    @Test
+    void testExtractUserId_TamperedTokenRejectedAfterCaching() {
+        String token = jwtService.generateToken("user_1");
+        jwtService.extractUserId(token);
+
+        // 替换载荷但保留原签名，不能命中缓存
+        String[] parts = token.split("\\.");
+        String other = jwtService.generateToken("user_2").split("\\.")[1];
+        String tampered = parts[0] + "." + other + "." + parts[2];
+
+        assertThrows(Exception.class, () -> jwtService.extractUserId(tampered));
+    }
+}
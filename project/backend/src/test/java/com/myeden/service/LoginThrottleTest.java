@@ -0,0 +1,55 @@
+package com.myeden.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 登录限流单元测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class LoginThrottleTest {
+
+    private LoginThrottle loginThrottle;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loginThrottle = new LoginThrottle();
+        ReflectionTestUtils.setField(loginThrottle, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(loginThrottle, "enabled", true);
+        ReflectionTestUtils.setField(loginThrottle, "phoneCapacity", 2);
+        ReflectionTestUtils.setField(loginThrottle, "phoneRefillPerMinute", 1);
+        ReflectionTestUtils.setField(loginThrottle, "ipCapacity", 3);
+        ReflectionTestUtils.setField(loginThrottle, "ipRefillPerMinute", 1);
+    }
+
+    @Test
+    void testAcquire_PhoneBucketExhausted() {
+        loginThrottle.acquire("13800138000", "10.0.0.1");
+        loginThrottle.acquire("13800138000", "10.0.0.1");
+
+        assertThrows(ThrottledException.class, () -> loginThrottle.acquire("13800138000", "10.0.0.1"));
+        assertEquals(1.0, meterRegistry.counter("auth.login.rejected", "reason", "phone").count());
+
+        // 其他手机号不受影响
+        loginThrottle.acquire("13900139000", "10.0.0.2");
+    }
+
+    @Test
+    void testAcquire_IpBucketSharedAcrossPhones() {
+        loginThrottle.acquire("13800000001", "10.0.0.1");
+        loginThrottle.acquire("13800000002", "10.0.0.1");
+        loginThrottle.acquire("13800000003", "10.0.0.1");
+
+        assertThrows(ThrottledException.class, () -> loginThrottle.acquire("13800000004", "10.0.0.1"));
+        assertEquals(1.0, meterRegistry.counter("auth.login.rejected", "reason", "ip").count());
+    }
+}
@@ -0,0 +1,163 @@
+package com.myeden.service;
+
+import com.myeden.entity.Comment;
+import com.myeden.entity.Post;
+import com.myeden.entity.User;
+import com.myeden.event.AuthorProfileChangedEvent;
+import com.myeden.event.CommentChangedEvent;
+import com.myeden.event.PostChangedEvent;
+import com.myeden.repository.CommentRepository;
+import com.myeden.repository.PostRepository;
+import com.myeden.repository.RobotRepository;
+import com.myeden.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 动态全文搜索索引单元测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@ExtendWith(MockitoExtension.class)
+class PostSearchIndexTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RobotRepository robotRepository;
+
+    @InjectMocks
+    private PostSearchIndex searchIndex;
+
+    @TempDir
+    Path indexDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(searchIndex, "enabled", true);
+        ReflectionTestUtils.setField(searchIndex, "indexPath", indexDir.toString());
+        ReflectionTestUtils.setField(searchIndex, "maxHits", 100);
+        searchIndex.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchIndex.close();
+    }
+
+    @Test
+    void testRebuild_StreamsCollectionsAndSearchesCjk() throws Exception {
+        User author = new User();
+        author.setUserId("user_1");
+        author.setNickname("小明");
+        when(userRepository.findByUserId("user_1")).thenReturn(Optional.of(author));
+        when(postRepository.streamAllActive()).thenReturn(Stream.of(
+            post("post_1", "今天的阳光真好，适合出去走走"),
+            post("post_2", "晚上下雨了")
+        ));
+        when(commentRepository.streamAllActive()).thenReturn(Stream.of(
+            comment("comment_1", "post_2", "雨天也很有阳光的心情")
+        ));
+
+        assertFalse(searchIndex.isAvailable());
+        searchIndex.rebuild();
+        assertTrue(searchIndex.isAvailable());
+
+        PostSearchIndex.IndexSearchResult content = searchIndex.search("阳光", "content", 1, 10);
+        assertEquals(List.of("post_1"), content.getPostIds());
+        assertTrue(content.getHighlights().get("post_1").contains("<em>"));
+
+        // 评论命中返回所属动态，排在动态本身命中之后
+        PostSearchIndex.IndexSearchResult all = searchIndex.search("阳光", "all", 1, 10);
+        assertEquals(List.of("post_1", "post_2"), all.getPostIds());
+
+        PostSearchIndex.IndexSearchResult byAuthor = searchIndex.search("小明", "author", 1, 10);
+        assertEquals(2, byAuthor.getTotal());
+    }
+
+    @Test
+    void testIncrementalUpdates_VisibleAfterRefresh() throws Exception {
+        when(postRepository.streamAllActive()).thenReturn(Stream.empty());
+        when(commentRepository.streamAllActive()).thenReturn(Stream.empty());
+        searchIndex.rebuild();
+
+        Post post = post("post_9", "周末去爬山了");
+        searchIndex.onPostChanged(PostChangedEvent.created(post));
+        searchIndex.onCommentChanged(CommentChangedEvent.created(comment("comment_9", "post_9", "山顶风景")));
+        searchIndex.refresh();
+        assertEquals(List.of("post_9"), searchIndex.search("爬山", "content", 1, 10).getPostIds());
+        assertEquals(List.of("post_9"), searchIndex.search("风景", "all", 1, 10).getPostIds());
+
+        searchIndex.onPostChanged(PostChangedEvent.deleted(post));
+        searchIndex.refresh();
+        assertEquals(0, searchIndex.search("爬山", "all", 1, 10).getTotal());
+        assertEquals(0, searchIndex.search("风景", "all", 1, 10).getTotal());
+    }
+
+    @Test
+    void testAuthorRenamed_SearchableUnderNewName() throws Exception {
+        User author = new User();
+        author.setUserId("user_1");
+        author.setNickname("小明");
+        when(userRepository.findByUserId("user_1")).thenReturn(Optional.of(author));
+        when(postRepository.streamAllActive()).thenReturn(Stream.of(post("post_1", "今天的阳光真好")));
+        when(commentRepository.streamAllActive()).thenReturn(Stream.empty());
+        searchIndex.rebuild();
+        searchIndex.onPostChanged(PostChangedEvent.created(post("post_2", "晚上下雨了")));
+
+        searchIndex.onAuthorProfileChanged(new AuthorProfileChangedEvent("user_1", "user", "大壮"));
+        searchIndex.refresh();
+
+        assertEquals(2, searchIndex.search("大壮", "author", 1, 10).getTotal());
+        assertEquals(0, searchIndex.search("小明", "author", 1, 10).getTotal());
+        assertEquals(List.of("post_1"), searchIndex.search("阳光", "content", 1, 10).getPostIds());
+    }
+
+    @Test
+    void testReopen_RebuildsWhenSchemaChanged() throws Exception {
+        when(postRepository.streamAllActive()).thenReturn(Stream.of(post("post_1", "今天的阳光真好")));
+        when(commentRepository.streamAllActive()).thenReturn(Stream.empty());
+        searchIndex.rebuild();
+        searchIndex.close();
+
+        searchIndex.init();
+        assertTrue(searchIndex.isAvailable());
+    }
+
+    private Post post(String postId, String content) {
+        Post post = new Post(postId, "user_1", "user", content);
+        post.setCreatedAt(LocalDateTime.now());
+        return post;
+    }
+
+    private Comment comment(String commentId, String postId, String content) {
+        Comment comment = new Comment(commentId, postId, "user_2", "user", content);
+        comment.setCreatedAt(LocalDateTime.now());
+        return comment;
+    }
+}
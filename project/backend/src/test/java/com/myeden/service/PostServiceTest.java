@@ -0,0 +1,301 @@
+package com.myeden.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.myeden.entity.Post;
+import com.myeden.entity.PostLike;
+import com.myeden.event.PostChangedEvent;
+import com.myeden.model.FeedCursor;
+import com.myeden.repository.PostLikeRepository;
+import com.myeden.repository.PostRepository;
+import com.myeden.repository.RobotRepository;
+import com.myeden.repository.UserRepository;
+import com.myeden.service.impl.PostServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 动态服务单元测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@ExtendWith(MockitoExtension.class)
+class PostServiceTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RobotRepository robotRepository;
+
+    @Mock
+    private PostLikeRepository postLikeRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PostSearchIndex postSearchIndex;
+
+    @Mock
+    private AuthorNameIndex authorNameIndex;
+
+    @InjectMocks
+    private PostServiceImpl postService;
+
+    private PostFeedCache postFeedCache;
+
+    private final LocalDateTime baseTime = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @BeforeEach
+    void setUp() {
+        Cache<String, Long> feedTotalCache = Caffeine.newBuilder().build();
+        ReflectionTestUtils.setField(postService, "feedTotalCache", feedTotalCache);
+
+        postFeedCache = new PostFeedCache();
+        ReflectionTestUtils.setField(postFeedCache, "hotPostsCache", Caffeine.newBuilder().<String, Object>build());
+        ReflectionTestUtils.setField(postFeedCache, "enabled", true);
+        ReflectionTestUtils.setField(postFeedCache, "maxPages", 3);
+        ReflectionTestUtils.setField(postService, "postFeedCache", postFeedCache);
+    }
+
+    @Test
+    void testGetPostFeed_FirstPageReturnsCursorWithoutCount() {
+        List<Post> fetched = Arrays.asList(
+            post("post_3", baseTime),
+            post("post_2", baseTime.minusSeconds(1)),
+            post("post_1", baseTime.minusSeconds(2))
+        );
+        when(postRepository.findFeedFirstPage(any(Pageable.class))).thenReturn(fetched);
+
+        PostService.PostFeedResult result = postService.getPostFeed(null, 2, null, false);
+
+        assertEquals(2, result.getPosts().size());
+        assertTrue(result.isHasMore());
+        assertNull(result.getTotal());
+        FeedCursor cursor = FeedCursor.decode(result.getNextCursor());
+        assertEquals(baseTime.minusSeconds(1), cursor.getCreatedAt());
+        assertEquals("post_2", cursor.getPostId());
+        verify(postRepository, never()).countByIsDeleted(any());
+    }
+
+    @Test
+    void testGetPostFeed_KeepsSameTimestampGroupOnOnePage() {
+        LocalDateTime tie = baseTime.minusSeconds(1);
+        List<Post> fetched = Arrays.asList(
+            post("post_4", baseTime),
+            post("post_3", tie),
+            post("post_2", tie)
+        );
+        when(postRepository.findFeedFirstPage(any(Pageable.class))).thenReturn(fetched);
+        when(postRepository.findFeedAt(tie)).thenReturn(Arrays.asList(
+            post("post_3", tie), post("post_2", tie), post("post_1", tie)
+        ));
+
+        PostService.PostFeedResult result = postService.getPostFeed(null, 2, null, false);
+
+        List<String> ids = result.getPosts().stream()
+            .map(PostService.PostSummary::getPostId)
+            .collect(Collectors.toList());
+        assertEquals(Arrays.asList("post_4", "post_3", "post_2", "post_1"), ids);
+    }
+
+    @Test
+    void testGetPostFeed_NextPageQueriesBeforeCursor() {
+        String cursor = new FeedCursor(baseTime, "post_9").encode();
+        when(postRepository.findFeedBefore(eq(baseTime), any(Pageable.class)))
+            .thenReturn(List.of(post("post_8", baseTime.minusSeconds(5))));
+        when(postRepository.countByIsDeleted(false)).thenReturn(42L);
+
+        PostService.PostFeedResult result = postService.getPostFeed(cursor, 10, null, true);
+
+        assertEquals(1, result.getPosts().size());
+        assertFalse(result.isHasMore());
+        assertNull(result.getNextCursor());
+        assertEquals(42L, result.getTotal());
+
+        // 总数来自缓存，第二次请求不再count
+        postService.getPostFeed(cursor, 10, null, true);
+        verify(postRepository, times(1)).countByIsDeleted(false);
+    }
+
+    @Test
+    void testGetPostFeed_InvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+            () -> postService.getPostFeed("not-a-cursor", 10, null, false));
+    }
+
+    @Test
+    void testGetPostFeed_FirstPageServedFromCacheUntilNewPost() {
+        when(postRepository.findFeedFirstPage(any(Pageable.class)))
+            .thenReturn(List.of(post("post_1", baseTime)));
+
+        postService.getPostFeed(null, 10, null, false);
+        postService.getPostFeed(null, 10, null, false);
+        verify(postRepository, times(1)).findFeedFirstPage(any(Pageable.class));
+
+        // 发布新动态后首页缓存失效
+        postFeedCache.onPostChanged(PostChangedEvent.created(post("post_2", baseTime.plusSeconds(1))));
+        postService.getPostFeed(null, 10, null, false);
+        verify(postRepository, times(2)).findFeedFirstPage(any(Pageable.class));
+    }
+
+    @Test
+    void testGetPostFeed_LoadOverlappingNewPostIsNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        when(postRepository.findFeedFirstPage(any(Pageable.class))).thenAnswer(invocation -> {
+            if (loads.incrementAndGet() == 1) {
+                // 第一次加载读到发布前的数据，并在返回前停住
+                loading.countDown();
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+                return List.of(post("post_1", baseTime));
+            }
+            return List.of(post("post_2", baseTime.plusSeconds(1)), post("post_1", baseTime));
+        });
+
+        CompletableFuture<PostService.PostFeedResult> stale =
+            CompletableFuture.supplyAsync(() -> postService.getPostFeed(null, 10, null, false));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        postFeedCache.onPostChanged(PostChangedEvent.created(post("post_2", baseTime.plusSeconds(1))));
+        release.countDown();
+        assertEquals(1, stale.get(5, TimeUnit.SECONDS).getPosts().size());
+
+        PostService.PostFeedResult result = postService.getPostFeed(null, 10, null, false);
+        assertEquals(2, result.getPosts().size());
+        verify(postRepository, times(2)).findFeedFirstPage(any(Pageable.class));
+    }
+
+    @Test
+    void testLikePost_PatchesCachedFirstPage() {
+        Post liked = post("post_1", baseTime);
+        when(postRepository.findFeedFirstPage(any(Pageable.class))).thenReturn(List.of(liked));
+        when(postRepository.findByPostIdAndIsDeletedFalse("post_1")).thenReturn(Optional.of(liked));
+        when(postLikeRepository.findByPostIdAndUserId("post_1", "user_2")).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            postFeedCache.onPostChanged(invocation.getArgument(0));
+            return null;
+        }).when(eventPublisher).publishEvent(any(PostChangedEvent.class));
+
+        postService.getPostFeed(null, 10, null, false);
+        assertTrue(postService.likePost("post_1", "user_2"));
+        verify(postLikeRepository).save(any(PostLike.class));
+
+        PostService.PostFeedResult result = postService.getPostFeed(null, 10, null, false);
+        assertEquals(1, result.getPosts().get(0).getLikeCount());
+        verify(postRepository, times(1)).findFeedFirstPage(any(Pageable.class));
+    }
+
+    @Test
+    void testSearchPosts_TextEngineUsesTextIndex() {
+        ReflectionTestUtils.setField(postService, "searchEngine", "text");
+        Page<Post> hits = new PageImpl<>(List.of(post("post_1", baseTime)));
+        when(postRepository.findByIsDeletedFalse(any(TextCriteria.class), any(Pageable.class))).thenReturn(hits);
+
+        PostService.PostListResult result = postService.searchPosts("阳光(真好", "content", 1, 10);
+
+        assertEquals(1, result.getPosts().size());
+        verify(postRepository, never()).findByContentKeywordAndIsDeletedFalse(any(), any());
+    }
+
+    @Test
+    void testSearchPosts_TextEngineAllMergesContentAndAuthorHits() {
+        ReflectionTestUtils.setField(postService, "searchEngine", "text");
+        when(postRepository.findByIsDeletedFalse(any(TextCriteria.class), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(post("post_2", baseTime))));
+        when(authorNameIndex.resolve("小明")).thenReturn(Set.of("user_1"));
+        when(postRepository.findByAuthorIdInAndIsDeletedFalse(eq(Set.of("user_1")), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(post("post_3", baseTime), post("post_2", baseTime))));
+
+        PostService.PostListResult result = postService.searchPosts("小明", "all", 1, 10);
+
+        // 内容命中在前，作者的其余动态在后，重复的动态只出现一次
+        assertEquals(List.of("post_2", "post_3"),
+            result.getPosts().stream().map(PostService.PostSummary::getPostId).collect(Collectors.toList()));
+        assertEquals(2, result.getTotal());
+    }
+
+    @Test
+    void testSearchPosts_TextEngineAllFindsAuthorOnlyHits() {
+        ReflectionTestUtils.setField(postService, "searchEngine", "text");
+        when(postRepository.findByIsDeletedFalse(any(TextCriteria.class), any(Pageable.class)))
+            .thenReturn(Page.empty());
+        when(authorNameIndex.resolve("小明")).thenReturn(Set.of("user_1"));
+        when(postRepository.findByAuthorIdInAndIsDeletedFalse(eq(Set.of("user_1")), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(post("post_1", baseTime))));
+
+        PostService.PostListResult result = postService.searchPosts("小明", "all", 1, 10);
+
+        assertEquals(1, result.getPosts().size());
+        assertEquals("post_1", result.getPosts().get(0).getPostId());
+    }
+
+    @Test
+    void testSearchPosts_AuthorResolvesNamesToIds() {
+        when(authorNameIndex.resolve("小明")).thenReturn(Set.of("user_1"));
+        when(postRepository.findByAuthorIdInAndIsDeletedFalse(eq(Set.of("user_1")), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(post("post_1", baseTime))));
+
+        PostService.PostListResult result = postService.searchPosts("小明", "author", 1, 10);
+
+        assertEquals(1, result.getPosts().size());
+        verify(postRepository, never()).findByAuthorKeywordAndIsDeletedFalse(any(), any());
+    }
+
+    @Test
+    void testGetPostSnapshot_SkipsLikesAndCommentTree() {
+        Post post = post("post_1", baseTime);
+        post.setImages(new ArrayList<>(List.of("/uploads/images/a.jpg")));
+        when(postRepository.findByPostIdAndIsDeletedFalse("post_1")).thenReturn(Optional.of(post));
+
+        PostService.PostDetail snapshot = postService.getPostSnapshot("post_1");
+
+        assertEquals("post_1", snapshot.getPostId());
+        assertEquals("user", snapshot.getAuthorType());
+        assertTrue(snapshot.getLikes().isEmpty());
+        assertTrue(snapshot.getComments().isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getImages().add("x"));
+        verifyNoInteractions(postLikeRepository);
+    }
+
+    private Post post(String postId, LocalDateTime createdAt) {
+        Post post = new Post(postId, "user_1", "user", "内容 " + postId);
+        post.setCreatedAt(createdAt);
+        post.setUpdatedAt(createdAt);
+        return post;
+    }
+}
@@ -0,0 +1,103 @@
+package com.myeden.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 提示词预算器测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class PromptBudgeterTest {
+
+    private PromptBudgeter budgeter;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        budgeter = new PromptBudgeter();
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(budgeter, "maxTokens", 200);
+        ReflectionTestUtils.setField(budgeter, "quotedMinTokens", 20);
+        ReflectionTestUtils.setField(budgeter, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    void testEstimateTokens() {
+        assertEquals(0, PromptBudgeter.estimateTokens(null));
+        assertEquals(4, PromptBudgeter.estimateTokens("今天天气"));
+        assertEquals(3, PromptBudgeter.estimateTokens("hello world"));
+        assertEquals(4, PromptBudgeter.estimateTokens("拍照 photo"));
+    }
+
+    @Test
+    void testWithinBudget_Unchanged() {
+        String result = budgeter.newPrompt("comment")
+            .add("你是小明。")
+            .add("\n- 喜欢摄影", PromptBudgeter.PERSONA, PromptBudgeter.Trim.DROP_LINES)
+            .add("\n动态：今天去海边了", PromptBudgeter.QUOTED, PromptBudgeter.Trim.TRUNCATE)
+            .build();
+
+        assertEquals("你是小明。\n- 喜欢摄影\n动态：今天去海边了", result);
+        assertEquals(0, meterRegistry.counter("ai.prompt.trimmed", "type", "comment").count());
+    }
+
+    @Test
+    void testOverBudget_TruncatesQuotedBeforePersona() {
+        String persona = "\n- 喜欢摄影\n- 喜欢旅行";
+        String longPost = "\n动态：" + "好".repeat(500);
+
+        String result = budgeter.newPrompt("comment")
+            .add("你是小明。")
+            .add(persona, PromptBudgeter.PERSONA, PromptBudgeter.Trim.DROP_LINES)
+            .add(longPost, PromptBudgeter.QUOTED, PromptBudgeter.Trim.TRUNCATE)
+            .add("\n请生成评论。")
+            .build();
+
+        assertTrue(result.startsWith("你是小明。" + persona));
+        assertTrue(result.endsWith("…（后略）\n请生成评论。"));
+        assertTrue(PromptBudgeter.estimateTokens(result) <= 200);
+        assertEquals(1, meterRegistry.counter("ai.prompt.trimmed", "type", "comment").count());
+        assertEquals(1, meterRegistry.summary("ai.prompt.tokens", "type", "comment", "stage", "raw").count());
+        assertTrue(meterRegistry.summary("ai.prompt.tokens", "type", "comment", "stage", "raw").max() > 500);
+    }
+
+    @Test
+    void testOverBudget_DropsPersonaLinesAfterQuotedMinimum() {
+        StringBuilder persona = new StringBuilder("\n## 背景");
+        for (int i = 0; i < 20; i++) {
+            persona.append("\n- 第").append(i).append("条背景信息内容");
+        }
+
+        String result = budgeter.newPrompt("post")
+            .add("你是小明。")
+            .add(persona.toString(), PromptBudgeter.PERSONA, PromptBudgeter.Trim.DROP_LINES)
+            .add("\n当前情况：" + "忙".repeat(300), PromptBudgeter.QUOTED, PromptBudgeter.Trim.TRUNCATE)
+            .build();
+
+        assertTrue(result.contains("\n## 背景\n- 第0条背景信息内容"));
+        assertFalse(result.contains("第19条背景信息内容"));
+        assertTrue(result.endsWith("…（后略）"));
+    }
+
+    @Test
+    void testOverBudget_DropLinesKeepsSectionHeader() {
+        StringBuilder persona = new StringBuilder("\n\n## 背景");
+        for (int i = 0; i < 20; i++) {
+            persona.append("\n- 第").append(i).append("条背景信息内容");
+        }
+
+        String result = budgeter.newPrompt("post")
+            .add("你是小明。" + "要".repeat(190))
+            .add(persona.toString(), PromptBudgeter.PERSONA, PromptBudgeter.Trim.DROP_LINES)
+            .build();
+
+        assertTrue(result.endsWith("\n\n## 背景"));
+    }
+}
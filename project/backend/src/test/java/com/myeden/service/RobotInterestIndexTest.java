@@ -0,0 +1,76 @@
+package com.myeden.service;
+
+import com.myeden.entity.Robot;
+import com.myeden.repository.RobotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 机器人兴趣索引测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@ExtendWith(MockitoExtension.class)
+class RobotInterestIndexTest {
+
+    @Mock
+    private RobotRepository robotRepository;
+
+    @InjectMocks
+    private RobotInterestIndex index;
+
+    private Robot photographer;
+    private Robot gamer;
+    private Robot cook;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "fallbackCount", 1);
+        photographer = robot("robot_001", List.of("摄影", "旅行"), "风景");
+        gamer = robot("robot_002", List.of("游戏", "动漫"), "电竞");
+        cook = robot("robot_003", List.of("美食"), "旅行");
+        when(robotRepository.findAll()).thenReturn(List.of(photographer, gamer, cook));
+        index.reload();
+    }
+
+    @Test
+    void testScore_WeightsInterestsAboveTopics() {
+        Map<String, Double> scores = index.score("周末去旅行，拍了很多风景照");
+
+        assertEquals(5.0, scores.get("robot_001"), 1e-9);
+        assertEquals(2.0, scores.get("robot_003"), 1e-9);
+        assertFalse(scores.containsKey("robot_002"));
+    }
+
+    @Test
+    void testSelectRelevant_TopKAmongCandidatesWithFallback() {
+        List<Robot> candidates = List.of(photographer, gamer, cook);
+
+        assertEquals(List.of(photographer), index.selectRelevant("旅行途中的风景", candidates, 1));
+        assertEquals(List.of(photographer, cook), index.selectRelevant("旅行途中的风景", candidates, 3));
+        // 不在候选中的机器人不会被选中
+        assertEquals(List.of(cook), index.selectRelevant("旅行途中的风景", List.of(gamer, cook), 3));
+        // 都不相关时随机兜底一个
+        assertEquals(1, index.selectRelevant("今天下雨了", candidates, 3).size());
+    }
+
+    private Robot robot(String robotId, List<String> interests, String topicName) {
+        Robot robot = new Robot(robotId, robotId);
+        robot.setInterests(interests);
+        robot.addTopic(topicName, 1, "");
+        return robot;
+    }
+}
@@ -0,0 +1,112 @@
+package com.myeden.service;
+
+import com.myeden.entity.Robot;
+import com.myeden.entity.RobotPostDraft;
+import com.myeden.model.ActiveSchedule;
+import com.myeden.repository.RobotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 机器人动态预生成池测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@ExtendWith(MockitoExtension.class)
+class RobotPostDraftPoolTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private RobotRepository robotRepository;
+
+    @Mock
+    private RobotQuotaLedger quotaLedger;
+
+    @Mock
+    private RobotBehaviorService robotBehaviorService;
+
+    @InjectMocks
+    private RobotPostDraftPool pool;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(pool, "enabled", true);
+        ReflectionTestUtils.setField(pool, "poolSize", 3);
+        ReflectionTestUtils.setField(pool, "peakStart", 19);
+        ReflectionTestUtils.setField(pool, "peakEnd", 24);
+        ReflectionTestUtils.setField(pool, "freshWindowMinutes", 90);
+    }
+
+    @Test
+    void testPickTargetTime_PrefersActivePeakMinutes() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 3, 0);
+        Robot nightOwl = new Robot("robot_001", "小艾");
+        nightOwl.addActiveTimeRange("18:00", "20:30");
+
+        for (int i = 0; i < 50; i++) {
+            LocalDateTime target = pool.pickTargetTime(nightOwl.getActiveSchedule(), now);
+            assertEquals(1, target.getDayOfMonth());
+            assertTrue(!target.toLocalTime().isBefore(LocalTime.of(19, 0))
+                && !target.toLocalTime().isAfter(LocalTime.of(20, 30)), target.toString());
+        }
+
+        // 高峰时段不活跃时退而选活跃时段
+        Robot earlyBird = new Robot("robot_002", "小雅");
+        earlyBird.addActiveTimeRange("06:00", "08:00");
+        LocalDateTime target = pool.pickTargetTime(earlyBird.getActiveSchedule(), now);
+        assertTrue(target.getHour() >= 6 && target.getHour() <= 8);
+
+        assertNotNull(pool.pickTargetTime(ActiveSchedule.ALWAYS, now));
+    }
+
+    @Test
+    void testFill_TopsUpToPoolSizeWithinDailyLimit() {
+        ReflectionTestUtils.setField(pool, "offPeakStart", 0);
+        ReflectionTestUtils.setField(pool, "offPeakEnd", 24);
+        Robot robot = new Robot("robot_001", "小艾");
+        when(robotRepository.findAll()).thenReturn(List.of(robot));
+        when(quotaLedger.limitOf(RobotQuotaLedger.QuotaType.POST)).thenReturn(2);
+        when(mongoTemplate.count(any(Query.class), eq(RobotPostDraft.class))).thenReturn(1L);
+        when(robotBehaviorService.generatePostDraft(eq(robot), any(LocalDateTime.class)))
+            .thenAnswer(invocation -> RobotPostDraft.builder().robotId("robot_001")
+                .targetTime(invocation.getArgument(1)).content("草稿").build());
+
+        pool.fill();
+
+        // 池大小3，每日上限2，已有1份，只补1份
+        verify(robotBehaviorService, times(1)).generatePostDraft(eq(robot), any(LocalDateTime.class));
+        verify(mongoTemplate, times(1)).insert(any(RobotPostDraft.class));
+    }
+
+    @Test
+    void testPopAndRestore_KeepsDraftWhenPublishFails() {
+        RobotPostDraft draft = RobotPostDraft.builder().id("draft_1").robotId("robot_001")
+            .targetTime(LocalDateTime.now()).content("草稿").build();
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(RobotPostDraft.class))).thenReturn(draft);
+
+        assertSame(draft, pool.pop("robot_001").orElseThrow());
+        pool.restore(draft);
+
+        verify(mongoTemplate).insert(draft);
+    }
+}
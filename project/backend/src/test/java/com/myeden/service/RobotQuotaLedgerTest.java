@@ -0,0 +1,116 @@
+package com.myeden.service;
+
+import com.myeden.config.RobotConfig;
+import com.myeden.entity.RobotDailyQuota;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 机器人每日配额账本测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@ExtendWith(MockitoExtension.class)
+class RobotQuotaLedgerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private RobotConfig robotConfig;
+
+    @InjectMocks
+    private RobotQuotaLedger ledger;
+
+    private final RobotConfig.BaseConfig baseConfig = new RobotConfig.BaseConfig();
+
+    @BeforeEach
+    void setUp() {
+        baseConfig.setMaxDailyPosts(2);
+        baseConfig.setMaxDailyComments(50);
+        baseConfig.setMaxDailyReplies(0);
+        lenient().when(robotConfig.getBaseConfig()).thenReturn(baseConfig);
+    }
+
+    @Test
+    void testTryAcquire_HonorsLimitAndRelease() {
+        assertTrue(ledger.tryAcquire("robot_001", RobotQuotaLedger.QuotaType.POST));
+        assertTrue(ledger.tryAcquire("robot_001", RobotQuotaLedger.QuotaType.POST));
+        assertFalse(ledger.tryAcquire("robot_001", RobotQuotaLedger.QuotaType.POST));
+        assertFalse(ledger.hasRemaining("robot_001", RobotQuotaLedger.QuotaType.POST));
+
+        // 生成失败归还配额
+        ledger.release("robot_001", RobotQuotaLedger.QuotaType.POST);
+        assertTrue(ledger.hasRemaining("robot_001", RobotQuotaLedger.QuotaType.POST));
+
+        // 上限为0表示不限制
+        for (int i = 0; i < 100; i++) {
+            assertTrue(ledger.tryAcquire("robot_001", RobotQuotaLedger.QuotaType.REPLY));
+        }
+        assertTrue(ledger.tryAcquire("robot_002", RobotQuotaLedger.QuotaType.POST));
+    }
+
+    @Test
+    void testTryAcquire_ConcurrentCallersNeverExceedLimit() throws Exception {
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            executor.execute(() -> {
+                if (ledger.tryAcquire("robot_001", RobotQuotaLedger.QuotaType.COMMENT)) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(50, granted.get());
+        assertEquals(50, ledger.getUsed("robot_001", RobotQuotaLedger.QuotaType.COMMENT));
+    }
+
+    @Test
+    void testCheckpointAndRestore_OnlyChangedRobotsWritten() {
+        String today = LocalDate.now().toString();
+        when(mongoTemplate.find(any(Query.class), eq(RobotDailyQuota.class))).thenReturn(List.of(
+            RobotDailyQuota.builder().robotId("robot_001").day(today).postCount(2).commentCount(7).replyCount(1).build()));
+        ledger.restore();
+
+        assertFalse(ledger.tryAcquire("robot_001", RobotQuotaLedger.QuotaType.POST));
+        assertEquals(7, ledger.getUsed("robot_001", RobotQuotaLedger.QuotaType.COMMENT));
+
+        // 只读取不写检查点
+        ledger.checkpoint();
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(RobotDailyQuota.class));
+
+        BulkOperations operations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RobotDailyQuota.class)).thenReturn(operations);
+        ledger.tryAcquire("robot_001", RobotQuotaLedger.QuotaType.COMMENT);
+        ledger.checkpoint();
+        ledger.checkpoint();
+
+        verify(operations, times(1)).upsert(any(Query.class), any(Update.class));
+        verify(operations, times(1)).execute();
+    }
+}
@@ -0,0 +1,106 @@
+package com.myeden.service;
+
+import com.myeden.entity.Robot;
+import com.myeden.model.ActiveSchedule;
+import com.myeden.repository.RobotRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 机器人唤醒调度测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@ExtendWith(MockitoExtension.class)
+class RobotWakeupSchedulerTest {
+
+    @Mock
+    private RobotRepository robotRepository;
+
+    @Mock
+    private RobotBehaviorService robotBehaviorService;
+
+    @InjectMocks
+    private RobotWakeupScheduler scheduler;
+
+    @Test
+    void testActiveSchedule_CompiledRangesAndTransitions() {
+        Robot robot = new Robot("robot_001", "小艾");
+        robot.addActiveTimeRange("08:00", "12:00");
+        robot.addActiveTimeRange("22:00", "01:30");
+        ActiveSchedule schedule = robot.getActiveSchedule();
+
+        assertFalse(schedule.isActiveAt(LocalTime.of(7, 59)));
+        assertTrue(schedule.isActiveAt(LocalTime.of(8, 0)));
+        assertTrue(schedule.isActiveAt(LocalTime.of(12, 0, 30)));
+        assertFalse(schedule.isActiveAt(LocalTime.of(12, 1)));
+        assertTrue(schedule.isActiveAt(LocalTime.of(23, 15)));
+        assertTrue(schedule.isActiveAt(LocalTime.of(1, 30)));
+        assertFalse(schedule.isActiveAt(LocalTime.of(1, 31)));
+
+        LocalDateTime morning = LocalDateTime.of(2024, 1, 1, 7, 10, 42);
+        assertEquals(LocalDateTime.of(2024, 1, 1, 8, 0), schedule.nextTransition(morning));
+        LocalDateTime night = LocalDateTime.of(2024, 1, 1, 23, 0);
+        assertEquals(LocalDateTime.of(2024, 1, 2, 1, 31), schedule.nextTransition(night));
+
+        assertSame(ActiveSchedule.ALWAYS, new Robot().getActiveSchedule());
+        assertNull(ActiveSchedule.ALWAYS.nextTransition(morning));
+    }
+
+    @Test
+    void testTimerWheel_ExpiresOnlyDueEntriesAcrossLaps() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 1000, 0);
+        wheel.schedule("soon", 3_000);
+        wheel.schedule("next-lap", 13_000);
+        wheel.schedule("overdue", -5_000);
+
+        assertEquals(List.of("overdue"), wheel.advance(1_000));
+        assertEquals(List.of("soon"), wheel.advance(5_000));
+        assertTrue(wheel.advance(12_999).isEmpty());
+        assertEquals(List.of("next-lap"), wheel.advance(60_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testStart_SyncsStatusAndSchedulesOnlyPlannedWakeups() {
+        ReflectionTestUtils.setField(scheduler, "actionProbability", 0.75);
+        ReflectionTestUtils.setField(scheduler, "aiTaskExecutor", (Executor) Runnable::run);
+
+        Robot alwaysOn = new Robot("robot_001", "小艾");
+        alwaysOn.setIsActive(false);
+        Robot offline = new Robot("robot_002", "小雅");
+        LocalTime now = LocalTime.now();
+        // 当前时刻之后两小时开始的时间段，当前不活跃
+        offline.addActiveTimeRange(now.plusHours(2).withSecond(0).toString().substring(0, 5),
+            now.plusHours(3).withSecond(0).toString().substring(0, 5));
+        offline.setIsActive(false);
+        when(robotRepository.findAll()).thenReturn(List.of(alwaysOn, offline));
+
+        scheduler.start();
+
+        verify(robotBehaviorService).updateRobotActiveStatus(alwaysOn, true);
+        verify(robotBehaviorService, never()).updateRobotActiveStatus(eq(offline), anyBoolean());
+        // 全天在线的机器人只有一个行为唤醒；离线机器人只有一个上线唤醒
+        assertEquals(2, scheduler.getPendingWakeups());
+
+        scheduler.tick();
+        verify(robotBehaviorService, never()).performScheduledAction(any());
+
+        scheduler.stop();
+        assertFalse(scheduler.isRunning());
+    }
+}
@@ -0,0 +1,50 @@
+package com.myeden.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 搜索分词工具单元测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class SearchTokenizerTest {
+
+    @Test
+    void testToIndexText_SplitsCjkIntoUnigramsAndBigrams() {
+        assertEquals("阳 阳光 光 光真 真 真好 好 hello 2024",
+                SearchTokenizer.toIndexText("阳光真好，Hello 2024!"));
+    }
+
+    @Test
+    void testToQueryTokens_EveryQueryTokenIsIndexed() {
+        String indexText = SearchTokenizer.toIndexText("今天的阳光真好，适合出去走走");
+        List<String> indexTokens = Arrays.asList(indexText.split(" "));
+
+        List<String> queryTokens = SearchTokenizer.toQueryTokens("阳光真好");
+        assertEquals(Arrays.asList("阳光", "光真", "真好"), queryTokens);
+        assertTrue(indexTokens.containsAll(queryTokens));
+
+        // 单字查询同样可以命中
+        assertTrue(indexTokens.containsAll(SearchTokenizer.toQueryTokens("走")));
+    }
+
+    @Test
+    void testToQueryTokens_IgnoresPunctuationOnlyInput() {
+        assertTrue(SearchTokenizer.toQueryTokens("？！…").isEmpty());
+    }
+
+    @Test
+    void testEscapeRegex_MatchesLiterally() {
+        String escaped = SearchTokenizer.escapeRegex("a.*(b)");
+        assertTrue(Pattern.compile(escaped).matcher("x a.*(b) y").find());
+        assertFalse(Pattern.compile(escaped).matcher("aXXb").find());
+    }
+}
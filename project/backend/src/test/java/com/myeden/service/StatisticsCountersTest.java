@@ -0,0 +1,112 @@
+package com.myeden.service;
+
+import com.myeden.entity.Post;
+import com.myeden.entity.User;
+import com.myeden.event.AuthorProfileChangedEvent;
+import com.myeden.repository.RobotRepository;
+import com.myeden.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 实时统计计数器单元测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StatisticsCountersTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RobotRepository robotRepository;
+
+    @InjectMocks
+    private StatisticsCounters statisticsCounters;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(statisticsCounters, "maxStaleness", 300000L);
+        ReflectionTestUtils.setField(statisticsCounters, "retryBackoff", 5000L);
+        ReflectionTestUtils.setField(statisticsCounters, "reconcileExecutor", (Executor) Runnable::run);
+        when(mongoTemplate.estimatedCount(User.class)).thenReturn(10L);
+        when(mongoTemplate.estimatedCount(Post.class)).thenReturn(50L);
+        when(userRepository.countByCreatedAtGreaterThanEqual(any())).thenReturn(2L);
+    }
+
+    @Test
+    void testRead_ServedFromMemoryAfterReconcile() {
+        assertEquals(10L, statisticsCounters.getTotalUsers());
+        assertEquals(50L, statisticsCounters.getTotalPosts());
+        assertEquals(10L, statisticsCounters.getTotalUsers());
+
+        // 陈旧时间内只校准一次
+        verify(mongoTemplate, times(1)).estimatedCount(User.class);
+    }
+
+    @Test
+    void testEvents_IncrementAndReconcileResetsBase() {
+        statisticsCounters.reconcile();
+        statisticsCounters.onAuthorProfileChanged(new AuthorProfileChangedEvent("user_1", "user", "小明", true));
+        statisticsCounters.onAuthorProfileChanged(new AuthorProfileChangedEvent("user_1", "user", "大壮"));
+
+        assertEquals(11L, statisticsCounters.getTotalUsers());
+        assertEquals(3L, statisticsCounters.getTodayRegisteredUsers());
+
+        // 数据库已包含新用户，校准后不重复计数
+        when(mongoTemplate.estimatedCount(User.class)).thenReturn(11L);
+        statisticsCounters.reconcile();
+        assertEquals(11L, statisticsCounters.getTotalUsers());
+    }
+
+    @Test
+    void testStaleRead_ReconcilesInBackgroundOnce() {
+        List<Runnable> submitted = new ArrayList<>();
+        ReflectionTestUtils.setField(statisticsCounters, "reconcileExecutor", (Executor) submitted::add);
+
+        // 校准进行中时读取不等待，也不重复提交
+        assertEquals(0L, statisticsCounters.getTotalUsers());
+        assertEquals(0L, statisticsCounters.getTotalPosts());
+        assertEquals(1, submitted.size());
+        verifyNoInteractions(mongoTemplate);
+
+        submitted.get(0).run();
+        assertEquals(10L, statisticsCounters.getTotalUsers());
+        assertEquals(1, submitted.size());
+    }
+
+    @Test
+    void testReconcileFailure_BacksOffInsteadOfRetryingEveryRead() {
+        when(mongoTemplate.estimatedCount(User.class)).thenThrow(new RuntimeException("mongo down"));
+
+        for (int i = 0; i < 5; i++) {
+            statisticsCounters.getTotalUsers();
+            statisticsCounters.getTotalPosts();
+        }
+
+        verify(mongoTemplate, times(1)).estimatedCount(User.class);
+    }
+}
@@ -0,0 +1,159 @@
+package com.myeden.service;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.UrlResource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 上传文件传输吞吐对比测试
+ * 对比原UrlResource流式复制、无sendfile时的分块复制，以及交给sendfile时应用侧的单请求开销
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Tag("benchmark")
+class UploadFileServerBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadFileServerBenchmarkTest.class);
+
+    private static final int WARMUP_ITERATIONS = 200;
+
+    private static final int MEASURE_ITERATIONS = 200;
+
+    private UploadFileServer server;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        server = new UploadFileServer();
+        ReflectionTestUtils.setField(server, "uploadPath", uploadDir.toString());
+        ReflectionTestUtils.setField(server, "cacheEnabled", true);
+        ReflectionTestUtils.setField(server, "maxCacheSize", 100);
+        ReflectionTestUtils.setField(server, "cacheTtlSeconds", 3600);
+        ReflectionTestUtils.setField(server, "sendfileEnabled", true);
+        server.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.shutdown();
+    }
+
+    @Test
+    void testTransferThroughput_SmallAndLargeFiles() throws Exception {
+        Map<String, Integer> samples = new LinkedHashMap<>();
+        samples.put("small.jpg", 8 * 1024);
+        samples.put("large.jpg", 4 * 1024 * 1024);
+
+        logger.info("=== 上传文件传输吞吐对比 ===");
+        logger.info(String.format("%-10s %10s %14s %14s %14s", "file", "size(KB)", "stream(MB/s)", "copy(MB/s)", "sendfile(MB/s)"));
+
+        Random random = new Random(42);
+        for (Map.Entry<String, Integer> entry : samples.entrySet()) {
+            byte[] content = new byte[entry.getValue()];
+            random.nextBytes(content);
+            Path file = uploadDir.resolve(entry.getKey());
+            Files.write(file, content);
+
+            UrlResource resource = new UrlResource(file.toUri());
+            double streamRate = measure(content.length, () -> {
+                CountingResponse response = new CountingResponse();
+                try (InputStream in = resource.getInputStream()) {
+                    StreamUtils.copy(in, response.getOutputStream());
+                }
+                return response.written;
+            });
+            double copyRate = measure(content.length, () -> {
+                CountingResponse response = new CountingResponse();
+                server.serve("/" + entry.getKey(), null, new MockHttpServletRequest("GET", "/uploads/" + entry.getKey()), response);
+                return response.written;
+            });
+            // sendfile由连接器在内核中完成，这里只计应用侧的处理开销
+            double sendfileRate = measure(content.length, () -> {
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + entry.getKey());
+                request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+                CountingResponse response = new CountingResponse();
+                server.serve("/" + entry.getKey(), null, request, response);
+                assertEquals(0, response.written);
+                return (Long) request.getAttribute("org.apache.tomcat.sendfile.end");
+            });
+
+            logger.info(String.format("%-10s %10d %14.1f %14.1f %14.1f",
+                    entry.getKey(), content.length / 1024, streamRate, copyRate, sendfileRate));
+        }
+    }
+
+    private double measure(int expectedBytes, Transfer transfer) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            assertEquals(expectedBytes, transfer.run());
+        }
+        long start = System.nanoTime();
+        long total = 0;
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            total += transfer.run();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return total / 1024.0 / 1024.0 / seconds;
+    }
+
+    @FunctionalInterface
+    private interface Transfer {
+        long run() throws Exception;
+    }
+
+    /**
+     * 只计数不保存内容的响应，避免测量结果被内存复制干扰
+     */
+    private static class CountingResponse extends MockHttpServletResponse {
+        private long written;
+
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                written++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written += len;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.myeden.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 上传文件传输服务测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class UploadFileServerTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    private UploadFileServer server;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(uploadDir.resolve("docs"));
+        Files.writeString(uploadDir.resolve("docs/a.txt"), CONTENT);
+
+        server = new UploadFileServer();
+        ReflectionTestUtils.setField(server, "uploadPath", uploadDir.toString());
+        ReflectionTestUtils.setField(server, "cacheEnabled", true);
+        ReflectionTestUtils.setField(server, "maxCacheSize", 100);
+        ReflectionTestUtils.setField(server, "cacheTtlSeconds", 3600);
+        ReflectionTestUtils.setField(server, "sendfileEnabled", true);
+        server.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.shutdown();
+    }
+
+    @Test
+    void servesWholeFileAndRevalidates() throws Exception {
+        MockHttpServletResponse response = serve(request("/docs/a.txt"));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(CONTENT.length(), response.getContentLengthLong());
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        String etag = response.getHeader("ETag");
+        assertNotNull(etag);
+
+        MockHttpServletRequest conditional = request("/docs/a.txt");
+        conditional.addHeader("If-None-Match", etag);
+        MockHttpServletResponse notModified = serve(conditional);
+        assertEquals(304, notModified.getStatus());
+        assertEquals(0, notModified.getContentAsByteArray().length);
+    }
+
+    @Test
+    void servesSingleByteRanges() throws Exception {
+        MockHttpServletRequest request = request("/docs/a.txt");
+        request.addHeader("Range", "bytes=5-9");
+        MockHttpServletResponse partial = serve(request);
+        assertEquals(206, partial.getStatus());
+        assertEquals("56789", partial.getContentAsString());
+        assertEquals("bytes 5-9/20", partial.getHeader("Content-Range"));
+
+        MockHttpServletRequest suffix = request("/docs/a.txt");
+        suffix.addHeader("Range", "bytes=-3");
+        assertEquals("hij", serve(suffix).getContentAsString());
+
+        MockHttpServletRequest unsatisfiable = request("/docs/a.txt");
+        unsatisfiable.addHeader("Range", "bytes=100-");
+        MockHttpServletResponse rejected = serve(unsatisfiable);
+        assertEquals(416, rejected.getStatus());
+        assertEquals("bytes */20", rejected.getHeader("Content-Range"));
+
+        // If-Range不匹配时返回完整内容
+        MockHttpServletRequest stale = request("/docs/a.txt");
+        stale.addHeader("Range", "bytes=5-9");
+        stale.addHeader("If-Range", "\"outdated\"");
+        MockHttpServletResponse full = serve(stale);
+        assertEquals(200, full.getStatus());
+        assertEquals(CONTENT, full.getContentAsString());
+    }
+
+    @Test
+    void handsOffToSendfileWhenContainerSupportsIt() throws Exception {
+        MockHttpServletRequest request = request("/docs/a.txt");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader("Range", "bytes=2-");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(uploadDir.resolve("docs/a.txt").toAbsolutePath().normalize().toString(),
+                request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(2L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(20L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    void rejectsMissingFilesAndTraversal() throws Exception {
+        assertEquals(404, serve(request("/docs/missing.txt")).getStatus());
+        assertEquals(404, serve(request("/../outside.txt")).getStatus());
+        assertEquals(404, serve(request("/docs")).getStatus());
+    }
+
+    private MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads" + path);
+        request.setAttribute("path", path);
+        return request;
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        server.serve((String) request.getAttribute("path"), null, request, response);
+        return response;
+    }
+}
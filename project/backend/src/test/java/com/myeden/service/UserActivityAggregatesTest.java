@@ -0,0 +1,127 @@
+package com.myeden.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.myeden.entity.Comment;
+import com.myeden.entity.Post;
+import com.myeden.entity.UserActivity;
+import com.myeden.event.PostChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用户活跃度聚合单元测试
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@ExtendWith(MockitoExtension.class)
+class UserActivityAggregatesTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private UserActivityAggregates userActivityAggregates;
+
+    @Test
+    void testPostCreated_ResetsTodayCountOnNewDay() {
+        // 同一天的递增未命中，跨天重置命中
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UserActivity.class)))
+            .thenReturn(UpdateResult.acknowledged(0, 0L, null))
+            .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        Post post = new Post();
+        post.setPostId("post_1");
+        post.setAuthorId("user_1");
+        post.setAuthorType("user");
+        post.setCreatedAt(LocalDateTime.now());
+        userActivityAggregates.onPostChanged(PostChangedEvent.created(post));
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), updates.capture(), eq(UserActivity.class));
+        List<Update> captured = updates.getAllValues();
+        assertTrue(captured.get(0).getUpdateObject().containsKey("$inc"));
+        assertEquals(LocalDate.now().toString(),
+            captured.get(1).getUpdateObject().get("$set", org.bson.Document.class).get("activityDay"));
+        assertEquals(1L, captured.get(1).getUpdateObject().get("$set", org.bson.Document.class).get("todayPosts"));
+    }
+
+    @Test
+    void testRobotPost_Ignored() {
+        Post post = new Post();
+        post.setPostId("post_1");
+        post.setAuthorId("robot_1");
+        post.setAuthorType("robot");
+        userActivityAggregates.onPostChanged(PostChangedEvent.created(post));
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testReconcile_WritesInBatchesAndZeroesByRunStamp() {
+        ReflectionTestUtils.setField(userActivityAggregates, "reconcileBatchSize", 2);
+        when(mongoTemplate.getCollectionName(Post.class)).thenReturn("posts");
+        when(mongoTemplate.getCollectionName(Comment.class)).thenReturn("comments");
+        Stream<Document> groups = Stream.of("user_1", "user_2", "user_3")
+            .map(userId -> new Document("_id", userId).append("totalPosts", 3).append("commentLikes", 5)
+                .append("lastActiveAt", new Date()));
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq("posts"), eq(Document.class))).thenReturn(groups);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(UserActivity.class))).thenReturn(bulk);
+
+        userActivityAggregates.reconcile();
+
+        // 评论并入同一条管道，只统计重建开始前创建的内容
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregateStream(aggregation.capture(), eq("posts"), eq(Document.class));
+        String pipeline = aggregation.getValue().toString();
+        assertTrue(pipeline.contains("$unionWith"));
+        assertTrue(pipeline.contains("\"createdAt\""));
+
+        // 3个用户按每批2个分两批写入；缺失时只插入，已有记录只在重建期间没有增量时覆盖
+        verify(bulk, times(2)).execute();
+        ArgumentCaptor<Update> insert = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(3)).upsert(any(Query.class), insert.capture());
+        Document inserted = insert.getAllValues().get(0).getUpdateObject().get("$setOnInsert", Document.class);
+        assertFalse(insert.getAllValues().get(0).getUpdateObject().containsKey("$set"));
+        assertEquals(3L, inserted.get("totalPosts"));
+        assertEquals(5L, inserted.get("commentLikes"));
+        ArgumentCaptor<Query> overwrite = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> overwriteUpdate = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(3)).updateOne(overwrite.capture(), overwriteUpdate.capture());
+        assertTrue(overwrite.getValue().getQueryObject().toString().contains("updatedAt"));
+        Object runStart = overwriteUpdate.getValue().getUpdateObject().get("$set", Document.class).get("reconciledAt");
+
+        // 归零按本次重建时间戳筛选，不携带用户ID列表
+        ArgumentCaptor<Query> zeroed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(zeroed.capture(), any(Update.class), eq(UserActivity.class));
+        String zeroedQuery = zeroed.getValue().getQueryObject().toString();
+        assertFalse(zeroedQuery.contains("$nin"));
+        assertTrue(zeroedQuery.contains("reconciledAt"));
+        assertTrue(zeroedQuery.contains("updatedAt"));
+        assertTrue(zeroedQuery.contains(runStart.toString()));
+    }
+}
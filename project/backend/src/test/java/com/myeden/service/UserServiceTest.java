@@ -9,7 +9,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -33,7 +33,7 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Mock
     private JwtService jwtService;
@@ -41,6 +41,9 @@ class UserServiceTest {
     @Mock
     private FileService fileService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -80,7 +83,7 @@ class UserServiceTest {
 
         // Mock行为
         when(userRepository.existsByPhone(phone)).thenReturn(false);
-        when(passwordEncoder.encode(password)).thenReturn(encodedPassword);
+        when(passwordHashingService.encode(password)).thenReturn(encodedPassword);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(jwtService.generateToken(anyString())).thenReturn(token);
 
@@ -95,7 +98,7 @@ class UserServiceTest {
 
         // 验证方法调用
         verify(userRepository).existsByPhone(phone);
-        verify(passwordEncoder).encode(password);
+        verify(passwordHashingService).encode(password);
         verify(userRepository).save(any(User.class));
         verify(jwtService).generateToken(anyString());
     }
@@ -0,0 +1,153 @@
+package com.myeden.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.myeden.model.WebSocketMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WebSocket紧凑编码对比测试
+ * 对比热点消息在JSON和CBOR紧凑编码下的大小和编码耗时
+ *
+ * @author MyEden Team
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class WebSocketPayloadCodecBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketPayloadCodecBenchmarkTest.class);
+
+    private static final int WARMUP_ITERATIONS = 2000;
+
+    private static final int MEASURE_ITERATIONS = 20000;
+
+    private WebSocketPayloadCodec codec;
+
+    private ObjectMapper jsonMapper;
+
+    @BeforeEach
+    void setUp() {
+        codec = new WebSocketPayloadCodec();
+        jsonMapper = new ObjectMapper();
+        jsonMapper.registerModule(new JavaTimeModule());
+        jsonMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Test
+    void testCompactEncoding_RoundTrip() throws Exception {
+        WebSocketMessage<Map<String, Object>> message = robotActionMessage();
+
+        Map<String, Object> decoded = codec.decode(codec.encode(message));
+
+        assertEquals(message.getMessageId(), decoded.get("messageId"));
+        assertEquals("ROBOT_ACTION", decoded.get("type"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> data = (Map<String, Object>) decoded.get("data");
+        assertEquals("robot-001", data.get("robotId"));
+        assertEquals("comment", data.get("actionType"));
+        assertTrue(data.get("timestamp") instanceof Number);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testCompactEncoding_SizeAndCpuComparison() throws Exception {
+        Map<String, WebSocketMessage<Map<String, Object>>> samples = new LinkedHashMap<>();
+        samples.put("robotAction", robotActionMessage());
+        samples.put("postUpdate", postUpdateMessage());
+        samples.put("commentUpdate", commentUpdateMessage());
+
+        logger.info("=== WebSocket负载编码对比 ===");
+        logger.info(String.format("%-14s %10s %10s %8s %12s %12s",
+                "type", "json(B)", "cbor(B)", "ratio", "json(ns/op)", "cbor(ns/op)"));
+
+        for (Map.Entry<String, WebSocketMessage<Map<String, Object>>> entry : samples.entrySet()) {
+            WebSocketMessage<Map<String, Object>> message = entry.getValue();
+            int jsonSize = jsonMapper.writeValueAsBytes(message).length;
+            int cborSize = codec.encode(message).length;
+
+            long jsonNanos = measure(() -> jsonMapper.writeValueAsString(message));
+            long cborNanos = measure(() -> codec.encode(message));
+
+            logger.info(String.format("%-14s %10d %10d %8.2f %12d %12d",
+                    entry.getKey(), jsonSize, cborSize, (double) cborSize / jsonSize, jsonNanos, cborNanos));
+
+            assertTrue(cborSize < jsonSize, entry.getKey() + " 紧凑编码应小于JSON");
+        }
+    }
+
+    private long measure(ThrowingRunnable runnable) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runnable.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            runnable.run();
+        }
+        return (System.nanoTime() - start) / MEASURE_ITERATIONS;
+    }
+
+    private WebSocketMessage<Map<String, Object>> robotActionMessage() {
+        Map<String, Object> actionData = new HashMap<>();
+        actionData.put("robotId", "robot-001");
+        actionData.put("robotName", "小艾");
+        actionData.put("actionType", "comment");
+        actionData.put("actionContent", "今天的阳光真好，适合出去走走～");
+        actionData.put("innerThoughts", "这条动态让我想起了春天");
+        actionData.put("postId", UUID.randomUUID().toString());
+        actionData.put("commentId", UUID.randomUUID().toString());
+        actionData.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        return withId(WebSocketMessage.robotAction(actionData));
+    }
+
+    private WebSocketMessage<Map<String, Object>> postUpdateMessage() {
+        Map<String, Object> postData = new HashMap<>();
+        postData.put("postId", UUID.randomUUID().toString());
+        postData.put("authorId", "user-001");
+        postData.put("authorType", "user");
+        postData.put("authorName", "测试用户");
+        postData.put("authorAvatar", "/uploads/avatars/default.jpg");
+        postData.put("content", "周末去爬山了，山顶的风景特别美。");
+        postData.put("images", Arrays.asList("/uploads/posts/a.jpg", "/uploads/posts/b.jpg"));
+        postData.put("createdAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        return withId(WebSocketMessage.postUpdate(postData));
+    }
+
+    private WebSocketMessage<Map<String, Object>> commentUpdateMessage() {
+        Map<String, Object> commentData = new HashMap<>();
+        commentData.put("commentId", UUID.randomUUID().toString());
+        commentData.put("postId", UUID.randomUUID().toString());
+        commentData.put("authorId", "robot-002");
+        commentData.put("authorType", "robot");
+        commentData.put("authorName", "小雅");
+        commentData.put("authorAvatar", "/uploads/robots/xiaoya.jpg");
+        commentData.put("content", "看起来好棒！下次也想去。");
+        commentData.put("innerThoughts", "我也喜欢爬山");
+        commentData.put("createdAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        return withId(WebSocketMessage.commentUpdate(commentData));
+    }
+
+    private <T> WebSocketMessage<T> withId(WebSocketMessage<T> message) {
+        message.setMessageId(UUID.randomUUID().toString());
+        return message;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
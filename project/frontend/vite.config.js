@@ -202,6 +202,8 @@ export default defineConfig({
       '/api': {
         target: 'http://localhost:38080',
         changeOrigin: true,
+        // 转发客户端IP，后端按真实IP限流
+        xfwd: true,
         rewrite: (path) => path.replace(/^\/api/, '/api')
       },
       '/ws': {